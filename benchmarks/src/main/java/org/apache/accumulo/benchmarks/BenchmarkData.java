@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+
+/**
+ * Generates synthetic, reproducible data for the benchmarks in this module. The shape of the data
+ * (number of rows, columns per row, field and value sizes) is configurable so that the same
+ * benchmark can be run against narrow tall tables and short wide rows. All data is derived from a
+ * fixed seed, so two runs of the same benchmark with the same parameters see identical input.
+ */
+public class BenchmarkData {
+
+  public static final long DEFAULT_SEED = 42L;
+
+  private final int rows;
+  private final int colsPerRow;
+  private final int rowLength;
+  private final int qualLength;
+  private final int valueSize;
+  private final int families;
+  private final long seed;
+
+  public BenchmarkData(int rows, int colsPerRow, int rowLength, int valueSize) {
+    this(rows, colsPerRow, rowLength, 8, valueSize, 4, DEFAULT_SEED);
+  }
+
+  public BenchmarkData(int rows, int colsPerRow, int rowLength, int qualLength, int valueSize,
+      int families, long seed) {
+    this.rows = rows;
+    this.colsPerRow = colsPerRow;
+    this.rowLength = rowLength;
+    this.qualLength = qualLength;
+    this.valueSize = valueSize;
+    this.families = families;
+    this.seed = seed;
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  public int getColsPerRow() {
+    return colsPerRow;
+  }
+
+  public int size() {
+    return rows * colsPerRow;
+  }
+
+  /**
+   * Creates a zero padded row id of the configured length. Padding keeps the rows sorted in the
+   * same order as their numeric ids and gives long shared prefixes, which is what real row ids
+   * tend to look like.
+   */
+  public String row(int r) {
+    String id = Integer.toString(r);
+    StringBuilder sb = new StringBuilder(Math.max(rowLength, id.length()));
+    for (int i = id.length(); i < rowLength; i++) {
+      sb.append('0');
+    }
+    return sb.append(id).toString();
+  }
+
+  public String family(int c) {
+    return "fam" + (c % families);
+  }
+
+  public String qualifier(int c) {
+    String id = Integer.toString(c);
+    StringBuilder sb = new StringBuilder(Math.max(qualLength, id.length()));
+    for (int i = id.length(); i < qualLength; i++) {
+      sb.append('0');
+    }
+    return sb.append(id).toString();
+  }
+
+  public Key key(int r, int c) {
+    return new Key(row(r), family(c), qualifier(c), "", 1000L + c);
+  }
+
+  /**
+   * @return all keys in sorted order
+   */
+  public List<Key> sortedKeys() {
+    return new ArrayList<>(sortedMap().keySet());
+  }
+
+  /**
+   * @return all key value pairs in sorted order
+   */
+  public TreeMap<Key,Value> sortedMap() {
+    Random random = new Random(seed);
+    TreeMap<Key,Value> map = new TreeMap<>();
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < colsPerRow; c++) {
+        map.put(key(r, c), value(random));
+      }
+    }
+    return map;
+  }
+
+  /**
+   * @return keys that exist in the data set, in a random but reproducible order
+   */
+  public List<Key> shuffledKeys(int count) {
+    Random random = new Random(seed);
+    List<Key> keys = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      keys.add(key(random.nextInt(rows), random.nextInt(colsPerRow)));
+    }
+    return keys;
+  }
+
+  /**
+   * Splits the data set into batches of mutations, one mutation per row, with rows assigned to
+   * batches in a random but reproducible order.
+   */
+  public List<List<Mutation>> mutationBatches(int batchSize) {
+    Random random = new Random(seed);
+    List<Integer> order = new ArrayList<>(rows);
+    for (int r = 0; r < rows; r++) {
+      order.add(r);
+    }
+    Collections.shuffle(order, random);
+
+    List<List<Mutation>> batches = new ArrayList<>();
+    List<Mutation> batch = new ArrayList<>(batchSize);
+    for (int r : order) {
+      Mutation m = new Mutation(row(r));
+      for (int c = 0; c < colsPerRow; c++) {
+        m.put(family(c), qualifier(c), 1000L + c, value(random));
+      }
+      batch.add(m);
+      if (batch.size() == batchSize) {
+        batches.add(batch);
+        batch = new ArrayList<>(batchSize);
+      }
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+    return batches;
+  }
+
+  private Value value(Random random) {
+    byte[] val = new byte[valueSize];
+    for (int i = 0; i < val.length; i++) {
+      val[i] = (byte) ('a' + random.nextInt(26));
+    }
+    return new Value(val);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.accumulo.core.client.admin.compaction.CompactableFile;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.metadata.CompactableFileImpl;
+import org.apache.accumulo.core.spi.compaction.CompactionJob;
+import org.apache.accumulo.core.spi.compaction.CompactionKind;
+import org.apache.accumulo.core.spi.compaction.CompactorGroupId;
+import org.apache.accumulo.core.util.compaction.CompactionJobImpl;
+import org.apache.accumulo.manager.compaction.queue.CompactionJobQueues;
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of assigning a compaction job to a compactor when many compactors request
+ * jobs from the same resource group at once. Each benchmark thread acts as a compactor polling the
+ * queue and, when the queue is empty, as the tablet group watcher queuing a batch of jobs for new
+ * tablets. Compare the {@code shards} parameter values to see the effect of splitting the queue.
+ * The thread count can be changed with {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1000)
+@Fork(1)
+public class CompactionQueueBenchmark {
+
+  private static final CompactorGroupId GROUP = CompactorGroupId.of("bench");
+
+  @Param({"1", "16"})
+  public int shards;
+
+  @Param({"64"})
+  public int batchSize;
+
+  private CompactionJobQueues queues;
+  private List<CompactableFile> files;
+  private final AtomicLong nextTablet = new AtomicLong();
+
+  @Setup
+  public void setup() throws Exception {
+    queues = new CompactionJobQueues(64 * 1024 * 1024, shards);
+    files = List.of(new CompactableFileImpl(new URI("hdfs://nn/accumulo/tables/1/t-1/F1.rf"),
+        1024, 10));
+  }
+
+  private void queueBatch() {
+    for (int i = 0; i < batchSize; i++) {
+      long tablet = nextTablet.getAndIncrement();
+      var extent = new KeyExtent(TableId.of("1"), new Text(String.format("%016x", tablet + 1)),
+          new Text(String.format("%016x", tablet)));
+      CompactionJob job =
+          new CompactionJobImpl((short) (tablet % 100), GROUP, files, CompactionKind.SYSTEM);
+      queues.add(extent, List.of(job));
+    }
+  }
+
+  @Benchmark
+  public CompactionJob assignJob() {
+    CompactionJob job = queues.poll(GROUP);
+    while (job == null) {
+      queueBatch();
+      job = queues.poll(GROUP);
+    }
+    return job;
+  }
+}
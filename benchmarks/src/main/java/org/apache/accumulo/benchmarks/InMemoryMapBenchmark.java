@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.tserver.InMemoryMap;
+import org.apache.accumulo.tserver.InMemoryMap.MemoryIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link InMemoryMap#mutate(List, int)} throughput. Run with {@code -t N} to see how
+ * writes from N concurrent sessions to the same tablet scale. Each invocation applies one batch of
+ * mutations, and the map is replaced at the start of every iteration so it does not grow without
+ * bound. Native maps are disabled so that only the java implementation is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryMapBenchmark {
+
+  @Param({"10000"})
+  public int rows;
+
+  @Param({"1", "10"})
+  public int colsPerRow;
+
+  @Param({"100"})
+  public int batchSize;
+
+  @Param({"64"})
+  public int valueSize;
+
+  @Param({""})
+  public String localityGroups;
+
+  private ConfigurationCopy config;
+  private List<List<Mutation>> batches;
+  private final AtomicInteger nextBatch = new AtomicInteger();
+  private InMemoryMap map;
+
+  @Setup
+  public void setup() throws IOException {
+    config = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    config.set(Property.TSERV_NATIVEMAP_ENABLED, "false");
+    config.set(Property.TSERV_MEMDUMP_DIR,
+        Files.createTempDirectory("imm-bench").toAbsolutePath().toString());
+    if (!localityGroups.isEmpty()) {
+      // each group holds a single family, e.g. "fam0,fam1"
+      for (String group : localityGroups.split(",")) {
+        config.set(Property.TABLE_LOCALITY_GROUP_PREFIX.getKey() + group, group);
+      }
+      config.set(Property.TABLE_LOCALITY_GROUPS, localityGroups);
+    }
+    batches = new BenchmarkData(rows, colsPerRow, 16, valueSize).mutationBatches(batchSize);
+  }
+
+  @Setup(Level.Iteration)
+  public void newMap() {
+    // the server context is only used when dumping or minor compacting the map
+    map = new InMemoryMap(config, null, TableId.of("bench"));
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteMap() {
+    map.delete(0);
+  }
+
+  @Benchmark
+  public void mutate() {
+    List<Mutation> batch =
+        batches.get(Math.floorMod(nextBatch.getAndIncrement(), batches.size()));
+    map.mutate(batch, batch.size() * colsPerRow);
+  }
+
+  /**
+   * Measures a full scan of a map that is populated once per iteration.
+   */
+  @State(Scope.Benchmark)
+  public static class Populated {
+    InMemoryMap map;
+
+    @Setup(Level.Iteration)
+    public void populate(InMemoryMapBenchmark bench) {
+      map = new InMemoryMap(bench.config, null, TableId.of("bench"));
+      for (List<Mutation> batch : bench.batches) {
+        map.mutate(batch, batch.size() * bench.colsPerRow);
+      }
+    }
+
+    @TearDown(Level.Iteration)
+    public void delete() {
+      map.delete(0);
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void scan(Populated populated, Blackhole bh) throws IOException {
+    MemoryIterator iter = populated.map.skvIterator(null);
+    try {
+      iter.seek(new Range(), Set.of(), false);
+      while (iter.hasTop()) {
+        bh.consume(iter.getTopKey());
+        iter.next();
+      }
+    } finally {
+      iter.close();
+    }
+  }
+}
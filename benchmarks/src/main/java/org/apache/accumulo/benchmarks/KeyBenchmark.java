@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link Key#compareTo(Key)} and {@link Key#compareTo(Key, PartialKey)} over adjacent
+ * keys in sorted order. Adjacent keys share long prefixes, which is the worst case for the byte
+ * comparisons done when merging and seeking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyBenchmark {
+
+  @Param({"1000"})
+  public int rows;
+
+  @Param({"10"})
+  public int colsPerRow;
+
+  @Param({"16", "64"})
+  public int rowLength;
+
+  private Key[] keys;
+
+  @Setup
+  public void setup() {
+    List<Key> sorted = new BenchmarkData(rows, colsPerRow, rowLength, 1).sortedKeys();
+    keys = sorted.toArray(new Key[0]);
+  }
+
+  @Benchmark
+  public void compareAdjacent(Blackhole bh) {
+    for (int i = 1; i < keys.length; i++) {
+      bh.consume(keys[i - 1].compareTo(keys[i]));
+    }
+  }
+
+  @Benchmark
+  public void compareAdjacentRow(Blackhole bh) {
+    for (int i = 1; i < keys.length; i++) {
+      bh.consume(keys[i - 1].compareTo(keys[i], PartialKey.ROW));
+    }
+  }
+
+  @Benchmark
+  public void compareAdjacentRowColFam(Blackhole bh) {
+    for (int i = 1; i < keys.length; i++) {
+      bh.consume(keys[i - 1].compareTo(keys[i], PartialKey.ROW_COLFAM));
+    }
+  }
+
+  @Benchmark
+  public void equalsSelfCopy(Blackhole bh) {
+    for (Key key : keys) {
+      bh.consume(key.equals(new Key(key), PartialKey.ROW_COLFAM_COLQUAL_COLVIS_TIME_DEL));
+    }
+  }
+}
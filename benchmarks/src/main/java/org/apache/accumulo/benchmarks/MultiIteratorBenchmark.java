@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.MultiIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.SortedMapIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures merging several sorted sources through {@link MultiIterator} (and therefore the
+ * HeapIterator it extends). The data set is dealt round robin across the sources so every call to
+ * next() has to consult the heap, which is the pattern seen when a tablet has many small files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiIteratorBenchmark {
+
+  @Param({"1", "4", "32"})
+  public int sources;
+
+  @Param({"1000"})
+  public int rows;
+
+  @Param({"10"})
+  public int colsPerRow;
+
+  @Param({"16"})
+  public int valueSize;
+
+  private List<TreeMap<Key,Value>> maps;
+  private List<Key> seekKeys;
+
+  @Setup
+  public void setup() {
+    BenchmarkData data = new BenchmarkData(rows, colsPerRow, 16, valueSize);
+    maps = new ArrayList<>(sources);
+    for (int i = 0; i < sources; i++) {
+      maps.add(new TreeMap<>());
+    }
+    int i = 0;
+    for (Entry<Key,Value> entry : data.sortedMap().entrySet()) {
+      maps.get(i++ % sources).put(entry.getKey(), entry.getValue());
+    }
+    seekKeys = data.shuffledKeys(100);
+  }
+
+  private MultiIterator newIterator() {
+    List<SortedKeyValueIterator<Key,Value>> iters = new ArrayList<>(sources);
+    for (TreeMap<Key,Value> map : maps) {
+      iters.add(new SortedMapIterator(map));
+    }
+    return new MultiIterator(iters, false);
+  }
+
+  @Benchmark
+  public void fullScan(Blackhole bh) throws IOException {
+    MultiIterator iter = newIterator();
+    iter.seek(new Range(), Set.of(), false);
+    while (iter.hasTop()) {
+      bh.consume(iter.getTopKey());
+      bh.consume(iter.getTopValue());
+      iter.next();
+    }
+  }
+
+  @Benchmark
+  public void randomSeeks(Blackhole bh) throws IOException {
+    MultiIterator iter = newIterator();
+    for (Key key : seekKeys) {
+      iter.seek(new Range(key, null), Set.of(), false);
+      bh.consume(iter.getTopKey());
+    }
+  }
+}
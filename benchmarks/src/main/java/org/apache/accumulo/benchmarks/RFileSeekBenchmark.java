@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.crypto.CryptoFactoryLoader;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.metadata.UnreferencedTabletFile;
+import org.apache.accumulo.core.spi.crypto.CryptoService;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link RFile.Reader} seeks against an RFile written to the local file system. The file
+ * is opened without a block cache so that every seek decodes the index and data blocks it needs,
+ * which approximates a cold random read workload without the cost of remote I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RFileSeekBenchmark {
+
+  @Param({"100000"})
+  public int rows;
+
+  @Param({"1", "10"})
+  public int colsPerRow;
+
+  @Param({"64"})
+  public int valueSize;
+
+  @Param({"none", "gz"})
+  public String compression;
+
+  @Param({"100K"})
+  public String blockSize;
+
+  private List<Key> seekKeys;
+  private FileSKVIterator reader;
+  private File dir;
+
+  @Setup
+  public void setup() throws IOException {
+    BenchmarkData data = new BenchmarkData(rows, colsPerRow, 16, valueSize);
+
+    ConfigurationCopy acuconf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    acuconf.set(Property.TABLE_FILE_COMPRESSION_TYPE, compression);
+    acuconf.set(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE, blockSize);
+
+    Configuration conf = new Configuration();
+    FileSystem fs = FileSystem.getLocal(conf);
+    dir = Files.createTempDirectory("rfile-bench").toFile();
+    Path file = new Path(new File(dir, "bench." + RFile.EXTENSION).getAbsolutePath());
+    CryptoService cs = CryptoFactoryLoader.getServiceForServer(acuconf);
+
+    FileSKVWriter writer = FileOperations.getInstance().newWriterBuilder()
+        .forFile(UnreferencedTabletFile.of(fs, file), fs, conf, cs)
+        .withTableConfiguration(acuconf).build();
+    writer.startDefaultLocalityGroup();
+    for (Entry<Key,Value> entry : data.sortedMap().entrySet()) {
+      writer.append(entry.getKey(), entry.getValue());
+    }
+    writer.close();
+
+    reader = FileOperations.getInstance().newReaderBuilder()
+        .forFile(UnreferencedTabletFile.of(fs, file), fs, conf, cs)
+        .withTableConfiguration(acuconf).build();
+    seekKeys = data.shuffledKeys(1000);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    reader.close();
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        Files.deleteIfExists(f.toPath());
+      }
+    }
+    Files.deleteIfExists(dir.toPath());
+  }
+
+  @Benchmark
+  public void randomSeeks(Blackhole bh) throws IOException {
+    for (Key key : seekKeys) {
+      reader.seek(new Range(key, true, key, true), Set.of(), false);
+      bh.consume(reader.getTopKey());
+    }
+  }
+
+  @Benchmark
+  public void scanThousandEntries(Blackhole bh) throws IOException {
+    reader.seek(new Range(seekKeys.get(0).getRow(), null), Set.of(), false);
+    for (int i = 0; i < 1000 && reader.hasTop(); i++) {
+      bh.consume(reader.getTopValue());
+      reader.next();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.file.rfile.RelativeKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures encoding and decoding a sorted run of keys with {@link RelativeKey}, the same way an
+ * RFile data block is written and read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RelativeKeyBenchmark {
+
+  @Param({"100"})
+  public int rows;
+
+  @Param({"1", "10", "100"})
+  public int colsPerRow;
+
+  @Param({"16"})
+  public int rowLength;
+
+  private List<Key> keys;
+  private byte[] encoded;
+
+  @Setup
+  public void setup() throws IOException {
+    keys = new BenchmarkData(rows, colsPerRow, rowLength, 1).sortedKeys();
+    encoded = encode();
+  }
+
+  private byte[] encode() throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(baos)) {
+      Key prev = null;
+      for (Key key : keys) {
+        new RelativeKey(prev, key).write(out);
+        prev = key;
+      }
+    }
+    return baos.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] encodeBlock() throws IOException {
+    return encode();
+  }
+
+  @Benchmark
+  public void decodeBlock(Blackhole bh) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+      RelativeKey rk = new RelativeKey();
+      for (int i = 0; i < keys.size(); i++) {
+        rk.readFields(in);
+        bh.consume(rk.getKey());
+      }
+    }
+  }
+}
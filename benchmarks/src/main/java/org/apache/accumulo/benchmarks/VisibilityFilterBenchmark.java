@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.access.AccessEvaluator;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.SortedMapIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.VisibilityFilter;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the per key cost of filtering on column visibility. Every invocation of
+ * {@link #newScanSession} creates a new {@link VisibilityFilter}, as a new scan session would, so
+ * its own cache starts cold and only the evaluations shared across sessions can be reused.
+ * {@link #perFilterCacheOnly} is the baseline it replaces, a new scan session that only has its own
+ * cold LRU cache of evaluations. {@link #evaluateEveryKey} evaluates each expression without any
+ * caching, which is the cost a cold cache pays per distinct expression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VisibilityFilterBenchmark {
+
+  private static final int KEYS = 10_000;
+
+  // the size of the cache each filter kept before evaluations were shared across scan sessions
+  private static final int FILTER_CACHE_SIZE = 1000;
+
+  private static final String[] LABELS = {"A", "B", "C", "D", "E", "F", "G", "H"};
+
+  @Param({"10", "500"})
+  public int distinctVisibilities;
+
+  private TreeMap<Key,Value> data;
+  private byte[][] visibilities;
+  private Authorizations auths;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(BenchmarkData.DEFAULT_SEED);
+    String[] expressions = new String[distinctVisibilities];
+    for (int i = 0; i < expressions.length; i++) {
+      expressions[i] = LABELS[random.nextInt(LABELS.length)] + "&("
+          + LABELS[random.nextInt(LABELS.length)] + "|" + LABELS[random.nextInt(LABELS.length)]
+          + ")|(" + LABELS[random.nextInt(LABELS.length)] + "&" + i + ")";
+    }
+
+    BenchmarkData keys = new BenchmarkData(KEYS / 10, 10, 16, 16);
+    data = new TreeMap<>();
+    visibilities = new byte[KEYS][];
+    int i = 0;
+    for (Key key : keys.sortedKeys()) {
+      String vis = expressions[random.nextInt(expressions.length)];
+      visibilities[i++] = vis.getBytes(UTF_8);
+      data.put(new Key(key.getRow(), key.getColumnFamily(), key.getColumnQualifier(),
+          new Text(vis), key.getTimestamp()), new Value());
+    }
+    auths = new Authorizations("A", "C", "E", "G");
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(KEYS)
+  public void newScanSession(Blackhole bh) throws IOException {
+    SortedKeyValueIterator<Key,Value> filter =
+        VisibilityFilter.wrap(new SortedMapIterator(data), auths, new byte[0]);
+    filter.seek(new Range(), Set.of(), false);
+    while (filter.hasTop()) {
+      bh.consume(filter.getTopKey());
+      filter.next();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(KEYS)
+  public void perFilterCacheOnly(Blackhole bh) throws IOException {
+    AccessEvaluator evaluator = AccessEvaluator.of(auths.toAccessAuthorizations());
+    Map<ByteSequence,Boolean> cache = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ByteSequence,Boolean> eldest) {
+        return size() > FILTER_CACHE_SIZE;
+      }
+    };
+    SortedKeyValueIterator<Key,Value> source = new SortedMapIterator(data);
+    source.seek(new Range(), Set.of(), false);
+    ArrayByteSequence visibility = new ArrayByteSequence(new byte[0]);
+    while (source.hasTop()) {
+      Key key = source.getTopKey();
+      key.getColumnVisibilityData(visibility);
+      Boolean accept = cache.get(visibility);
+      if (accept == null) {
+        ArrayByteSequence copy = new ArrayByteSequence(visibility);
+        accept = evaluator.canAccess(copy.toArray());
+        cache.put(copy, accept);
+      }
+      if (accept) {
+        bh.consume(key);
+      }
+      source.next();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(KEYS)
+  public void evaluateEveryKey(Blackhole bh) {
+    AccessEvaluator evaluator = AccessEvaluator.of(auths.toAccessAuthorizations());
+    for (byte[] visibility : visibilities) {
+      bh.consume(evaluator.canAccess(visibility));
+    }
+  }
+}
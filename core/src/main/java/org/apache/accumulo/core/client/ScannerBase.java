@@ -22,6 +22,8 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.stream.Stream;
@@ -29,6 +31,7 @@ import java.util.stream.StreamSupport;
 
 import org.apache.accumulo.core.client.IteratorSetting.Column;
 import org.apache.accumulo.core.client.sample.SamplerConfiguration;
+import org.apache.accumulo.core.clientImpl.ScanPublisher;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.security.Authorizations;
@@ -394,4 +397,24 @@ public interface ScannerBase extends Iterable<Entry<Key,Value>>, AutoCloseable {
     return StreamSupport.stream(this.spliterator(), false);
   }
 
+  /**
+   * Returns a publisher that reads this scanner's results asynchronously. Each subscription runs
+   * its own scan, using the scanner settings in effect when this method was called. The calls that
+   * fetch batches from the server run on the given executor, so the thread subscribing and
+   * requesting entries is never blocked. While the subscriber consumes one batch the next batch is
+   * fetched. Canceling the subscription closes the scan.
+   *
+   * <p>
+   * Entries are delivered in the same order as this scanner's iterator. Batch scanners and other
+   * scanners without a batch oriented implementation read their iterator on the executor.
+   *
+   * @param executor runs the calls that fetch batches. These calls block while waiting for the
+   *        server, so this should not be an executor shared with CPU bound work.
+   * @return a publisher of the key-value pairs of this scanner
+   * @since 4.0.0
+   */
+  default Flow.Publisher<Entry<Key,Value>> publisher(Executor executor) {
+    return ScanPublisher.fromIterator(this::iterator, executor);
+  }
+
 }
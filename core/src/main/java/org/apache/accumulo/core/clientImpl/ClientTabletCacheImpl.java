@@ -31,13 +31,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
 import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -68,8 +70,6 @@ import org.slf4j.LoggerFactory;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-
 public class ClientTabletCacheImpl extends ClientTabletCache {
 
   private static final Logger log = LoggerFactory.getLogger(ClientTabletCacheImpl.class);
@@ -95,16 +95,20 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
 
   protected final TableId tableId;
   protected final ClientTabletCache parent;
-  protected final TreeMap<Text,CachedTablet> metaCache = new TreeMap<>(END_ROW_COMPARATOR);
+  // Readers look up tablets in this map without locking. All modifications are made while holding
+  // wLock, so a reader may briefly see a tablet missing while an overlapping tablet is replaced, in
+  // which case it falls back to a locked lookup.
+  protected final ConcurrentSkipListMap<Text,CachedTablet> metaCache =
+      new ConcurrentSkipListMap<>(END_ROW_COMPARATOR);
   protected final CachedTabletObtainer tabletObtainer;
   private final TabletServerLockChecker lockChecker;
   protected final Text lastTabletRow;
 
-  private final TreeSet<KeyExtent> badExtents = new TreeSet<>();
-  private final HashSet<String> badServers = new HashSet<>();
-  private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
-  private final Lock rLock = rwLock.readLock();
-  private final Lock wLock = rwLock.writeLock();
+  // Invalidations are queued in these concurrent sets without locking and processed under wLock by
+  // the next thread that uses the cache.
+  private final ConcurrentSkipListSet<KeyExtent> badExtents = new ConcurrentSkipListSet<>();
+  private final Set<String> badServers = ConcurrentHashMap.newKeySet();
+  private final ReentrantLock wLock = new ReentrantLock();
   private final AtomicLong tabletHostingRequestCount = new AtomicLong(0);
 
   public interface CachedTabletObtainer {
@@ -204,27 +208,24 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
 
     LockCheckerSession lcSession = new LockCheckerSession();
 
-    rLock.lock();
-    try {
-      processInvalidated(context, lcSession);
+    processInvalidated(context, lcSession);
 
-      // for this to be efficient rows need to be in sorted order, but always sorting is slow...
-      // therefore only sort the
-      // stuff not in the cache.... it is most efficient to pass _locateTablet rows in sorted order
+    // for this to be efficient rows need to be in sorted order, but always sorting is slow...
+    // therefore only sort the
+    // stuff not in the cache.... it is most efficient to pass _locateTablet rows in sorted order
 
-      // For this to be efficient, need to avoid fine grained synchronization and fine grained
-      // logging.
-      // Therefore methods called by this are not synchronized and should not log.
+    // For this to be efficient, need to avoid fine grained synchronization and fine grained
+    // logging.
+    // Therefore methods called by this are not synchronized and should not log. The cache is read
+    // without a lock and the row buffer is reused, so binning a mutation found in the cache does
+    // not allocate.
 
-      for (T mutation : mutations) {
-        row.set(mutation.getRow());
-        CachedTablet tl = findTabletInCache(row);
-        if (!addMutation(binnedMutations, mutation, tl, lcSession)) {
-          notInCache.add(mutation);
-        }
+    for (T mutation : mutations) {
+      row.set(mutation.getRow());
+      CachedTablet tl = findTabletInCache(row);
+      if (!addMutation(binnedMutations, mutation, tl, lcSession)) {
+        notInCache.add(mutation);
       }
-    } finally {
-      rLock.unlock();
     }
 
     HashSet<CachedTablet> locationLess = new HashSet<>();
@@ -362,9 +363,7 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
       while (tl.getExtent().endRow() != null
           && !range.afterEndKey(new Key(tl.getExtent().endRow()).followingKey(PartialKey.ROW))) {
         if (useCache) {
-          Text row = new Text(tl.getExtent().endRow());
-          row.append(new byte[] {0}, 0, 1);
-          tl = lcSession.checkLock(findTabletInCache(row));
+          tl = lcSession.checkLock(findTabletInCacheAfter(tl.getExtent().endRow()));
         } else {
           tl = _findTablet(context, tl.getExtent().endRow(), true, false, false, lcSession,
               locationNeed, cacheCutoffTimer);
@@ -425,21 +424,15 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
 
     LockCheckerSession lcSession = new LockCheckerSession();
 
-    List<Range> failures;
-    rLock.lock();
-    try {
-      processInvalidated(context, lcSession);
+    processInvalidated(context, lcSession);
 
-      // for this to be optimal, need to look ranges up in sorted order when
-      // ranges are not present in cache... however do not want to always
-      // sort ranges... therefore try binning ranges using only the cache
-      // and sort whatever fails and retry
+    // for this to be optimal, need to look ranges up in sorted order when
+    // ranges are not present in cache... however do not want to always
+    // sort ranges... therefore try binning ranges using only the cache
+    // and sort whatever fails and retry
 
-      failures = findTablets(context, ranges, rangeConsumer, true, lcSession, locationNeed,
-          keyExtent -> {});
-    } finally {
-      rLock.unlock();
-    }
+    List<Range> failures = findTablets(context, ranges, rangeConsumer, true, lcSession,
+        locationNeed, keyExtent -> {});
 
     if (!failures.isEmpty()) {
       // sort failures by range start key
@@ -479,12 +472,7 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
 
   @Override
   public void invalidateCache(KeyExtent failedExtent) {
-    wLock.lock();
-    try {
-      badExtents.add(failedExtent);
-    } finally {
-      wLock.unlock();
-    }
+    badExtents.add(failedExtent);
     if (log.isTraceEnabled()) {
       log.trace("Invalidated extent={}", failedExtent);
     }
@@ -492,12 +480,7 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
 
   @Override
   public void invalidateCache(Collection<KeyExtent> keySet) {
-    wLock.lock();
-    try {
-      badExtents.addAll(keySet);
-    } finally {
-      wLock.unlock();
-    }
+    badExtents.addAll(keySet);
     if (log.isTraceEnabled()) {
       log.trace("Invalidated {} cache entries for table {}", keySet.size(), tableId);
     }
@@ -506,12 +489,7 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
   @Override
   public void invalidateCache(ClientContext context, String server) {
 
-    wLock.lock();
-    try {
-      badServers.add(server);
-    } finally {
-      wLock.unlock();
-    }
+    badServers.add(server);
 
     lockChecker.invalidateCache(server);
 
@@ -791,13 +769,9 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
       er = MAX_TEXT;
     }
     metaCache.put(er, cachedTablet);
-
-    if (!badExtents.isEmpty()) {
-      removeOverlapping(badExtents, cachedTablet.getExtent());
-    }
   }
 
-  static void removeOverlapping(TreeMap<Text,CachedTablet> metaCache, KeyExtent nke) {
+  static void removeOverlapping(NavigableMap<Text,CachedTablet> metaCache, KeyExtent nke) {
     Iterator<Entry<Text,CachedTablet>> iter;
 
     if (nke.prevEndRow() == null) {
@@ -832,12 +806,6 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
     return row;
   }
 
-  static void removeOverlapping(TreeSet<KeyExtent> extents, KeyExtent nke) {
-    for (KeyExtent overlapping : KeyExtent.findOverlapping(nke, extents)) {
-      extents.remove(overlapping);
-    }
-  }
-
   private CachedTablet findTabletInCache(Text row) {
 
     Entry<Text,CachedTablet> entry = metaCache.ceilingEntry(row);
@@ -851,6 +819,23 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
     return null;
   }
 
+  /**
+   * Finds the cached tablet that follows the given end row. This is equivalent to looking up the
+   * row formed by appending a zero byte to the end row, without creating that row.
+   */
+  private CachedTablet findTabletInCacheAfter(Text endRow) {
+
+    Entry<Text,CachedTablet> entry = metaCache.higherEntry(endRow);
+
+    if (entry != null) {
+      KeyExtent ke = entry.getValue().getExtent();
+      if (ke.prevEndRow() == null || ke.prevEndRow().compareTo(endRow) <= 0) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
   /**
    * @param cacheCutoffTimer Tablets w/o locations are cached. When LocationNeed is REQUIRED, this
    *        Timer value is used to determine if cached entries w/o a location should be used or of
@@ -868,16 +853,7 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
 
     CachedTablet tl;
 
-    if (lock) {
-      rLock.lock();
-      try {
-        tl = processInvalidatedAndCheckLock(context, lcSession, row);
-      } finally {
-        rLock.unlock();
-      }
-    } else {
-      tl = processInvalidatedAndCheckLock(context, lcSession, row);
-    }
+    tl = processInvalidatedAndCheckLock(context, lcSession, row);
 
     if (tl == null || (locationNeed == LocationNeed.REQUIRED && tl.getTserverLocation().isEmpty()
         && cacheCutoffTimer.startedAfter(tl.getCreationTimer()))) {
@@ -913,8 +889,6 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
     return lcSession.checkLock(findTabletInCache(row));
   }
 
-  @SuppressFBWarnings(value = {"UL_UNRELEASED_LOCK", "UL_UNRELEASED_LOCK_EXCEPTION_PATH"},
-      justification = "locking is confusing, but probably correct")
   private void processInvalidated(ClientContext context, LockCheckerSession lcSession)
       throws AccumuloSecurityException, AccumuloException, TableNotFoundException,
       InvalidTabletHostingRequestException {
@@ -923,30 +897,34 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
       return;
     }
 
-    final boolean writeLockHeld = rwLock.isWriteLockedByCurrentThread();
+    final boolean writeLockHeld = wLock.isHeldByCurrentThread();
+    if (!writeLockHeld) {
+      wLock.lock();
+    }
     try {
-      if (!writeLockHeld) {
-        rLock.unlock();
-        wLock.lock();
-        if (badExtents.isEmpty() && badServers.isEmpty()) {
-          return;
-        }
+      if (badExtents.isEmpty() && badServers.isEmpty()) {
+        return;
       }
 
-      List<Range> lookups = new ArrayList<>(badExtents.size());
+      // extents invalidated while this runs are left for the next call
+      List<KeyExtent> extents = new ArrayList<>(badExtents);
+      List<Range> lookups = new ArrayList<>(extents.size());
 
-      for (KeyExtent be : badExtents) {
+      for (KeyExtent be : extents) {
         lookups.add(be.toMetaRange());
         removeOverlapping(metaCache, be);
       }
+      badExtents.removeAll(extents);
 
       if (!badServers.isEmpty()) {
+        // servers invalidated while this runs are left for the next call
+        Set<String> servers = new HashSet<>(badServers);
         int removedCount = 0;
         var locationIterator = metaCache.values().iterator();
         while (locationIterator.hasNext()) {
           var cacheEntry = locationIterator.next();
           if (cacheEntry.getTserverLocation().isPresent()
-              && badServers.contains(cacheEntry.getTserverLocation().orElseThrow())) {
+              && servers.contains(cacheEntry.getTserverLocation().orElseThrow())) {
             locationIterator.remove();
             lookups.add(cacheEntry.getExtent().toMetaRange());
             removedCount++;
@@ -955,10 +933,10 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
 
         if (log.isTraceEnabled()) {
           log.trace("Invalidated {} cache entries for table {} related to servers {}", removedCount,
-              tableId, badServers);
+              tableId, servers);
         }
 
-        badServers.clear();
+        badServers.removeAll(servers);
       }
 
       lookups = Range.mergeOverlapping(lookups);
@@ -983,7 +961,6 @@ public class ClientTabletCacheImpl extends ClientTabletCache {
       }
     } finally {
       if (!writeLockHeld) {
-        rLock.lock();
         wLock.unlock();
       }
     }
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+
+/**
+ * A {@link Flow.Publisher} of the entries of a scan. Every subscription reads the batches of its
+ * own scan using a {@link BatchReader} and the reads run on the executor given to the publisher.
+ * When a batch is handed to the subscriber the read of the next batch is started, so the round trip
+ * for the next batch overlaps with the subscriber consuming the current one. No thread waits for
+ * the subscriber to request more entries or for a batch to arrive.
+ */
+public class ScanPublisher implements Flow.Publisher<Entry<Key,Value>> {
+
+  /**
+   * Reads the batches of a single scan. A reader is only used by one thread at a time.
+   */
+  public interface BatchReader {
+    /**
+     * @return the next batch of entries or an empty list when there are no more entries
+     */
+    List<? extends Entry<Key,Value>> read() throws Exception;
+
+    /**
+     * Called once when the subscription completes, fails or is canceled. Never called while a read
+     * is running.
+     */
+    void close();
+  }
+
+  // the number of entries read from an iterator per batch by fromIterator()
+  static final int ITERATOR_BATCH_SIZE = 1000;
+
+  private final Supplier<BatchReader> readerFactory;
+  private final Executor executor;
+
+  public ScanPublisher(Supplier<BatchReader> readerFactory, Executor executor) {
+    this.readerFactory = Objects.requireNonNull(readerFactory);
+    this.executor = Objects.requireNonNull(executor);
+  }
+
+  /**
+   * Creates a publisher that reads batches from the iterators created by the supplier. This is used
+   * for scanners that do not have a batch oriented implementation.
+   */
+  public static ScanPublisher fromIterator(Supplier<Iterator<Entry<Key,Value>>> iterators,
+      Executor executor) {
+    return new ScanPublisher(() -> new BatchReader() {
+      private Iterator<Entry<Key,Value>> iterator = null;
+
+      @Override
+      public List<? extends Entry<Key,Value>> read() {
+        if (iterator == null) {
+          iterator = iterators.get();
+        }
+        List<Entry<Key,Value>> batch = new ArrayList<>();
+        while (batch.size() < ITERATOR_BATCH_SIZE && iterator.hasNext()) {
+          batch.add(iterator.next());
+        }
+        return batch;
+      }
+
+      @Override
+      public void close() {}
+    }, executor);
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super Entry<Key,Value>> subscriber) {
+    Objects.requireNonNull(subscriber);
+    BatchReader reader;
+    try {
+      reader = readerFactory.get();
+    } catch (RuntimeException e) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {}
+
+        @Override
+        public void cancel() {}
+      });
+      subscriber.onError(e);
+      return;
+    }
+    subscriber.onSubscribe(new ScanSubscription(subscriber, reader));
+  }
+
+  private class ScanSubscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super Entry<Key,Value>> subscriber;
+    private final BatchReader reader;
+
+    private final AtomicLong demand = new AtomicLong(0);
+    // Counts the calls to drain() that have not been handled yet. Only the thread that increments
+    // this from zero runs the drain loop, so the subscriber is always signaled serially.
+    private final AtomicInteger wip = new AtomicInteger(0);
+    private final AtomicBoolean terminated = new AtomicBoolean(false);
+    private volatile boolean canceled = false;
+    private volatile Throwable requestError = null;
+
+    // the following are only accessed by the thread running the drain loop
+    private Iterator<? extends Entry<Key,Value>> current = Collections.emptyIterator();
+    private CompletableFuture<List<? extends Entry<Key,Value>>> pending = null;
+    private CompletableFuture<?> awaited = null;
+
+    ScanSubscription(Flow.Subscriber<? super Entry<Key,Value>> subscriber, BatchReader reader) {
+      this.subscriber = subscriber;
+      this.reader = reader;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        requestError = new IllegalArgumentException("Requested " + n + " entries, must be > 0");
+      } else {
+        demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      canceled = true;
+      drain();
+    }
+
+    private CompletableFuture<List<? extends Entry<Key,Value>>> readAsync() {
+      return CompletableFuture.supplyAsync(() -> {
+        try {
+          return reader.read();
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new CompletionException(e);
+        }
+      }, executor);
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+
+      int missed = 1;
+      while (emit()) {
+        missed = wip.addAndGet(-missed);
+        if (missed == 0) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Signals the subscriber as far as the current demand and available entries allow.
+     *
+     * @return false if the subscription has terminated
+     */
+    private boolean emit() {
+      while (true) {
+        if (terminated.get()) {
+          return false;
+        }
+
+        if (canceled) {
+          terminate();
+          return false;
+        }
+
+        Throwable error = requestError;
+        if (error != null) {
+          terminate();
+          subscriber.onError(error);
+          return false;
+        }
+
+        long requested = demand.get();
+        if (requested == 0) {
+          return true;
+        }
+
+        if (current.hasNext()) {
+          Entry<Key,Value> entry = current.next();
+          if (requested != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+          }
+          subscriber.onNext(entry);
+          continue;
+        }
+
+        if (pending == null) {
+          pending = readAsync();
+        }
+
+        if (!pending.isDone()) {
+          if (awaited != pending) {
+            // run the drain loop again once the batch arrives
+            awaited = pending;
+            pending.whenComplete((batch, e) -> drain());
+          }
+          return true;
+        }
+
+        List<? extends Entry<Key,Value>> batch;
+        try {
+          batch = pending.join();
+        } catch (CompletionException | CancellationException e) {
+          terminate();
+          subscriber.onError(e.getCause() == null ? e : e.getCause());
+          return false;
+        }
+
+        if (batch.isEmpty()) {
+          terminate();
+          subscriber.onComplete();
+          return false;
+        }
+
+        current = batch.iterator();
+        // start reading the next batch while the subscriber consumes this one
+        pending = readAsync();
+      }
+    }
+
+    private void terminate() {
+      if (terminated.compareAndSet(false, true)) {
+        current = Collections.emptyIterator();
+        if (pending != null && !pending.isDone()) {
+          // do not close the reader while it is reading
+          pending.whenComplete((batch, e) -> reader.close());
+        } else {
+          reader.close();
+        }
+      }
+    }
+  }
+}
@@ -24,12 +24,16 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import java.time.Duration;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyValue;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.data.Value;
@@ -172,6 +176,40 @@ public class ScannerImpl extends ScannerOptions implements Scanner {
     return iter;
   }
 
+  @Override
+  public synchronized Flow.Publisher<Entry<Key,Value>> publisher(Executor executor) {
+    ensureOpen();
+    // capture the current settings, like iterator() does when it is called
+    final Range scanRange = range;
+    final int batchSize = size;
+    final boolean scanIsolated = isolated;
+    final long scanReadahead = readaheadThreshold;
+    final ScannerOptions options = new ScannerOptions(this);
+    final Duration timeout = Duration.ofMillis(getTimeout(MILLISECONDS));
+
+    return new ScanPublisher(() -> {
+      ScannerIterator iter;
+      synchronized (ScannerImpl.this) {
+        ensureOpen();
+        // client side read ahead is disabled because the publisher reads the next batch itself
+        iter = new ScannerIterator(context, tableId, authorizations, scanRange, batchSize, timeout,
+            options, scanIsolated, scanReadahead, false, new Reporter());
+        iters.put(iter, iterCount++);
+      }
+      return new ScanPublisher.BatchReader() {
+        @Override
+        public List<KeyValue> read() {
+          return iter.readNextBatch();
+        }
+
+        @Override
+        public void close() {
+          iter.close();
+        }
+      };
+    }, executor);
+  }
+
   @Override
   public Authorizations getAuthorizations() {
     ensureOpen();
@@ -64,6 +64,8 @@ public class ScannerIterator implements Iterator<Entry<Key,Value>> {
 
   private long batchCount = 0;
   private final long readaheadThreshold;
+  // false when the caller reads ahead itself, the threshold is still passed to the server
+  private final boolean clientReadAhead;
 
   private final ScannerImpl.Reporter reporter;
 
@@ -74,9 +76,17 @@ public class ScannerIterator implements Iterator<Entry<Key,Value>> {
   ScannerIterator(ClientContext context, TableId tableId, Authorizations authorizations,
       Range range, int size, Duration timeOut, ScannerOptions options, boolean isolated,
       long readaheadThreshold, ScannerImpl.Reporter reporter) {
+    this(context, tableId, authorizations, range, size, timeOut, options, isolated,
+        readaheadThreshold, true, reporter);
+  }
+
+  ScannerIterator(ClientContext context, TableId tableId, Authorizations authorizations,
+      Range range, int size, Duration timeOut, ScannerOptions options, boolean isolated,
+      long readaheadThreshold, boolean clientReadAhead, ScannerImpl.Reporter reporter) {
     this.context = context;
     this.timeOut = timeOut;
     this.readaheadThreshold = readaheadThreshold;
+    this.clientReadAhead = clientReadAhead;
 
     this.options = new ScannerOptions(options);
 
@@ -93,7 +103,7 @@ public class ScannerIterator implements Iterator<Entry<Key,Value>> {
         options.executionHints, options.getConsistencyLevel() == ConsistencyLevel.EVENTUAL);
 
     // If we want to start readahead immediately, don't wait for hasNext to be called
-    if (readaheadThreshold == 0L) {
+    if (clientReadAhead && readaheadThreshold == 0L) {
       initiateReadAhead();
     }
     iter = null;
@@ -127,6 +137,24 @@ public class ScannerIterator implements Iterator<Entry<Key,Value>> {
     throw new NoSuchElementException();
   }
 
+  /**
+   * Reads the next batch on the calling thread, returning an empty list when the scan is finished.
+   * This is used by {@link ScanPublisher}, which reads ahead on its own, so it must only be called
+   * when this iterator was created with client read ahead disabled.
+   */
+  List<KeyValue> readNextBatch() {
+    Preconditions.checkState(!clientReadAhead);
+    if (finished) {
+      return Collections.emptyList();
+    }
+    List<KeyValue> batch = getNextBatch();
+    if (batch.isEmpty()) {
+      finished = true;
+      reporter.finished(this);
+    }
+    return batch;
+  }
+
   void close() {
     // setting this so that some errors can be ignored
     scanState.closeInitiated = true;
@@ -193,7 +221,7 @@ public class ScannerIterator implements Iterator<Entry<Key,Value>> {
     if (!nextBatch.isEmpty()) {
       batchCount++;
 
-      if (batchCount > readaheadThreshold) {
+      if (clientReadAhead && batchCount > readaheadThreshold) {
         // start a thread to read the next batch
         initiateReadAhead();
       }
@@ -49,6 +49,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -88,6 +89,7 @@ import org.apache.thrift.transport.TTransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.net.HostAndPort;
 
@@ -113,6 +115,14 @@ import io.opentelemetry.context.Scope;
  * Memory accounting
  *   + when a mutation enters the system memory is incremented
  *   + when a mutation successfully leaves the system memory is decremented
+ *
+ * Concurrent producers
+ *   + added mutations go into a buffer chosen by thread, so threads sharing a
+ *     batch writer do not contend on a single lock when adding
+ *   + memory counters are atomic, the writer's monitor is only taken to wait
+ *     for memory, to queue buffered mutations, or to flush and close
+ *   + adding holds a shared lock that flush and close take exclusively to
+ *     change state, so no add is in progress when they drain the buffers
  */
 public class TabletServerBatchWriter implements AutoCloseable {
 
@@ -126,9 +136,11 @@ public class TabletServerBatchWriter implements AutoCloseable {
   private final Durability durability;
 
   // state
-  private boolean flushing;
-  private boolean closed;
-  private MutationSet mutations;
+  private volatile boolean flushing;
+  private volatile boolean closed;
+  private final MutationBuffer[] buffers;
+  private final AtomicLong bufferedMemUsed = new AtomicLong(0);
+  private final ReentrantReadWriteLock addLock = new ReentrantReadWriteLock();
 
   // background writer
   private final MutationWriter writer;
@@ -140,15 +152,15 @@ public class TabletServerBatchWriter implements AutoCloseable {
       Collections.synchronizedMap(new HashMap<>());
 
   // stats
-  private long totalMemUsed = 0;
+  private final AtomicLong totalMemUsed = new AtomicLong(0);
   private long lastProcessingStartTime;
 
-  private long totalAdded = 0;
+  private final AtomicLong totalAdded = new AtomicLong(0);
   private final AtomicLong totalSent = new AtomicLong(0);
   private final AtomicLong totalBinned = new AtomicLong(0);
   private final AtomicLong totalBinTime = new AtomicLong(0);
   private final AtomicLong totalSendTime = new AtomicLong(0);
-  private long startTime = 0;
+  private volatile long startTime = 0;
   private long initialGCTimes;
   private long initialCompileTimes;
   private double initialSystemLoad;
@@ -217,7 +229,12 @@ public class TabletServerBatchWriter implements AutoCloseable {
     this.maxLatency = config.getMaxLatency(MILLISECONDS) <= 0 ? Long.MAX_VALUE
         : config.getMaxLatency(MILLISECONDS);
     this.timeout = config.getTimeout(MILLISECONDS);
-    this.mutations = new MutationSet();
+    // a power of two number of buffers so a thread's buffer can be selected with a mask
+    int numBuffers = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+    this.buffers = new MutationBuffer[numBuffers];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = new MutationBuffer();
+    }
     this.lastProcessingStartTime = System.currentTimeMillis();
     this.durability = config.getDurability();
 
@@ -241,21 +258,52 @@ public class TabletServerBatchWriter implements AutoCloseable {
   }
 
   private synchronized void startProcessing() {
+    if (bufferedMemUsed.get() == 0) {
+      return;
+    }
+
+    MutationSet mutations = new MutationSet();
+    for (MutationBuffer buffer : buffers) {
+      buffer.drainTo(mutations);
+    }
+    bufferedMemUsed.addAndGet(-mutations.getMemoryUsed());
+
     if (mutations.getMemoryUsed() == 0) {
       return;
     }
     lastProcessingStartTime = System.currentTimeMillis();
+    queueMutations(mutations);
+  }
+
+  /**
+   * Hands mutations taken from the buffers to the background threads that send them.
+   */
+  @VisibleForTesting
+  void queueMutations(MutationSet mutations) {
     writer.queueMutations(mutations);
-    mutations = new MutationSet();
   }
 
-  private synchronized void decrementMemUsed(long amount) {
-    totalMemUsed -= amount;
-    this.notifyAll();
+  /**
+   * @return the memory used by mutations that were added and not yet successfully sent
+   */
+  @VisibleForTesting
+  long getMemoryUsed() {
+    return totalMemUsed.get();
   }
 
-  public synchronized void addMutation(TableId table, Mutation m)
-      throws MutationsRejectedException {
+  @VisibleForTesting
+  void decrementMemUsed(long amount) {
+    totalMemUsed.addAndGet(-amount);
+    synchronized (this) {
+      this.notifyAll();
+    }
+  }
+
+  private boolean mustWaitToAdd() {
+    return (totalMemUsed.get() > maxMem || flushing) && !somethingFailed.get();
+  }
+
+  public void addMutation(TableId table, Mutation m) throws MutationsRejectedException {
 
     if (closed) {
       throw new IllegalStateException("Closed");
@@ -270,16 +318,56 @@ public class TabletServerBatchWriter implements AutoCloseable {
 
     checkForFailures();
 
-    waitRTE(() -> (totalMemUsed > maxMem || flushing) && !somethingFailed.get());
+    if (startTime == 0) {
+      initStartStats();
+    }
 
-    // do checks again since things could have changed while waiting and not holding lock
-    if (closed) {
-      throw new IllegalStateException("Closed");
+    // create a copy of mutation so that after this method returns the user
+    // is free to reuse the mutation object, like calling readFields... this
+    // is important for the case where a mutation is passed from map to reduce
+    // to batch writer... the map reduce code will keep passing the same mutation
+    // object into the reduce method
+    m = new Mutation(m);
+    long memUsed = m.estimatedMemoryUsed();
+    MutationBuffer buffer = buffers[(int) (Thread.currentThread().getId() & (buffers.length - 1))];
+
+    long buffered = -1;
+    while (buffered < 0) {
+      if (mustWaitToAdd()) {
+        synchronized (this) {
+          waitRTE(this::mustWaitToAdd);
+        }
+      }
+
+      // The writer's monitor must not be acquired while holding the add lock, flush and close
+      // hold the monitor when acquiring the add lock.
+      addLock.readLock().lock();
+      try {
+        // do checks again since things could have changed while waiting
+        if (closed) {
+          throw new IllegalStateException("Closed");
+        }
+        // when a flush started after waiting, wait for it to finish
+        if (!somethingFailed.get() && !flushing) {
+          totalMemUsed.addAndGet(memUsed);
+          buffered = buffer.add(table, m);
+          totalAdded.incrementAndGet();
+        }
+      } finally {
+        addLock.readLock().unlock();
+      }
+
+      checkForFailures();
     }
-    checkForFailures();
 
+    if (buffered >= maxMem / 2) {
+      startProcessing();
+      checkForFailures();
+    }
+  }
+
+  private synchronized void initStartStats() {
     if (startTime == 0) {
-      startTime = System.currentTimeMillis();
 
       List<GarbageCollectorMXBean> gcmBeans = ManagementFactory.getGarbageCollectorMXBeans();
       for (GarbageCollectorMXBean garbageCollectorMXBean : gcmBeans) {
@@ -292,22 +380,8 @@ public class TabletServerBatchWriter implements AutoCloseable {
       }
 
       initialSystemLoad = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
-    }
 
-    // create a copy of mutation so that after this method returns the user
-    // is free to reuse the mutation object, like calling readFields... this
-    // is important for the case where a mutation is passed from map to reduce
-    // to batch writer... the map reduce code will keep passing the same mutation
-    // object into the reduce method
-    m = new Mutation(m);
-
-    totalMemUsed += m.estimatedMemoryUsed();
-    mutations.addMutation(table, m);
-    totalAdded++;
-
-    if (mutations.getMemoryUsed() >= maxMem / 2) {
-      startProcessing();
-      checkForFailures();
+      startTime = System.currentTimeMillis();
     }
   }
 
@@ -337,12 +411,17 @@ public class TabletServerBatchWriter implements AutoCloseable {
         return;
       }
 
-      flushing = true;
+      addLock.writeLock().lock();
+      try {
+        flushing = true;
+      } finally {
+        addLock.writeLock().unlock();
+      }
 
       startProcessing();
       checkForFailures();
 
-      waitRTE(() -> totalMemUsed > 0 && !somethingFailed.get());
+      waitRTE(() -> totalMemUsed.get() > 0 && !somethingFailed.get());
 
       flushing = false;
       this.notifyAll();
@@ -365,11 +444,16 @@ public class TabletServerBatchWriter implements AutoCloseable {
 
     Span span = TraceUtil.startSpan(this.getClass(), "close");
     try (Scope scope = span.makeCurrent()) {
-      closed = true;
+      addLock.writeLock().lock();
+      try {
+        closed = true;
+      } finally {
+        addLock.writeLock().unlock();
+      }
 
       startProcessing();
 
-      waitRTE(() -> totalMemUsed > 0 && !somethingFailed.get());
+      waitRTE(() -> totalMemUsed.get() > 0 && !somethingFailed.get());
 
       logStats();
 
@@ -403,6 +487,7 @@ public class TabletServerBatchWriter implements AutoCloseable {
       }
 
       double averageRate = totalSent.get() / (totalSendTime.get() / 1000.0);
+      long totalAdded = this.totalAdded.get();
       double overallRate = totalAdded / ((finishTime - startTime) / 1000.0);
 
       double finalSystemLoad = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
@@ -562,22 +647,26 @@ public class TabletServerBatchWriter implements AutoCloseable {
 
   private void checkForFailures() throws MutationsRejectedException {
     if (somethingFailed.get()) {
-      List<ConstraintViolationSummary> cvsList = violations.asList();
-      HashMap<TabletId,Set<org.apache.accumulo.core.client.security.SecurityErrorCode>> af =
-          new HashMap<>();
-      for (Entry<KeyExtent,Set<SecurityErrorCode>> entry : authorizationFailures.entrySet()) {
-        HashSet<org.apache.accumulo.core.client.security.SecurityErrorCode> codes = new HashSet<>();
-
-        for (SecurityErrorCode sce : entry.getValue()) {
-          codes.add(org.apache.accumulo.core.client.security.SecurityErrorCode.valueOf(sce.name()));
-        }
+      throwFailures();
+    }
+  }
+
+  private synchronized void throwFailures() throws MutationsRejectedException {
+    List<ConstraintViolationSummary> cvsList = violations.asList();
+    HashMap<TabletId,Set<org.apache.accumulo.core.client.security.SecurityErrorCode>> af =
+        new HashMap<>();
+    for (Entry<KeyExtent,Set<SecurityErrorCode>> entry : authorizationFailures.entrySet()) {
+      HashSet<org.apache.accumulo.core.client.security.SecurityErrorCode> codes = new HashSet<>();
 
-        af.put(new TabletIdImpl(entry.getKey()), codes);
+      for (SecurityErrorCode sce : entry.getValue()) {
+        codes.add(org.apache.accumulo.core.client.security.SecurityErrorCode.valueOf(sce.name()));
       }
 
-      throw new MutationsRejectedException(context, cvsList, af, serverSideErrors, unknownErrors,
-          lastUnknownError);
+      af.put(new TabletIdImpl(entry.getKey()), codes);
     }
+
+    throw new MutationsRejectedException(context, cvsList, af, serverSideErrors, unknownErrors,
+        lastUnknownError);
   }
 
   // END code for handling unrecoverable errors
@@ -587,9 +676,10 @@ public class TabletServerBatchWriter implements AutoCloseable {
   /**
    * Add mutations that previously failed back into the mix
    */
-  private synchronized void addFailedMutations(MutationSet failedMutations) {
-    mutations.addAll(failedMutations);
-    if (mutations.getMemoryUsed() >= maxMem / 2 || closed || flushing) {
+  @VisibleForTesting
+  synchronized void addFailedMutations(MutationSet failedMutations) {
+    long buffered = buffers[0].addAll(failedMutations);
+    if (buffered >= maxMem / 2 || closed || flushing) {
       startProcessing();
     }
   }
@@ -1183,7 +1273,39 @@ public class TabletServerBatchWriter implements AutoCloseable {
 
   // END code for sending mutations to tablet servers using background threads
 
-  private static class MutationSet {
+  /**
+   * Mutations added by a subset of threads that have not been queued for binning.
+   */
+  private class MutationBuffer {
+
+    private MutationSet mutations = new MutationSet();
+
+    /**
+     * @return the memory used by mutations buffered across all buffers
+     */
+    synchronized long add(TableId table, Mutation mutation) {
+      mutations.addMutation(table, mutation);
+      return bufferedMemUsed.addAndGet(mutation.estimatedMemoryUsed());
+    }
+
+    /**
+     * @return the memory used by mutations buffered across all buffers
+     */
+    synchronized long addAll(MutationSet failures) {
+      long before = mutations.getMemoryUsed();
+      mutations.addAll(failures);
+      return bufferedMemUsed.addAndGet(mutations.getMemoryUsed() - before);
+    }
+
+    synchronized void drainTo(MutationSet target) {
+      if (mutations.getMemoryUsed() > 0) {
+        target.addAll(mutations);
+        mutations = new MutationSet();
+      }
+    }
+  }
+
+  static class MutationSet {
 
     private final HashMap<TableId,List<Mutation>> mutations;
     private long memoryUsed = 0;
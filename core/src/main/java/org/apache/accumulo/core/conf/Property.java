@@ -252,6 +252,15 @@ public enum Property {
   GENERAL_FILE_NAME_ALLOCATION_BATCH_SIZE_MAX("general.file.name.allocation.batch.size.max", "200",
       PropertyType.COUNT,
       "The maximum number of filenames that will be allocated from ZooKeeper at a time.", "2.1.3"),
+  @Experimental
+  GENERAL_FILE_LOCAL_MMAP_ENABLED("general.file.local.mmap.enabled", "false",
+      PropertyType.BOOLEAN,
+      "When true, servers memory map RFiles stored on file:// volumes instead of reading them"
+          + " through the Hadoop local file system. Blocks are then read without system calls or"
+          + " intermediate buffers, and blocks that are not compressed or encrypted are decoded"
+          + " straight from the mapping. Hadoop checksum files are not verified for mapped files."
+          + " A mapping is released when its reader is garbage collected.",
+      "4.0.0"),
   GENERAL_RPC_TIMEOUT("general.rpc.timeout", "120s", PropertyType.TIMEDURATION,
       "Time to wait on I/O for simple, short RPC calls.", "1.3.5"),
   @Experimental
@@ -279,6 +288,16 @@ public enum Property {
       "2.1.0"),
   GENERAL_THREADPOOL_SIZE("general.server.threadpool.size", "1", PropertyType.COUNT,
       "The number of threads to use for server-internal scheduled tasks.", "2.1.0"),
+  @Experimental
+  GENERAL_SERVER_VIRTUAL_THREADS_ENABLED("general.server.threads.virtual.enabled", "false",
+      PropertyType.BOOLEAN,
+      "When true and running on Java 21 or later, the thrift client handler pools of servers and"
+          + " the scan executors of tablet and scan servers run their tasks on virtual threads. The"
+          + " configured thread counts still limit how many tasks run concurrently. This allows"
+          + " larger limits for work that mostly waits on blocking reads without the cost of as"
+          + " many platform threads. Platform threads are used when virtual threads are not"
+          + " supported.",
+      "4.0.0"),
   // If you update the default type, be sure to update the default used for initialization failures
   // in VolumeManagerImpl
   @Experimental
@@ -387,7 +406,17 @@ public enum Property {
   MANAGER_TABLET_GROUP_WATCHER_SCAN_THREADS("manager.tablet.watcher.scan.threads.max", "16",
       PropertyType.COUNT,
       "Maximum number of threads the TabletGroupWatcher will use in its BatchScanner to"
-          + " look for tablets that need maintenance.",
+          + " look for tablets that need maintenance. The scan is partitioned by metadata"
+          + " tablet, so up to one thread per metadata tablet is used.",
+      "4.0.0"),
+  @Experimental
+  MANAGER_TABLET_GROUP_WATCHER_INCREMENTAL("manager.tablet.watcher.incremental.enabled", "false",
+      PropertyType.BOOLEAN,
+      "When enabled, the Manager keeps an in memory index of the tablet servers tablets are"
+          + " assigned to. When tablet servers are lost, only the tablets that were assigned to"
+          + " them are examined, instead of scanning the metadata of all tablets. Full scans"
+          + " still run periodically, as configured by manager.tablet.watcher.interval, to"
+          + " check the state of all tablets.",
       "4.0.0"),
   MANAGER_TABLET_REFRESH_MINTHREADS("manager.tablet.refresh.threads.mininum", "10",
       PropertyType.COUNT,
@@ -472,6 +501,13 @@ public enum Property {
           + "exceed this setting. When the size is exceeded the lowest priority jobs are dropped as "
           + "needed.",
       "4.0.0"),
+  MANAGER_COMPACTION_SERVICE_PRIORITY_QUEUE_SHARDS("manager.compaction.major.service.queue.shards",
+      "1", PropertyType.COUNT,
+      "The number of shards each resource groups compaction job priority queue is split into."
+          + " Tablets are assigned to a shard by hash and each shard is locked independently, which"
+          + " reduces contention when many compactors request jobs at once. The queue size is"
+          + " divided evenly between the shards.",
+      "4.0.0"),
   SPLIT_PREFIX("split.", null, PropertyType.PREFIX,
       "System wide properties related to splitting tablets.", "3.1.0"),
   SPLIT_MAXOPEN("split.files.max", "300", PropertyType.COUNT,
@@ -561,6 +597,10 @@ public enum Property {
       "Specifies the size of the cache for RFile index blocks.", "1.3.5"),
   TSERV_SUMMARYCACHE_SIZE("tserver.cache.summary.size", "10%", PropertyType.MEMORY,
       "Specifies the size of the cache for summary data on each tablet server.", "2.0.0"),
+  TSERV_READ_BUFFER_POOL_SIZE("tserver.cache.readbuffer.pool.size", "16M", PropertyType.BYTES,
+      "The maximum amount of memory held by the pool of buffers reused when reading and"
+          + " decompressing RFile blocks. Set to 0 to disable buffer reuse.",
+      "4.0.0"),
   TSERV_PORTSEARCH("tserver.port.search", "true", PropertyType.BOOLEAN,
       "if the tserver.port.client ports are in use, search higher ports until one is available.",
       "1.3.5"),
@@ -614,6 +654,28 @@ public enum Property {
           + " * `tserver.wal.max.size` >= this property. This map is created in off-heap"
           + " memory when " + TSERV_NATIVEMAP_ENABLED.name() + " is enabled.",
       "1.3.5"),
+  @Experimental
+  TSERV_MEMORY_MAP_STRIPES("tserver.memory.maps.stripes", "1", PropertyType.COUNT,
+      "The number of stripes the java in-memory map of a tablet is split into when the native"
+          + " map is not in use. Rows are assigned to stripes by hash and a value greater than one"
+          + " allows several batches of mutations to be written to the same tablet concurrently.",
+      "4.0.0"),
+  @Experimental
+  TSERV_MEMORY_MAP_OFFHEAP_ENABLED("tserver.memory.maps.offheap.enabled", "false",
+      PropertyType.BOOLEAN,
+      "A pure java in-memory data store that keeps keys and values in direct memory arenas"
+          + " instead of on the java heap. It is used when "
+          + "`tserver.memory.maps.native.enabled` is false and avoids most of the java GC work"
+          + " of the default in-memory map without loading a native library. The JVM must allow"
+          + " at least `tserver.memory.maps.max` of direct memory, see"
+          + " `-XX:MaxDirectMemorySize`.",
+      "4.0.0"),
+  @Experimental
+  TSERV_MEMORY_MAP_OFFHEAP_ARENA_SIZE("tserver.memory.maps.offheap.arena.size", "1M",
+      PropertyType.BYTES,
+      "The size of each direct memory arena allocated by the off-heap in-memory map. Entries"
+          + " larger than this are stored in an arena of their own.",
+      "4.0.0"),
   TSERV_SESSION_MAXIDLE("tserver.session.idle.max", "1m", PropertyType.TIMEDURATION,
       "When a tablet server's SimpleTimer thread triggers to check idle"
           + " sessions, this configurable option will be used to evaluate scan sessions"
@@ -645,6 +707,21 @@ public enum Property {
       "2.0.0"),
   TSERV_SCAN_EXECUTORS_META_THREADS("tserver.scan.executors.meta.threads", "8", PropertyType.COUNT,
       "The number of threads for the metadata table scan executor.", "2.0.0"),
+  @Experimental
+  TSERV_SCAN_SEEK_THREADS("tserver.scan.seek.threads", "16", PropertyType.COUNT,
+      "The number of threads on each tablet server used to seek the files of a scan"
+          + " concurrently. Only scans over at least "
+          + "tserver.scan.seek.concurrent.files.min files seek them concurrently, and no scan"
+          + " does when that property is 0.",
+      "4.0.0"),
+  @Experimental
+  TSERV_SCAN_SEEK_CONCURRENT_MIN_FILES("tserver.scan.seek.concurrent.files.min", "0",
+      PropertyType.COUNT,
+      "The minimum number of files a scan of a tablet has to read for the files to be seeked"
+          + " concurrently, using the threads configured by tserver.scan.seek.threads. A"
+          + " scan over fewer files seeks them one after another. The default of 0 disables"
+          + " concurrent seeks, so files are always seeked one after another.",
+      "4.0.0"),
   TSERV_SCAN_RESULTS_MAX_TIMEOUT("tserver.scan.results.max.timeout", "1s",
       PropertyType.TIMEDURATION,
       "Max time for the thrift client handler to wait for scan results before timing out.",
@@ -657,6 +734,12 @@ public enum Property {
       "The number of concurrent threads that will load bloom filters in the background. "
           + "Setting this to zero will make bloom filters load in the foreground.",
       "1.3.5"),
+  TSERV_FILE_READAHEAD_MAXCONCURRENT("tserver.file.readahead.concurrent.max", "8",
+      PropertyType.COUNT,
+      "The number of concurrent threads that read RFile data blocks ahead of sequential scans and"
+          + " compactions when table.file.readahead.blocks is set. Setting this to zero disables"
+          + " read-ahead.",
+      "4.0.0"),
   TSERV_MEMDUMP_DIR("tserver.dir.memdump", "/tmp", PropertyType.PATH,
       "A long running scan could possibly hold memory that has been minor"
           + " compacted. To prevent this, the in memory map is dumped to a local file"
@@ -697,6 +780,12 @@ public enum Property {
       "The maximum number of threads to use to sort logs during recovery.", "2.1.0"),
   TSERV_WAL_SORT_BUFFER_SIZE("tserver.wal.sort.buffer.size", "10%", PropertyType.MEMORY,
       "The amount of memory to use when sorting logs during recovery.", "2.1.0"),
+  TSERV_WAL_SORT_WRITE_THREADS("tserver.wal.sort.write.threads", "1", PropertyType.COUNT,
+      "The number of threads used to sort and write the parts of a single log during recovery."
+          + " With more than one thread the next part of the log is read while earlier parts are"
+          + " sorted and written, and up to one more than this many parts, each of "
+          + "`tserver.wal.sort.buffer.size`, are held in memory at the same time per log.",
+      "4.0.0"),
   TSERV_WAL_SORT_FILE_PREFIX("tserver.wal.sort.file.", null, PropertyType.PREFIX,
       "The rfile properties to use when sorting logs during recovery. Most of the properties"
           + " that begin with 'table.file' can be used here. For example, to set the compression"
@@ -763,6 +852,32 @@ public enum Property {
       "1.3.5"),
   GC_CANDIDATE_BATCH_SIZE("gc.candidate.batch.size", "50%", PropertyType.MEMORY,
       "The amount of memory used as the batch size for garbage collection.", "2.1.0"),
+  @Experimental
+  GC_CANDIDATE_SORT_MERGE_ENABLED("gc.candidate.sort.merge.enabled", "false",
+      PropertyType.BOOLEAN,
+      "When enabled, the garbage collector sorts all deletion candidates and file references"
+          + " into runs on local disk and merges them, so each cycle reads the file references"
+          + " once. Otherwise the references are read once for every batch of candidates that"
+          + " fits in gc.candidate.batch.size.",
+      "4.0.0"),
+  @Experimental
+  GC_CANDIDATE_SORT_MERGE_DIR("gc.candidate.sort.merge.dir", "", PropertyType.PATH,
+      "The local directory the garbage collector writes sorted runs to when"
+          + " gc.candidate.sort.merge.enabled or gc.candidate.filter.enabled is set. Defaults to"
+          + " the java.io.tmpdir directory.",
+      "4.0.0"),
+  @Experimental
+  GC_CANDIDATE_FILTER_ENABLED("gc.candidate.filter.enabled", "false", PropertyType.BOOLEAN,
+      "When enabled, the garbage collector sorts all deletion candidates into runs on local disk"
+          + " and builds a bloom filter of the paths referenced by tablets. Candidates that miss"
+          + " the filter are deleted, and only the candidates that hit it are confirmed by reading"
+          + " the file references again. Ignored when gc.candidate.sort.merge.enabled is set.",
+      "4.0.0"),
+  @Experimental
+  GC_CANDIDATE_FILTER_ERRORRATE("gc.candidate.filter.errorrate", "1%", PropertyType.FRACTION,
+      "The desired false positive rate of the bloom filter used when gc.candidate.filter.enabled"
+          + " is set. Candidates that are false positives are confirmed by the exact check.",
+      "4.0.0"),
   GC_CYCLE_START("gc.cycle.start", "30s", PropertyType.TIMEDURATION,
       "Time to wait before attempting to garbage collect any old RFiles or write-ahead logs.",
       "1.3.5"),
@@ -774,6 +889,22 @@ public enum Property {
       "The listening port for the garbage collector's monitor service.", "1.3.5"),
   GC_DELETE_THREADS("gc.threads.delete", "16", PropertyType.COUNT,
       "The number of threads used to delete RFiles and write-ahead logs.", "1.3.5"),
+  @Experimental
+  GC_REFERENCE_SCAN_THREADS("gc.threads.reference.scan", "1", PropertyType.COUNT,
+      "The number of threads used to read file references. Each thread reads the references in"
+          + " the range of one metadata tablet at a time. With a value of 1 the references are"
+          + " read serially.",
+      "4.0.0"),
+  @Experimental
+  GC_DELETE_PIPELINE_ENABLED("gc.delete.pipeline.enabled", "false", PropertyType.BOOLEAN,
+      "When enabled, the files confirmed for deletion in one batch of candidates are deleted"
+          + " while the next batch of candidates is confirmed. Only the candidates held while a"
+          + " delete is in progress are halved, so the two batches together stay within"
+          + " gc.candidate.batch.size. That is the batches of candidates read by default, and the"
+          + " candidates buffered for deletion with gc.candidate.sort.merge.enabled or"
+          + " gc.candidate.filter.enabled. The runs sorted on local disk by those modes are not"
+          + " halved, because they are written before any delete starts.",
+      "4.0.0"),
   GC_SAFEMODE("gc.safemode", "false", PropertyType.BOOLEAN,
       "Provides listing of files to be deleted but does not delete any files.", "2.1.0"),
   GC_USE_FULL_COMPACTION("gc.post.metadata.action", "flush", PropertyType.GC_POST_ACTION,
@@ -956,6 +1087,23 @@ public enum Property {
       "The HDFS block size used when writing RFiles. When set to 0B, the"
           + " value/defaults of HDFS property 'dfs.block.size' will be used.",
       "1.3.5"),
+  @Experimental
+  TABLE_FILE_BLOCK_ENCODING("table.file.blockencoding", "relative",
+      PropertyType.BLOCK_ENCODING,
+      "How keys and values are encoded in the data blocks of new RFiles. Possible values: relative,"
+          + " columnar. relative encodes each key against the previous key. columnar stores each"
+          + " key field of a block in its own stream, using per block dictionaries for column"
+          + " families and visibilities, prefix coding for rows and qualifiers, delta coded"
+          + " timestamps and run length encoding. columnar is usually smaller for wide rows with"
+          + " repeated families and visibilities, but RFiles written with it can not be read by"
+          + " versions older than 4.0.0.",
+      "4.0.0"),
+  TABLE_FILE_READAHEAD_BLOCKS("table.file.readahead.blocks", "0", PropertyType.COUNT,
+      "The number of data blocks to read in the background ahead of a sequential RFile read, such"
+          + " as a long scan or a compaction. Sequential access is detected after a reader moves"
+          + " through consecutive blocks without seeking. Adjacent blocks are fetched with a single"
+          + " read. When set to 0, blocks are only read when needed.",
+      "4.0.0"),
   TABLE_FILE_REPLICATION("table.file.replication", "0", PropertyType.COUNT,
       "The number of replicas for a table's RFiles in HDFS. When set to 0, HDFS"
           + " defaults are used.",
@@ -1059,6 +1207,15 @@ public enum Property {
       "Determines whether index block cache is enabled for a table.", "1.3.5"),
   TABLE_BLOCKCACHE_ENABLED("table.cache.block.enable", "false", PropertyType.BOOLEAN,
       "Determines whether data block cache is enabled for a table.", "1.3.5"),
+  @Experimental
+  TABLE_BLOCKCACHE_FORMAT("table.cache.block.format", "decompressed", PropertyType.STRING,
+      "How the data blocks of a table are stored in the data block cache. Possible values:"
+          + " decompressed, compressed, tiered. decompressed blocks are ready to use on a cache"
+          + " hit. compressed blocks are decompressed on every cache hit, but the cache holds"
+          + " about as many more of them as the compression ratio. tiered caches a block"
+          + " compressed when it is first read and adds a decompressed copy when the block is"
+          + " read again while still cached.",
+      "4.0.0"),
   TABLE_ITERATOR_PREFIX("table.iterator.", null, PropertyType.PREFIX,
       "Properties in this category specify iterators that are applied at"
           + " various stages (scopes) of interaction with a table. These properties"
@@ -1465,10 +1622,12 @@ public enum Property {
 
       // compaction coordiantor properties
       MANAGER_COMPACTION_SERVICE_PRIORITY_QUEUE_SIZE,
+      MANAGER_COMPACTION_SERVICE_PRIORITY_QUEUE_SHARDS,
 
       // block cache options
       GENERAL_CACHE_MANAGER_IMPL, TSERV_DATACACHE_SIZE, TSERV_INDEXCACHE_SIZE,
       TSERV_SUMMARYCACHE_SIZE, SSERV_DATACACHE_SIZE, SSERV_INDEXCACHE_SIZE, SSERV_SUMMARYCACHE_SIZE,
+      TSERV_READ_BUFFER_POOL_SIZE,
 
       // blocksize options
       TSERV_DEFAULT_BLOCKSIZE, SSERV_DEFAULT_BLOCKSIZE,
@@ -1479,10 +1638,11 @@ public enum Property {
       // thread options
       TSERV_MINTHREADS, TSERV_MINTHREADS_TIMEOUT, SSERV_MINTHREADS, SSERV_MINTHREADS_TIMEOUT,
       MANAGER_MINTHREADS, MANAGER_MINTHREADS_TIMEOUT, COMPACTOR_MINTHREADS,
-      COMPACTOR_MINTHREADS_TIMEOUT,
+      COMPACTOR_MINTHREADS_TIMEOUT, GENERAL_SERVER_VIRTUAL_THREADS_ENABLED,
 
       // others
-      TSERV_NATIVEMAP_ENABLED, TSERV_SCAN_MAX_OPENFILES, MANAGER_RECOVERY_WAL_EXISTENCE_CACHE_TIME);
+      TSERV_NATIVEMAP_ENABLED, TSERV_MEMORY_MAP_OFFHEAP_ENABLED, TSERV_SCAN_MAX_OPENFILES,
+      MANAGER_RECOVERY_WAL_EXISTENCE_CACHE_TIME);
 
   /**
    * Checks if the given property may be changed via Zookeeper, but not recognized until the restart
@@ -131,6 +131,9 @@ public enum PropertyType {
   GC_POST_ACTION("gc_post_action", in(true, null, "none", "flush", "compact"),
       "One of 'none', 'flush', or 'compact'."),
 
+  BLOCK_ENCODING("block_encoding", in(true, null, "relative", "columnar"),
+      "One of 'relative' or 'columnar'."),
+
   STRING("string", x -> true,
       "An arbitrary string of characters whose format is unspecified and"
           + " interpreted based on the context of the property to which it applies."),
@@ -0,0 +1,450 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.disk;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A cache of blocks kept in a set of append only segment files on local disk, meant to sit behind
+ * an in memory {@link org.apache.accumulo.core.spi.cache.BlockCache}. Blocks are appended to the
+ * newest segment and the oldest segment is deleted when the cache grows past its maximum size, so
+ * eviction is first in first out at segment granularity. An in memory index maps block names to
+ * their location in the segments.
+ *
+ * <p>
+ * Every record carries a checksum. When the cache is opened on a directory that already holds
+ * segments, the index is rebuilt from all records that are intact and anything after a damaged
+ * record is truncated. Cached blocks stay valid across restarts because block names are derived
+ * from the paths of immutable files.
+ */
+public final class DiskBlockCache implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(DiskBlockCache.class);
+
+  private static final int SEGMENT_MAGIC = 0x41424332;
+  private static final int SEGMENT_VERSION = 1;
+  private static final int SEGMENT_HEADER_SIZE = 8;
+  private static final int RECORD_MAGIC = 0x424c4b31;
+  private static final int RECORD_HEADER_SIZE = 16;
+  private static final long MIN_SEGMENT_SIZE = 1 << 20;
+  private static final int SEGMENTS = 16;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".blk";
+  private static final String LOCK_FILE = "lock";
+
+  private static final class Segment {
+    private final long id;
+    private final Path path;
+    // replaced when an interrupted reader or writer closes the channel
+    private volatile FileChannel channel;
+    private volatile long size;
+
+    Segment(long id, Path path, FileChannel channel, long size) {
+      this.id = id;
+      this.path = path;
+      this.channel = channel;
+      this.size = size;
+    }
+  }
+
+  private static final class Location {
+    private final Segment segment;
+    private final long offset;
+    private final int length;
+
+    Location(Segment segment, long offset, int length) {
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  private final Path dir;
+  private final long maxSize;
+  private final long segmentSize;
+  private final FileChannel lockChannel;
+  private final FileLock lock;
+  private final Map<String,Location> index = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<Long,Segment> segments = new ConcurrentSkipListMap<>();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private Segment current;
+  private long totalSize = 0;
+  private boolean closed = false;
+
+  /**
+   * Opens the cache in the given directory, recovering any blocks left there by a previous
+   * instance.
+   *
+   * @throws IOException if the directory can not be used or is in use by another cache
+   */
+  public DiskBlockCache(Path dir, long maxSize) throws IOException {
+    Preconditions.checkArgument(maxSize > 0, "Invalid disk cache size %s", maxSize);
+    this.dir = dir;
+    this.maxSize = maxSize;
+    this.segmentSize = Math.max(MIN_SEGMENT_SIZE, maxSize / SEGMENTS);
+
+    Files.createDirectories(dir);
+    lockChannel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE);
+    FileLock fileLock;
+    try {
+      fileLock = lockChannel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      // locked by another cache in this process
+      fileLock = null;
+    } catch (IOException e) {
+      lockChannel.close();
+      throw e;
+    }
+    if (fileLock == null) {
+      lockChannel.close();
+      throw new IOException("Disk block cache directory " + dir + " is in use");
+    }
+    lock = fileLock;
+
+    try {
+      recover();
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  private void recover() throws IOException {
+    List<Path> paths = new ArrayList<>();
+    try (Stream<Path> files = Files.list(dir)) {
+      files.filter(p -> parseSegmentId(p) >= 0).forEach(paths::add);
+    }
+    paths.sort((p1, p2) -> Long.compare(parseSegmentId(p1), parseSegmentId(p2)));
+
+    synchronized (this) {
+      for (Path path : paths) {
+        Segment segment = recoverSegment(parseSegmentId(path), path);
+        if (segment != null) {
+          segments.put(segment.id, segment);
+          totalSize += segment.size;
+        }
+      }
+      Map.Entry<Long,Segment> last = segments.lastEntry();
+      if (last != null && last.getValue().size < segmentSize) {
+        current = last.getValue();
+      } else {
+        current = newSegment(last == null ? 0 : last.getKey() + 1);
+      }
+      dropOldSegments();
+    }
+    log.info("Opened disk block cache {} with {} blocks in {} segments", dir, index.size(),
+        segments.size());
+  }
+
+  private static long parseSegmentId(Path path) {
+    String name = path.getFileName().toString();
+    if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+      try {
+        return Long.parseLong(
+            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+      } catch (NumberFormatException e) {
+        // not a segment
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Indexes the intact records of an existing segment and truncates anything after them.
+   *
+   * @return the segment, or null if it was not usable and was deleted
+   */
+  private Segment recoverSegment(long id, Path path) throws IOException {
+    FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long fileSize = channel.size();
+    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+    if (fileSize < SEGMENT_HEADER_SIZE || !readFully(channel, header, 0)
+        || header.getInt(0) != SEGMENT_MAGIC || header.getInt(4) != SEGMENT_VERSION) {
+      log.debug("Deleting unusable disk cache segment {}", path);
+      channel.close();
+      Files.delete(path);
+      return null;
+    }
+
+    Segment segment = new Segment(id, path, channel, fileSize);
+    long pos = SEGMENT_HEADER_SIZE;
+    ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    CRC32C crc = new CRC32C();
+    while (pos + RECORD_HEADER_SIZE <= fileSize) {
+      recordHeader.clear();
+      if (!readFully(channel, recordHeader, pos) || recordHeader.getInt(0) != RECORD_MAGIC) {
+        break;
+      }
+      int keyLength = recordHeader.getInt(4);
+      int dataLength = recordHeader.getInt(8);
+      if (keyLength < 0 || dataLength < 0
+          || pos + RECORD_HEADER_SIZE + keyLength + dataLength > fileSize) {
+        break;
+      }
+      ByteBuffer body = ByteBuffer.allocate(keyLength + dataLength);
+      if (!readFully(channel, body, pos + RECORD_HEADER_SIZE)) {
+        break;
+      }
+      crc.reset();
+      crc.update(body.array());
+      if ((int) crc.getValue() != recordHeader.getInt(12)) {
+        break;
+      }
+      String key = new String(body.array(), 0, keyLength, UTF_8);
+      index.put(key, new Location(segment, pos + RECORD_HEADER_SIZE + keyLength, dataLength));
+      pos += RECORD_HEADER_SIZE + keyLength + dataLength;
+    }
+
+    if (pos < fileSize) {
+      log.debug("Truncating disk cache segment {} from {} to {} bytes", path, fileSize, pos);
+      channel.truncate(pos);
+      segment.size = pos;
+    }
+    return segment;
+  }
+
+  private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position + buffer.position());
+      if (read < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, position + buffer.position());
+    }
+  }
+
+  private Segment newSegment(long id) throws IOException {
+    Path path = dir.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+    header.putInt(SEGMENT_MAGIC).putInt(SEGMENT_VERSION).flip();
+    writeFully(channel, header, 0);
+    Segment segment = new Segment(id, path, channel, SEGMENT_HEADER_SIZE);
+    segments.put(id, segment);
+    totalSize += SEGMENT_HEADER_SIZE;
+    return segment;
+  }
+
+  /**
+   * Deletes the oldest segments, and the index entries pointing into them, until the cache fits in
+   * its maximum size.
+   */
+  private void dropOldSegments() throws IOException {
+    while (totalSize > maxSize && segments.size() > 1) {
+      Segment oldest = segments.pollFirstEntry().getValue();
+      index.values().removeIf(location -> location.segment == oldest);
+      totalSize -= oldest.size;
+      oldest.channel.close();
+      Files.deleteIfExists(oldest.path);
+    }
+  }
+
+  /**
+   * Adds a block to the cache, unless a block with the same name is already cached. Failures to
+   * write are logged and otherwise ignored.
+   */
+  public void put(String name, byte[] data) {
+    if (index.containsKey(name)) {
+      return;
+    }
+
+    byte[] key = name.getBytes(UTF_8);
+    long recordSize = (long) RECORD_HEADER_SIZE + key.length + data.length;
+    if (recordSize > segmentSize - SEGMENT_HEADER_SIZE) {
+      return;
+    }
+
+    CRC32C crc = new CRC32C();
+    crc.update(key);
+    crc.update(data);
+    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    header.putInt(RECORD_MAGIC).putInt(key.length).putInt(data.length)
+        .putInt((int) crc.getValue()).flip();
+
+    synchronized (this) {
+      if (closed || index.containsKey(name)) {
+        return;
+      }
+      try {
+        if (current.size + recordSize > segmentSize) {
+          current = newSegment(current.id + 1);
+        }
+        long pos = current.size;
+        writeFully(current.channel, header, pos);
+        writeFully(current.channel, ByteBuffer.wrap(key), pos + RECORD_HEADER_SIZE);
+        writeFully(current.channel, ByteBuffer.wrap(data),
+            pos + RECORD_HEADER_SIZE + key.length);
+        current.size += recordSize;
+        totalSize += recordSize;
+        index.put(name,
+            new Location(current, pos + RECORD_HEADER_SIZE + key.length, data.length));
+        dropOldSegments();
+      } catch (ClosedChannelException e) {
+        log.trace("Interrupted writing block {} to disk cache {}", name, dir, e);
+        reopen(current);
+      } catch (IOException e) {
+        log.warn("Failed to write block {} to disk cache {}", name, dir, e);
+      }
+    }
+  }
+
+  /**
+   * @return the cached block, or null if it is not cached or its record on disk is corrupt
+   */
+  public byte[] get(String name) {
+    requests.increment();
+    Location location = index.get(name);
+    if (location == null) {
+      return null;
+    }
+
+    byte[] key = name.getBytes(UTF_8);
+    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE + key.length);
+    byte[] data = new byte[location.length];
+    try {
+      FileChannel channel = location.segment.channel;
+      if (readFully(channel, header, location.offset - header.capacity())
+          && readFully(channel, ByteBuffer.wrap(data), location.offset)) {
+        if (isRecord(header, key, data)) {
+          hits.increment();
+          return data;
+        }
+        log.warn("Dropping corrupt block {} from disk cache {}", name, dir);
+      }
+    } catch (ClosedChannelException e) {
+      // An interrupted read closes the channel for every thread using it. Unless the segment was
+      // dropped, the block is still on disk.
+      if (reopen(location.segment)) {
+        return null;
+      }
+    } catch (IOException e) {
+      // the segment was deleted while reading, or the file is not readable
+      log.trace("Failed to read block {} from disk cache {}", name, dir, e);
+    }
+    index.remove(name, location);
+    return null;
+  }
+
+  /**
+   * @return true if the header and key read in front of the data are those written for the data
+   */
+  private static boolean isRecord(ByteBuffer header, byte[] key, byte[] data) {
+    if (header.getInt(0) != RECORD_MAGIC || header.getInt(4) != key.length
+        || header.getInt(8) != data.length
+        || !Arrays.equals(header.array(), RECORD_HEADER_SIZE, header.capacity(), key, 0,
+            key.length)) {
+      return false;
+    }
+    CRC32C crc = new CRC32C();
+    crc.update(key);
+    crc.update(data);
+    return (int) crc.getValue() == header.getInt(12);
+  }
+
+  /**
+   * Opens the channel of a live segment again after it was closed by an interrupted thread.
+   *
+   * @return true if the segment is still part of the cache
+   */
+  private synchronized boolean reopen(Segment segment) {
+    if (closed || segments.get(segment.id) != segment) {
+      return false;
+    }
+    if (!segment.channel.isOpen()) {
+      try {
+        segment.channel =
+            FileChannel.open(segment.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      } catch (IOException e) {
+        log.warn("Failed to reopen disk cache segment {}", segment.path, e);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long getRequestCount() {
+    return requests.sum();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of bytes used by the segment files
+   */
+  public synchronized long getSize() {
+    return totalSize;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    index.clear();
+    for (Segment segment : segments.values()) {
+      segment.channel.close();
+    }
+    segments.clear();
+    try {
+      lock.release();
+    } finally {
+      lockChannel.close();
+    }
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.disk;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.apache.accumulo.core.util.threads.ThreadPoolNames.BLOCK_CACHE_DISK_WRITER_POOL;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager.Configuration;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.apache.accumulo.core.util.threads.ThreadPools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A block cache that puts a {@link DiskBlockCache} behind an in memory cache. Blocks loaded into
+ * the memory cache are also written to disk, so blocks evicted from memory can be read back from
+ * local disk instead of from the file system holding the RFiles. A block found on disk is added
+ * to the memory cache again.
+ *
+ * <p>
+ * Blocks of encrypted files are only kept in memory. Their loaders report them as
+ * {@link Loader#isEncrypted() encrypted}, and they are never written to the disk tier, because the
+ * cached blocks are decrypted and the disk tier outlives the process.
+ *
+ * <p>
+ * Blocks are written to disk by a single background thread, so readers never wait on the disk.
+ * When more than {@value #MAX_PENDING_WRITES} blocks are waiting to be written, further blocks are
+ * not written to disk.
+ */
+public final class TieredBlockCache implements BlockCache, Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(TieredBlockCache.class);
+
+  /**
+   * The prefix of the cache properties that configure the disk tier, see
+   * {@link Configuration#getProperties(String, CacheType)}.
+   */
+  public static final String PROPERTY_PREFIX = "disk";
+  /**
+   * The local directory holding the disk tier. The disk tier is only enabled when this is set.
+   * Each cache type uses a sub directory of it. Blocks of files encrypted by a crypto service are
+   * not written to the disk tier, so it does not help tables using on-disk encryption.
+   */
+  public static final String DIR_PROPERTY = "dir";
+  /**
+   * The maximum size of the disk tier, defaults to eight times the size of the memory cache.
+   */
+  public static final String SIZE_PROPERTY = "size";
+
+  static final int MAX_PENDING_WRITES = 64;
+
+  private final BlockCache memory;
+  private final DiskBlockCache disk;
+  private final ThreadPoolExecutor writer;
+
+  public TieredBlockCache(BlockCache memory, DiskBlockCache disk) {
+    this.memory = memory;
+    this.disk = disk;
+    this.writer = ThreadPools.getServerThreadPools().getPoolBuilder(BLOCK_CACHE_DISK_WRITER_POOL)
+        .numCoreThreads(1).withQueue(new ArrayBlockingQueue<>(MAX_PENDING_WRITES)).build();
+  }
+
+  /**
+   * @return the given cache backed by a disk tier when one is configured for the cache type,
+   *         otherwise the given cache
+   */
+  public static BlockCache wrap(BlockCache memory, Configuration conf, CacheType type) {
+    if (memory == null) {
+      return null;
+    }
+    Map<String,String> props = conf.getProperties(PROPERTY_PREFIX, type);
+    String dir = props.get(DIR_PROPERTY);
+    if (dir == null || dir.isBlank()) {
+      return memory;
+    }
+    String size = props.get(SIZE_PROPERTY);
+    long maxSize = size == null ? 8 * conf.getMaxSize(type)
+        : ConfigurationTypeHelper.getFixedMemoryAsBytes(size);
+    Path path = Path.of(dir, type.name().toLowerCase());
+    try {
+      DiskBlockCache disk = new DiskBlockCache(path, maxSize);
+      log.info("Using disk tier {} of size {} for {} cache", path, maxSize, type);
+      return new TieredBlockCache(memory, disk);
+    } catch (IOException | IllegalArgumentException e) {
+      log.warn("Not using disk tier {} for {} cache", path, type, e);
+      return memory;
+    }
+  }
+
+  DiskBlockCache getDiskCache() {
+    return disk;
+  }
+
+  /**
+   * Queues a block to be written to the disk tier.
+   */
+  private void spill(String blockName, byte[] data) {
+    try {
+      writer.execute(() -> disk.put(blockName, data));
+    } catch (RejectedExecutionException e) {
+      // the disk is not keeping up, or the cache was closed
+      log.trace("Not writing block {} to the disk tier", blockName);
+    }
+  }
+
+  /**
+   * Caches a block in memory and writes it to the disk tier. There is no loader to tell if the
+   * block is encrypted, so blocks of encrypted files must be cached through
+   * {@link #getBlock(String, Loader)} instead.
+   */
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buf) {
+    spill(blockName, buf);
+    return memory.cacheBlock(blockName, buf);
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName) {
+    CacheEntry ce = memory.getBlock(blockName);
+    if (ce != null) {
+      return ce;
+    }
+    byte[] data = disk.get(blockName);
+    if (data == null) {
+      return null;
+    }
+    ce = memory.cacheBlock(blockName, data);
+    return ce != null ? ce : new UncachedEntry(data);
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName, Loader loader) {
+    return memory.getBlock(blockName, new DiskLoader(blockName, loader));
+  }
+
+  /**
+   * Only checks the memory cache, reading the disk tier is not free.
+   */
+  @Override
+  public boolean containsBlock(String blockName) {
+    return memory.containsBlock(blockName);
+  }
+
+  @Override
+  public void removeBlock(String blockName) {
+    // the disk tier ages out whole segments and has no room to give back for a single block
+    memory.removeBlock(blockName);
+  }
+
+  /**
+   * Loads blocks from the disk tier when they are there, and writes blocks loaded from elsewhere
+   * to it.
+   */
+  private class DiskLoader implements Loader {
+    private final String blockName;
+    private final Loader loader;
+
+    DiskLoader(String blockName, Loader loader) {
+      this.blockName = blockName;
+      this.loader = loader;
+    }
+
+    @Override
+    public Map<String,Loader> getDependencies() {
+      Map<String,Loader> deps = loader.getDependencies();
+      if (deps.isEmpty()) {
+        return deps;
+      }
+      Map<String,Loader> wrapped = new HashMap<>();
+      deps.forEach((name, dep) -> wrapped.put(name, new DiskLoader(name, dep)));
+      return wrapped;
+    }
+
+    @Override
+    public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+      if (loader.isEncrypted()) {
+        // decrypted blocks must not be written to local disk
+        return loader.load(maxSize, dependencies);
+      }
+      byte[] data = disk.get(blockName);
+      if (data != null && data.length <= maxSize) {
+        return data;
+      }
+      data = loader.load(maxSize, dependencies);
+      if (data != null) {
+        spill(blockName, data);
+      }
+      return data;
+    }
+
+    @Override
+    public boolean isEncrypted() {
+      return loader.isEncrypted();
+    }
+  }
+
+  private static class UncachedEntry implements CacheEntry {
+    private final byte[] buffer;
+
+    UncachedEntry(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+      return buffer;
+    }
+
+    @Override
+    public <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      return null;
+    }
+
+    @Override
+    public void indexWeightChanged() {}
+  }
+
+  @Override
+  public long getMaxHeapSize() {
+    return memory.getMaxHeapSize();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return memory.getMaxSize();
+  }
+
+  /**
+   * Every request goes to the memory cache first, so a block found on disk is a request and a miss
+   * of the memory cache, and a hit of this cache.
+   */
+  @Override
+  public Stats getStats() {
+    Stats memoryStats = memory.getStats();
+    long diskHits = disk.getHitCount();
+    return new Stats() {
+      @Override
+      public long hitCount() {
+        return memoryStats.hitCount() + diskHits;
+      }
+
+      @Override
+      public long requestCount() {
+        return memoryStats.requestCount();
+      }
+
+      @Override
+      public long evictionCount() {
+        return memoryStats.evictionCount();
+      }
+
+      @Override
+      public Map<String,? extends Stats> tableStats() {
+        return memoryStats.tableStats();
+      }
+    };
+  }
+
+  @Override
+  public void close() throws IOException {
+    // finish the pending writes, so the blocks are there when the cache is opened again
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(1, MINUTES)) {
+        writer.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      writer.shutdownNow();
+    }
+    disk.close();
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.disk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheType;
+
+/**
+ * Puts a disk tier behind the caches of another {@link BlockCacheManager}. A cache type gets a
+ * second tier on local disk when {@code tserver.cache.config.disk.<type>.dir} (or
+ * {@code disk.default.dir} for all types) is set to a local directory, and optionally
+ * {@code tserver.cache.config.disk.<type>.size} to its maximum size, see {@link TieredBlockCache}.
+ * Only the caches handed out by the wrapped manager are used, so this works with every cache
+ * manager implementation.
+ */
+public final class TieredBlockCacheManager extends BlockCacheManager {
+
+  private final BlockCacheManager manager;
+
+  public TieredBlockCacheManager(BlockCacheManager manager) {
+    this.manager = manager;
+  }
+
+  @Override
+  public void start(Configuration conf) {
+    manager.start(conf);
+    super.start(conf);
+  }
+
+  @Override
+  public void stop() {
+    try {
+      for (CacheType type : CacheType.values()) {
+        BlockCache cache = getBlockCache(type);
+        if (cache instanceof TieredBlockCache) {
+          ((TieredBlockCache) cache).close();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      super.stop();
+      manager.stop();
+    }
+  }
+
+  /**
+   * @return the cache the wrapped manager created for the type, behind a disk tier when one is
+   *         configured for the type
+   */
+  @Override
+  protected BlockCache createCache(Configuration conf, CacheType type) {
+    return TieredBlockCache.wrap(manager.getBlockCache(type), conf, type);
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.accumulo.core.file.blockfile.cache.impl;
 import org.apache.accumulo.core.classloader.ClassLoaderUtil;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.disk.TieredBlockCacheManager;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +32,8 @@ public class BlockCacheManagerFactory {
 
   /**
    * Get the BlockCacheFactory specified by the property 'tserver.cache.factory.class' using the
-   * System class loader
+   * System class loader. Its caches are given a disk tier when one is configured, see
+   * {@link TieredBlockCacheManager}.
    *
    * @param conf accumulo configuration
    * @return block cache manager instance
@@ -43,7 +45,7 @@ public class BlockCacheManagerFactory {
     Class<? extends BlockCacheManager> clazz =
         ClassLoaderUtil.loadClass(impl, BlockCacheManager.class);
     LOG.info("Created new block cache manager of type: {}", clazz.getSimpleName());
-    return clazz.getDeclaredConstructor().newInstance();
+    return new TieredBlockCacheManager(clazz.getDeclaredConstructor().newInstance());
   }
 
   /**
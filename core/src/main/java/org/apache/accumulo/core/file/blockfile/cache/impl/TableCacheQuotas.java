@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager.Configuration;
+import org.apache.accumulo.core.spi.cache.CacheType;
+
+/**
+ * Tracks how much of a block cache each table uses, and its hits and requests. A table can be
+ * given a hard quota. When caching a block takes a table over its quota, the least recently used
+ * blocks of that same table are evicted to make room, so a table that reads a lot of data only
+ * competes with itself and never evicts the blocks of other tables, whatever the eviction policy
+ * of the cache. A block larger than the whole quota of its table is not cached.
+ *
+ * <p>
+ * The table of a block is found from the path of the file it came from. Quotas are set with the
+ * cache properties {@code quota.<type>.table.<tableId>} or {@code quota.default.table.<tableId>},
+ * for example {@code tserver.cache.config.quota.data.table.2=4G}.
+ */
+public final class TableCacheQuotas {
+
+  public static final String PROPERTY_PREFIX = "quota";
+  private static final String TABLE_PROPERTY_PREFIX = "table.";
+  private static final String TABLES_DIR = "/tables/";
+
+  /**
+   * The blocks a table has in the cache, and its requests. Blocks of files that are not in a table
+   * directory are not tracked.
+   */
+  public static final class TableUsage implements BlockCache.Stats {
+    private final long quota;
+    // charged bytes of each cached block in access order, only kept for tables with a quota
+    private final LinkedHashMap<String,Long> blocks;
+    private final AtomicLong used = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private TableUsage(long quota) {
+      this.quota = quota;
+      this.blocks = quota > 0 ? new LinkedHashMap<>(16, 0.75f, true) : null;
+    }
+
+    @Override
+    public long hitCount() {
+      return hits.sum();
+    }
+
+    @Override
+    public long requestCount() {
+      return requests.sum();
+    }
+
+    @Override
+    public long evictionCount() {
+      return evictions.sum();
+    }
+
+    /**
+     * @return the bytes of blocks the table has in the cache
+     */
+    public long getUsedBytes() {
+      return used.get();
+    }
+
+    /**
+     * @return the quota of the table, 0 when it has none
+     */
+    public long getQuota() {
+      return quota;
+    }
+  }
+
+  private final Map<String,Long> quotas;
+  private final Map<String,TableUsage> usage = new ConcurrentHashMap<>();
+
+  public TableCacheQuotas(Configuration conf, CacheType type) {
+    Map<String,Long> parsed = new HashMap<>();
+    conf.getProperties(PROPERTY_PREFIX, type).forEach((k, v) -> {
+      if (k.startsWith(TABLE_PROPERTY_PREFIX)) {
+        parsed.put(k.substring(TABLE_PROPERTY_PREFIX.length()),
+            ConfigurationTypeHelper.getFixedMemoryAsBytes(v));
+      }
+    });
+    this.quotas = Map.copyOf(parsed);
+  }
+
+  /**
+   * @return the id of the table whose file the named block came from, or null if the file is not
+   *         in a table directory
+   */
+  public static String tableId(String blockName) {
+    int start = blockName.indexOf(TABLES_DIR);
+    if (start < 0) {
+      return null;
+    }
+    start += TABLES_DIR.length();
+    int end = blockName.indexOf('/', start);
+    return end > start ? blockName.substring(start, end) : null;
+  }
+
+  private TableUsage getUsage(String tableId) {
+    return tableId == null ? null
+        : usage.computeIfAbsent(tableId, t -> new TableUsage(quotas.getOrDefault(t, 0L)));
+  }
+
+  /**
+   * Records a lookup of the given block.
+   */
+  public void recordRequest(String tableId, String blockName, boolean hit) {
+    TableUsage tu = getUsage(tableId);
+    if (tu != null) {
+      tu.requests.increment();
+      if (hit) {
+        tu.hits.increment();
+        if (tu.blocks != null) {
+          synchronized (tu.blocks) {
+            // moves the block to the most recently used end
+            tu.blocks.get(blockName);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Charges a block that is about to be cached to its table. If that takes the table over its
+   * quota, its least recently used blocks are picked for eviction and released right away. The
+   * caller has to remove them from the cache. That can not happen here, because caches may charge
+   * a block while computing its cache entry.
+   *
+   * @return the names of the blocks that have to be evicted, or null if the block is larger than
+   *         the quota of its table, in which case nothing was charged and it should not be cached
+   */
+  public List<String> charge(String tableId, String blockName, long bytes) {
+    TableUsage tu = getUsage(tableId);
+    if (tu == null) {
+      return List.of();
+    }
+    if (tu.blocks == null) {
+      tu.used.addAndGet(bytes);
+      return List.of();
+    }
+    if (bytes > tu.quota) {
+      return null;
+    }
+    List<String> evict = null;
+    synchronized (tu.blocks) {
+      // a block that replaces a cached copy of itself releases that copy once it is cached
+      long replaced = tu.blocks.getOrDefault(blockName, 0L);
+      tu.blocks.merge(blockName, bytes, Long::sum);
+      long used = tu.used.addAndGet(bytes) - replaced;
+      Iterator<Entry<String,Long>> iter = tu.blocks.entrySet().iterator();
+      while (used > tu.quota && iter.hasNext()) {
+        Entry<String,Long> eldest = iter.next();
+        if (eldest.getKey().equals(blockName)) {
+          continue;
+        }
+        iter.remove();
+        used = tu.used.addAndGet(-eldest.getValue()) - replaced;
+        tu.evictions.increment();
+        if (evict == null) {
+          evict = new ArrayList<>();
+        }
+        evict.add(eldest.getKey());
+      }
+    }
+    return evict == null ? List.of() : evict;
+  }
+
+  /**
+   * Releases what {@link #charge(String, String, long)} charged for a block that left the cache.
+   * Nothing is released for a block that was already released when it was picked for eviction.
+   */
+  public void release(String tableId, String blockName, long bytes, boolean evicted) {
+    TableUsage tu = getUsage(tableId);
+    if (tu == null) {
+      return;
+    }
+    if (tu.blocks != null) {
+      synchronized (tu.blocks) {
+        Long charged = tu.blocks.get(blockName);
+        if (charged == null) {
+          return;
+        }
+        if (charged > bytes) {
+          tu.blocks.put(blockName, charged - bytes);
+        } else {
+          tu.blocks.remove(blockName);
+        }
+        tu.used.addAndGet(-bytes);
+      }
+    } else {
+      tu.used.addAndGet(-bytes);
+    }
+    if (evicted) {
+      tu.evictions.increment();
+    }
+  }
+
+  /**
+   * @return the usage of every table seen by the cache, keyed by table id
+   */
+  public Map<String,TableUsage> getTableUsage() {
+    return Collections.unmodifiableMap(usage);
+  }
+}
@@ -286,6 +286,20 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
     return wrap(cb);
   }
 
+  @Override
+  public boolean containsBlock(String blockName) {
+    return map.containsKey(blockName);
+  }
+
+  @Override
+  public void removeBlock(String blockName) {
+    CachedBlock cb = map.get(blockName);
+    if (cb != null && map.remove(blockName, cb)) {
+      elements.decrementAndGet();
+      cb.evicted(size);
+    }
+  }
+
   protected long evictBlock(CachedBlock block) {
     if (map.remove(block.getName()) != null) {
       elements.decrementAndGet();
@@ -0,0 +1,556 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.offheap;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.accumulo.core.file.blockfile.cache.impl.ClassSize;
+import org.apache.accumulo.core.file.blockfile.cache.impl.SizeConstants;
+import org.apache.accumulo.core.file.blockfile.cache.impl.TableCacheQuotas;
+import org.apache.accumulo.core.file.blockfile.cache.impl.TableCacheQuotas.TableUsage;
+import org.apache.accumulo.core.file.blockfile.impl.SeekableInput;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager.Configuration;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.apache.accumulo.core.util.cache.Caches;
+import org.apache.accumulo.core.util.cache.Caches.CacheName;
+import org.apache.accumulo.core.util.cleaner.CleanerUtil;
+import org.apache.accumulo.core.util.threads.ThreadPools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * A block cache that keeps block data in direct memory, outside of the Java heap. Only the map of
+ * block names and the indexes built over cached blocks live on the heap. Block data is stored in
+ * chunks handed out by a {@link SlabAllocator}, and which blocks stay cached is decided by a
+ * Caffeine cache using the W-TinyLFU admission and eviction policy.
+ *
+ * <p>
+ * A block found in the cache is only copied onto the heap when {@link CacheEntry#getBuffer()} is
+ * called, {@link CacheEntry#getInputStream()} reads it in place. Direct memory is limited by the
+ * JVM's {@code -XX:MaxDirectMemorySize} setting, which needs to allow for the configured cache
+ * sizes.
+ * Per table quotas are supported, see {@link TableCacheQuotas}.
+ */
+public final class OffHeapBlockCache implements BlockCache {
+  private static final Logger log = LoggerFactory.getLogger(OffHeapBlockCache.class);
+  private static final int STATS_PERIOD_SEC = 60;
+  // estimated heap used by the cache map for each block
+  private static final int ENTRY_HEAP_OVERHEAD = 256;
+
+  private final SlabAllocator allocator;
+  private final Cache<String,OffHeapBlock> cache;
+  private final Policy.Eviction<String,OffHeapBlock> policy;
+  private final int maxSize;
+  private final long maxHeapSize;
+  private final ScheduledExecutorService statsExecutor = ThreadPools.getServerThreadPools()
+      .createScheduledExecutorService(1, "OffHeapBlockCacheStatsExecutor");
+  private final CacheType type;
+  private final TableCacheQuotas quotas;
+
+  public OffHeapBlockCache(Configuration conf, CacheType type) {
+    quotas = new TableCacheQuotas(conf, type);
+    allocator = new SlabAllocator(conf.getMaxSize(type));
+    long expectedBlocks = allocator.getCapacity() / Math.max(1, conf.getBlockSize());
+    cache = Caches.getInstance().createNewBuilder(CacheName.OFFHEAP_BLOCK_CACHE, false)
+        .initialCapacity((int) Math.min(Integer.MAX_VALUE, Math.ceil(1.2 * expectedBlocks)))
+        .recordStats().weigher((String blockName, OffHeapBlock block) -> block.weight())
+        .maximumWeight(allocator.getCapacity())
+        // free evicted blocks right away, their memory is needed for the blocks replacing them
+        .executor(Runnable::run)
+        .evictionListener((blockName, block, cause) -> {
+          quotas.release(block.tableId, blockName, block.length, true);
+          block.release();
+        })
+        .build();
+    policy = cache.policy().eviction().orElseThrow();
+    maxSize = (int) Math.min(Integer.MAX_VALUE, policy.getMaximum());
+    maxHeapSize = expectedBlocks * ENTRY_HEAP_OVERHEAD;
+    ScheduledFuture<?> future = statsExecutor.scheduleAtFixedRate(this::logStats, STATS_PERIOD_SEC,
+        STATS_PERIOD_SEC, SECONDS);
+    this.type = type;
+    ThreadPools.watchNonCriticalScheduledTask(future);
+  }
+
+  @Override
+  public long getMaxHeapSize() {
+    return maxHeapSize;
+  }
+
+  @Override
+  public long getMaxSize() {
+    return allocator.getCapacity();
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName) {
+    OffHeapBlock block = cache.getIfPresent(blockName);
+    boolean hit = block != null && block.retain();
+    quotas.recordRequest(TableCacheQuotas.tableId(blockName), blockName, hit);
+    return hit ? new OffHeapCacheEntry(blockName, block) : null;
+  }
+
+  @Override
+  public boolean containsBlock(String blockName) {
+    return cache.asMap().containsKey(blockName);
+  }
+
+  @Override
+  public void removeBlock(String blockName) {
+    OffHeapBlock block = cache.asMap().remove(blockName);
+    if (block != null) {
+      quotas.release(block.tableId, blockName, block.length, false);
+      block.release();
+    }
+  }
+
+  /**
+   * Removes the blocks a table had to give up to stay within its quota.
+   */
+  private void evict(List<String> blockNames) {
+    for (String blockName : blockNames) {
+      OffHeapBlock block = cache.asMap().remove(blockName);
+      if (block != null) {
+        quotas.release(block.tableId, blockName, block.length, true);
+        block.release();
+      }
+    }
+  }
+
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buffer) {
+    String tableId = TableCacheQuotas.tableId(blockName);
+    List<String> evict = quotas.charge(tableId, blockName, buffer.length);
+    if (evict == null) {
+      return new OffHeapCacheEntry(blockName, null, buffer);
+    }
+    // free the memory of the evicted blocks before storing the block that replaces them
+    evict(evict);
+    OffHeapBlock block = store(buffer, tableId);
+    if (block == null) {
+      quotas.release(tableId, blockName, buffer.length, false);
+      return new OffHeapCacheEntry(blockName, null, buffer);
+    }
+    OffHeapBlock existing = cache.asMap().putIfAbsent(blockName, block);
+    if (existing != null) {
+      quotas.release(tableId, blockName, buffer.length, false);
+      block.release();
+      block = existing;
+    }
+    return new OffHeapCacheEntry(blockName, block, buffer);
+  }
+
+  /**
+   * Copies the given data into direct memory.
+   *
+   * @return the stored block, or null when there was no room for it even after evicting
+   */
+  private OffHeapBlock store(byte[] data, String tableId) {
+    int[] chunks = allocator.allocate(data);
+    if (chunks == null) {
+      // the cache evicts after an insert, give it a chance to catch up with the last inserts
+      cache.cleanUp();
+      chunks = allocator.allocate(data);
+    }
+    if (chunks == null) {
+      log.trace("No room in {} cache for block of {} bytes", type, data.length);
+      return null;
+    }
+    return new OffHeapBlock(chunks, data.length, tableId);
+  }
+
+  @Override
+  public BlockCache.Stats getStats() {
+    CacheStats stats = cache.stats();
+    return new BlockCache.Stats() {
+      @Override
+      public long hitCount() {
+        return stats.hitCount();
+      }
+
+      @Override
+      public long requestCount() {
+        return stats.requestCount();
+      }
+
+      @Override
+      public long evictionCount() {
+        return stats.evictionCount();
+      }
+
+      @Override
+      public Map<String,TableUsage> tableStats() {
+        return quotas.getTableUsage();
+      }
+    };
+  }
+
+  private void logStats() {
+    double maxMB = ((double) allocator.getCapacity()) / ((double) (1024 * 1024));
+    double sizeMB = ((double) allocator.getAllocated()) / ((double) (1024 * 1024));
+    double freeMB = maxMB - sizeMB;
+    log.debug("Cache {} Size={}MB, Free={}MB, Max={}MB, Blocks={}", type, sizeMB, freeMB, maxMB,
+        cache.estimatedSize());
+    log.debug(cache.stats().toString());
+  }
+
+  /**
+   * A block stored in direct memory. The cache holds one reference to the block and every entry or
+   * stream reading it holds another one, so that the chunks of an evicted block are not reused
+   * while they are being read.
+   */
+  private final class OffHeapBlock {
+
+    private final int[] chunks;
+    private final int length;
+    private final String tableId;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private Weighable index;
+    private volatile int lastIndexWeight;
+
+    OffHeapBlock(int[] chunks, int length, String tableId) {
+      this.chunks = chunks;
+      this.length = length;
+      this.tableId = tableId;
+      this.lastIndexWeight = length / 100;
+    }
+
+    int weight() {
+      return chunks.length * SlabAllocator.CHUNK_SIZE + lastIndexWeight + SizeConstants.SIZEOF_INT
+          + ClassSize.REFERENCE;
+    }
+
+    /**
+     * Takes a reference to the block, which has to be given back by calling {@link #release()}.
+     *
+     * @return false if the block was evicted and freed
+     */
+    boolean retain() {
+      int refs;
+      do {
+        refs = refCount.get();
+        if (refs == 0) {
+          return false;
+        }
+      } while (!refCount.compareAndSet(refs, refs + 1));
+      return true;
+    }
+
+    /**
+     * @return a heap copy of the block, or null if the block was evicted and freed
+     */
+    byte[] read() {
+      if (!retain()) {
+        return null;
+      }
+      try {
+        return copy();
+      } finally {
+        release();
+      }
+    }
+
+    private byte[] copy() {
+      byte[] buffer = new byte[length];
+      allocator.read(chunks, buffer);
+      return buffer;
+    }
+
+    void release() {
+      if (refCount.decrementAndGet() == 0) {
+        allocator.free(chunks);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      if (index == null) {
+        index = supplier.get();
+      }
+
+      return (T) index;
+    }
+
+    synchronized boolean indexWeightChanged() {
+      if (index != null) {
+        int indexWeight = index.weight();
+        if (indexWeight > lastIndexWeight) {
+          lastIndexWeight = indexWeight;
+          return true;
+        }
+      }
+
+      return false;
+    }
+  }
+
+  /**
+   * A reference to a block that is given back when it is released, or once the object it was
+   * registered for is garbage collected without releasing it.
+   */
+  private static final class BlockReference implements Runnable {
+    private final OffHeapBlock block;
+    private final AtomicBoolean held = new AtomicBoolean(true);
+
+    BlockReference(OffHeapBlock block) {
+      this.block = block;
+    }
+
+    /**
+     * @return true if the caller took over the reference and now has to release the block
+     */
+    boolean take() {
+      return held.compareAndSet(true, false);
+    }
+
+    @Override
+    public void run() {
+      if (take()) {
+        block.release();
+      }
+    }
+  }
+
+  private class OffHeapCacheEntry implements CacheEntry {
+
+    private final String cacheKey;
+    private final OffHeapBlock block;
+    // the reference taken by the lookup that found the block, null when the entry has its data
+    private final BlockReference reference;
+    private volatile byte[] buffer;
+
+    /**
+     * Creates the entry of a cache hit, which holds a reference to the block until its data is
+     * copied or handed to a stream.
+     */
+    OffHeapCacheEntry(String cacheKey, OffHeapBlock block) {
+      this.cacheKey = cacheKey;
+      this.block = block;
+      this.reference = new BlockReference(block);
+      CleanerUtil.release(this, reference);
+    }
+
+    /**
+     * @param block the cached block, or null when the data could not be cached
+     */
+    OffHeapCacheEntry(String cacheKey, OffHeapBlock block, byte[] buffer) {
+      this.cacheKey = cacheKey;
+      this.block = block;
+      this.reference = null;
+      this.buffer = buffer;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+      byte[] b = buffer;
+      if (b == null) {
+        synchronized (this) {
+          b = buffer;
+          if (b == null) {
+            if (reference.take()) {
+              try {
+                b = block.copy();
+              } finally {
+                block.release();
+              }
+            } else {
+              // the reference went to a stream, which may have been closed already
+              b = block.read();
+              if (b == null) {
+                throw new IllegalStateException(
+                    "Block " + cacheKey + " was evicted after it was read through a stream");
+              }
+            }
+            buffer = b;
+          }
+        }
+      }
+      return b;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      if (buffer != null) {
+        return null;
+      }
+      if (reference.take() || block.retain()) {
+        return new BlockInputStream(block);
+      }
+      return null;
+    }
+
+    @Override
+    public <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      return block == null ? null : block.getIndex(supplier);
+    }
+
+    @Override
+    public void indexWeightChanged() {
+      if (block != null && block.indexWeightChanged()) {
+        // update weight, replace only if the block is still the cached one
+        cache.asMap().replace(cacheKey, block, block);
+      }
+    }
+  }
+
+  /**
+   * Reads a block where it is stored in direct memory. The stream holds a reference to the block,
+   * which it gives back when it is closed.
+   */
+  private final class BlockInputStream extends InputStream implements SeekableInput {
+
+    private final OffHeapBlock block;
+    private final BlockReference reference;
+    private int position = 0;
+
+    /**
+     * @param block a block the caller took a reference to, which the stream takes over
+     */
+    BlockInputStream(OffHeapBlock block) {
+      this.block = block;
+      this.reference = new BlockReference(block);
+      CleanerUtil.release(this, reference);
+    }
+
+    private void ensureOpen() throws IOException {
+      if (!reference.held.get()) {
+        throw new IOException("Stream closed");
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      ensureOpen();
+      if (position >= block.length) {
+        return -1;
+      }
+      return allocator.get(block.chunks, position++) & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      Objects.checkFromIndexSize(off, len, b.length);
+      ensureOpen();
+      if (len == 0) {
+        return 0;
+      }
+      int n = Math.min(len, block.length - position);
+      if (n <= 0) {
+        return -1;
+      }
+      allocator.read(block.chunks, position, b, off, n);
+      position += n;
+      return n;
+    }
+
+    @Override
+    public long skip(long n) {
+      long skipped = Math.max(0, Math.min(n, block.length - position));
+      position += (int) skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return block.length - position;
+    }
+
+    @Override
+    public void seek(int position) {
+      if (position < 0 || position >= block.length) {
+        throw new IllegalArgumentException("position = " + position + " length = " + block.length);
+      }
+      this.position = position;
+    }
+
+    @Override
+    public int getPosition() {
+      return position;
+    }
+
+    @Override
+    public void close() {
+      reference.run();
+    }
+  }
+
+  private Map<String,byte[]> resolveDependencies(Map<String,Loader> deps) {
+    if (deps.size() == 1) {
+      Entry<String,Loader> entry = deps.entrySet().iterator().next();
+      CacheEntry ce = getBlock(entry.getKey(), entry.getValue());
+      if (ce == null) {
+        return null;
+      }
+      return Collections.singletonMap(entry.getKey(), ce.getBuffer());
+    } else {
+      HashMap<String,byte[]> resolvedDeps = new HashMap<>();
+      for (Entry<String,Loader> entry : deps.entrySet()) {
+        CacheEntry ce = getBlock(entry.getKey(), entry.getValue());
+        if (ce == null) {
+          return null;
+        }
+        resolvedDeps.put(entry.getKey(), ce.getBuffer());
+      }
+      return resolvedDeps;
+    }
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName, Loader loader) {
+    CacheEntry ce = getBlock(blockName);
+    if (ce != null) {
+      return ce;
+    }
+
+    // Blocks are copied into direct memory outside of any cache load function because making room
+    // for them may need to evict other blocks. This means concurrent loads of the same block are
+    // not prevented, which the BlockCache contract allows.
+    Map<String,Loader> deps = loader.getDependencies();
+    Map<String,byte[]> resolvedDeps = Collections.emptyMap();
+    if (!deps.isEmpty()) {
+      resolvedDeps = resolveDependencies(deps);
+      if (resolvedDeps == null) {
+        return null;
+      }
+    }
+
+    byte[] data = loader.load(maxSize, resolvedDeps);
+    return data == null ? null : cacheBlock(blockName, data);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.offheap;
+
+import java.nio.ByteBuffer;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Hands out fixed size chunks of direct memory. Memory is reserved in slabs of many chunks, which
+ * are allocated as they are first needed and kept for the life of the allocator. A block is
+ * stored in as many chunks as it needs, which do not have to be adjacent, so freeing and
+ * reallocating blocks of different sizes does not fragment the slabs.
+ */
+final class SlabAllocator {
+
+  static final int CHUNK_SIZE = 16 * 1024;
+  static final int CHUNKS_PER_SLAB = 256;
+
+  private final ByteBuffer[] slabs;
+  private final int totalChunks;
+  private final int[] freeChunks;
+  private int freeCount = 0;
+  private int nextUnusedChunk = 0;
+
+  SlabAllocator(long capacity) {
+    long chunks = capacity / CHUNK_SIZE;
+    Preconditions.checkArgument(chunks > 0 && chunks <= Integer.MAX_VALUE,
+        "Unsupported off-heap cache capacity %s", capacity);
+    this.totalChunks = (int) chunks;
+    this.slabs = new ByteBuffer[(totalChunks + CHUNKS_PER_SLAB - 1) / CHUNKS_PER_SLAB];
+    this.freeChunks = new int[totalChunks];
+  }
+
+  static int chunksNeeded(int length) {
+    return Math.max(1, (length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+  }
+
+  long getCapacity() {
+    return (long) totalChunks * CHUNK_SIZE;
+  }
+
+  /**
+   * @return the number of bytes in chunks that are currently handed out
+   */
+  synchronized long getAllocated() {
+    return (long) (nextUnusedChunk - freeCount) * CHUNK_SIZE;
+  }
+
+  /**
+   * @return the chunks holding the given data, or null if there are not enough free chunks
+   */
+  int[] allocate(byte[] data) {
+    int[] chunks = allocate(chunksNeeded(data.length));
+    if (chunks != null) {
+      int offset = 0;
+      for (int chunk : chunks) {
+        int len = Math.min(CHUNK_SIZE, data.length - offset);
+        ByteBuffer bb = slice(chunk);
+        bb.put(data, offset, len);
+        offset += len;
+      }
+    }
+    return chunks;
+  }
+
+  private synchronized int[] allocate(int count) {
+    if (freeCount + (totalChunks - nextUnusedChunk) < count) {
+      return null;
+    }
+    int[] chunks = new int[count];
+    for (int i = 0; i < count; i++) {
+      if (freeCount > 0) {
+        chunks[i] = freeChunks[--freeCount];
+      } else {
+        int chunk = nextUnusedChunk++;
+        int slab = chunk / CHUNKS_PER_SLAB;
+        if (slabs[slab] == null) {
+          int slabChunks = Math.min(CHUNKS_PER_SLAB, totalChunks - slab * CHUNKS_PER_SLAB);
+          slabs[slab] = ByteBuffer.allocateDirect(slabChunks * CHUNK_SIZE);
+        }
+        chunks[i] = chunk;
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * Copies the first {@code dest.length} bytes stored in the given chunks into dest.
+   */
+  void read(int[] chunks, byte[] dest) {
+    int offset = 0;
+    for (int i = 0; offset < dest.length; i++) {
+      int len = Math.min(CHUNK_SIZE, dest.length - offset);
+      slice(chunks[i]).get(dest, offset, len);
+      offset += len;
+    }
+  }
+
+  /**
+   * @return the byte at the given position of the data stored in the given chunks
+   */
+  byte get(int[] chunks, int position) {
+    int chunk = chunks[position / CHUNK_SIZE];
+    return slabs[chunk / CHUNKS_PER_SLAB]
+        .get((chunk % CHUNKS_PER_SLAB) * CHUNK_SIZE + position % CHUNK_SIZE);
+  }
+
+  /**
+   * Copies {@code len} bytes starting at the given position of the data stored in the given
+   * chunks into dest.
+   */
+  void read(int[] chunks, int position, byte[] dest, int off, int len) {
+    while (len > 0) {
+      int chunkOffset = position % CHUNK_SIZE;
+      int n = Math.min(CHUNK_SIZE - chunkOffset, len);
+      ByteBuffer bb = slice(chunks[position / CHUNK_SIZE]);
+      bb.position(bb.position() + chunkOffset);
+      bb.get(dest, off, n);
+      position += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  synchronized void free(int[] chunks) {
+    for (int chunk : chunks) {
+      freeChunks[freeCount++] = chunk;
+    }
+  }
+
+  private ByteBuffer slice(int chunk) {
+    // the slab was created before the chunk was handed out, and chunks are only handed to other
+    // threads through the cache, which safely publishes them
+    ByteBuffer bb = slabs[chunk / CHUNKS_PER_SLAB].duplicate();
+    int position = (chunk % CHUNKS_PER_SLAB) * CHUNK_SIZE;
+    bb.limit(position + CHUNK_SIZE).position(position);
+    return bb;
+  }
+}
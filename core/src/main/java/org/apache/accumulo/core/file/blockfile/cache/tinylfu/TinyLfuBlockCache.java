@@ -20,16 +20,21 @@ package org.apache.accumulo.core.file.blockfile.cache.tinylfu;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 import org.apache.accumulo.core.file.blockfile.cache.impl.ClassSize;
 import org.apache.accumulo.core.file.blockfile.cache.impl.SizeConstants;
+import org.apache.accumulo.core.file.blockfile.cache.impl.TableCacheQuotas;
+import org.apache.accumulo.core.file.blockfile.cache.impl.TableCacheQuotas.TableUsage;
 import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager.Configuration;
 import org.apache.accumulo.core.spi.cache.CacheEntry;
@@ -54,6 +59,11 @@ import com.github.benmanes.caffeine.cache.stats.CacheStats;
  * <li><a href="https://highscalability.com/blog/2016/1/25/design-of-a-modern-cache.html">Cache
  * design</a></li>
  * </ul>
+ *
+ * <p>
+ * The admission policy keeps blocks that are read once, for example by a large scan, from
+ * displacing frequently read blocks. Per table quotas, see {@link TableCacheQuotas}, additionally
+ * bound how much of the cache a single table can use.
  */
 public final class TinyLfuBlockCache implements BlockCache {
   private static final Logger log = LoggerFactory.getLogger(TinyLfuBlockCache.class);
@@ -65,14 +75,17 @@ public final class TinyLfuBlockCache implements BlockCache {
   private final ScheduledExecutorService statsExecutor = ThreadPools.getServerThreadPools()
       .createScheduledExecutorService(1, "TinyLfuBlockCacheStatsExecutor");
   private final CacheType type;
+  private final TableCacheQuotas quotas;
 
   public TinyLfuBlockCache(Configuration conf, CacheType type) {
+    quotas = new TableCacheQuotas(conf, type);
     cache = Caches.getInstance().createNewBuilder(CacheName.TINYLFU_BLOCK_CACHE, false)
         .initialCapacity((int) Math.ceil(1.2 * conf.getMaxSize(type) / conf.getBlockSize()))
         .recordStats().weigher((String blockName, Block block) -> {
           int keyWeight = ClassSize.align(blockName.length()) + ClassSize.STRING;
           return keyWeight + block.weight();
-        }).maximumWeight(conf.getMaxSize(type)).build();
+        }).maximumWeight(conf.getMaxSize(type))
+        .evictionListener((blockName, block, cause) -> block.release(true)).build();
     policy = cache.policy().eviction().orElseThrow();
     maxSize = (int) Math.min(Integer.MAX_VALUE, policy.getMaximum());
     ScheduledFuture<?> future = statsExecutor.scheduleAtFixedRate(this::logStats, STATS_PERIOD_SEC,
@@ -93,16 +106,52 @@ public final class TinyLfuBlockCache implements BlockCache {
 
   @Override
   public CacheEntry getBlock(String blockName) {
-    return wrap(blockName, cache.getIfPresent(blockName));
+    Block block = cache.getIfPresent(blockName);
+    quotas.recordRequest(TableCacheQuotas.tableId(blockName), blockName, block != null);
+    return wrap(blockName, block);
+  }
+
+  @Override
+  public boolean containsBlock(String blockName) {
+    return cache.asMap().containsKey(blockName);
+  }
+
+  @Override
+  public void removeBlock(String blockName) {
+    Block block = cache.asMap().remove(blockName);
+    if (block != null) {
+      block.release(false);
+    }
   }
 
   @Override
   public CacheEntry cacheBlock(String blockName, byte[] buffer) {
+    String tableId = TableCacheQuotas.tableId(blockName);
+    List<String> evict = quotas.charge(tableId, blockName, buffer.length);
+    if (evict == null) {
+      return new UncachedEntry(buffer);
+    }
+    evict(evict);
     return wrap(blockName, cache.asMap().compute(blockName, (key, block) -> {
-      return new Block(buffer);
+      if (block != null) {
+        block.release(false);
+      }
+      return new Block(blockName, buffer, tableId);
     }));
   }
 
+  /**
+   * Removes the blocks a table had to give up to stay within its quota.
+   */
+  private void evict(List<String> blockNames) {
+    for (String blockName : blockNames) {
+      Block block = cache.asMap().remove(blockName);
+      if (block != null) {
+        block.release(true);
+      }
+    }
+  }
+
   @Override
   public BlockCache.Stats getStats() {
     CacheStats stats = cache.stats();
@@ -121,6 +170,11 @@ public final class TinyLfuBlockCache implements BlockCache {
       public long evictionCount() {
         return stats.evictionCount();
       }
+
+      @Override
+      public Map<String,TableUsage> tableStats() {
+        return quotas.getTableUsage();
+      }
     };
   }
 
@@ -133,17 +187,31 @@ public final class TinyLfuBlockCache implements BlockCache {
     log.debug(cache.stats().toString());
   }
 
-  private static final class Block {
+  private final class Block {
 
+    private final String blockName;
     private final byte[] buffer;
+    private final String tableId;
+    private final AtomicBoolean released = new AtomicBoolean(false);
     private Weighable index;
     private volatile int lastIndexWeight;
 
-    Block(byte[] buffer) {
+    Block(String blockName, byte[] buffer, String tableId) {
+      this.blockName = blockName;
       this.buffer = buffer;
+      this.tableId = tableId;
       this.lastIndexWeight = buffer.length / 100;
     }
 
+    /**
+     * Gives back the quota charged for this block when it leaves the cache.
+     */
+    void release(boolean evicted) {
+      if (released.compareAndSet(false, true)) {
+        quotas.release(tableId, blockName, buffer.length, evicted);
+      }
+    }
+
     int weight() {
       int indexWeight = lastIndexWeight + SizeConstants.SIZEOF_INT + ClassSize.REFERENCE;
       return indexWeight + ClassSize.align(getBuffer().length) + SizeConstants.SIZEOF_LONG
@@ -176,6 +244,30 @@ public final class TinyLfuBlockCache implements BlockCache {
     }
   }
 
+  /**
+   * A block that was not cached because it is larger than the quota of its table.
+   */
+  private static class UncachedEntry implements CacheEntry {
+    private final byte[] buffer;
+
+    UncachedEntry(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+      return buffer;
+    }
+
+    @Override
+    public <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      return null;
+    }
+
+    @Override
+    public void indexWeightChanged() {}
+  }
+
   private CacheEntry wrap(String cacheKey, Block block) {
     if (block != null) {
       return new TlfuCacheEntry(cacheKey, block);
@@ -213,9 +305,25 @@ public final class TinyLfuBlockCache implements BlockCache {
     }
   }
 
-  private Block load(Loader loader, Map<String,byte[]> resolvedDeps) {
+  /**
+   * Loads a block to cache. A loaded block that can not be cached because it is larger than the
+   * quota of its table is returned through overQuota instead. The blocks its table has to give up
+   * to make room for it are added to evict, they can only be removed once the load is done.
+   */
+  private Block load(String blockName, Loader loader, Map<String,byte[]> resolvedDeps,
+      byte[][] overQuota, List<String> evict) {
     byte[] data = loader.load(maxSize, resolvedDeps);
-    return data == null ? null : new Block(data);
+    if (data == null) {
+      return null;
+    }
+    String tableId = TableCacheQuotas.tableId(blockName);
+    List<String> charged = quotas.charge(tableId, blockName, data.length);
+    if (charged == null) {
+      overQuota[0] = data;
+      return null;
+    }
+    evict.addAll(charged);
+    return new Block(blockName, data, tableId);
   }
 
   private Map<String,byte[]> resolveDependencies(Map<String,Loader> deps) {
@@ -242,9 +350,15 @@ public final class TinyLfuBlockCache implements BlockCache {
   @Override
   public CacheEntry getBlock(String blockName, Loader loader) {
     Map<String,Loader> deps = loader.getDependencies();
+    byte[][] overQuota = new byte[1][];
+    List<String> evict = new ArrayList<>();
+    boolean[] loaded = {false};
     Block block;
     if (deps.isEmpty()) {
-      block = cache.get(blockName, k -> load(loader, Collections.emptyMap()));
+      block = cache.get(blockName, k -> {
+        loaded[0] = true;
+        return load(blockName, loader, Collections.emptyMap(), overQuota, evict);
+      });
     } else {
       // This code path exist to handle the case where dependencies may need to be loaded. Loading
       // dependencies will access the cache. Cache load functions
@@ -261,10 +375,17 @@ public final class TinyLfuBlockCache implements BlockCache {
         // Use asMap because it will not increment stats, getIfPresent recorded a miss above. Use
         // computeIfAbsent because it is possible another thread loaded
         // the data since this thread called getIfPresent.
-        block = cache.asMap().computeIfAbsent(blockName, k -> load(loader, resolvedDeps));
+        loaded[0] = true;
+        block = cache.asMap().computeIfAbsent(blockName,
+            k -> load(blockName, loader, resolvedDeps, overQuota, evict));
       }
     }
 
+    evict(evict);
+    quotas.recordRequest(TableCacheQuotas.tableId(blockName), blockName, !loaded[0]);
+    if (block == null && overQuota[0] != null) {
+      return new UncachedEntry(overQuota[0]);
+    }
     return wrap(blockName, block);
   }
 }
@@ -18,14 +18,19 @@
  */
 package org.apache.accumulo.core.file.blockfile.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
@@ -33,14 +38,18 @@ import org.apache.accumulo.core.file.rfile.BlockIndex;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile.Reader.BlockReader;
 import org.apache.accumulo.core.file.rfile.bcfile.MetaBlockDoesNotExist;
+import org.apache.accumulo.core.file.streams.MappedFileInputStream;
 import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.BlockCache.Loader;
 import org.apache.accumulo.core.spi.cache.CacheEntry;
 import org.apache.accumulo.core.spi.crypto.CryptoService;
+import org.apache.accumulo.core.spi.crypto.NoCryptoService;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,6 +73,35 @@ public class CachableBlockFile {
     return p.toString();
   }
 
+  private static File toLocalFile(FileSystem fs, Path path) {
+    if (fs instanceof LocalFileSystem) {
+      return ((LocalFileSystem) fs).pathToFile(path);
+    } else if (fs instanceof RawLocalFileSystem) {
+      return ((RawLocalFileSystem) fs).pathToFile(path);
+    }
+    return null;
+  }
+
+  /**
+   * How data blocks are stored in the data block cache.
+   */
+  public enum DataCacheFormat {
+    /**
+     * Blocks are cached decompressed, so a cache hit needs no further work.
+     */
+    DECOMPRESSED,
+    /**
+     * Blocks are cached as they are stored in the file and are decompressed on every hit. The cache
+     * holds about as many more blocks as the compression ratio of the file.
+     */
+    COMPRESSED,
+    /**
+     * Blocks are cached compressed when first read and a decompressed copy is added to the cache
+     * when a block is read again while its compressed copy is still cached.
+     */
+    TIERED
+  }
+
   public static class CachableBuilder {
     String cacheId = null;
     IoeSupplier<FSDataInputStream> inputSupplier = null;
@@ -72,6 +110,9 @@ public class CachableBlockFile {
     volatile CacheProvider cacheProvider = CacheProvider.NULL_PROVIDER;
     Configuration hadoopConf = null;
     CryptoService cryptoService = null;
+    int readAheadBlocks = 0;
+    Executor readAheadExecutor = null;
+    DataCacheFormat dataCacheFormat = DataCacheFormat.DECOMPRESSED;
 
     public CachableBuilder conf(Configuration hadoopConf) {
       this.hadoopConf = hadoopConf;
@@ -83,8 +124,24 @@ public class CachableBlockFile {
     }
 
     public CachableBuilder fsPath(FileSystem fs, Path dataFile, boolean dropCacheBehind) {
+      return fsPath(fs, dataFile, dropCacheBehind, false);
+    }
+
+    /**
+     * @param mapLocalFiles when true and the file is on the local file system, memory map the file
+     *        instead of reading it through the file system
+     */
+    public CachableBuilder fsPath(FileSystem fs, Path dataFile, boolean dropCacheBehind,
+        boolean mapLocalFiles) {
       this.cacheId = pathToCacheId(dataFile);
       this.inputSupplier = () -> {
+        if (mapLocalFiles) {
+          File localFile = toLocalFile(fs, dataFile);
+          if (localFile != null) {
+            log.trace("Memory mapping local file {}", localFile);
+            return new FSDataInputStream(MappedFileInputStream.open(localFile));
+          }
+        }
         FSDataInputStream is = fs.open(dataFile);
         if (dropCacheBehind) {
           // Tell the DataNode that the write ahead log does not need to be cached in the OS page
@@ -130,6 +187,23 @@ public class CachableBlockFile {
       this.cryptoService = cryptoService;
       return this;
     }
+
+    /**
+     * Enables reading data blocks ahead of sequential readers.
+     *
+     * @param blocks the maximum number of data blocks to read ahead, 0 disables read-ahead
+     * @param executor runs the background reads
+     */
+    public CachableBuilder readAhead(int blocks, Executor executor) {
+      this.readAheadBlocks = blocks;
+      this.readAheadExecutor = executor;
+      return this;
+    }
+
+    public CachableBuilder dataCacheFormat(DataCacheFormat format) {
+      this.dataCacheFormat = Objects.requireNonNull(format);
+      return this;
+    }
   }
 
   /**
@@ -144,6 +218,11 @@ public class CachableBlockFile {
     private boolean closed = false;
     private final Configuration conf;
     private final CryptoService cryptoService;
+    // blocks of encrypted files are decrypted when cached, so must only be cached in memory
+    private final boolean encrypted;
+    private final int readAheadBlocks;
+    private final Executor readAheadExecutor;
+    private final DataCacheFormat dataCacheFormat;
 
     private final IoeSupplier<FSDataInputStream> inputSupplier;
     private final IoeSupplier<Long> lengthSupplier;
@@ -238,6 +317,11 @@ public class CachableBlockFile {
           throw new UncheckedIOException(e);
         }
       }
+
+      @Override
+      public boolean isEncrypted() {
+        return encrypted;
+      }
     }
 
     private class RawBlockLoader extends BaseBlockLoader {
@@ -266,6 +350,111 @@ public class CachableBlockFile {
       }
     }
 
+    private class PrefetchedBlockLoader extends BaseBlockLoader {
+      private final long offset;
+      private final long compressedSize;
+      private final long rawSize;
+      private final byte[] compressed;
+      private final int compressedOffset;
+
+      private PrefetchedBlockLoader(long offset, long compressedSize, long rawSize,
+          byte[] compressed, int compressedOffset) {
+        super(false);
+        this.offset = offset;
+        this.compressedSize = compressedSize;
+        this.rawSize = rawSize;
+        this.compressed = compressed;
+        this.compressedOffset = compressedOffset;
+      }
+
+      @Override
+      BlockReader getBlockReader(int maxSize, BCFile.Reader bcfr) throws IOException {
+        if (rawSize > Math.min(maxSize, MAX_ARRAY_SIZE)) {
+          return null;
+        }
+        return bcfr.getDataBlock(offset, compressedSize, rawSize, compressed, compressedOffset);
+      }
+
+      @Override
+      String getBlockId() {
+        return "prefetched-(" + offset + "," + compressedSize + "," + rawSize + ")";
+      }
+    }
+
+    /**
+     * Loads the compressed bytes of a data block, reading them from the file unless they were
+     * already read ahead.
+     */
+    private class CompressedBlockLoader implements Loader {
+      private final long offset;
+      private final long compressedSize;
+      private final byte[] prefetched;
+      private final int prefetchedOffset;
+      private boolean loaded = false;
+
+      private CompressedBlockLoader(long offset, long compressedSize, byte[] prefetched,
+          int prefetchedOffset) {
+        this.offset = offset;
+        this.compressedSize = compressedSize;
+        this.prefetched = prefetched;
+        this.prefetchedOffset = prefetchedOffset;
+      }
+
+      @Override
+      public Map<String,Loader> getDependencies() {
+        return Collections.emptyMap();
+      }
+
+      @Override
+      public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+        if (compressedSize > Math.min(maxSize, MAX_ARRAY_SIZE)) {
+          return null;
+        }
+        loaded = true;
+        if (prefetched != null) {
+          return Arrays.copyOfRange(prefetched, prefetchedOffset,
+              prefetchedOffset + (int) compressedSize);
+        }
+        try {
+          return getBCFile().readRange(offset, (int) compressedSize);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      public boolean isEncrypted() {
+        return encrypted;
+      }
+    }
+
+    /**
+     * Caches a block that was already read, so that blocks of encrypted files are cached through a
+     * loader that reports them as {@link Loader#isEncrypted() encrypted}.
+     */
+    private class ReadBlockLoader implements Loader {
+      private final byte[] block;
+
+      private ReadBlockLoader(byte[] block) {
+        this.block = block;
+      }
+
+      @Override
+      public Map<String,Loader> getDependencies() {
+        return Collections.emptyMap();
+      }
+
+      @Override
+      public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+        return block.length > maxSize ? null : block;
+      }
+
+      @Override
+      public boolean isEncrypted() {
+        return encrypted;
+      }
+    }
+
     private class OffsetBlockLoader extends BaseBlockLoader {
       private final int blockIndex;
 
@@ -331,6 +520,11 @@ public class CachableBlockFile {
         return Collections.emptyMap();
       }
 
+      @Override
+      public boolean isEncrypted() {
+        return encrypted;
+      }
+
       @Override
       public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
 
@@ -376,6 +570,10 @@ public class CachableBlockFile {
       this.cacheProvider = b.cacheProvider;
       this.conf = b.hadoopConf;
       this.cryptoService = Objects.requireNonNull(b.cryptoService);
+      this.encrypted = !(cryptoService instanceof NoCryptoService);
+      this.readAheadBlocks = b.readAheadExecutor == null ? 0 : b.readAheadBlocks;
+      this.readAheadExecutor = b.readAheadExecutor;
+      this.dataCacheFormat = b.dataCacheFormat;
     }
 
     /**
@@ -436,7 +634,7 @@ public class CachableBlockFile {
         String _lookup = this.cacheId + "O" + blockIndex;
         CacheEntry ce = _dCache.getBlock(_lookup, new OffsetBlockLoader(blockIndex, false));
         if (ce != null) {
-          return new CachedBlockRead(ce, ce.getBuffer());
+          return CachedBlockRead.of(ce);
         }
       }
 
@@ -447,12 +645,15 @@ public class CachableBlockFile {
     public CachedBlockRead getDataBlock(long offset, long compressedSize, long rawSize)
         throws IOException {
       BlockCache _dCache = cacheProvider.getDataCache();
+      if (_dCache != null && dataCacheFormat != DataCacheFormat.DECOMPRESSED) {
+        return getCompressedCachedBlock(_dCache, offset, compressedSize, rawSize, null, 0);
+      }
       if (_dCache != null) {
         String _lookup = this.cacheId + "R" + offset;
         CacheEntry ce =
             _dCache.getBlock(_lookup, new RawBlockLoader(offset, compressedSize, rawSize, false));
         if (ce != null) {
-          return new CachedBlockRead(ce, ce.getBuffer());
+          return CachedBlockRead.of(ce);
         }
       }
 
@@ -460,6 +661,122 @@ public class CachableBlockFile {
       return new CachedBlockRead(_currBlock);
     }
 
+    /**
+     * @return the maximum number of data blocks to read ahead of a sequential reader, 0 when
+     *         read-ahead is disabled
+     */
+    public int getReadAheadBlocks() {
+      return readAheadBlocks;
+    }
+
+    /**
+     * @return true if the data block starting at the given offset is in the data cache
+     */
+    public boolean isDataBlockCached(long offset) {
+      BlockCache _dCache = cacheProvider.getDataCache();
+      if (_dCache == null) {
+        return false;
+      }
+      // getBlock would count as a request, refresh the block and could read it from a disk tier
+      if (dataCacheFormat != DataCacheFormat.DECOMPRESSED
+          && _dCache.containsBlock(this.cacheId + "C" + offset)) {
+        return true;
+      }
+      return _dCache.containsBlock(this.cacheId + "R" + offset);
+    }
+
+    /**
+     * Reads a contiguous range of the file in the background. The returned bytes can be passed to
+     * {@link #getDataBlock(long, long, long, byte[], int)} for each data block in the range.
+     */
+    public CompletableFuture<byte[]> readAhead(long offset, int length) {
+      Objects.requireNonNull(readAheadExecutor, "read-ahead is not enabled");
+      return CompletableFuture.supplyAsync(() -> {
+        try {
+          return getBCFile().readRange(offset, length);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, readAheadExecutor);
+    }
+
+    /**
+     * Same as {@link #getDataBlock(long, long, long)}, except the compressed bytes of the block
+     * were already read by {@link #readAhead(long, int)}.
+     */
+    public CachedBlockRead getDataBlock(long offset, long compressedSize, long rawSize,
+        byte[] compressed, int compressedOffset) throws IOException {
+      BlockCache _dCache = cacheProvider.getDataCache();
+      if (_dCache != null && dataCacheFormat != DataCacheFormat.DECOMPRESSED) {
+        return getCompressedCachedBlock(_dCache, offset, compressedSize, rawSize, compressed,
+            compressedOffset);
+      }
+      if (_dCache != null) {
+        String _lookup = this.cacheId + "R" + offset;
+        CacheEntry ce = _dCache.getBlock(_lookup, new PrefetchedBlockLoader(offset,
+            compressedSize, rawSize, compressed, compressedOffset));
+        if (ce != null) {
+          return CachedBlockRead.of(ce);
+        }
+      }
+
+      BlockReader _currBlock = getBCFile().getDataBlock(offset, compressedSize, rawSize,
+          compressed, compressedOffset);
+      return new CachedBlockRead(_currBlock);
+    }
+
+    /**
+     * Reads a data block through the compressed copy of it in the data cache, decompressing it on
+     * every read. In {@link DataCacheFormat#TIERED} mode, a block that is found compressed in the
+     * cache is promoted to a decompressed cache entry, which replaces the compressed one.
+     *
+     * @param prefetched the compressed bytes of the block when they were already read ahead, or
+     *        null
+     */
+    private CachedBlockRead getCompressedCachedBlock(BlockCache _dCache, long offset,
+        long compressedSize, long rawSize, byte[] prefetched, int prefetchedOffset)
+        throws IOException {
+      String _lookup = this.cacheId + "R" + offset;
+      if (dataCacheFormat == DataCacheFormat.TIERED) {
+        CacheEntry ce = _dCache.getBlock(_lookup);
+        if (ce != null) {
+          return CachedBlockRead.of(ce);
+        }
+      }
+
+      var loader = new CompressedBlockLoader(offset, compressedSize, prefetched, prefetchedOffset);
+      CacheEntry cce = _dCache.getBlock(this.cacheId + "C" + offset, loader);
+      BlockReader _currBlock;
+      if (cce != null) {
+        _currBlock = getBCFile().getDataBlock(offset, compressedSize, rawSize, cce.getBuffer(), 0);
+      } else if (prefetched != null) {
+        _currBlock = getBCFile().getDataBlock(offset, compressedSize, rawSize, prefetched,
+            prefetchedOffset);
+      } else {
+        _currBlock = getBCFile().getDataBlock(offset, compressedSize, rawSize);
+      }
+
+      if (cce != null && !loader.loaded && dataCacheFormat == DataCacheFormat.TIERED
+          && rawSize <= MAX_ARRAY_SIZE) {
+        byte[] b = new byte[(int) rawSize];
+        try {
+          _currBlock.readFully(b);
+        } finally {
+          _currBlock.close();
+        }
+        CacheEntry ce = encrypted ? _dCache.getBlock(_lookup, new ReadBlockLoader(b))
+            : _dCache.cacheBlock(_lookup, b);
+        if (ce != null) {
+          // reads are served from the decompressed entry now, do not keep both in the cache
+          _dCache.removeBlock(this.cacheId + "C" + offset);
+          return CachedBlockRead.of(ce);
+        }
+        return new CachedBlockRead(new ByteArrayInputStream(b));
+      }
+
+      return new CachedBlockRead(_currBlock);
+    }
+
     @Override
     public synchronized void close() throws IOException {
       if (closed) {
@@ -489,7 +806,8 @@ public class CachableBlockFile {
   }
 
   public static class CachedBlockRead extends DataInputStream {
-    private final SeekableByteArrayInputStream seekableInput;
+    private final SeekableInput seekableInput;
+    private final SeekableByteArrayInputStream arrayInput;
     private final CacheEntry cb;
     final boolean indexable;
 
@@ -497,6 +815,7 @@ public class CachableBlockFile {
       super(in);
       cb = null;
       seekableInput = null;
+      arrayInput = null;
       indexable = false;
     }
 
@@ -507,10 +826,28 @@ public class CachableBlockFile {
     private CachedBlockRead(SeekableByteArrayInputStream seekableInput, CacheEntry cb) {
       super(seekableInput);
       this.seekableInput = seekableInput;
+      this.arrayInput = seekableInput;
       this.cb = cb;
       indexable = true;
     }
 
+    private CachedBlockRead(InputStream in, CacheEntry cb) {
+      super(in);
+      this.seekableInput = in instanceof SeekableInput ? (SeekableInput) in : null;
+      this.arrayInput = null;
+      this.cb = cb;
+      indexable = seekableInput != null;
+    }
+
+    /**
+     * Reads the data of a cache entry in place when the cache supports it, instead of through a
+     * heap copy of it.
+     */
+    private static CachedBlockRead of(CacheEntry cb) {
+      InputStream in = cb.getInputStream();
+      return in == null ? new CachedBlockRead(cb, cb.getBuffer()) : new CachedBlockRead(in, cb);
+    }
+
     public void seek(int position) {
       seekableInput.seek(position);
     }
@@ -524,7 +861,7 @@ public class CachableBlockFile {
     }
 
     public byte[] getBuffer() {
-      return seekableInput.getBuffer();
+      return arrayInput != null ? arrayInput.getBuffer() : cb.getBuffer();
     }
 
     public BlockIndex getIndex(Supplier<BlockIndex> indexSupplier) {
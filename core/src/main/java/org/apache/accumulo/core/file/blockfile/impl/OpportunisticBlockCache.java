@@ -44,6 +44,16 @@ public class OpportunisticBlockCache implements BlockCache {
     return cache.getBlock(blockName);
   }
 
+  @Override
+  public boolean containsBlock(String blockName) {
+    return cache.containsBlock(blockName);
+  }
+
+  @Override
+  public void removeBlock(String blockName) {
+    cache.removeBlock(blockName);
+  }
+
   @Override
   public long getMaxHeapSize() {
     return cache.getMaxHeapSize();
@@ -30,7 +30,7 @@ import java.util.function.IntBinaryOperator;
  * This class is like byte array input stream with two differences. It supports seeking and avoids
  * synchronization.
  */
-public class SeekableByteArrayInputStream extends InputStream {
+public class SeekableByteArrayInputStream extends InputStream implements SeekableInput {
 
   private final byte[] buffer;
   private final AtomicInteger cur = new AtomicInteger(0);
@@ -139,6 +139,7 @@ public class SeekableByteArrayInputStream extends InputStream {
     this.max = maxOffset;
   }
 
+  @Override
   public void seek(int position) {
     if (position < 0 || position >= max) {
       throw new IllegalArgumentException("position = " + position + " maxOffset = " + max);
@@ -146,6 +147,7 @@ public class SeekableByteArrayInputStream extends InputStream {
     this.cur.set(position);
   }
 
+  @Override
   public int getPosition() {
     return this.cur.get();
   }
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
+import org.apache.accumulo.core.file.rfile.bcfile.MetaBlockDoesNotExist;
+
+/**
+ * Summarizes the keys in each data block of a locality group. For every block a 128 bit bloom
+ * sketch of the column families in the block and the minimum and maximum timestamp are kept. The
+ * sketch lets a reader skip blocks that can not contain any of the column families a scan fetches
+ * without reading them. The timestamps are not read yet, they are reserved for skipping blocks
+ * outside the time range of a scan.
+ *
+ * <p>
+ * The stats of all locality groups are stored in their own meta block, separate from the index, so
+ * files with stats can still be read by versions that do not know about them. Files written
+ * without stats are read as if every block may contain every column family.
+ */
+final class BlockStats {
+
+  static final String META_NAME = "RFile.blockstats";
+
+  // longs stored per block: the two words of the family sketch, min and max timestamp. The
+  // timestamps are reserved and must keep their place in the format.
+  private static final int BLOCK_LONGS = 4;
+
+  private final long[] stats;
+
+  private BlockStats(long[] stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * @return the two sketch words with the bits set for the given column family
+   */
+  static long[] familyMask(ByteSequence family) {
+    // FNV-1a, the hash is persisted so it must not depend on the JVM
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < family.length(); i++) {
+      hash ^= family.byteAt(i) & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    long[] mask = new long[2];
+    int bit1 = (int) (hash & 127);
+    int bit2 = (int) ((hash >>> 7) & 127);
+    mask[bit1 >>> 6] |= 1L << bit1;
+    mask[bit2 >>> 6] |= 1L << bit2;
+    return mask;
+  }
+
+  static long[][] familyMasks(Collection<ByteSequence> families) {
+    long[][] masks = new long[families.size()][];
+    int i = 0;
+    for (ByteSequence family : families) {
+      masks[i++] = familyMask(family);
+    }
+    return masks;
+  }
+
+  int size() {
+    return stats.length / BLOCK_LONGS;
+  }
+
+  /**
+   * @return false only if the block is known to contain none of the column families
+   */
+  boolean mayContainAny(int block, long[][] familyMasks) {
+    if (block >= size()) {
+      return true;
+    }
+    long sketch0 = stats[block * BLOCK_LONGS];
+    long sketch1 = stats[block * BLOCK_LONGS + 1];
+    for (long[] mask : familyMasks) {
+      if ((sketch0 & mask[0]) == mask[0] && (sketch1 & mask[1]) == mask[1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Accumulates the stats of a locality group while its data blocks are written.
+   */
+  static class Writer {
+    private long[] stats = new long[BLOCK_LONGS * 16];
+    private int blocks = 0;
+
+    private ByteSequence lastFamily = null;
+    private long sketch0 = 0;
+    private long sketch1 = 0;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+
+    /**
+     * Adds a key to the current block. The key must not be modified afterwards.
+     */
+    void add(Key key) {
+      ByteSequence family = key.getColumnFamilyData();
+      // consecutive keys usually share a family, so only hash when it changes
+      if (lastFamily == null || !lastFamily.equals(family)) {
+        long[] mask = familyMask(family);
+        sketch0 |= mask[0];
+        sketch1 |= mask[1];
+        lastFamily = family;
+      }
+      minTimestamp = Math.min(minTimestamp, key.getTimestamp());
+      maxTimestamp = Math.max(maxTimestamp, key.getTimestamp());
+    }
+
+    void closeBlock() {
+      if (stats.length < (blocks + 1) * BLOCK_LONGS) {
+        stats = Arrays.copyOf(stats, stats.length * 2);
+      }
+      int pos = blocks * BLOCK_LONGS;
+      stats[pos] = sketch0;
+      stats[pos + 1] = sketch1;
+      stats[pos + 2] = minTimestamp;
+      stats[pos + 3] = maxTimestamp;
+      blocks++;
+
+      lastFamily = null;
+      sketch0 = 0;
+      sketch1 = 0;
+      minTimestamp = Long.MAX_VALUE;
+      maxTimestamp = Long.MIN_VALUE;
+    }
+
+    void write(DataOutput out) throws IOException {
+      out.writeInt(blocks);
+      for (int i = 0; i < blocks * BLOCK_LONGS; i++) {
+        out.writeLong(stats[i]);
+      }
+    }
+  }
+
+  static BlockStats read(DataInput in) throws IOException {
+    long[] stats = new long[in.readInt() * BLOCK_LONGS];
+    for (int i = 0; i < stats.length; i++) {
+      stats[i] = in.readLong();
+    }
+    return new BlockStats(stats);
+  }
+
+  /**
+   * Reads the stats of every locality group in the file.
+   *
+   * @return the stats in the same order as the locality groups in the index, or an empty list if
+   *         the file has no stats
+   */
+  static List<BlockStats> load(CachableBlockFile.Reader reader) throws IOException {
+    try (CachableBlockFile.CachedBlockRead in = reader.getMetaBlock(META_NAME)) {
+      int groups = in.readInt();
+      List<BlockStats> stats = new ArrayList<>(groups);
+      for (int i = 0; i < groups; i++) {
+        stats.add(read(in));
+      }
+      return stats;
+    } catch (MetaBlockDoesNotExist e) {
+      return List.of();
+    }
+  }
+}
@@ -0,0 +1,428 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.util.UnsynchronizedBuffer;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Encodes the entries of an RFile data block column by column, instead of each key relative to the
+ * previous one as {@link RelativeKey} does. Used by files written with {@link RFile#RINDEX_VER_9}.
+ * Every field of the keys in a block is written to its own stream:
+ *
+ * <ul>
+ * <li>rows: each distinct row prefix coded against the previous row, plus the run length of
+ * every row
+ * <li>column families and visibilities: a dictionary of the distinct values in the block, plus run
+ * length encoded ids into the dictionary
+ * <li>column qualifiers: prefix coded against the previous qualifier
+ * <li>timestamps: the difference from the previous timestamp
+ * <li>delete markers: run lengths of alternating non deleted and deleted entries
+ * <li>values: all lengths followed by all value bytes
+ * </ul>
+ *
+ * Each stream is preceded by its length, so the reader keeps the streams in serialized form and
+ * only decodes them when they are first needed. The key streams are decoded once per block; values
+ * are only copied out for entries whose value is requested.
+ */
+final class ColumnarBlock {
+
+  private ColumnarBlock() {}
+
+  private static void writePrefixed(UnsynchronizedBuffer.Writer out, ByteSequence prev,
+      ByteSequence cur) {
+    int prefix = prev == null ? 0 : RelativeKey.getCommonPrefix(prev, cur);
+    // getCommonPrefix returns -1 when the sequences are equal
+    if (prefix < 0) {
+      prefix = cur.length();
+    }
+    out.writeVInt(prefix);
+    out.writeVInt(cur.length() - prefix);
+    out.add(cur.getBackingArray(), cur.offset() + prefix, cur.length() - prefix);
+  }
+
+  private static byte[] readPrefixed(UnsynchronizedBuffer.Reader in, byte[] prev) {
+    int prefix = in.readVInt();
+    int suffix = in.readVInt();
+    byte[] data = new byte[prefix + suffix];
+    if (prefix > 0) {
+      System.arraycopy(prev, 0, data, 0, prefix);
+    }
+    byte[] tail = new byte[suffix];
+    in.readBytes(tail);
+    System.arraycopy(tail, 0, data, prefix, suffix);
+    return data;
+  }
+
+  private static void writeStream(DataOutput out, UnsynchronizedBuffer.Writer stream)
+      throws IOException {
+    ByteBuffer bb = stream.toByteBuffer();
+    WritableUtils.writeVInt(out, bb.remaining());
+    out.write(bb.array(), bb.arrayOffset() + bb.position(), bb.remaining());
+  }
+
+  private static byte[] readStream(DataInput in) throws IOException {
+    byte[] data = new byte[WritableUtils.readVInt(in)];
+    in.readFully(data);
+    return data;
+  }
+
+  /**
+   * Assigns ids to the distinct values of a key field and run length encodes the ids.
+   */
+  private static class Dictionary {
+    private final HashMap<ByteSequence,Integer> ids = new HashMap<>();
+    private final UnsynchronizedBuffer.Writer values = new UnsynchronizedBuffer.Writer();
+    private final UnsynchronizedBuffer.Writer runs = new UnsynchronizedBuffer.Writer();
+    private int currentId = -1;
+    private int currentRun = 0;
+
+    void add(ByteSequence value) {
+      Integer id = ids.get(value);
+      if (id == null) {
+        id = ids.size();
+        ids.put(value, id);
+        values.writeVInt(value.length());
+        values.add(value.getBackingArray(), value.offset(), value.length());
+      }
+
+      if (id == currentId) {
+        currentRun++;
+      } else {
+        finishRun();
+        currentId = id;
+        currentRun = 1;
+      }
+    }
+
+    private void finishRun() {
+      if (currentRun > 0) {
+        runs.writeVInt(currentId);
+        runs.writeVInt(currentRun);
+      }
+    }
+
+    int size() {
+      return values.size() + runs.size();
+    }
+
+    void write(DataOutput out) throws IOException {
+      finishRun();
+      currentRun = 0;
+      WritableUtils.writeVInt(out, ids.size());
+      writeStream(out, values);
+      writeStream(out, runs);
+    }
+
+    static byte[][] decode(int entries, int size, byte[] values, byte[] runs) {
+      byte[][] dictionary = new byte[size][];
+      UnsynchronizedBuffer.Reader in = new UnsynchronizedBuffer.Reader(values);
+      for (int i = 0; i < size; i++) {
+        dictionary[i] = new byte[in.readVInt()];
+        in.readBytes(dictionary[i]);
+      }
+
+      // entries with the same value share the same array
+      byte[][] decoded = new byte[entries][];
+      in = new UnsynchronizedBuffer.Reader(runs);
+      for (int i = 0; i < entries;) {
+        byte[] value = dictionary[in.readVInt()];
+        int run = in.readVInt();
+        for (int j = 0; j < run; j++) {
+          decoded[i++] = value;
+        }
+      }
+      return decoded;
+    }
+  }
+
+  /**
+   * Buffers the entries of one data block until the block is closed. Keys passed to
+   * {@link #append(Key, Value)} are retained and must not be modified afterwards.
+   */
+  static class Writer {
+    private final UnsynchronizedBuffer.Writer rows = new UnsynchronizedBuffer.Writer();
+    private final UnsynchronizedBuffer.Writer rowRuns = new UnsynchronizedBuffer.Writer();
+    private final Dictionary families = new Dictionary();
+    private final UnsynchronizedBuffer.Writer qualifiers = new UnsynchronizedBuffer.Writer();
+    private final Dictionary visibilities = new Dictionary();
+    private final UnsynchronizedBuffer.Writer timestamps = new UnsynchronizedBuffer.Writer();
+    private final UnsynchronizedBuffer.Writer deletes = new UnsynchronizedBuffer.Writer();
+    private final UnsynchronizedBuffer.Writer valueLengths = new UnsynchronizedBuffer.Writer();
+    private final UnsynchronizedBuffer.Writer values = new UnsynchronizedBuffer.Writer(1024);
+
+    private Key prevKey = null;
+    private int entries = 0;
+    private int rowRun = 0;
+    private boolean deletedRun = false;
+    private int deleteRun = 0;
+
+    void append(Key key, Value value) {
+      ByteSequence row = key.getRowData();
+      if (prevKey != null && row.equals(prevKey.getRowData())) {
+        rowRun++;
+      } else {
+        if (rowRun > 0) {
+          rowRuns.writeVInt(rowRun);
+        }
+        writePrefixed(rows, prevKey == null ? null : prevKey.getRowData(), row);
+        rowRun = 1;
+      }
+
+      families.add(key.getColumnFamilyData());
+      writePrefixed(qualifiers, prevKey == null ? null : prevKey.getColumnQualifierData(),
+          key.getColumnQualifierData());
+      visibilities.add(key.getColumnVisibilityData());
+      timestamps.writeVLong(
+          prevKey == null ? key.getTimestamp() : key.getTimestamp() - prevKey.getTimestamp());
+
+      if (key.isDeleted() != deletedRun) {
+        deletes.writeVInt(deleteRun);
+        deletedRun = !deletedRun;
+        deleteRun = 0;
+      }
+      deleteRun++;
+
+      valueLengths.writeVInt(value.getSize());
+      values.add(value.get(), 0, value.getSize());
+
+      prevKey = key;
+      entries++;
+    }
+
+    int getEntries() {
+      return entries;
+    }
+
+    /**
+     * @return the approximate number of bytes {@link #write(DataOutput)} will produce
+     */
+    int getSize() {
+      return rows.size() + rowRuns.size() + families.size() + qualifiers.size()
+          + visibilities.size() + timestamps.size() + deletes.size() + valueLengths.size()
+          + values.size();
+    }
+
+    void write(DataOutput out) throws IOException {
+      if (rowRun > 0) {
+        rowRuns.writeVInt(rowRun);
+        rowRun = 0;
+      }
+      if (deleteRun > 0) {
+        deletes.writeVInt(deleteRun);
+        deleteRun = 0;
+      }
+
+      WritableUtils.writeVInt(out, entries);
+      writeStream(out, rows);
+      writeStream(out, rowRuns);
+      families.write(out);
+      writeStream(out, qualifiers);
+      visibilities.write(out);
+      writeStream(out, timestamps);
+      writeStream(out, deletes);
+      writeStream(out, valueLengths);
+      writeStream(out, values);
+    }
+  }
+
+  /**
+   * Reads a block written by {@link Writer} and iterates over its entries. Before the first call
+   * to {@link #next()} the reader is not positioned on any entry.
+   */
+  static class Reader {
+    private final int entries;
+
+    private final byte[] rowData;
+    private final byte[] rowRunData;
+    private final int familyCount;
+    private final byte[] familyData;
+    private final byte[] familyRunData;
+    private final byte[] qualifierData;
+    private final int visibilityCount;
+    private final byte[] visibilityData;
+    private final byte[] visibilityRunData;
+    private final byte[] timestampData;
+    private final byte[] deleteData;
+    private final byte[] valueLengthData;
+    private final byte[] valueData;
+
+    // decoded on first use
+    private byte[][] rows;
+    private byte[][] families;
+    private byte[][] qualifiers;
+    private byte[][] visibilities;
+    private long[] timestamps;
+    private boolean[] deleted;
+    private int[] valueOffsets;
+
+    private int pos = -1;
+    private Key topKey;
+    private Value topValue;
+
+    Reader(DataInput in) throws IOException {
+      entries = WritableUtils.readVInt(in);
+      rowData = readStream(in);
+      rowRunData = readStream(in);
+      familyCount = WritableUtils.readVInt(in);
+      familyData = readStream(in);
+      familyRunData = readStream(in);
+      qualifierData = readStream(in);
+      visibilityCount = WritableUtils.readVInt(in);
+      visibilityData = readStream(in);
+      visibilityRunData = readStream(in);
+      timestampData = readStream(in);
+      deleteData = readStream(in);
+      valueLengthData = readStream(in);
+      valueData = readStream(in);
+    }
+
+    private void decodeKeys() {
+      rows = new byte[entries][];
+      UnsynchronizedBuffer.Reader rowIn = new UnsynchronizedBuffer.Reader(rowData);
+      UnsynchronizedBuffer.Reader runIn = new UnsynchronizedBuffer.Reader(rowRunData);
+      byte[] row = null;
+      for (int i = 0; i < entries;) {
+        row = readPrefixed(rowIn, row);
+        int run = runIn.readVInt();
+        for (int j = 0; j < run; j++) {
+          rows[i++] = row;
+        }
+      }
+
+      families = Dictionary.decode(entries, familyCount, familyData, familyRunData);
+      visibilities = Dictionary.decode(entries, visibilityCount, visibilityData, visibilityRunData);
+
+      qualifiers = new byte[entries][];
+      timestamps = new long[entries];
+      deleted = new boolean[entries];
+      UnsynchronizedBuffer.Reader qualIn = new UnsynchronizedBuffer.Reader(qualifierData);
+      UnsynchronizedBuffer.Reader tsIn = new UnsynchronizedBuffer.Reader(timestampData);
+      byte[] qual = null;
+      long ts = 0;
+      for (int i = 0; i < entries; i++) {
+        qual = readPrefixed(qualIn, qual);
+        qualifiers[i] = qual;
+        ts += tsIn.readVLong();
+        timestamps[i] = ts;
+      }
+
+      UnsynchronizedBuffer.Reader delIn = new UnsynchronizedBuffer.Reader(deleteData);
+      boolean isDeleted = false;
+      for (int i = 0; i < entries;) {
+        int run = delIn.readVInt();
+        for (int j = 0; j < run; j++) {
+          deleted[i++] = isDeleted;
+        }
+        isDeleted = !isDeleted;
+      }
+    }
+
+    private void decodeValueOffsets() {
+      valueOffsets = new int[entries + 1];
+      UnsynchronizedBuffer.Reader in = new UnsynchronizedBuffer.Reader(valueLengthData);
+      for (int i = 0; i < entries; i++) {
+        valueOffsets[i + 1] = valueOffsets[i] + in.readVInt();
+      }
+    }
+
+    boolean isPositioned() {
+      return pos >= 0;
+    }
+
+    /**
+     * @return the number of entries after the current one
+     */
+    int entriesLeft() {
+      return entries - pos - 1;
+    }
+
+    void next() {
+      if (pos + 1 >= entries) {
+        throw new IllegalStateException("No more entries in block");
+      }
+      if (rows == null) {
+        decodeKeys();
+      }
+      pos++;
+      topKey = null;
+      topValue = null;
+    }
+
+    Key getTopKey() {
+      if (topKey == null) {
+        // the decoded arrays are never modified, so keys share them instead of copying
+        topKey = new Key(rows[pos], families[pos], qualifiers[pos], visibilities[pos],
+            timestamps[pos], deleted[pos], false);
+      }
+      return topKey;
+    }
+
+    Value getTopValue() {
+      if (topValue == null) {
+        if (valueOffsets == null) {
+          decodeValueOffsets();
+        }
+        int start = valueOffsets[pos];
+        topValue = new Value(valueData, start, valueOffsets[pos + 1] - start);
+      }
+      return topValue;
+    }
+
+    /**
+     * Moves forward to the first entry at or after the current one that is greater than or equal
+     * to the given key, or to the last entry in the block when there is no such entry. Rows are
+     * compared before any key is created, so entries in earlier rows are skipped cheaply.
+     *
+     * @return the key preceding the new position, or null if the reader did not move
+     */
+    Key skipTo(Key seekKey) {
+      ByteSequence seekRow = seekKey.getRowData();
+      int start = pos;
+      while (true) {
+        int cmp = WritableComparator.compareBytes(rows[pos], 0, rows[pos].length,
+            seekRow.getBackingArray(), seekRow.offset(), seekRow.length());
+        if (cmp > 0 || (cmp == 0 && getTopKey().compareTo(seekKey) >= 0)
+            || pos + 1 == entries) {
+          break;
+        }
+        pos++;
+        topKey = null;
+        topValue = null;
+      }
+
+      if (pos == start) {
+        return null;
+      }
+      return new Key(rows[pos - 1], families[pos - 1], qualifiers[pos - 1], visibilities[pos - 1],
+          timestamps[pos - 1], deleted[pos - 1], false);
+    }
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachedBlockRead;
+import org.apache.accumulo.core.file.rfile.MultiLevelIndex.IndexEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the data blocks of a locality group ahead of a reader that is moving through them
+ * sequentially. Once the reader has moved through {@link #SEQUENTIAL_THRESHOLD} blocks without
+ * seeking, the following blocks are read in the background. Blocks that are adjacent in the file
+ * are read with a single read. More blocks are requested when half of the prefetched blocks have
+ * been consumed, and blocks that are past the end of the range being read are never requested.
+ */
+class DataBlockReadAhead {
+
+  private static final Logger log = LoggerFactory.getLogger(DataBlockReadAhead.class);
+
+  // number of blocks a reader must move through without seeking before blocks are read ahead
+  static final int SEQUENTIAL_THRESHOLD = 2;
+
+  /**
+   * A single read of adjacent blocks. The read is only cancelled once none of its blocks are
+   * wanted anymore.
+   */
+  private static class PrefetchedRange {
+    final CompletableFuture<byte[]> future;
+    int pending;
+
+    PrefetchedRange(CompletableFuture<byte[]> future, int pending) {
+      this.future = future;
+      this.pending = pending;
+    }
+
+    void taken() {
+      pending--;
+    }
+
+    void abandoned() {
+      if (--pending == 0) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  private static class PrefetchedBlock {
+    final IndexEntry entry;
+    final PrefetchedRange range;
+    final int rangeOffset;
+
+    PrefetchedBlock(IndexEntry entry, PrefetchedRange range, int rangeOffset) {
+      this.entry = entry;
+      this.range = range;
+      this.rangeOffset = rangeOffset;
+    }
+  }
+
+  private final CachableBlockFile.Reader reader;
+  private final int maxBlocks;
+  // prefetched blocks keyed on their offset in the file
+  private final NavigableMap<Long,PrefetchedBlock> prefetched = new TreeMap<>();
+  private int sequentialBlocks = 0;
+
+  DataBlockReadAhead(CachableBlockFile.Reader reader, int maxBlocks) {
+    this.reader = reader;
+    this.maxBlocks = maxBlocks;
+  }
+
+  /**
+   * Called when a reader moves from the block it finished to the next block in the index.
+   *
+   * @param entry the index entry of the next block, most recently returned by the iterator
+   * @param iter iterator positioned just after the entry, it is left where it was
+   * @param range the range being read
+   * @return the block if it was read ahead, otherwise null and the caller should read it
+   */
+  CachedBlockRead nextBlock(IndexEntry entry, ListIterator<IndexEntry> iter, Range range)
+      throws IOException {
+    sequentialBlocks++;
+    PrefetchedBlock block = take(entry);
+    if (sequentialBlocks >= SEQUENTIAL_THRESHOLD && prefetched.size() <= maxBlocks / 2
+        && !range.afterEndKey(entry.getKey())) {
+      if (block == null) {
+        // start the first read ahead with the block the reader needs now, so it is part of the
+        // same read as the blocks after it
+        readAhead(entry, iter, range);
+        block = take(entry);
+      } else {
+        readAhead(null, iter, range);
+      }
+    }
+    return block == null ? null : read(block);
+  }
+
+  /**
+   * Called when a reader seeks to a block, ends any sequential run.
+   *
+   * @return the block if it was read ahead, otherwise null and the caller should read it
+   */
+  CachedBlockRead seekedBlock(IndexEntry entry) throws IOException {
+    sequentialBlocks = 0;
+    PrefetchedBlock block = take(entry);
+    return block == null ? null : read(block);
+  }
+
+  /**
+   * Abandons all blocks that were read ahead.
+   */
+  void clear() {
+    prefetched.values().forEach(block -> block.range.abandoned());
+    prefetched.clear();
+  }
+
+  int getPrefetchedCount() {
+    return prefetched.size();
+  }
+
+  private PrefetchedBlock take(IndexEntry entry) {
+    // blocks before this one will not be read by a reader moving forward
+    var skipped = prefetched.headMap(entry.getOffset(), false);
+    skipped.values().forEach(block -> block.range.abandoned());
+    skipped.clear();
+
+    PrefetchedBlock block = prefetched.remove(entry.getOffset());
+    if (block == null) {
+      return null;
+    }
+    if (block.entry.getCompressedSize() != entry.getCompressedSize()
+        || block.entry.getRawSize() != entry.getRawSize()) {
+      block.range.abandoned();
+      return null;
+    }
+    block.range.taken();
+    return block;
+  }
+
+  private CachedBlockRead read(PrefetchedBlock block) throws IOException {
+    byte[] range;
+    try {
+      range = block.range.future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for read-ahead of block");
+    } catch (ExecutionException e) {
+      log.debug("Read-ahead of block at offset {} failed, reading it again",
+          block.entry.getOffset(), e.getCause());
+      return null;
+    } catch (CancellationException e) {
+      log.debug("Read-ahead of block at offset {} was cancelled, reading it again",
+          block.entry.getOffset());
+      return null;
+    }
+    IndexEntry entry = block.entry;
+    return reader.getDataBlock(entry.getOffset(), entry.getCompressedSize(), entry.getRawSize(),
+        range, block.rangeOffset);
+  }
+
+  /**
+   * Requests the blocks after the ones already prefetched, up to the maximum. Adjacent blocks
+   * that are not cached are grouped into a single read.
+   *
+   * @param current the block just returned by the iterator if it should also be read, otherwise
+   *        null
+   */
+  private void readAhead(IndexEntry current, ListIterator<IndexEntry> iter, Range range) {
+    Map.Entry<Long,PrefetchedBlock> last = prefetched.lastEntry();
+    long after = last == null ? -1 : last.getKey();
+
+    int steps = 0;
+    try {
+      IndexEntry prev = current;
+      long runStart = -1;
+      long runEnd = -1;
+      TreeMap<Long,IndexEntry> run = new TreeMap<>();
+      int wanted = maxBlocks - prefetched.size();
+
+      while (wanted > 0 && (current != null || iter.hasNext())) {
+        IndexEntry entry;
+        if (current != null) {
+          entry = current;
+          current = null;
+        } else {
+          entry = iter.next();
+          steps++;
+          if (prev != null && range.afterEndKey(prev.getKey())) {
+            // the previous block contains the end of the range
+            break;
+          }
+        }
+        prev = entry;
+
+        if (entry.getOffset() <= after) {
+          continue;
+        }
+        wanted--;
+
+        if (reader.isDataBlockCached(entry.getOffset())) {
+          submit(run, runStart, runEnd);
+          runStart = -1;
+          continue;
+        }
+
+        if (runStart < 0 || entry.getOffset() != runEnd
+            || runEnd - runStart + entry.getCompressedSize() > Integer.MAX_VALUE) {
+          submit(run, runStart, runEnd);
+          runStart = entry.getOffset();
+        }
+        run.put(entry.getOffset(), entry);
+        runEnd = entry.getOffset() + entry.getCompressedSize();
+      }
+
+      submit(run, runStart, runEnd);
+    } finally {
+      for (int i = 0; i < steps; i++) {
+        iter.previous();
+      }
+    }
+  }
+
+  private void submit(TreeMap<Long,IndexEntry> run, long runStart, long runEnd) {
+    if (run.isEmpty()) {
+      return;
+    }
+
+    PrefetchedRange range =
+        new PrefetchedRange(reader.readAhead(runStart, (int) (runEnd - runStart)), run.size());
+    for (IndexEntry entry : run.values()) {
+      prefetched.put(entry.getOffset(),
+          new PrefetchedBlock(entry, range, (int) (entry.getOffset() - runStart)));
+    }
+    run.clear();
+  }
+}
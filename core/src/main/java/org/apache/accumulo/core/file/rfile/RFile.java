@@ -99,6 +99,11 @@ public class RFile {
 
   private static final int RINDEX_MAGIC = 0x20637474;
 
+  static final int RINDEX_VER_9 = 9; // Added columnar encoding of data blocks. The fields of the
+                                     // keys in a data block are each stored in their own stream,
+                                     // using dictionaries, prefix and run length encoding. See
+                                     // ColumnarBlock. The index and metadata are the same as
+                                     // version 8. Only written when columnar encoding is enabled.
   static final int RINDEX_VER_8 = 8; // Added sample storage. There is a sample locality group for
                                      // each locality group. Sample are built using a Sampler and
                                      // sampler configuration. The Sampler and its configuration are
@@ -168,6 +173,9 @@ public class RFile {
     private MultiLevelIndex.Reader indexReader;
     private int version;
 
+    // only set when writing a locality group that records block stats
+    private BlockStats.Writer blockStats;
+
     public LocalityGroupMetadata(int version, CachableBlockFile.Reader br) {
       columnFamilies = new HashMap<>();
       indexReader = new MultiLevelIndex.Reader(br, version);
@@ -451,17 +459,34 @@ public class RFile {
 
     private final SampleLocalityGroupWriter sample;
 
+    private final boolean columnar;
+    private ColumnarBlock.Writer columnarBlock;
+
     // Use windowed stats to fix ACCUMULO-4669
     private final RollingStats keyLenStats = new RollingStats(2017);
     private double averageKeySize = 0;
 
     LocalityGroupWriter(BCFile.Writer fileWriter, long blockSize, long maxBlockSize,
-        LocalityGroupMetadata currentLocalityGroup, SampleLocalityGroupWriter sample) {
+        LocalityGroupMetadata currentLocalityGroup, SampleLocalityGroupWriter sample,
+        boolean columnar) {
       this.fileWriter = fileWriter;
       this.blockSize = blockSize;
       this.maxBlockSize = maxBlockSize;
       this.currentLocalityGroup = currentLocalityGroup;
       this.sample = sample;
+      this.columnar = columnar;
+    }
+
+    private void startBlock() throws IOException {
+      blockWriter = fileWriter.prepareDataBlock();
+      if (columnar) {
+        columnarBlock = new ColumnarBlock.Writer();
+      }
+    }
+
+    private long getBlockRawSize() {
+      // columnar blocks are buffered until closed
+      return columnarBlock != null ? columnarBlock.getSize() : blockWriter.getRawSize();
     }
 
     private boolean isGiantKey(Key k) {
@@ -488,8 +513,8 @@ public class RFile {
       }
 
       if (blockWriter == null) {
-        blockWriter = fileWriter.prepareDataBlock();
-      } else if (blockWriter.getRawSize() > blockSize) {
+        startBlock();
+      } else if (getBlockRawSize() > blockSize) {
 
         // Look for a key that's short to put in the index, defining short as average or below.
         if (averageKeySize == 0) {
@@ -501,38 +526,52 @@ public class RFile {
         // shortened, it may not be below average.
         Key closeKey = KeyShortener.shorten(prevKey, key);
 
-        if ((closeKey.getSize() <= averageKeySize || blockWriter.getRawSize() > maxBlockSize)
+        if ((closeKey.getSize() <= averageKeySize || getBlockRawSize() > maxBlockSize)
             && !isGiantKey(closeKey)) {
           closeBlock(closeKey, false);
-          blockWriter = fileWriter.prepareDataBlock();
+          startBlock();
           // set average to zero so its recomputed for the next block
           averageKeySize = 0;
           // To constrain the growth of data blocks, we limit our worst case scenarios to closing
           // blocks if they reach the maximum configurable block size of Integer.MAX_VALUE.
           // 128 bytes added for metadata overhead
-        } else if (((long) key.getSize() + (long) value.getSize() + blockWriter.getRawSize() + 128L)
+        } else if (((long) key.getSize() + (long) value.getSize() + getBlockRawSize() + 128L)
             >= Integer.MAX_VALUE) {
           closeBlock(closeKey, false);
-          blockWriter = fileWriter.prepareDataBlock();
+          startBlock();
           averageKeySize = 0;
 
         }
       }
 
-      RelativeKey rk = new RelativeKey(lastKeyInBlock, key);
+      Key keyCopy = new Key(key);
 
-      rk.write(blockWriter);
-      value.write(blockWriter);
+      if (columnarBlock != null) {
+        columnarBlock.append(keyCopy, value);
+      } else {
+        RelativeKey rk = new RelativeKey(lastKeyInBlock, key);
+
+        rk.write(blockWriter);
+        value.write(blockWriter);
+      }
       entries++;
 
+      if (currentLocalityGroup.blockStats != null) {
+        currentLocalityGroup.blockStats.add(keyCopy);
+      }
+
       keyLenStats.addValue(key.getSize());
 
-      prevKey = new Key(key);
+      prevKey = keyCopy;
       lastKeyInBlock = prevKey;
 
     }
 
     private void closeBlock(Key key, boolean lastBlock) throws IOException {
+      if (columnarBlock != null) {
+        columnarBlock.write(blockWriter);
+        columnarBlock = null;
+      }
       blockWriter.close();
 
       if (lastBlock) {
@@ -543,6 +582,10 @@ public class RFile {
             blockWriter.getCompressedSize(), blockWriter.getRawSize());
       }
 
+      if (currentLocalityGroup.blockStats != null) {
+        currentLocalityGroup.blockStats.closeBlock();
+      }
+
       if (sample != null) {
         sample.flushIfNeeded();
       }
@@ -590,6 +633,7 @@ public class RFile {
 
     private final SamplerConfigurationImpl samplerConfig;
     private final Sampler sampler;
+    private final boolean columnar;
 
     public Writer(BCFile.Writer bfw, int blockSize) throws IOException {
       this(bfw, blockSize, (int) DefaultConfiguration.getInstance()
@@ -598,6 +642,15 @@ public class RFile {
 
     public Writer(BCFile.Writer bfw, int blockSize, int indexBlockSize,
         SamplerConfigurationImpl samplerConfig, Sampler sampler) {
+      this(bfw, blockSize, indexBlockSize, samplerConfig, sampler, false);
+    }
+
+    /**
+     * @param columnar if true data blocks are written using {@link ColumnarBlock} encoding, which
+     *        produces a file that only readers of {@link #RINDEX_VER_9} can read
+     */
+    public Writer(BCFile.Writer bfw, int blockSize, int indexBlockSize,
+        SamplerConfigurationImpl samplerConfig, Sampler sampler, boolean columnar) {
       this.blockSize = blockSize;
       this.maxBlockSize = (long) (blockSize * MAX_BLOCK_MULTIPLIER);
       this.indexBlockSize = indexBlockSize;
@@ -605,6 +658,7 @@ public class RFile {
       previousColumnFamilies = new HashSet<>();
       this.samplerConfig = samplerConfig;
       this.sampler = sampler;
+      this.columnar = columnar;
     }
 
     @Override
@@ -619,7 +673,7 @@ public class RFile {
       BlockAppender mba = fileWriter.prepareMetaBlock("RFile.index");
 
       mba.writeInt(RINDEX_MAGIC);
-      mba.writeInt(RINDEX_VER_8);
+      mba.writeInt(columnar ? RINDEX_VER_9 : RINDEX_VER_8);
 
       if (currentLocalityGroup != null) {
         localityGroups.add(currentLocalityGroup);
@@ -645,6 +699,14 @@ public class RFile {
       }
 
       mba.close();
+
+      BlockAppender sba = fileWriter.prepareMetaBlock(BlockStats.META_NAME);
+      sba.writeInt(localityGroups.size());
+      for (LocalityGroupMetadata lc : localityGroups) {
+        lc.blockStats.write(sba);
+      }
+      sba.close();
+
       fileWriter.close();
       length = fileWriter.getLength();
 
@@ -720,15 +782,17 @@ public class RFile {
             new LocalityGroupMetadata(name, columnFamilies, indexBlockSize, fileWriter);
         previousColumnFamilies.addAll(columnFamilies);
       }
+      currentLocalityGroup.blockStats = new BlockStats.Writer();
 
       SampleLocalityGroupWriter sampleWriter = null;
       if (sampler != null) {
         sampleWriter = new SampleLocalityGroupWriter(
-            new LocalityGroupWriter(fileWriter, blockSize, maxBlockSize, sampleLocalityGroup, null),
+            new LocalityGroupWriter(fileWriter, blockSize, maxBlockSize, sampleLocalityGroup, null,
+                columnar),
             sampler);
       }
       lgWriter = new LocalityGroupWriter(fileWriter, blockSize, maxBlockSize, currentLocalityGroup,
-          sampleWriter);
+          sampleWriter, columnar);
     }
 
     @Override
@@ -769,19 +833,26 @@ public class RFile {
     private final int startBlock;
     private boolean closed = false;
     private final int version;
+    private final boolean columnar;
     private boolean checkRange = true;
+    private final DataBlockReadAhead readAhead;
+    private final Supplier<BlockStats> blockStats;
+    // masks of the column families fetched by the current scan, null when not fetching families
+    private long[][] fetchedFamilyMasks;
 
     private LocalityGroupReader(CachableBlockFile.Reader reader, LocalityGroupMetadata lgm,
-        int version) {
+        int version, Supplier<BlockStats> blockStats) {
       super(lgm.columnFamilies, lgm.isDefaultLG);
       this.firstKey = lgm.firstKey;
       this.index = lgm.indexReader;
       this.startBlock = lgm.startBlock;
       blockCount = index.size();
       this.version = version;
+      this.columnar = version == RINDEX_VER_9;
 
       this.reader = reader;
-
+      this.readAhead = createReadAhead(reader, version);
+      this.blockStats = blockStats;
     }
 
     public LocalityGroupReader(LocalityGroupReader lgr) {
@@ -792,16 +863,81 @@ public class RFile {
       this.blockCount = lgr.blockCount;
       this.reader = lgr.reader;
       this.version = lgr.version;
+      this.columnar = lgr.columnar;
+      this.readAhead = createReadAhead(reader, version);
+      this.blockStats = lgr.blockStats;
+    }
+
+    private static DataBlockReadAhead createReadAhead(CachableBlockFile.Reader reader,
+        int version) {
+      // the index of older versions does not contain the location of blocks in the file
+      if (version == RINDEX_VER_3 || version == RINDEX_VER_4 || reader.getReadAheadBlocks() == 0) {
+        return null;
+      }
+      return new DataBlockReadAhead(reader, reader.getReadAheadBlocks());
     }
 
     Iterator<IndexEntry> getIndex() throws IOException {
       return index.lookup(new Key());
     }
 
+    /**
+     * Sets the column families that following seeks are only interested in. Data blocks whose
+     * {@link BlockStats} show they contain none of these families are skipped without being read.
+     * Keys of other families are still returned from blocks that are read.
+     *
+     * @param families the families to fetch, or an empty collection to read every block
+     */
+    void setFetchedColumnFamilies(Collection<ByteSequence> families) {
+      if (families.isEmpty() || blockStats == null) {
+        fetchedFamilyMasks = null;
+      } else {
+        fetchedFamilyMasks = BlockStats.familyMasks(families);
+      }
+    }
+
+    // the key of the last block skipped by the most recent call to nextBlock(), null if none
+    private Key lastSkippedKey;
+
+    /**
+     * Moves the index iterator to the next data block that may contain one of the fetched column
+     * families.
+     *
+     * @return the index entry of that block, or null when no such block remains in the range
+     */
+    private IndexEntry nextBlock() {
+      lastSkippedKey = null;
+      if (!iiter.hasNext()) {
+        return null;
+      }
+      IndexEntry indexEntry = iiter.next();
+      if (fetchedFamilyMasks == null) {
+        return indexEntry;
+      }
+
+      BlockStats stats = blockStats.get();
+      if (stats == null) {
+        return indexEntry;
+      }
+
+      while (!stats.mayContainAny(iiter.previousIndex(), fetchedFamilyMasks)) {
+        // the key in the index is greater than or equal to every key in the skipped block
+        lastSkippedKey = indexEntry.getKey();
+        if (range.afterEndKey(lastSkippedKey) || !iiter.hasNext()) {
+          return null;
+        }
+        indexEntry = iiter.next();
+      }
+      return indexEntry;
+    }
+
     @Override
     public void close() throws IOException {
       closed = true;
       hasTop = false;
+      if (readAhead != null) {
+        readAhead.clear();
+      }
       if (currBlock != null) {
         currBlock.close();
       }
@@ -813,6 +949,8 @@ public class RFile {
     private CachableBlockFile.CachedBlockRead currBlock;
     private RelativeKey rk;
     private Value val;
+    // used instead of rk and val for columnar data blocks
+    private ColumnarBlock.Reader cblock;
     private Key prevKey = null;
     private Range range = null;
     private boolean hasTop = false;
@@ -820,12 +958,16 @@ public class RFile {
 
     @Override
     public Key getTopKey() {
-      return rk.getKey();
+      return columnar ? cblock.getTopKey() : rk.getKey();
     }
 
     @Override
     public Value getTopValue() {
-      return val;
+      return columnar ? cblock.getTopValue() : val;
+    }
+
+    private boolean isPositioned() {
+      return columnar ? cblock != null && cblock.isPositioned() : rk != null;
     }
 
     @Override
@@ -849,16 +991,32 @@ public class RFile {
         throw new IllegalStateException();
       }
 
+      Key lastKey = getTopKey();
+
       if (entriesLeft == 0) {
         currBlock.close();
         if (metricsGatherer != null) {
           metricsGatherer.startBlock();
         }
 
-        if (iiter.hasNext()) {
-          IndexEntry indexEntry = iiter.next();
+        IndexEntry indexEntry = nextBlock();
+        if (lastSkippedKey != null) {
+          lastKey = new Key(lastSkippedKey);
+        }
+
+        if (indexEntry != null) {
           entriesLeft = indexEntry.getNumEntries();
-          currBlock = getDataBlock(indexEntry);
+          currBlock = null;
+          if (readAhead != null) {
+            checkInterrupted();
+            currBlock = readAhead.nextBlock(indexEntry, iiter, range);
+          }
+          if (currBlock == null) {
+            currBlock = getDataBlock(indexEntry);
+          }
+          if (columnar) {
+            cblock = new ColumnarBlock.Reader(currBlock);
+          }
 
           checkRange = range.afterEndKey(indexEntry.getKey());
           if (!checkRange) {
@@ -868,30 +1026,39 @@ public class RFile {
         } else {
           rk = null;
           val = null;
+          cblock = null;
           hasTop = false;
           return;
         }
       }
 
-      prevKey = rk.getKey();
-      rk.readFields(currBlock);
-      val.readFields(currBlock);
+      prevKey = lastKey;
+      if (columnar) {
+        cblock.next();
+      } else {
+        rk.readFields(currBlock);
+        val.readFields(currBlock);
+      }
 
       if (metricsGatherer != null) {
-        metricsGatherer.addMetric(rk.getKey(), val);
+        metricsGatherer.addMetric(getTopKey(), getTopValue());
       }
 
       entriesLeft--;
       if (checkRange) {
-        hasTop = !range.afterEndKey(rk.getKey());
+        hasTop = !range.afterEndKey(getTopKey());
       }
     }
 
-    private CachableBlockFile.CachedBlockRead getDataBlock(IndexEntry indexEntry)
-        throws IOException {
+    private void checkInterrupted() {
       if (interruptFlag != null && interruptFlag.get()) {
         throw new IterationInterruptedException();
       }
+    }
+
+    private CachableBlockFile.CachedBlockRead getDataBlock(IndexEntry indexEntry)
+        throws IOException {
+      checkInterrupted();
 
       if (version == RINDEX_VER_3 || version == RINDEX_VER_4) {
         return reader.getDataBlock(startBlock + iiter.previousIndex());
@@ -928,12 +1095,16 @@ public class RFile {
 
     private void reset(boolean exceptionThrown) {
       rk = null;
+      cblock = null;
       hasTop = false;
       if (currBlock != null) {
         try {
           try {
             currBlock.close();
             if (exceptionThrown) {
+              if (readAhead != null) {
+                readAhead.clear();
+              }
               reader.close();
             }
           } catch (IOException e) {
@@ -953,6 +1124,7 @@ public class RFile {
       if (blockCount == 0) {
         // its an empty file
         rk = null;
+        cblock = null;
         return;
       }
 
@@ -969,7 +1141,7 @@ public class RFile {
         reseek = false;
       }
 
-      if (rk != null) {
+      if (isPositioned()) {
         if (range.beforeStartKey(prevKey) && range.afterEndKey(getTopKey())) {
           // range is between the two keys in the file where the last range seeked to stopped, so
           // there is
@@ -992,14 +1164,22 @@ public class RFile {
           // causing the build of an index... doing this could slow down some use cases and
           // and speed up others.
 
-          final var valbs = new ArrayByteSequence(new byte[64], 0, 0);
-          SkippR skippr =
-              RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, getTopKey(), entriesLeft);
-          if (skippr.skipped > 0) {
-            entriesLeft -= skippr.skipped;
-            val = new Value(valbs.toArray());
-            prevKey = skippr.prevKey;
-            rk = skippr.rk;
+          if (columnar) {
+            Key skippedPrevKey = cblock.skipTo(startKey);
+            if (skippedPrevKey != null) {
+              entriesLeft = cblock.entriesLeft();
+              prevKey = skippedPrevKey;
+            }
+          } else {
+            final var valbs = new ArrayByteSequence(new byte[64], 0, 0);
+            SkippR skippr =
+                RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, getTopKey(), entriesLeft);
+            if (skippr.skipped > 0) {
+              entriesLeft -= skippr.skipped;
+              val = new Value(valbs.toArray());
+              prevKey = skippr.prevKey;
+              rk = skippr.rk;
+            }
           }
 
           reseek = false;
@@ -1045,65 +1225,94 @@ public class RFile {
             prevKey = new Key(); // first block in the file, so set prev key to minimal key
           }
 
-          IndexEntry indexEntry = iiter.next();
+          IndexEntry indexEntry = nextBlock();
+          if (lastSkippedKey != null) {
+            prevKey = new Key(lastSkippedKey);
+          }
+          if (indexEntry == null) {
+            // no remaining block in the range contains a fetched family
+            return;
+          }
           entriesLeft = indexEntry.getNumEntries();
-          currBlock = getDataBlock(indexEntry);
+          if (readAhead != null) {
+            checkInterrupted();
+            currBlock = readAhead.seekedBlock(indexEntry);
+          }
+          if (currBlock == null) {
+            currBlock = getDataBlock(indexEntry);
+          }
 
           checkRange = range.afterEndKey(indexEntry.getKey());
           if (!checkRange) {
             hasTop = true;
           }
 
-          final var valbs = new ArrayByteSequence(new byte[64], 0, 0);
-
-          Key currKey = null;
-
-          if (currBlock.isIndexable()) {
-            BlockIndex blockIndex = BlockIndex.getIndex(currBlock, indexEntry);
-            if (blockIndex != null) {
-              BlockIndexEntry bie = blockIndex.seekBlock(startKey, currBlock);
-              if (bie != null) {
-                // we are seeked to the current position of the key in the index
-                // need to prime the read process and read this key from the block
-                RelativeKey tmpRk = new RelativeKey();
-                tmpRk.setPrevKey(bie.getPrevKey());
-                tmpRk.readFields(currBlock);
-                val = new Value();
-
-                val.readFields(currBlock);
-                valbs.reset(val.get(), 0, val.getSize());
-
-                // just consumed one key from the input stream, so subtract one from entries left
-                entriesLeft = bie.getEntriesLeft() - 1;
-                prevKey = new Key(bie.getPrevKey());
-                currKey = tmpRk.getKey();
-              }
+          if (columnar) {
+            ColumnarBlock.Reader block = new ColumnarBlock.Reader(currBlock);
+            block.next();
+            Key skippedPrevKey = block.skipTo(startKey);
+            if (skippedPrevKey != null) {
+              prevKey = skippedPrevKey;
             }
+            entriesLeft = block.entriesLeft();
+            // set cblock when everything above is successful
+            cblock = block;
+          } else {
+            seekRelative(indexEntry, startKey);
           }
-
-          SkippR skippr =
-              RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, currKey, entriesLeft);
-          prevKey = skippr.prevKey;
-          entriesLeft -= skippr.skipped;
-          val = new Value(valbs.toArray());
-          // set rk when everything above is successful, if exception
-          // occurs rk will not be set
-          rk = skippr.rk;
         } else {
           // past the last key
         }
       }
 
-      hasTop = rk != null && !range.afterEndKey(rk.getKey());
+      hasTop = isPositioned() && !range.afterEndKey(getTopKey());
 
       while (hasTop() && range.beforeStartKey(getTopKey())) {
         next();
       }
 
       if (metricsGatherer != null) {
-        metricsGatherer.startLocalityGroup(rk.getKey().getColumnFamily());
-        metricsGatherer.addMetric(rk.getKey(), val);
+        metricsGatherer.startLocalityGroup(getTopKey().getColumnFamily());
+        metricsGatherer.addMetric(getTopKey(), getTopValue());
+      }
+    }
+
+    private void seekRelative(IndexEntry indexEntry, Key startKey) throws IOException {
+      final var valbs = new ArrayByteSequence(new byte[64], 0, 0);
+
+      Key currKey = null;
+
+      if (currBlock.isIndexable()) {
+        BlockIndex blockIndex = BlockIndex.getIndex(currBlock, indexEntry);
+        if (blockIndex != null) {
+          BlockIndexEntry bie = blockIndex.seekBlock(startKey, currBlock);
+          if (bie != null) {
+            // we are seeked to the current position of the key in the index
+            // need to prime the read process and read this key from the block
+            RelativeKey tmpRk = new RelativeKey();
+            tmpRk.setPrevKey(bie.getPrevKey());
+            tmpRk.readFields(currBlock);
+            val = new Value();
+
+            val.readFields(currBlock);
+            valbs.reset(val.get(), 0, val.getSize());
+
+            // just consumed one key from the input stream, so subtract one from entries left
+            entriesLeft = bie.getEntriesLeft() - 1;
+            prevKey = new Key(bie.getPrevKey());
+            currKey = tmpRk.getKey();
+          }
+        }
       }
+
+      SkippR skippr =
+          RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, currKey, entriesLeft);
+      prevKey = skippr.prevKey;
+      entriesLeft -= skippr.skipped;
+      val = new Value(valbs.toArray());
+      // set rk when everything above is successful, if exception
+      // occurs rk will not be set
+      rk = skippr.rk;
     }
 
     @Override
@@ -1205,8 +1414,8 @@ public class RFile {
         if (magic != RINDEX_MAGIC) {
           throw new IOException("Did not see expected magic number, saw " + magic);
         }
-        if (ver != RINDEX_VER_8 && ver != RINDEX_VER_7 && ver != RINDEX_VER_6 && ver != RINDEX_VER_4
-            && ver != RINDEX_VER_3) {
+        if (ver != RINDEX_VER_9 && ver != RINDEX_VER_8 && ver != RINDEX_VER_7 && ver != RINDEX_VER_6
+            && ver != RINDEX_VER_4 && ver != RINDEX_VER_3) {
           throw new IOException("Did not see expected version, saw " + ver);
         }
 
@@ -1215,17 +1424,31 @@ public class RFile {
 
         deepCopies = new LinkedList<>();
 
+        // block stats are only read once a scan fetches column families
+        Supplier<List<BlockStats>> allBlockStats = Suppliers.memoize(() -> {
+          try {
+            return BlockStats.load(rdr);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+
         for (int i = 0; i < size; i++) {
           LocalityGroupMetadata lgm = new LocalityGroupMetadata(ver, rdr);
           lgm.readFields(mb);
           localityGroups.add(lgm);
 
-          currentReaders[i] = new LocalityGroupReader(reader, lgm, ver);
+          final int lgIndex = i;
+          Supplier<BlockStats> blockStats = () -> {
+            List<BlockStats> stats = allBlockStats.get();
+            return lgIndex < stats.size() ? stats.get(lgIndex) : null;
+          };
+          currentReaders[i] = new LocalityGroupReader(reader, lgm, ver, blockStats);
         }
 
         readers = currentReaders;
 
-        if (ver == RINDEX_VER_8 && mb.readBoolean()) {
+        if ((ver == RINDEX_VER_8 || ver == RINDEX_VER_9) && mb.readBoolean()) {
           sampleReaders = new LocalityGroupReader[size];
 
           for (int i = 0; i < size; i++) {
@@ -1233,7 +1456,7 @@ public class RFile {
             lgm.readFields(mb);
             sampleGroups.add(lgm);
 
-            sampleReaders[i] = new LocalityGroupReader(reader, lgm, ver);
+            sampleReaders[i] = new LocalityGroupReader(reader, lgm, ver, null);
           }
 
           samplerConfig = new SamplerConfigurationImpl(mb);
@@ -1489,6 +1712,9 @@ public class RFile {
     @Override
     public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive)
         throws IOException {
+      for (LocalityGroupReader lgr : currentReaders) {
+        lgr.setFetchedColumnFamilies(inclusive ? columnFamilies : List.of());
+      }
       lgCache =
           LocalityGroupIterator.seek(this, lgContext, range, columnFamilies, inclusive, lgCache);
     }
@@ -18,10 +18,14 @@
  */
 package org.apache.accumulo.core.file.rfile;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.accumulo.core.util.threads.ThreadPoolNames.FILE_READAHEAD_POOL;
+
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.accumulo.core.client.sample.Sampler;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
@@ -33,11 +37,13 @@ import org.apache.accumulo.core.file.FileOperations;
 import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.FileSKVWriter;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachableBuilder;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.DataCacheFormat;
 import org.apache.accumulo.core.file.rfile.RFile.RFileSKVIterator;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
 import org.apache.accumulo.core.metadata.TabletFile;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
 import org.apache.accumulo.core.sample.impl.SamplerFactory;
+import org.apache.accumulo.core.util.threads.ThreadPools;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.CreateFlag;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -54,11 +60,57 @@ public class RFileOperations extends FileOperations {
 
   private static final Collection<ByteSequence> EMPTY_CF_SET = Collections.emptySet();
 
+  private static ExecutorService readAheadThreadPool = null;
+
+  private static synchronized ExecutorService getReadAheadThreadPool(int maxReadAheadThreads) {
+    if (readAheadThreadPool != null) {
+      return readAheadThreadPool;
+    }
+
+    if (maxReadAheadThreads > 0) {
+      readAheadThreadPool = ThreadPools.getServerThreadPools().getPoolBuilder(FILE_READAHEAD_POOL)
+          .numCoreThreads(0).numMaxThreads(maxReadAheadThreads).withTimeOut(60L, SECONDS).build();
+    }
+    return readAheadThreadPool;
+  }
+
   private static RFileSKVIterator getReader(FileOptions options) throws IOException {
+    AccumuloConfiguration acuconf = options.getTableConfiguration();
+    boolean mapLocalFiles =
+        acuconf != null && acuconf.getBoolean(Property.GENERAL_FILE_LOCAL_MMAP_ENABLED);
+
     CachableBuilder cb = new CachableBuilder()
-        .fsPath(options.getFileSystem(), options.getFile().getPath(), options.dropCacheBehind)
+        .fsPath(options.getFileSystem(), options.getFile().getPath(), options.dropCacheBehind,
+            mapLocalFiles)
         .conf(options.getConfiguration()).fileLen(options.getFileLenCache())
         .cacheProvider(options.cacheProvider).cryptoService(options.getCryptoService());
+
+    if (acuconf != null) {
+      int readAheadBlocks = acuconf.getCount(Property.TABLE_FILE_READAHEAD_BLOCKS);
+      if (readAheadBlocks > 0) {
+        ExecutorService pool =
+            getReadAheadThreadPool(acuconf.getCount(Property.TSERV_FILE_READAHEAD_MAXCONCURRENT));
+        if (pool != null) {
+          cb.readAhead(readAheadBlocks, pool);
+        }
+      }
+
+      String cacheFormat = acuconf.get(Property.TABLE_BLOCKCACHE_FORMAT);
+      switch (cacheFormat) {
+        case "decompressed":
+          cb.dataCacheFormat(DataCacheFormat.DECOMPRESSED);
+          break;
+        case "compressed":
+          cb.dataCacheFormat(DataCacheFormat.COMPRESSED);
+          break;
+        case "tiered":
+          cb.dataCacheFormat(DataCacheFormat.TIERED);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown data block cache format " + cacheFormat);
+      }
+    }
+
     return RFile.getReader(cb, options.getFile());
   }
 
@@ -157,6 +209,20 @@ public class RFileOperations extends FileOperations {
 
     BCFile.Writer _cbw = new BCFile.Writer(outputStream, compression, conf, options.cryptoService);
 
-    return new RFile.Writer(_cbw, (int) blockSize, (int) indexBlockSize, samplerConfig, sampler);
+    String encoding = acuconf.get(Property.TABLE_FILE_BLOCK_ENCODING);
+    boolean columnar;
+    switch (encoding) {
+      case "relative":
+        columnar = false;
+        break;
+      case "columnar":
+        columnar = true;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown RFile block encoding " + encoding);
+    }
+
+    return new RFile.Writer(_cbw, (int) blockSize, (int) indexBlockSize, samplerConfig, sampler,
+        columnar);
   }
 }
@@ -38,6 +38,7 @@ import org.apache.accumulo.core.crypto.CryptoEnvironmentImpl;
 import org.apache.accumulo.core.crypto.CryptoUtils;
 import org.apache.accumulo.core.file.rfile.bcfile.Utils.Version;
 import org.apache.accumulo.core.file.streams.BoundedRangeFileInputStream;
+import org.apache.accumulo.core.file.streams.MappedFileInputStream;
 import org.apache.accumulo.core.file.streams.SeekableDataInputStream;
 import org.apache.accumulo.core.spi.crypto.CryptoEnvironment;
 import org.apache.accumulo.core.spi.crypto.CryptoEnvironment.Scope;
@@ -49,6 +50,7 @@ import org.apache.accumulo.core.spi.crypto.NoFileEncrypter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.Seekable;
 import org.apache.hadoop.io.BytesWritable;
@@ -451,6 +453,8 @@ public final class BCFile {
    */
   public static class Reader implements Closeable {
     private final SeekableDataInputStream in;
+    // set when the file is memory mapped, blocks are then read from the mapping
+    private final MappedFileInputStream mapped;
     private final Configuration conf;
     final DataIndex dataIndex;
     // Index for meta blocks
@@ -472,16 +476,23 @@ public final class BCFile {
       public <InputStreamType extends InputStream & Seekable> RBlockState(
           CompressionAlgorithm compressionAlgo, InputStreamType fsin, BlockRegion region,
           Configuration conf, FileDecrypter decrypter) throws IOException {
+        this(compressionAlgo, region, new BoundedRangeFileInputStream(fsin, region.getOffset(),
+            region.getCompressedSize()), conf, decrypter);
+      }
+
+      /**
+       * Creates the block state from a stream positioned at the start of the block's compressed
+       * bytes, such as bytes that were already read by a prefetch.
+       */
+      RBlockState(CompressionAlgorithm compressionAlgo, BlockRegion region,
+          InputStream compressedIn, Configuration conf, FileDecrypter decrypter)
+          throws IOException {
         this.compressAlgo = compressionAlgo;
         this.region = region;
         this.decompressor = compressionAlgo.getDecompressor();
 
-        BoundedRangeFileInputStream boundedRangeFileInputStream = new BoundedRangeFileInputStream(
-            fsin, this.region.getOffset(), this.region.getCompressedSize());
-
         try {
-          InputStream inputStreamToBeCompressed =
-              decrypter.decryptStream(boundedRangeFileInputStream);
+          InputStream inputStreamToBeCompressed = decrypter.decryptStream(compressedIn);
           this.in = compressAlgo.createDecompressionStream(inputStreamToBeCompressed, decompressor,
               getFSInputBufferSize(conf));
         } catch (IOException e) {
@@ -491,6 +502,18 @@ public final class BCFile {
         closed = false;
       }
 
+      /**
+       * Creates the block state for a block that is neither compressed nor encrypted, reading it
+       * directly from the given stream.
+       */
+      RBlockState(CompressionAlgorithm compressionAlgo, BlockRegion region, InputStream rawIn) {
+        this.compressAlgo = compressionAlgo;
+        this.region = region;
+        this.decompressor = null;
+        this.in = rawIn;
+        closed = false;
+      }
+
       /**
        * Get the output stream for BlockAppender's consumption.
        *
@@ -593,6 +616,7 @@ public final class BCFile {
     public <InputStreamType extends InputStream & Seekable> Reader(InputStreamType fin,
         long fileLength, Configuration conf, CryptoService cryptoService) throws IOException {
       this.in = new SeekableDataInputStream(fin);
+      this.mapped = getMapped(fin);
       this.conf = conf;
 
       // Move the cursor to grab the version and the magic first
@@ -648,6 +672,7 @@ public final class BCFile {
     public <InputStreamType extends InputStream & Seekable> Reader(byte[] serializedMetadata,
         InputStreamType fin, Configuration conf, CryptoService cryptoService) throws IOException {
       this.in = new SeekableDataInputStream(fin);
+      this.mapped = getMapped(fin);
       this.conf = conf;
 
       ByteArrayInputStream bais = new ByteArrayInputStream(serializedMetadata);
@@ -663,6 +688,13 @@ public final class BCFile {
       this.decrypter = cryptoService.getFileDecrypter(env);
     }
 
+    private static MappedFileInputStream getMapped(InputStream fin) {
+      if (fin instanceof FSDataInputStream) {
+        fin = ((FSDataInputStream) fin).getWrappedStream();
+      }
+      return fin instanceof MappedFileInputStream ? (MappedFileInputStream) fin : null;
+    }
+
     /**
      * Finishing reading the BCFile. Release all resources.
      */
@@ -728,6 +760,44 @@ public final class BCFile {
       return createReader(dataIndex.getDefaultCompressionAlgorithm(), region);
     }
 
+    /**
+     * Reads a contiguous range of the file, usually the compressed bytes of several adjacent data
+     * blocks, with a single read of the underlying stream.
+     *
+     * @param offset position in the file of the first byte to read
+     * @param length number of bytes to read
+     * @return the bytes read
+     */
+    public byte[] readRange(long offset, int length) throws IOException {
+      byte[] buf = new byte[length];
+      if (mapped != null) {
+        mapped.readFully(offset, buf);
+        return buf;
+      }
+      try (DataInputStream rangeIn =
+          new DataInputStream(new BoundedRangeFileInputStream(in, offset, length))) {
+        rangeIn.readFully(buf);
+      }
+      return buf;
+    }
+
+    /**
+     * Stream access to a Data Block whose compressed bytes were already read, for example by
+     * {@link #readRange(long, int)}.
+     *
+     * @param compressed buffer containing the compressed bytes of the block
+     * @param compressedOffset position of the first byte of the block in the buffer
+     */
+    public BlockReader getDataBlock(long offset, long compressedSize, long rawSize,
+        byte[] compressed, int compressedOffset) throws IOException {
+      BlockRegion region = new BlockRegion(offset, compressedSize, rawSize);
+      InputStream compressedIn =
+          new ByteArrayInputStream(compressed, compressedOffset, (int) compressedSize);
+      RBlockState rbs = new RBlockState(dataIndex.getDefaultCompressionAlgorithm(), region,
+          compressedIn, conf, decrypter);
+      return new BlockReader(rbs);
+    }
+
     public long getDataBlockRawSize(int blockIndex) {
       if (blockIndex < 0 || blockIndex >= getBlockCount()) {
         throw new IndexOutOfBoundsException(
@@ -739,7 +809,19 @@ public final class BCFile {
 
     private BlockReader createReader(CompressionAlgorithm compressAlgo, BlockRegion region)
         throws IOException {
-      RBlockState rbs = new RBlockState(compressAlgo, in, region, conf, decrypter);
+      RBlockState rbs;
+      if (mapped == null) {
+        rbs = new RBlockState(compressAlgo, in, region, conf, decrypter);
+      } else {
+        InputStream rangeIn =
+            mapped.newRangeStream(region.getOffset(), region.getCompressedSize());
+        if (decrypter instanceof NoFileDecrypter && "none".equals(compressAlgo.getName())) {
+          // nothing to decode, so read the block straight from the mapping
+          rbs = new RBlockState(compressAlgo, region, rangeIn);
+        } else {
+          rbs = new RBlockState(compressAlgo, region, rangeIn, conf, decrypter);
+        }
+      }
       return new BlockReader(rbs);
     }
   }
@@ -156,7 +156,7 @@ public class CompressionAlgorithm extends Configured {
     } else {
       InputStream bis = bufferStream(downStream, downStreamBufferSize);
       CompressionInputStream cis = codec.createInputStream(bis, decompressor);
-      return new BufferedInputStream(cis, DATA_IBUF_SIZE);
+      return DecompressionBufferPool.getInstance().buffer(cis, DATA_IBUF_SIZE);
     }
   }
 
@@ -169,7 +169,7 @@ public class CompressionAlgorithm extends Configured {
       codec = codecCache.get(sizeOpt);
     }
     CompressionInputStream cis = codec.createInputStream(stream, decompressor);
-    return new BufferedInputStream(cis, DATA_IBUF_SIZE);
+    return DecompressionBufferPool.getInstance().buffer(cis, DATA_IBUF_SIZE);
   }
 
   public OutputStream createCompressionStream(OutputStream downStream, Compressor compressor,
@@ -320,12 +320,13 @@ public class CompressionAlgorithm extends Configured {
   }
 
   /**
-   * Return the given stream wrapped as a {@link BufferedInputStream} with the given buffer size if
-   * the buffer size is greater than 0, or return the original stream otherwise.
+   * Return the given stream wrapped as a {@link BufferedInputStream} with a pooled buffer of at
+   * least the given size if the buffer size is greater than 0, or return the original stream
+   * otherwise.
    */
   private InputStream bufferStream(final InputStream stream, final int bufferSize) {
     if (bufferSize > 0) {
-      return new BufferedInputStream(stream, bufferSize);
+      return DecompressionBufferPool.getInstance().buffer(stream, bufferSize);
     }
     return stream;
   }
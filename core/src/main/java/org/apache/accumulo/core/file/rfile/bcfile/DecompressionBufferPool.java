@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile.bcfile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
+import org.apache.accumulo.core.conf.Property;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A process wide pool of the buffers used to read and decompress RFile blocks. Every block read
+ * wraps the compressed and decompressed streams in buffered streams, which under random read
+ * workloads turns into a large amount of short lived garbage. Buffers are kept in power of two
+ * size classes and are returned when the block reader is closed. The total number of bytes
+ * retained by the pool is bounded, buffers released past that bound are left to the garbage
+ * collector.
+ */
+public final class DecompressionBufferPool {
+
+  private static final int MIN_CLASS_SHIFT = 10;
+  private static final int MAX_CLASS_SHIFT = 20;
+
+  private static final DecompressionBufferPool INSTANCE = new DecompressionBufferPool(
+      ConfigurationTypeHelper.getFixedMemoryAsBytes(
+          Property.TSERV_READ_BUFFER_POOL_SIZE.getDefaultValue()));
+
+  public static DecompressionBufferPool getInstance() {
+    return INSTANCE;
+  }
+
+  private final Queue<byte[]>[] sizeClasses;
+  private final AtomicLong retainedBytes = new AtomicLong();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder bytesReused = new LongAdder();
+  private volatile long maxRetainedBytes;
+
+  @SuppressWarnings("unchecked")
+  DecompressionBufferPool(long maxRetainedBytes) {
+    setMaxRetainedBytes(maxRetainedBytes);
+    sizeClasses = new Queue[MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1];
+    for (int i = 0; i < sizeClasses.length; i++) {
+      sizeClasses[i] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  /**
+   * Sets the maximum number of bytes the pool holds on to. Setting this to zero disables pooling.
+   */
+  public void setMaxRetainedBytes(long maxRetainedBytes) {
+    Preconditions.checkArgument(maxRetainedBytes >= 0, "Negative pool size %s", maxRetainedBytes);
+    this.maxRetainedBytes = maxRetainedBytes;
+  }
+
+  /**
+   * @return the index of the size class holding buffers of at least the given size, or -1 when
+   *         buffers of that size are not pooled
+   */
+  private static int sizeClass(int size) {
+    int shift = Math.max(MIN_CLASS_SHIFT, 32 - Integer.numberOfLeadingZeros(size - 1));
+    return shift > MAX_CLASS_SHIFT ? -1 : shift - MIN_CLASS_SHIFT;
+  }
+
+  /**
+   * Returns a buffer of at least the given size, reusing a pooled buffer when one is available.
+   */
+  byte[] take(int size) {
+    requests.increment();
+    int sizeClass = sizeClass(size);
+    if (sizeClass < 0) {
+      return new byte[size];
+    }
+    byte[] buffer = sizeClasses[sizeClass].poll();
+    if (buffer == null) {
+      return new byte[1 << (sizeClass + MIN_CLASS_SHIFT)];
+    }
+    retainedBytes.addAndGet(-buffer.length);
+    hits.increment();
+    bytesReused.add(buffer.length);
+    return buffer;
+  }
+
+  /**
+   * Hands a buffer obtained from {@link #take(int)} back to the pool. The caller must not use the
+   * buffer afterwards.
+   */
+  void release(byte[] buffer) {
+    int sizeClass = sizeClass(buffer.length);
+    if (sizeClass < 0 || buffer.length != 1 << (sizeClass + MIN_CLASS_SHIFT)) {
+      return;
+    }
+    if (retainedBytes.addAndGet(buffer.length) > maxRetainedBytes) {
+      retainedBytes.addAndGet(-buffer.length);
+      return;
+    }
+    sizeClasses[sizeClass].offer(buffer);
+  }
+
+  /**
+   * Wraps the given stream in a {@link BufferedInputStream} whose buffer comes from this pool and
+   * is returned to it when the stream is closed.
+   */
+  InputStream buffer(InputStream stream, int bufferSize) {
+    return new PooledBufferedInputStream(stream, take(bufferSize));
+  }
+
+  /**
+   * @return the number of buffers requested from the pool
+   */
+  public long getRequestCount() {
+    return requests.sum();
+  }
+
+  /**
+   * @return the number of requests satisfied by a pooled buffer
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of bytes that did not have to be allocated because a pooled buffer was used
+   */
+  public long getBytesReused() {
+    return bytesReused.sum();
+  }
+
+  /**
+   * @return the number of bytes currently held by the pool
+   */
+  public long getRetainedBytes() {
+    return retainedBytes.get();
+  }
+
+  private final class PooledBufferedInputStream extends BufferedInputStream {
+
+    private byte[] pooled;
+
+    PooledBufferedInputStream(InputStream in, byte[] buffer) {
+      super(in, 1);
+      this.buf = buffer;
+      this.pooled = buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        byte[] buffer;
+        synchronized (this) {
+          buffer = pooled;
+          pooled = null;
+        }
+        if (buffer != null) {
+          release(buffer);
+        }
+      }
+    }
+  }
+}
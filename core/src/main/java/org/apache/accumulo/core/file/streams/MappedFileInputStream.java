@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.streams;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+
+/**
+ * An input stream over a memory mapped local file. Reads copy directly from the mapping, avoiding
+ * the system call and buffer copies of reading through the file system. Streams over a range of
+ * the file that do not share a position, see {@link #newRangeStream(long, long)}, can be used
+ * concurrently without synchronization.
+ * <p>
+ * The mapping is released when this object is garbage collected, not when it is closed.
+ */
+public class MappedFileInputStream extends InputStream implements Seekable, PositionedReadable {
+
+  // a single mapping can not be larger than Integer.MAX_VALUE
+  static final long SEGMENT_SIZE = 1L << 30;
+
+  private final ByteBuffer[] segments;
+  private final long length;
+  private final long segmentSize;
+  private long pos = 0;
+  private volatile boolean closed = false;
+  // used by the reads that change the position of this stream
+  private final SegmentView view = new SegmentView();
+
+  private MappedFileInputStream(ByteBuffer[] segments, long length, long segmentSize) {
+    this.segments = segments;
+    this.length = length;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Maps the entire file for reading.
+   */
+  public static MappedFileInputStream open(File file) throws IOException {
+    return open(file, SEGMENT_SIZE);
+  }
+
+  static MappedFileInputStream open(File file, long segmentSize) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long length = channel.size();
+      ByteBuffer[] segments = new ByteBuffer[(int) ((length + segmentSize - 1) / segmentSize)];
+      for (int i = 0; i < segments.length; i++) {
+        long start = i * segmentSize;
+        long size = Math.min(segmentSize, length - start);
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+      }
+      return new MappedFileInputStream(segments, length, segmentSize);
+    }
+  }
+
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Reads from the mapping without changing the position of any stream. Bulk reads need a buffer
+   * position, so a view holds a duplicate of the segment it last read from. A view must only be
+   * used by one thread at a time.
+   */
+  private class SegmentView {
+    private int index = -1;
+    private ByteBuffer segment;
+
+    /**
+     * @return the byte at the position, or -1 if the position is at or past the end of the file
+     */
+    int read(long position) throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      if (position >= length) {
+        return -1;
+      }
+      // an absolute get does not use the buffer position, so the shared mapping can be read
+      return segments[(int) (position / segmentSize)].get((int) (position % segmentSize)) & 0xff;
+    }
+
+    /**
+     * @return the number of bytes copied, or -1 if the position is at or past the end of the file
+     */
+    int copy(long position, byte[] buffer, int offset, int len) throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      if (position >= length) {
+        return -1;
+      }
+
+      int copied = 0;
+      len = (int) Math.min(len, length - position);
+      while (copied < len) {
+        int segmentIndex = (int) (position / segmentSize);
+        if (segmentIndex != index) {
+          segment = segments[segmentIndex].duplicate();
+          index = segmentIndex;
+        }
+        segment.position((int) (position % segmentSize));
+        int n = Math.min(len - copied, segment.remaining());
+        segment.get(buffer, offset + copied, n);
+        copied += n;
+        position += n;
+      }
+      return copied;
+    }
+  }
+
+  /**
+   * Creates a stream over a range of the file with its own position, for reading one block.
+   */
+  public InputStream newRangeStream(long offset, long len) {
+    if (offset < 0 || len < 0 || offset + len > length) {
+      throw new IndexOutOfBoundsException("Invalid offset/length: " + offset + "/" + len);
+    }
+
+    return new InputStream() {
+      private long rangePos = offset;
+      private final long end = offset + len;
+      private long mark = offset;
+      private final SegmentView rangeView = new SegmentView();
+
+      @Override
+      public int read() throws IOException {
+        if (rangePos >= end) {
+          return -1;
+        }
+        int b = rangeView.read(rangePos);
+        if (b >= 0) {
+          rangePos++;
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int n) throws IOException {
+        if (n == 0) {
+          return 0;
+        }
+        if (rangePos >= end) {
+          return -1;
+        }
+        int copied = rangeView.copy(rangePos, b, off, (int) Math.min(n, end - rangePos));
+        if (copied > 0) {
+          rangePos += copied;
+        }
+        return copied;
+      }
+
+      @Override
+      public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, end - rangePos));
+        rangePos += skipped;
+        return skipped;
+      }
+
+      @Override
+      public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - rangePos);
+      }
+
+      @Override
+      public boolean markSupported() {
+        return true;
+      }
+
+      @Override
+      public void mark(int readlimit) {
+        mark = rangePos;
+      }
+
+      @Override
+      public void reset() {
+        rangePos = mark;
+      }
+    };
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = view.read(pos);
+    if (b >= 0) {
+      pos++;
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    int copied = view.copy(pos, b, off, len);
+    if (copied > 0) {
+      pos += copied;
+    }
+    return copied;
+  }
+
+  @Override
+  public long skip(long n) {
+    long skipped = Math.max(0, Math.min(n, length - pos));
+    pos += skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - pos));
+  }
+
+  @Override
+  public void seek(long newPos) throws IOException {
+    if (newPos < 0 || newPos > length) {
+      throw new EOFException("Can not seek to " + newPos + ", length " + length);
+    }
+    pos = newPos;
+  }
+
+  @Override
+  public long getPos() {
+    return pos;
+  }
+
+  @Override
+  public boolean seekToNewSource(long targetPos) {
+    return false;
+  }
+
+  @Override
+  public int read(long position, byte[] buffer, int offset, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    // positional reads may be concurrent, so each uses its own view
+    return new SegmentView().copy(position, buffer, offset, len);
+  }
+
+  @Override
+  public void readFully(long position, byte[] buffer, int offset, int len) throws IOException {
+    int copied = len == 0 ? 0 : new SegmentView().copy(position, buffer, offset, len);
+    if (copied < len) {
+      throw new EOFException("Reached end of file reading " + len + " bytes at " + position);
+    }
+  }
+
+  @Override
+  public void readFully(long position, byte[] buffer) throws IOException {
+    readFully(position, buffer, 0, buffer.length);
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+  }
+}
@@ -23,6 +23,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
@@ -32,6 +36,8 @@ import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 
+import com.google.common.util.concurrent.Uninterruptibles;
+
 /**
  * An iterator capable of iterating over other iterators in sorted order.
  */
@@ -39,6 +45,8 @@ public class MultiIterator extends HeapIterator {
 
   private List<SortedKeyValueIterator<Key,Value>> iters;
   private Range fence;
+  private Executor seekExecutor = null;
+  private boolean seeked = false;
 
   // deep copy with no seek/scan state
   @Override
@@ -50,6 +58,7 @@ public class MultiIterator extends HeapIterator {
     super(other.iters.size());
     this.iters = new ArrayList<>();
     this.fence = other.fence;
+    this.seekExecutor = other.seekExecutor;
     for (SortedKeyValueIterator<Key,Value> iter : other.iters) {
       iters.add(iter.deepCopy(env));
     }
@@ -92,6 +101,25 @@ public class MultiIterator extends HeapIterator {
     this(readers, null, init);
   }
 
+  /**
+   * Seeks the sources concurrently using the given executor, instead of one after another on the
+   * thread calling {@link #seek(Range, Collection, boolean)}. This lowers the latency of a seek
+   * over many sources that have to read blocks that are not cached. The calling thread seeks the
+   * sources no thread of the executor has started on, so seeks make progress when the executor is
+   * busy. The sources must be independent of each other to be seeked concurrently.
+   *
+   * <p>
+   * Only the first seek is done concurrently. It is the one that has to open and read the first
+   * blocks of every source, while later seeks mostly stay within blocks that were already read, so
+   * fanning those out would cost more in handoffs than it saves.
+   *
+   * @param seekExecutor the executor to seek with, or null to seek the sources one after another
+   */
+  public MultiIterator setSeekExecutor(Executor seekExecutor) {
+    this.seekExecutor = seekExecutor;
+    return this;
+  }
+
   @Override
   public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive)
       throws IOException {
@@ -104,12 +132,99 @@ public class MultiIterator extends HeapIterator {
       }
     }
 
+    boolean firstSeek = !seeked;
+    seeked = true;
+
+    if (seekExecutor != null && firstSeek && iters.size() > 1) {
+      seekConcurrently(range, columnFamilies, inclusive);
+      iters.forEach(this::addSource);
+      return;
+    }
+
     for (SortedKeyValueIterator<Key,Value> skvi : iters) {
       skvi.seek(range, columnFamilies, inclusive);
       addSource(skvi);
     }
   }
 
+  /**
+   * Seeks a single source, on whichever thread claims it first.
+   */
+  private static class SeekTask implements Runnable {
+    private final SortedKeyValueIterator<Key,Value> source;
+    private final Range range;
+    private final Collection<ByteSequence> columnFamilies;
+    private final boolean inclusive;
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+    private final CountDownLatch done = new CountDownLatch(1);
+    private Throwable error = null;
+
+    SeekTask(SortedKeyValueIterator<Key,Value> source, Range range,
+        Collection<ByteSequence> columnFamilies, boolean inclusive) {
+      this.source = source;
+      this.range = range;
+      this.columnFamilies = columnFamilies;
+      this.inclusive = inclusive;
+    }
+
+    @Override
+    public void run() {
+      if (!claimed.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        source.seek(range, columnFamilies, inclusive);
+      } catch (Throwable t) {
+        error = t;
+      } finally {
+        done.countDown();
+      }
+    }
+  }
+
+  private void seekConcurrently(Range range, Collection<ByteSequence> columnFamilies,
+      boolean inclusive) throws IOException {
+    List<SeekTask> tasks = new ArrayList<>(iters.size());
+    for (SortedKeyValueIterator<Key,Value> skvi : iters) {
+      tasks.add(new SeekTask(skvi, range, columnFamilies, inclusive));
+    }
+
+    // the calling thread always seeks the first source, so only hand the others to the executor
+    for (SeekTask task : tasks.subList(1, tasks.size())) {
+      try {
+        seekExecutor.execute(task);
+      } catch (RejectedExecutionException e) {
+        // the calling thread will seek the source
+        break;
+      }
+    }
+
+    for (SeekTask task : tasks) {
+      task.run();
+    }
+
+    // Wait for every seek to finish, even if this thread is interrupted, so that no source is still
+    // being seeked when this method returns. Interrupted scans stop through the interrupt flag of
+    // the sources.
+    Throwable error = null;
+    for (SeekTask task : tasks) {
+      Uninterruptibles.awaitUninterruptibly(task.done);
+      if (error == null) {
+        error = task.error;
+      }
+    }
+
+    if (error instanceof IOException) {
+      throw (IOException) error;
+    } else if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    } else if (error instanceof Error) {
+      throw (Error) error;
+    } else if (error != null) {
+      throw new IOException(error);
+    }
+  }
+
   @Override
   public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options,
       IteratorEnvironment env) throws IOException {
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iteratorsImpl.system;
+
+import static com.google.common.base.Suppliers.memoize;
+
+import java.util.function.Supplier;
+
+import org.apache.accumulo.access.AccessEvaluator;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.util.cache.Caches;
+import org.apache.accumulo.core.util.cache.Caches.CacheName;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Process wide memo of column visibility evaluations, shared by every {@link VisibilityFilter} in
+ * the JVM. Entries are scoped by the set of authorizations they were evaluated against, so scan
+ * sessions for users holding the same authorizations reuse each other's results instead of
+ * evaluating the same expressions again. Hit and miss counts are published through the cache
+ * metrics that {@link Caches} registers when metrics are enabled.
+ */
+public final class VisibilityEvaluationCache {
+
+  static final int MAX_ENTRIES = 10_000;
+
+  // built lazily so metrics are attached once the server has registered its meter registry
+  private static final Supplier<Cache<EvaluationKey,Boolean>> CACHE =
+      memoize(() -> Caches.getInstance().createNewBuilder(CacheName.VISIBILITY_EVALUATIONS, true)
+          .maximumSize(MAX_ENTRIES).build());
+
+  private VisibilityEvaluationCache() {}
+
+  /**
+   * Returns whether the given visibility is accessible by the authorizations, evaluating it with
+   * the evaluator only when no other filter has done so already. The visibility must not be
+   * modified after this call because it may be retained as part of the cache key.
+   *
+   * @param authsHash precomputed hash code of the authorizations, so it is not recomputed per key
+   */
+  static boolean canAccess(Authorizations authorizations, int authsHash, ByteSequence visibility,
+      AccessEvaluator evaluator) {
+    return CACHE.get().get(new EvaluationKey(authorizations, authsHash, visibility),
+        key -> evaluator.canAccess(visibility.toArray()));
+  }
+
+  /**
+   * @return true if an evaluation of the visibility against the authorizations is shared
+   */
+  @VisibleForTesting
+  public static boolean isCached(Authorizations authorizations, ByteSequence visibility) {
+    return CACHE.get().getIfPresent(
+        new EvaluationKey(authorizations, authorizations.hashCode(), visibility)) != null;
+  }
+
+  private static final class EvaluationKey {
+    private final Authorizations authorizations;
+    private final ByteSequence visibility;
+    private final int hash;
+
+    EvaluationKey(Authorizations authorizations, int authsHash, ByteSequence visibility) {
+      this.authorizations = authorizations;
+      this.visibility = visibility;
+      this.hash = 31 * authsHash + visibility.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof EvaluationKey)) {
+        return false;
+      }
+      EvaluationKey other = (EvaluationKey) o;
+      return hash == other.hash && visibility.equals(other.visibility)
+          && (authorizations == other.authorizations
+              || authorizations.equals(other.authorizations));
+    }
+  }
+}
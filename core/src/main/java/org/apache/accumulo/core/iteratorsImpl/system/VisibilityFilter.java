@@ -39,12 +39,16 @@ import org.slf4j.LoggerFactory;
  * of the iterator stack in {@link org.apache.accumulo.core.iterators.IteratorUtil}
  * .loadIterators(). For performance reasons, the synchronization was pushed down the stack to this
  * class.
+ * <p>
+ * Evaluations are memoized first in a small per filter cache and then in a
+ * {@link VisibilityEvaluationCache} shared across all scan sessions using the same authorizations.
  */
 public class VisibilityFilter extends SynchronizedServerFilter {
   protected final AccessEvaluator ve;
   protected final ArrayByteSequence defaultVisibility;
   protected final LRUMap<ByteSequence,Boolean> cache;
   protected final Authorizations authorizations;
+  private final int authsHash;
 
   private final ArrayByteSequence testVis = new ArrayByteSequence(new byte[0]);
 
@@ -55,6 +59,7 @@ public class VisibilityFilter extends SynchronizedServerFilter {
     super(iterator);
     this.ve = AccessEvaluator.of(authorizations.toAccessAuthorizations());
     this.authorizations = authorizations;
+    this.authsHash = authorizations.hashCode();
     this.defaultVisibility = new ArrayByteSequence(defaultVisibility);
     this.cache = new LRUMap<>(1000);
   }
@@ -84,7 +89,8 @@ public class VisibilityFilter extends SynchronizedServerFilter {
     try {
       final ArrayByteSequence safeCopy =
           (testVis.length() == 0) ? defaultVisibility : new ArrayByteSequence(testVis);
-      boolean bb = ve.canAccess(safeCopy.toArray());
+      // consult the evaluations shared by all filters before evaluating the expression
+      boolean bb = VisibilityEvaluationCache.canAccess(authorizations, authsHash, safeCopy, ve);
       cache.put(safeCopy, bb);
       return bb;
     } catch (InvalidAccessExpressionException e) {
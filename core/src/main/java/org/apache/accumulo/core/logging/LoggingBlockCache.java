@@ -94,6 +94,11 @@ public class LoggingBlockCache implements BlockCache {
           logDeps, data == null ? null : data.length + " bytes", elapsed);
       return data;
     }
+
+    @Override
+    public boolean isEncrypted() {
+      return loader.isEncrypted();
+    }
   }
 
   @Override
@@ -106,6 +111,19 @@ public class LoggingBlockCache implements BlockCache {
     return ce;
   }
 
+  @Override
+  public void removeBlock(String blockName) {
+    blockCache.removeBlock(blockName);
+    log.trace("{} removeBlock({})", type, blockName);
+  }
+
+  @Override
+  public boolean containsBlock(String blockName) {
+    boolean contains = blockCache.containsBlock(blockName);
+    log.trace("{} containsBlock({}) returned {}", type, blockName, contains);
+    return contains;
+  }
+
   @Override
   public long getMaxHeapSize() {
     return blockCache.getMaxHeapSize();
@@ -86,27 +86,32 @@ public class LinkingIterator implements Iterator<TabletMetadata> {
       return false;
     }
 
-    if (curr.getTableId().equals(prev.getTableId())) {
-      if (prev.getEndRow() == null) {
-        throw new IllegalStateException("Null end row for tablet in middle of table: "
-            + prev.getExtent() + " " + curr.getExtent());
+    return goodTransition(prev.getExtent(), curr.getExtent());
+  }
+
+  /**
+   * @return true if the tablet {@code curr} immediately follows the tablet {@code prev} in the
+   *         metadata table, either in the same table or as the first tablet of the next table
+   */
+  public static boolean goodTransition(KeyExtent prev, KeyExtent curr) {
+    if (curr.tableId().equals(prev.tableId())) {
+      if (prev.endRow() == null) {
+        throw new IllegalStateException(
+            "Null end row for tablet in middle of table: " + prev + " " + curr);
       }
 
-      if (curr.getPrevEndRow() == null || !prev.getEndRow().equals(curr.getPrevEndRow())) {
-        log.debug("Tablets end row and prev end row not equals {} {} ", prev.getExtent(),
-            curr.getExtent());
+      if (curr.prevEndRow() == null || !prev.endRow().equals(curr.prevEndRow())) {
+        log.debug("Tablets end row and prev end row not equals {} {} ", prev, curr);
         return false;
       }
     } else {
-      if (prev.getEndRow() != null) {
-        log.debug("Non-null end row for last tablet in table: " + prev.getExtent() + " "
-            + curr.getExtent());
+      if (prev.endRow() != null) {
+        log.debug("Non-null end row for last tablet in table: " + prev + " " + curr);
         return false;
       }
 
-      if (curr.getPrevEndRow() != null) {
-        log.debug("First tablet for table had prev end row {} {} ", prev.getExtent(),
-            curr.getExtent());
+      if (curr.prevEndRow() != null) {
+        log.debug("First tablet for table had prev end row {} {} ", prev, curr);
         return false;
       }
     }
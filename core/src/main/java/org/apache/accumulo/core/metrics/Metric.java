@@ -106,6 +106,17 @@ public enum Metric {
       MetricDocSection.GARBAGE_COLLECTION),
   GC_ERRORS("accumulo.gc.errors", MetricType.GAUGE, "Number of candidate deletion errors.",
       MetricDocSection.GARBAGE_COLLECTION),
+  GC_READ_CANDIDATES_DURATION("accumulo.gc.read.candidates.duration", MetricType.GAUGE,
+      "Time the last GC file collection cycle spent reading deletion candidates, in milliseconds.",
+      MetricDocSection.GARBAGE_COLLECTION),
+  GC_CONFIRM_DELETES_DURATION("accumulo.gc.confirm.deletes.duration", MetricType.GAUGE,
+      "Time the last GC file collection cycle spent reading file references to confirm deletion"
+          + " candidates, in milliseconds.",
+      MetricDocSection.GARBAGE_COLLECTION),
+  GC_DELETE_FILES_DURATION("accumulo.gc.delete.files.duration", MetricType.GAUGE,
+      "Time the last GC file collection cycle spent deleting confirmed candidates, in"
+          + " milliseconds. Deletes may overlap with confirming candidates.",
+      MetricDocSection.GARBAGE_COLLECTION),
   GC_WAL_STARTED("accumulo.gc.wal.started", MetricType.GAUGE,
       "Timestamp GC WAL collection cycle started.", MetricDocSection.GARBAGE_COLLECTION),
   GC_WAL_FINISHED("accumulo.gc.wal.finished", MetricType.GAUGE,
@@ -261,6 +272,27 @@ public enum Metric {
   BLOCKCACHE_SUMMARY_EVICTIONCOUNT("accumulo.blockcache.summary.evictioncount",
       MetricType.FUNCTION_COUNTER, "Summary block cache eviction count.",
       MetricDocSection.BLOCK_CACHE),
+  BLOCKCACHE_TABLE_HITCOUNT("accumulo.blockcache.table.hitcount", MetricType.FUNCTION_COUNTER,
+      "Block cache hit count of a table, tagged by cache type and table id.",
+      MetricDocSection.BLOCK_CACHE),
+  BLOCKCACHE_TABLE_REQUESTCOUNT("accumulo.blockcache.table.requestcount",
+      MetricType.FUNCTION_COUNTER,
+      "Block cache request count of a table, tagged by cache type and table id.",
+      MetricDocSection.BLOCK_CACHE),
+  BLOCKCACHE_TABLE_EVICTIONCOUNT("accumulo.blockcache.table.evictioncount",
+      MetricType.FUNCTION_COUNTER,
+      "Block cache eviction count of a table, tagged by cache type and table id.",
+      MetricDocSection.BLOCK_CACHE),
+  BLOCKCACHE_READBUFFER_HITCOUNT("accumulo.blockcache.readbuffer.hitcount",
+      MetricType.FUNCTION_COUNTER, "Block read buffer requests satisfied by a pooled buffer.",
+      MetricDocSection.BLOCK_CACHE),
+  BLOCKCACHE_READBUFFER_REQUESTCOUNT("accumulo.blockcache.readbuffer.requestcount",
+      MetricType.FUNCTION_COUNTER, "Block read buffer request count.",
+      MetricDocSection.BLOCK_CACHE),
+  BLOCKCACHE_READBUFFER_BYTESREUSED("accumulo.blockcache.readbuffer.bytesreused",
+      MetricType.FUNCTION_COUNTER,
+      "Bytes of block read buffers that were reused instead of allocated.",
+      MetricDocSection.BLOCK_CACHE),
 
   // Manager Metrics
   MANAGER_BALANCER_MIGRATIONS_NEEDED("accumulo.balancer.migrations.needed", MetricType.GAUGE,
@@ -60,6 +60,17 @@ public interface BlockCache {
      * @return The loaded block or null if loading the block would exceed maxSize.
      */
     byte[] load(int maxSize, Map<String,byte[]> dependencies);
+
+    /**
+     * A cache must not write a block read from an encrypted file anywhere but memory, because the
+     * block holds the decrypted data.
+     *
+     * @return true if the block is read from an encrypted file
+     * @since 4.0.0
+     */
+    default boolean isEncrypted() {
+      return false;
+    }
   }
 
   /**
@@ -75,6 +86,30 @@ public interface BlockCache {
    */
   CacheEntry getBlock(String blockName, Loader loader);
 
+  /**
+   * Removes a block from the cache, so the space it used can be given to other blocks. Readers
+   * holding an entry for the block can keep using it. Caches that can not remove single blocks
+   * ignore this.
+   *
+   * @param blockName Block name to remove.
+   * @since 4.0.0
+   */
+  default void removeBlock(String blockName) {}
+
+  /**
+   * Checks if a block is in the cache without reading it. Unlike {@link #getBlock(String)} this
+   * does not count as a request in the cache statistics, does not make the block more likely to be
+   * kept and does not load the block from anywhere. Caches that can not check this without side
+   * effects return false.
+   *
+   * @param blockName Block name to check.
+   * @return true if the block is in the cache
+   * @since 4.0.0
+   */
+  default boolean containsBlock(String blockName) {
+    return false;
+  }
+
   /**
    * Get the maximum amount of on heap memory this cache will use.
    */
@@ -118,5 +153,15 @@ public interface BlockCache {
      * @since 3.1.0
      */
     long evictionCount();
+
+    /**
+     * @return the statistics of the blocks of each table, keyed by table id, or an empty map when
+     *         the cache does not keep statistics per table
+     *
+     * @since 4.0.0
+     */
+    default Map<String,? extends Stats> tableStats() {
+      return Map.of();
+    }
   }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.accumulo.core.spi.cache;
 
+import java.io.InputStream;
 import java.util.function.Supplier;
 
 /**
@@ -31,6 +32,19 @@ public interface CacheEntry {
 
   byte[] getBuffer();
 
+  /**
+   * Opens a stream over the cached data, for caches that keep their data outside of the Java heap
+   * and can let it be read without copying it into an array first. The data stays valid until the
+   * stream is closed, so the stream must always be closed.
+   *
+   * @return a stream over the data, or null when the data should be read through
+   *         {@link #getBuffer()}
+   * @since 4.0.0
+   */
+  default InputStream getInputStream() {
+    return null;
+  }
+
   /**
    * Optionally cache what is returned by the supplier along with this cache entry. If caching what
    * is returned by the supplier is not supported, its ok to return null.
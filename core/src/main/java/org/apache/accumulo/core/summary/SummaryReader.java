@@ -107,6 +107,11 @@ public class SummaryReader {
             return idxCacheEntry.getBuffer();
           }
         }
+
+        @Override
+        public boolean isEncrypted() {
+          return loader.isEncrypted();
+        }
       };
       return summaryCache.getBlock(blockName, idxLoader);
     }
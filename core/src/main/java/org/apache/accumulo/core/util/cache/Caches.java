@@ -50,6 +50,7 @@ public class Caches implements MetricsProducer {
     INSTANCE_ID,
     NAMESPACE_ID,
     NAMESPACE_CONFIGS,
+    OFFHEAP_BLOCK_CACHE,
     PROP_CACHE,
     RECOVERY_MANAGER_PATH_CACHE,
     SCAN_SERVER_TABLET_METADATA,
@@ -64,6 +65,7 @@ public class Caches implements MetricsProducer {
     TABLE_ZOO_HELPER_CACHE,
     TSRM_FILE_LENGTHS,
     TINYLFU_BLOCK_CACHE,
+    VISIBILITY_EVALUATIONS,
     VOLUME_HDFS_CONFIGS,
     MINC_AGE,
     ZOO_CACHE
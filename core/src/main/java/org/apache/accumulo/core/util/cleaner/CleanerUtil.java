@@ -97,6 +97,20 @@ public class CleanerUtil {
     });
   }
 
+  /**
+   * Register an action to release a resource that the object normally hands off or releases
+   * itself, for when the object is dropped without doing so. The action must be safe to run after
+   * the resource was already released.
+   *
+   * @param obj the object to monitor for becoming phantom-reachable
+   * @param release the action releasing the resource; must not contain a reference to
+   *        <code>obj</code> or it won't become phantom-reachable and will never be cleaned
+   * @return the registered {@link Cleanable} from {@link Cleaner#register(Object, Runnable)}
+   */
+  public static Cleanable release(Object obj, Runnable release) {
+    return CLEANER.register(requireNonNull(obj), requireNonNull(release));
+  }
+
   public static Cleanable shutdownThreadPoolExecutor(ExecutorService pool, AtomicBoolean closed,
       Logger log) {
     requireNonNull(pool);
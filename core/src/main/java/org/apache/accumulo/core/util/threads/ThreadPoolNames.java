@@ -23,6 +23,7 @@ public enum ThreadPoolNames {
   ACCUMULO_POOL_PREFIX("accumulo.pool"),
   BATCH_WRITER_SEND_POOL("accumulo.pool.batch.writer.send"),
   BATCH_WRITER_BIN_MUTATIONS_POOL("accumulo.pool.batch.writer.bin.mutations"),
+  BLOCK_CACHE_DISK_WRITER_POOL("accumulo.pool.block.cache.disk.writer"),
   BLOOM_LOADER_POOL("accumulo.pool.bloom.loader"),
   BULK_IMPORT_CLIENT_LOAD_POOL("accumulo.pool.bulk.import.client.bulk.load"),
   BULK_IMPORT_CLIENT_BULK_THREADS_POOL("accumulo.pool.bulk.import.client.bulk.threads"),
@@ -37,7 +38,10 @@ public enum ThreadPoolNames {
   COORDINATOR_RESERVATION_ROOT_POOL("accumulo.pool.compaction.coordinator.reservation.root"),
   COORDINATOR_RESERVATION_META_POOL("accumulo.pool.compaction.coordinator.reservation.meta"),
   COORDINATOR_RESERVATION_USER_POOL("accumulo.pool.compaction.coordinator.reservation.user"),
+  FILE_READAHEAD_POOL("accumulo.pool.file.readahead"),
   GC_DELETE_POOL("accumulo.pool.gc.threads.delete"),
+  GC_DELETE_PIPELINE_POOL("accumulo.pool.gc.delete.pipeline"),
+  GC_REFERENCE_SCAN_POOL("accumulo.pool.gc.threads.reference.scan"),
   GENERAL_SERVER_POOL("accumulo.pool.general.server"),
   SERVICE_LOCK_POOL("accumulo.pool.service.lock"),
   IMPORT_TABLE_RENAME_POOL("accumulo.pool.import.table.rename"),
@@ -58,6 +62,7 @@ public enum ThreadPoolNames {
   TSERVER_ASSIGNMENT_POOL("accumulo.pool.tserver.assignment"),
   TSERVER_MIGRATIONS_POOL("accumulo.pool.tserver.migrations"),
   TSERVER_MINOR_COMPACTOR_POOL("accumulo.pool.tserver.minor.compactor"),
+  TSERVER_SCAN_SEEK_POOL("accumulo.pool.tserver.scan.seek"),
   TSERVER_SHUTDOWN_UNLOAD_TABLET_POOL("accumulo.pool.tserver.shutdown.tablet.unload"),
   TSERVER_SUMMARY_FILE_RETRIEVER_POOL("accumulo.pool.tserver.summary.file.retriever.pool"),
   TSERVER_SUMMARY_PARTITION_POOL("accumulo.pool.tserver.summary.partition"),
@@ -66,6 +71,7 @@ public enum ThreadPoolNames {
   TSERVER_TABLET_MIGRATION_POOL("accumulo.pool.tserver.tablet.migration"),
   TSERVER_WAL_CREATOR_POOL("accumulo.pool.tserver.wal.creator"),
   TSERVER_WAL_SORT_CONCURRENT_POOL("accumulo.pool.tserver.wal.sort.concurrent"),
+  TSERVER_WAL_SORT_WRITE_POOL("accumulo.pool.tserver.wal.sort.write"),
   TSERVER_CONDITIONAL_UPDATE_ROOT_POOL("accumulo.pool.tserver.conditionalupdate.root"),
   TSERVER_CONDITIONAL_UPDATE_META_POOL("accumulo.pool.tserver.conditionalupdate.meta"),
   TSERVER_CONDITIONAL_UPDATE_USER_POOL("accumulo.pool.tserver.conditionalupdate.user"),
@@ -26,6 +26,7 @@ import static org.apache.accumulo.core.util.threads.ThreadPoolNames.COORDINATOR_
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.COORDINATOR_RESERVATION_ROOT_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.COORDINATOR_RESERVATION_USER_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.GC_DELETE_POOL;
+import static org.apache.accumulo.core.util.threads.ThreadPoolNames.GC_REFERENCE_SCAN_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.GENERAL_SERVER_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.MANAGER_FATE_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.MANAGER_STATUS_POOL;
@@ -36,6 +37,7 @@ import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_COND
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_CONDITIONAL_UPDATE_USER_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_MIGRATIONS_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_MINOR_COMPACTOR_POOL;
+import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_SCAN_SEEK_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_SUMMARY_PARTITION_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_SUMMARY_REMOTE_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_SUMMARY_RETRIEVAL_POOL;
@@ -328,6 +330,13 @@ public class ThreadPools {
           builder.enableThreadPoolMetrics();
         }
         return builder.build();
+      case TSERV_SCAN_SEEK_THREADS:
+        builder = getPoolBuilder(TSERVER_SCAN_SEEK_POOL).numCoreThreads(conf.getCount(p))
+            .withTimeOut(60L, MILLISECONDS);
+        if (emitThreadPoolMetrics) {
+          builder.enableThreadPoolMetrics();
+        }
+        return builder.build();
       case TSERV_SUMMARY_RETRIEVAL_THREADS:
         builder = getPoolBuilder(TSERVER_SUMMARY_RETRIEVAL_POOL).numCoreThreads(conf.getCount(p))
             .withTimeOut(60L, MILLISECONDS);
@@ -372,6 +381,8 @@ public class ThreadPools {
         return builder.build();
       case GC_DELETE_THREADS:
         return getPoolBuilder(GC_DELETE_POOL).numCoreThreads(conf.getCount(p)).build();
+      case GC_REFERENCE_SCAN_THREADS:
+        return getPoolBuilder(GC_REFERENCE_SCAN_POOL).numCoreThreads(conf.getCount(p)).build();
       case COMPACTION_COORDINATOR_RESERVATION_THREADS_ROOT:
         builder = getPoolBuilder(COORDINATOR_RESERVATION_ROOT_POOL).numCoreThreads(conf.getCount(p))
             .withTimeOut(60L, MILLISECONDS);
@@ -435,6 +446,7 @@ public class ThreadPools {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
     OptionalInt priority = OptionalInt.empty();
     boolean emitThreadPoolMetrics = false;
+    boolean useVirtualThreads = false;
 
     /**
      * A fluent-style build to create a ThreadPoolExecutor. The name is used when creating
@@ -458,7 +470,7 @@ public class ThreadPools {
           "invalid thread priority, range must be Thread.MIN_PRIORITY <= priority <= Thread.MAX_PRIORITY");
 
       return createThreadPool(coreThreads, maxThreads, timeOut, units, name, queue, priority,
-          emitThreadPoolMetrics);
+          emitThreadPoolMetrics, useVirtualThreads);
     }
 
     /**
@@ -545,6 +557,19 @@ public class ThreadPools {
       this.emitThreadPoolMetrics = enable;
       return this;
     }
+
+    /**
+     * When set to true the pool runs its tasks on virtual threads if the JVM supports them, and on
+     * platform threads otherwise. The core and max thread counts still limit how many tasks run
+     * concurrently and the pool metrics are unchanged. Thread priority does not apply to virtual
+     * threads.
+     *
+     * @return a fluent-style builder instance
+     */
+    public ThreadPoolExecutorBuilder useVirtualThreads(final boolean useVirtualThreads) {
+      this.useVirtualThreads = useVirtualThreads;
+      return this;
+    }
   }
 
   /**
@@ -563,17 +588,18 @@ public class ThreadPools {
    *        therefore its recommended that this option only be set true for long-lived thread pools.
    *        Creating lots of short-lived thread pools and registering them can lead to out of memory
    *        errors over long time periods.
+   * @param useVirtualThreads run tasks on virtual threads when the JVM supports them
    * @return ThreadPoolExecutor
    */
   private ThreadPoolExecutor createThreadPool(final int coreThreads, final int maxThreads,
       final long timeOut, final TimeUnit units, final String name,
       final BlockingQueue<Runnable> queue, final OptionalInt priority,
-      final boolean emitThreadPoolMetrics) {
+      final boolean emitThreadPoolMetrics, final boolean useVirtualThreads) {
     LOG.trace(
         "Creating ThreadPoolExecutor for {} with {} core threads and {} max threads {} {} timeout",
         name, coreThreads, maxThreads, timeOut, units);
     var result = new ThreadPoolExecutor(coreThreads, maxThreads, timeOut, units, queue,
-        new NamedThreadFactory(name, priority, handler)) {
+        VirtualThreads.newThreadFactory(name, useVirtualThreads, priority, handler)) {
 
       @Override
       public void execute(@NonNull Runnable arg0) {
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.util.threads;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.OptionalInt;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.accumulo.core.trace.TraceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates virtual threads when the JVM supports them (Java 21 or later). Accumulo is compiled for
+ * Java 11, so the virtual thread builder API is looked up using reflection.
+ */
+public class VirtualThreads {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VirtualThreads.class);
+
+  // Thread.ofVirtual(), Thread.Builder.name(String,long),
+  // Thread.Builder.uncaughtExceptionHandler(UncaughtExceptionHandler) and Thread.Builder.factory()
+  private static final Method OF_VIRTUAL;
+  private static final Method NAME;
+  private static final Method UNCAUGHT_EXCEPTION_HANDLER;
+  private static final Method FACTORY;
+
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method ueh = null;
+    Method factory = null;
+    try {
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      name = builder.getMethod("name", String.class, long.class);
+      ueh = builder.getMethod("uncaughtExceptionHandler", UncaughtExceptionHandler.class);
+      factory = builder.getMethod("factory");
+    } catch (ReflectiveOperationException e) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    UNCAUGHT_EXCEPTION_HANDLER = ueh;
+    FACTORY = factory;
+  }
+
+  private VirtualThreads() {}
+
+  /**
+   * @return true if the running JVM can create virtual threads
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Creates a thread factory for virtual threads named with the given prefix and a counter. Tasks
+   * are wrapped for tracing like the tasks of platform threads created by this package.
+   *
+   * @throws UnsupportedOperationException if the JVM does not support virtual threads
+   */
+  static ThreadFactory newThreadFactory(String name, UncaughtExceptionHandler ueh) {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException(
+          "Virtual threads require Java 21 or later, running " + Runtime.version());
+    }
+    try {
+      Object builder = OF_VIRTUAL.invoke(null);
+      builder = NAME.invoke(builder, name + "-virtual-", 1L);
+      builder = UNCAUGHT_EXCEPTION_HANDLER.invoke(builder, ueh);
+      ThreadFactory factory = (ThreadFactory) FACTORY.invoke(builder);
+      return r -> factory.newThread(TraceUtil.wrap(r));
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Unable to create virtual thread factory for " + name, e);
+    }
+  }
+
+  /**
+   * Creates a virtual thread factory when requested and supported, otherwise a factory for named
+   * platform threads.
+   */
+  static ThreadFactory newThreadFactory(String name, boolean useVirtualThreads,
+      OptionalInt priority, UncaughtExceptionHandler ueh) {
+    if (useVirtualThreads) {
+      if (isSupported()) {
+        return newThreadFactory(name, ueh);
+      }
+      LOG.warn("Virtual threads were requested for {} but are not supported by Java {}, using"
+          + " platform threads", name, Runtime.version().feature());
+    }
+    return new NamedThreadFactory(name, priority, ueh);
+  }
+}
@@ -38,6 +38,9 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 
 import org.apache.accumulo.core.client.AccumuloException;
@@ -1360,6 +1363,51 @@ public class ClientTabletCacheImplTest {
     runTest(metaCache, ml, emb);
   }
 
+  @Test
+  public void testBinMutationsConcurrentWithInvalidation() throws Exception {
+    KeyExtent ke1 = createNewKeyExtent("foo", "h", null);
+    KeyExtent ke2 = createNewKeyExtent("foo", "t", "h");
+    KeyExtent ke3 = createNewKeyExtent("foo", null, "t");
+
+    ClientTabletCacheImpl metaCache = createLocators("foo", ke1, "l1", ke2, "l2", ke3, "l3");
+
+    List<Mutation> ml = createNewMutationList(createNewMutation("a", "cf1:cq1=v1"),
+        createNewMutation("i", "cf1:cq1=v2"), createNewMutation("w", "cf1:cq1=v3"));
+    Map<String,Map<KeyExtent,List<String>>> emb =
+        createServerExtentMap(createServerExtent("a", "l1", ke1),
+            createServerExtent("i", "l2", ke2), createServerExtent("w", "l3", ke3));
+
+    // populate the cache
+    runTest(metaCache, ml, emb);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> binners = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        binners.add(executor.submit(() -> {
+          for (int i = 0; i < 500; i++) {
+            runTest(metaCache, ml, emb);
+          }
+          return null;
+        }));
+      }
+
+      // invalidating extents while other threads read the cache should cause the extents to be
+      // looked up again, but never cause a mutation to be binned incorrectly or to fail
+      for (int i = 0; i < 500; i++) {
+        metaCache.invalidateCache(i % 2 == 0 ? ke2 : ke3);
+      }
+
+      for (Future<?> binner : binners) {
+        binner.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    runTest(metaCache, ml, emb);
+  }
+
   @Test
   public void testBinMutations4() throws Exception {
     // three table with hole
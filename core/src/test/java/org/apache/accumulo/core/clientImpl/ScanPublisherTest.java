@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ScanPublisherTest {
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  public void setup() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterEach
+  public void teardown() {
+    executor.shutdownNow();
+  }
+
+  private static List<List<Entry<Key,Value>>> createBatches(int numBatches, int batchSize) {
+    List<List<Entry<Key,Value>>> batches = new ArrayList<>();
+    for (int b = 0; b < numBatches; b++) {
+      List<Entry<Key,Value>> batch = new ArrayList<>();
+      for (int i = 0; i < batchSize; i++) {
+        String row = String.format("r%06d", b * batchSize + i);
+        batch.add(Map.entry(new Key(row, "cf", "cq"), new Value(row)));
+      }
+      batches.add(batch);
+    }
+    return batches;
+  }
+
+  /**
+   * Returns the given batches followed by an empty batch and tracks how it was used.
+   */
+  private static class TestReader implements ScanPublisher.BatchReader {
+    private final List<List<Entry<Key,Value>>> batches;
+    private final AtomicInteger reads = new AtomicInteger(0);
+    private final AtomicInteger concurrentReads = new AtomicInteger(0);
+    private final AtomicInteger closes = new AtomicInteger(0);
+    private volatile boolean overlapped = false;
+    private volatile RuntimeException failure = null;
+
+    TestReader(List<List<Entry<Key,Value>>> batches) {
+      this.batches = batches;
+    }
+
+    @Override
+    public List<? extends Entry<Key,Value>> read() throws Exception {
+      if (concurrentReads.incrementAndGet() > 1) {
+        overlapped = true;
+      }
+      try {
+        if (failure != null) {
+          throw failure;
+        }
+        int read = reads.getAndIncrement();
+        Thread.sleep(1);
+        return read < batches.size() ? batches.get(read) : Collections.emptyList();
+      } finally {
+        concurrentReads.decrementAndGet();
+      }
+    }
+
+    @Override
+    public void close() {
+      closes.incrementAndGet();
+    }
+  }
+
+  private static class TestSubscriber implements Flow.Subscriber<Entry<Key,Value>> {
+    private final long requestSize;
+    private final List<Entry<Key,Value>> received = Collections.synchronizedList(new ArrayList<>());
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private volatile Flow.Subscription subscription;
+    private long outstanding = 0;
+
+    TestSubscriber(long requestSize) {
+      this.requestSize = requestSize;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (requestSize > 0) {
+        outstanding = requestSize;
+        subscription.request(requestSize);
+      }
+    }
+
+    @Override
+    public void onNext(Entry<Key,Value> item) {
+      received.add(item);
+      if (requestSize > 0 && --outstanding == 0) {
+        outstanding = requestSize;
+        subscription.request(requestSize);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      done.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      done.complete(null);
+    }
+  }
+
+  private static List<Entry<Key,Value>> flatten(List<List<Entry<Key,Value>>> batches) {
+    List<Entry<Key,Value>> all = new ArrayList<>();
+    batches.forEach(all::addAll);
+    return all;
+  }
+
+  @Test
+  public void testAllEntriesInOrder() throws Exception {
+    var batches = createBatches(20, 17);
+    for (long requestSize : new long[] {1, 5, 17, 100, Long.MAX_VALUE}) {
+      TestReader reader = new TestReader(batches);
+      TestSubscriber subscriber = new TestSubscriber(requestSize);
+      new ScanPublisher(() -> reader, executor).subscribe(subscriber);
+      subscriber.done.get(1, TimeUnit.MINUTES);
+
+      assertEquals(flatten(batches), subscriber.received);
+      assertEquals(batches.size() + 1, reader.reads.get());
+      assertEquals(1, reader.closes.get());
+      assertFalse(reader.overlapped, "reads of a single scan should never overlap");
+    }
+  }
+
+  @Test
+  public void testNextBatchReadWhileConsuming() throws Exception {
+    var batches = createBatches(3, 10);
+    CountDownLatch secondRead = new CountDownLatch(1);
+    TestReader reader = new TestReader(batches) {
+      @Override
+      public List<? extends Entry<Key,Value>> read() throws Exception {
+        var batch = super.read();
+        if (batch == batches.get(1)) {
+          secondRead.countDown();
+        }
+        return batch;
+      }
+    };
+
+    // only request the first entry and then stop requesting
+    TestSubscriber subscriber = new TestSubscriber(0);
+    new ScanPublisher(() -> reader, executor).subscribe(subscriber);
+    subscriber.subscription.request(1);
+
+    // the second batch should be read even though the subscriber has not consumed the first
+    assertTrue(secondRead.await(1, TimeUnit.MINUTES));
+    assertEquals(1, subscriber.received.size());
+    // but no more than one batch ahead should be read
+    Thread.sleep(50);
+    assertEquals(2, reader.reads.get());
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.done.get(1, TimeUnit.MINUTES);
+    assertEquals(flatten(batches), subscriber.received);
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    TestReader reader = new TestReader(createBatches(5, 10));
+    TestSubscriber subscriber = new TestSubscriber(0);
+    new ScanPublisher(() -> reader, executor).subscribe(subscriber);
+    subscriber.subscription.request(15);
+    while (subscriber.received.size() < 15) {
+      Thread.sleep(1);
+    }
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(100);
+
+    while (reader.closes.get() == 0) {
+      Thread.sleep(1);
+    }
+    Thread.sleep(50);
+    assertEquals(15, subscriber.received.size());
+    assertEquals(1, reader.closes.get());
+    assertFalse(subscriber.done.isDone());
+  }
+
+  @Test
+  public void testReadFailure() throws Exception {
+    TestReader reader = new TestReader(createBatches(5, 10));
+    reader.failure = new IllegalStateException("scan failed");
+    TestSubscriber subscriber = new TestSubscriber(1);
+    new ScanPublisher(() -> reader, executor).subscribe(subscriber);
+
+    var e = subscriber.done.handle((v, t) -> t).get(1, TimeUnit.MINUTES);
+    assertInstanceOf(IllegalStateException.class, e);
+    assertEquals("scan failed", e.getMessage());
+    assertEquals(1, reader.closes.get());
+  }
+
+  @Test
+  public void testNonPositiveRequest() throws Exception {
+    TestReader reader = new TestReader(createBatches(5, 10));
+    TestSubscriber subscriber = new TestSubscriber(0);
+    new ScanPublisher(() -> reader, executor).subscribe(subscriber);
+    subscriber.subscription.request(0);
+
+    var e = subscriber.done.handle((v, t) -> t).get(1, TimeUnit.MINUTES);
+    assertInstanceOf(IllegalArgumentException.class, e);
+    assertEquals(0, reader.reads.get());
+  }
+
+  @Test
+  public void testFromIterator() throws Exception {
+    int size = ScanPublisher.ITERATOR_BATCH_SIZE * 2 + 7;
+    var expected = flatten(createBatches(1, size));
+    TestSubscriber subscriber = new TestSubscriber(64);
+    ScanPublisher.fromIterator(expected::iterator, executor).subscribe(subscriber);
+    subscriber.done.get(1, TimeUnit.MINUTES);
+    assertEquals(expected, subscriber.received);
+  }
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.util.threads.ThreadPools;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TabletServerBatchWriterTest {
+
+  private static final TableId TABLE = TableId.of("1");
+
+  private ClientContext context;
+  private ExecutorService adders;
+
+  /**
+   * A batch writer that records the mutations it would send instead of sending them. Sends succeed
+   * right away, unless they are held to be acknowledged later.
+   */
+  private static class TestWriter extends TabletServerBatchWriter {
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+    private final List<MutationSet> held = new ArrayList<>();
+    private volatile boolean hold = false;
+
+    TestWriter(ClientContext context, long maxMemory) {
+      super(context, new BatchWriterConfig().setMaxMemory(maxMemory));
+    }
+
+    @Override
+    synchronized void queueMutations(MutationSet mutations) {
+      mutations.getMutations().values()
+          .forEach(muts -> muts.forEach(m -> sent.add(new String(m.getRow(), UTF_8))));
+      if (hold) {
+        held.add(mutations);
+      } else {
+        decrementMemUsed(mutations.getMemoryUsed());
+      }
+    }
+
+    synchronized List<MutationSet> takeHeld() {
+      List<MutationSet> taken = new ArrayList<>(held);
+      held.clear();
+      return taken;
+    }
+
+    List<String> getSent() {
+      synchronized (sent) {
+        return sent.stream().sorted().collect(toList());
+      }
+    }
+  }
+
+  @BeforeEach
+  public void setup() {
+    context = EasyMock.createMock(ClientContext.class);
+    EasyMock.expect(context.threadPools()).andReturn(ThreadPools.getServerThreadPools())
+        .anyTimes();
+    EasyMock.expect(context.getConfiguration()).andReturn(DefaultConfiguration.getInstance())
+        .anyTimes();
+    EasyMock.replay(context);
+    adders = Executors.newFixedThreadPool(8);
+  }
+
+  @AfterEach
+  public void teardown() {
+    adders.shutdownNow();
+  }
+
+  private static Mutation mutation(String row) {
+    Mutation m = new Mutation(row);
+    m.put("f", "q", "v");
+    return m;
+  }
+
+  private static String row(int thread, int i) {
+    return String.format("%02d_%06d", thread, i);
+  }
+
+  private static List<String> rows(int threads, int perThread) {
+    return IntStream.range(0, threads).boxed()
+        .flatMap(t -> IntStream.range(0, perThread).mapToObj(i -> row(t, i))).sorted()
+        .collect(toList());
+  }
+
+  @Test
+  public void testConcurrentAdds() throws Exception {
+    // small enough that the buffers are drained many times while the threads add
+    TestWriter writer = new TestWriter(context, 100_000);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      int thread = t;
+      futures.add(adders.submit(() -> {
+        for (int i = 0; i < 5_000; i++) {
+          writer.addMutation(TABLE, mutation(row(thread, i)));
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    writer.close();
+
+    // every mutation was sent exactly once
+    assertEquals(rows(8, 5_000), writer.getSent());
+    assertEquals(0, writer.getMemoryUsed());
+  }
+
+  @Test
+  public void testFlushAndCloseRaceAdds() throws Exception {
+    TestWriter writer = new TestWriter(context, 1_000_000);
+    List<String> added = Collections.synchronizedList(new ArrayList<>());
+    AtomicBoolean sawClosed = new AtomicBoolean(false);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int thread = t;
+      futures.add(adders.submit(() -> {
+        for (int i = 0; true; i++) {
+          try {
+            writer.addMutation(TABLE, mutation(row(thread, i)));
+          } catch (IllegalStateException e) {
+            sawClosed.set(true);
+            return null;
+          }
+          added.add(row(thread, i));
+        }
+      }));
+    }
+
+    for (int i = 0; i < 10; i++) {
+      List<String> addedBeforeFlush;
+      synchronized (added) {
+        addedBeforeFlush = new ArrayList<>(added);
+      }
+      writer.flush();
+      // everything added before the flush started was sent when it returns, and only once
+      List<String> sent = writer.getSent();
+      Set<String> sentOnce = new HashSet<>(sent);
+      assertTrue(sentOnce.containsAll(addedBeforeFlush));
+      assertEquals(sent.size(), sentOnce.size());
+    }
+    writer.close();
+    for (Future<?> future : futures) {
+      future.get();
+    }
+
+    assertTrue(sawClosed.get());
+    // every add that returned was sent exactly once, and nothing else was
+    assertEquals(added.stream().sorted().collect(toList()), writer.getSent());
+    assertEquals(0, writer.getMemoryUsed());
+  }
+
+  @Test
+  public void testAddBlocksAtMemoryLimit() throws Exception {
+    long maxMemory = 10_000;
+    TestWriter writer = new TestWriter(context, maxMemory);
+    writer.hold = true;
+
+    int i = 0;
+    while (writer.getMemoryUsed() <= maxMemory) {
+      writer.addMutation(TABLE, mutation(row(0, i++)));
+    }
+    CountDownLatch added = new CountDownLatch(1);
+    String blockedRow = row(1, 0);
+    Future<?> future = adders.submit(() -> {
+      writer.addMutation(TABLE, mutation(blockedRow));
+      added.countDown();
+      return null;
+    });
+    assertFalse(added.await(500, MILLISECONDS), "add did not wait for memory");
+
+    // acknowledging the sent mutations frees their memory and lets the add continue
+    writer.hold = false;
+    for (MutationSet held : writer.takeHeld()) {
+      writer.decrementMemUsed(held.getMemoryUsed());
+    }
+    assertTrue(added.await(30, SECONDS));
+    future.get();
+    writer.close();
+    assertTrue(writer.getSent().contains(blockedRow));
+    assertEquals(0, writer.getMemoryUsed());
+  }
+
+  @Test
+  public void testFailedMutationsRequeued() throws Exception {
+    long maxMemory = 10_000;
+    TestWriter writer = new TestWriter(context, maxMemory);
+    writer.hold = true;
+
+    // adds until the buffered mutations are queued to be sent
+    int i = 0;
+    while (writer.getSent().isEmpty()) {
+      writer.addMutation(TABLE, mutation(row(0, i++)));
+    }
+    List<MutationSet> failed = writer.takeHeld();
+    assertEquals(1, failed.size());
+    List<String> failedRows = writer.getSent();
+    long memoryUsed = writer.getMemoryUsed();
+
+    // the failed mutations go back into a buffer, and are still counted
+    writer.addFailedMutations(failed.get(0));
+    assertEquals(memoryUsed, writer.getMemoryUsed());
+
+    writer.hold = false;
+    writer.flush();
+    assertEquals(0, writer.getMemoryUsed());
+    // the failed mutations were sent again, along with the ones added after them
+    List<String> sent = writer.getSent();
+    for (String row : failedRows) {
+      assertEquals(2, Collections.frequency(sent, row));
+    }
+    assertEquals(i + failedRows.size(), sent.size());
+    writer.close();
+    assertThrows(IllegalStateException.class, () -> writer.addMutation(TABLE, mutation("x")));
+  }
+}
@@ -107,6 +107,12 @@ public class PropertyTypeTest extends WithTestNames {
     invalid("foo12", "foo/g", "foo\\c");
   }
 
+  @Test
+  public void testTypeBLOCK_ENCODING() {
+    valid(null, "relative", "columnar");
+    invalid("", "RELATIVE", "other");
+  }
+
   @Test
   public void testTypeBOOLEAN() {
     valid(null, "True", "true", "False", "false", "tRUE", "fAlSe");
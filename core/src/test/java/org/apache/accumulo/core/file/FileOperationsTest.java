@@ -18,13 +18,19 @@
  */
 package org.apache.accumulo.core.file;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
 import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.file.rfile.RFile;
 import org.apache.accumulo.core.metadata.UnreferencedTabletFile;
 import org.apache.accumulo.core.spi.crypto.NoCryptoServiceFactory;
@@ -32,9 +38,13 @@ import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class FileOperationsTest {
 
+  @TempDir
+  private static File tempDir;
+
   /**
    * Test for filenames with +1 dot
    */
@@ -68,4 +78,44 @@ public class FileOperationsTest {
 
     assertFalse(caughtException, "Should not throw with more than 1 dot in filename.");
   }
+
+  @Test
+  public void readsMemoryMappedLocalFiles() throws IOException {
+    FileOperations fileOperations = FileOperations.getInstance();
+    Configuration conf = new Configuration();
+    FileSystem fs = FileSystem.getLocal(conf);
+
+    // uncompressed blocks are read straight from the mapping, compressed blocks are decompressed
+    for (String compression : new String[] {"none", "gz"}) {
+      File testFile = new File(tempDir, "mapped_" + compression + "." + RFile.EXTENSION);
+      ConfigurationCopy acuconf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+      acuconf.set(Property.TABLE_FILE_COMPRESSION_TYPE, compression);
+      acuconf.set(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE, "1K");
+      acuconf.set(Property.GENERAL_FILE_LOCAL_MMAP_ENABLED, "true");
+
+      FileSKVWriter writer = fileOperations.newWriterBuilder()
+          .forFile(UnreferencedTabletFile.of(fs, testFile), fs, conf, NoCryptoServiceFactory.NONE)
+          .withTableConfiguration(acuconf).build();
+      writer.startDefaultLocalityGroup();
+      for (int i = 0; i < 5000; i++) {
+        writer.append(new Key(String.format("r%06d", i), "cf", "cq"), new Value("v" + i));
+      }
+      writer.close();
+
+      FileSKVIterator reader = fileOperations.newReaderBuilder()
+          .forFile(UnreferencedTabletFile.of(fs, testFile), fs, conf, NoCryptoServiceFactory.NONE)
+          .withTableConfiguration(acuconf).seekToBeginning().build();
+      try {
+        for (int i = 0; i < 5000; i++) {
+          assertTrue(reader.hasTop());
+          assertEquals(new Key(String.format("r%06d", i), "cf", "cq"), reader.getTopKey());
+          assertEquals(new Value("v" + i), reader.getTopValue());
+          reader.next();
+        }
+        assertFalse(reader.hasTop());
+      } finally {
+        reader.close();
+      }
+    }
+  }
 }
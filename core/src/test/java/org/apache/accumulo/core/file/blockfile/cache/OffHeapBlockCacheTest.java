@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
+import org.apache.accumulo.core.file.blockfile.cache.offheap.OffHeapBlockCacheManager;
+import org.apache.accumulo.core.file.blockfile.impl.SeekableInput;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCache.Loader;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapBlockCacheTest {
+
+  private static final int CACHE_SIZE = 1 << 20;
+
+  private BlockCacheManager manager;
+  private BlockCache cache;
+
+  @BeforeEach
+  public void startCache() throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.GENERAL_CACHE_MANAGER_IMPL, OffHeapBlockCacheManager.class.getName());
+    cc.set(Property.TSERV_DEFAULT_BLOCKSIZE, Long.toString(16 * 1024));
+    cc.set(Property.TSERV_DATACACHE_SIZE, Long.toString(CACHE_SIZE));
+    cc.set(Property.TSERV_INDEXCACHE_SIZE, Long.toString(CACHE_SIZE));
+    cc.set(Property.TSERV_SUMMARYCACHE_SIZE, Long.toString(CACHE_SIZE));
+    manager = BlockCacheManagerFactory.getInstance(cc);
+    manager.start(BlockCacheConfiguration.forTabletServer(cc));
+    cache = manager.getBlockCache(CacheType.DATA);
+  }
+
+  @AfterEach
+  public void stopCache() {
+    manager.stop();
+  }
+
+  private static byte[] block(int size, int seed) {
+    byte[] data = new byte[size];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) (seed * 31 + i);
+    }
+    return data;
+  }
+
+  @Test
+  public void testCacheAndGet() {
+    assertEquals(CACHE_SIZE, cache.getMaxSize());
+    assertNull(cache.getBlock("b1"));
+
+    // spans several chunks, the last one partially used
+    byte[] data = block(40_000, 1);
+    CacheEntry ce = cache.cacheBlock("b1", data);
+    assertArrayEquals(data, ce.getBuffer());
+
+    CacheEntry cached = cache.getBlock("b1");
+    assertNotNull(cached);
+    // the buffer of the entry is a copy of the data held off heap
+    assertArrayEquals(data, cached.getBuffer());
+    assertNotSame(data, cached.getBuffer());
+
+    byte[] empty = new byte[0];
+    cache.cacheBlock("b2", empty);
+    assertArrayEquals(empty, cache.getBlock("b2").getBuffer());
+
+    // caching a block that is already cached keeps the cached data
+    cache.cacheBlock("b1", block(100, 2));
+    assertArrayEquals(data, cache.getBlock("b1").getBuffer());
+  }
+
+  @Test
+  public void testContainsBlock() {
+    assertFalse(cache.containsBlock("b1"));
+    cache.cacheBlock("b1", block(100, 1));
+    assertTrue(cache.containsBlock("b1"));
+    // checking is not a request
+    assertEquals(0, cache.getStats().requestCount());
+    cache.removeBlock("b1");
+    assertFalse(cache.containsBlock("b1"));
+  }
+
+  @Test
+  public void testEviction() {
+    // eight times more data than fits in the cache
+    int blocks = 8 * CACHE_SIZE / 16_000;
+    for (int i = 0; i < blocks; i++) {
+      cache.cacheBlock("b" + i, block(16_000, i));
+    }
+
+    int cached = 0;
+    for (int i = 0; i < blocks; i++) {
+      CacheEntry ce = cache.getBlock("b" + i);
+      if (ce != null) {
+        // evicted chunks are reused, so this checks the chunks of live blocks are never handed out
+        assertArrayEquals(block(16_000, i), ce.getBuffer());
+        cached++;
+      }
+    }
+    assertTrue(cached > 0 && cached <= CACHE_SIZE / 16_000, "cached " + cached);
+    assertTrue(cache.getStats().evictionCount() > 0);
+  }
+
+  @Test
+  public void testReadInPlace() throws IOException {
+    byte[] data = block(40_000, 5);
+    // the entry returned when caching already holds the data on the heap
+    assertNull(cache.cacheBlock("b1", data).getInputStream());
+
+    try (InputStream in = cache.getBlock("b1").getInputStream()) {
+      assertNotNull(in);
+      SeekableInput seekable = (SeekableInput) in;
+      seekable.seek(20_000);
+      assertEquals(data[20_000] & 0xff, in.read());
+      assertEquals(20_001, seekable.getPosition());
+      seekable.seek(0);
+
+      // drop the block while it is being read, its chunks must not be reused until it is closed
+      cache.removeBlock("b1");
+      assertNull(cache.getBlock("b1"));
+      for (int i = 0; i < 4 * CACHE_SIZE / 16_000; i++) {
+        cache.cacheBlock("other" + i, block(16_000, i));
+      }
+
+      byte[] read = new byte[data.length];
+      new DataInputStream(in).readFully(read);
+      assertArrayEquals(data, read);
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  public void testLoaderAndIndex() {
+    byte[] data = block(1000, 3);
+    int[] loads = {0};
+    Loader loader = new Loader() {
+      @Override
+      public Map<String,Loader> getDependencies() {
+        return Map.of();
+      }
+
+      @Override
+      public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+        loads[0]++;
+        return data;
+      }
+    };
+
+    assertArrayEquals(data, cache.getBlock("b1", loader).getBuffer());
+    assertArrayEquals(data, cache.getBlock("b1", loader).getBuffer());
+    assertEquals(1, loads[0]);
+    assertEquals(2, cache.getStats().requestCount());
+    assertEquals(1, cache.getStats().hitCount());
+
+    Weighable index = () -> 10;
+    assertSame(index, cache.getBlock("b1").getIndex(() -> index));
+    CacheEntry ce = cache.getBlock("b1");
+    assertSame(index, ce.getIndex(() -> () -> 20));
+    ce.indexWeightChanged();
+
+    // a block larger than the whole cache is returned, but not cached
+    byte[] large = block(CACHE_SIZE + 1, 4);
+    CacheEntry lce = cache.cacheBlock("large", large);
+    assertArrayEquals(large, lce.getBuffer());
+    assertNull(lce.getIndex(() -> index));
+    assertNull(cache.getBlock("large"));
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Map;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
+import org.apache.accumulo.core.file.blockfile.cache.impl.TableCacheQuotas;
+import org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCache.Loader;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TableCacheQuotasTest {
+
+  private static final int BLOCK_SIZE = 1000;
+
+  private BlockCacheManager manager;
+  private BlockCache cache;
+
+  @BeforeEach
+  public void startCache() throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.GENERAL_CACHE_MANAGER_IMPL, TinyLfuBlockCacheManager.class.getName());
+    cc.set(Property.TSERV_DATACACHE_SIZE, Long.toString(1 << 20));
+    // table 1 may only use the space of 3 blocks
+    cc.set(BlockCacheConfiguration.getFullyQualifiedPropertyPrefix(Property.TSERV_PREFIX,
+        TableCacheQuotas.PROPERTY_PREFIX, CacheType.DATA) + "table.1", "3500");
+    manager = BlockCacheManagerFactory.getInstance(cc);
+    manager.start(BlockCacheConfiguration.forTabletServer(cc));
+    cache = manager.getBlockCache(CacheType.DATA);
+  }
+
+  @AfterEach
+  public void stopCache() {
+    manager.stop();
+  }
+
+  private static String blockName(String tableId, int block) {
+    return "hdfs://nn/accumulo/tables/" + tableId + "/t-0001/F0001.rf" + "R" + block;
+  }
+
+  @Test
+  public void testTableId() {
+    assertEquals("1", TableCacheQuotas.tableId(blockName("1", 0)));
+    assertEquals("2a", TableCacheQuotas.tableId("file:/accumulo/tables/2a/default_tablet/A1.rf"));
+    assertNull(TableCacheQuotas.tableId("b1"));
+    assertNull(TableCacheQuotas.tableId("file:/tmp/tables/"));
+  }
+
+  @Test
+  public void testQuota() {
+    for (int i = 0; i < 5; i++) {
+      cache.cacheBlock(blockName("1", i), new byte[BLOCK_SIZE]);
+      cache.cacheBlock(blockName("2", i), new byte[BLOCK_SIZE]);
+    }
+
+    for (int i = 0; i < 5; i++) {
+      // table 2 has no quota
+      assertNotNull(cache.getBlock(blockName("2", i)));
+      // table 1 made room for its last blocks by evicting its least recently used ones
+      if (i < 2) {
+        assertNull(cache.getBlock(blockName("1", i)));
+      } else {
+        assertNotNull(cache.getBlock(blockName("1", i)));
+      }
+    }
+
+    Map<String,? extends BlockCache.Stats> tableStats = cache.getStats().tableStats();
+    var table1 = (TableCacheQuotas.TableUsage) tableStats.get("1");
+    assertEquals(3 * BLOCK_SIZE, table1.getUsedBytes());
+    assertEquals(3500, table1.getQuota());
+    assertEquals(5, table1.requestCount());
+    assertEquals(3, table1.hitCount());
+    assertEquals(2, table1.evictionCount());
+    var table2 = (TableCacheQuotas.TableUsage) tableStats.get("2");
+    assertEquals(5 * BLOCK_SIZE, table2.getUsedBytes());
+    assertEquals(0, table2.getQuota());
+    assertEquals(5, table2.hitCount());
+    assertEquals(0, table2.evictionCount());
+
+    // replacing a cached block does not charge the table twice, or evict another block
+    cache.cacheBlock(blockName("1", 4), new byte[BLOCK_SIZE]);
+    assertEquals(3 * BLOCK_SIZE, table1.getUsedBytes());
+    assertEquals(2, table1.evictionCount());
+
+    // block 2 was read more recently than block 3, so block 3 makes room for block 5
+    assertNotNull(cache.getBlock(blockName("1", 2)));
+    cache.cacheBlock(blockName("1", 5), new byte[BLOCK_SIZE]);
+    assertNull(cache.getBlock(blockName("1", 3)));
+    for (int i : new int[] {2, 4, 5}) {
+      assertNotNull(cache.getBlock(blockName("1", i)));
+    }
+    assertEquals(3 * BLOCK_SIZE, table1.getUsedBytes());
+    assertEquals(3, table1.evictionCount());
+
+    // the blocks of table 2 were never evicted for table 1
+    for (int i = 0; i < 5; i++) {
+      assertNotNull(cache.getBlock(blockName("2", i)));
+    }
+  }
+
+  @Test
+  public void testLoad() {
+    for (int i = 0; i < 3; i++) {
+      cache.cacheBlock(blockName("1", i), new byte[BLOCK_SIZE]);
+    }
+
+    byte[] data = new byte[BLOCK_SIZE];
+    // the loaded block is cached in place of the least recently used block of the table
+    CacheEntry ce = cache.getBlock(blockName("1", 3), loader(data));
+    assertNotNull(ce);
+    assertSame(data, ce.getBuffer());
+    assertNotNull(cache.getBlock(blockName("1", 3)));
+    assertNull(cache.getBlock(blockName("1", 0)));
+
+    var table1 = (TableCacheQuotas.TableUsage) cache.getStats().tableStats().get("1");
+    assertEquals(3 * BLOCK_SIZE, table1.getUsedBytes());
+    assertEquals(1, table1.evictionCount());
+  }
+
+  @Test
+  public void testLargerThanQuota() {
+    for (int i = 0; i < 3; i++) {
+      cache.cacheBlock(blockName("1", i), new byte[BLOCK_SIZE]);
+    }
+
+    // a block that does not fit in the quota at all is returned, but not cached
+    byte[] data = new byte[4 * BLOCK_SIZE];
+    CacheEntry ce = cache.getBlock(blockName("1", 3), loader(data));
+    assertNotNull(ce);
+    assertSame(data, ce.getBuffer());
+    assertNull(cache.getBlock(blockName("1", 3)));
+    assertSame(data, cache.cacheBlock(blockName("1", 4), data).getBuffer());
+    assertNull(cache.getBlock(blockName("1", 4)));
+
+    // and it does not evict the blocks that are cached
+    for (int i = 0; i < 3; i++) {
+      assertNotNull(cache.getBlock(blockName("1", i)));
+    }
+    var table1 = (TableCacheQuotas.TableUsage) cache.getStats().tableStats().get("1");
+    assertEquals(3 * BLOCK_SIZE, table1.getUsedBytes());
+    assertEquals(0, table1.evictionCount());
+  }
+
+  private static Loader loader(byte[] data) {
+    return new Loader() {
+      @Override
+      public Map<String,Loader> getDependencies() {
+        return Map.of();
+      }
+
+      @Override
+      public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+        return data;
+      }
+    };
+  }
+}
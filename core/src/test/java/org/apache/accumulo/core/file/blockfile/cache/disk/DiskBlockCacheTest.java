@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.disk;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
+import org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCache.Loader;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "paths not set by user input")
+public class DiskBlockCacheTest {
+
+  @TempDir
+  private Path tempDir;
+
+  private static byte[] block(int size, int seed) {
+    byte[] data = new byte[size];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) (seed * 31 + i);
+    }
+    return data;
+  }
+
+  @Test
+  public void testSurvivesRestart() throws IOException {
+    Path dir = tempDir.resolve("cache");
+    try (DiskBlockCache cache = new DiskBlockCache(dir, 10 << 20)) {
+      for (int i = 0; i < 10; i++) {
+        cache.put("file1R" + i, block(1000 + i, i));
+      }
+      assertArrayEquals(block(1003, 3), cache.get("file1R3"));
+      assertNull(cache.get("file2R3"));
+      // the same block is only written once
+      long size = cache.getSize();
+      cache.put("file1R3", block(1003, 3));
+      assertEquals(size, cache.getSize());
+      assertEquals(2, cache.getRequestCount());
+      assertEquals(1, cache.getHitCount());
+
+      // the directory can only be used by one cache at a time
+      assertThrows(IOException.class, () -> new DiskBlockCache(dir, 10 << 20));
+    }
+
+    // simulate a crash in the middle of writing a block
+    Path segment;
+    try (var files = Files.list(dir)) {
+      segment = files.filter(p -> p.getFileName().toString().startsWith("segment-")).findFirst()
+          .orElseThrow();
+    }
+    long intactSize = Files.size(segment);
+    Files.write(segment, block(100, 42), StandardOpenOption.APPEND);
+
+    try (DiskBlockCache cache = new DiskBlockCache(dir, 10 << 20)) {
+      assertEquals(intactSize, Files.size(segment));
+      for (int i = 0; i < 10; i++) {
+        assertArrayEquals(block(1000 + i, i), cache.get("file1R" + i));
+      }
+      cache.put("file1R10", block(1010, 10));
+      assertArrayEquals(block(1010, 10), cache.get("file1R10"));
+    }
+  }
+
+  @Test
+  public void testCorruptBlockIsMiss() throws IOException {
+    Path dir = tempDir.resolve("cache");
+    try (DiskBlockCache cache = new DiskBlockCache(dir, 10 << 20)) {
+      cache.put("b0", block(1000, 0));
+      cache.put("b1", block(1000, 1));
+
+      // the first record starts after the segment header and its data after the record header and
+      // key, flip a byte in the middle of its data
+      Path segment;
+      try (var files = Files.list(dir)) {
+        segment = files.filter(p -> p.getFileName().toString().startsWith("segment-"))
+            .findFirst().orElseThrow();
+      }
+      try (var channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+        channel.write(ByteBuffer.wrap(new byte[] {(byte) ~block(1000, 0)[500]}), 8 + 16 + 2 + 500);
+      }
+
+      assertNull(cache.get("b0"));
+      assertArrayEquals(block(1000, 1), cache.get("b1"));
+      assertEquals(1, cache.getHitCount());
+      // the corrupt block was removed, so it can be cached again
+      cache.put("b0", block(1000, 0));
+      assertArrayEquals(block(1000, 0), cache.get("b0"));
+    }
+  }
+
+  @Test
+  public void testOldestSegmentsDropped() throws IOException {
+    // segments are 1M, so this holds at most 4 of them
+    long maxSize = 4 << 20;
+    try (DiskBlockCache cache = new DiskBlockCache(tempDir.resolve("cache"), maxSize)) {
+      for (int i = 0; i < 40; i++) {
+        cache.put("b" + i, block(300_000, i));
+        assertTrue(cache.getSize() <= maxSize);
+      }
+      assertNull(cache.get("b0"));
+      assertArrayEquals(block(300_000, 39), cache.get("b39"));
+      // blocks that do not fit in a segment are not cached
+      cache.put("large", block(2 << 20, 0));
+      assertNull(cache.get("large"));
+    }
+  }
+
+  @Test
+  public void testTieredThroughManager() throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.GENERAL_CACHE_MANAGER_IMPL, TinyLfuBlockCacheManager.class.getName());
+    cc.set(Property.TSERV_DATACACHE_SIZE, Long.toString(1 << 20));
+    cc.set(BlockCacheConfiguration.getFullyQualifiedPropertyPrefix(Property.TSERV_PREFIX,
+        TieredBlockCache.PROPERTY_PREFIX) + TieredBlockCache.DIR_PROPERTY, tempDir.toString());
+
+    AtomicInteger loads = new AtomicInteger();
+    Loader loader = new Loader() {
+      @Override
+      public Map<String,Loader> getDependencies() {
+        return Map.of();
+      }
+
+      @Override
+      public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+        loads.incrementAndGet();
+        return block(5000, 7);
+      }
+    };
+
+    for (int i = 0; i < 2; i++) {
+      BlockCacheManager manager = BlockCacheManagerFactory.getInstance(cc);
+      manager.start(BlockCacheConfiguration.forTabletServer(cc));
+      BlockCache cache = manager.getBlockCache(CacheType.DATA);
+      assertInstanceOf(TieredBlockCache.class, cache);
+      // only the memory cache is checked, so a block that is only on disk is not found
+      assertFalse(cache.containsBlock("f1R0"));
+      assertArrayEquals(block(5000, 7), cache.getBlock("f1R0", loader).getBuffer());
+      assertTrue(cache.containsBlock("f1R0"));
+      assertArrayEquals(block(5000, 7), cache.getBlock("f1R0").getBuffer());
+      // the second cache also counts the block it read from disk as a hit
+      assertEquals(2, cache.getStats().requestCount());
+      assertEquals(i + 1, cache.getStats().hitCount());
+      manager.stop();
+    }
+    // the second cache found the block on disk
+    assertEquals(1, loads.get());
+    assertTrue(Files.isDirectory(tempDir.resolve("data")));
+  }
+
+  @Test
+  public void testEncryptedBlocksNotWritten() throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.GENERAL_CACHE_MANAGER_IMPL, TinyLfuBlockCacheManager.class.getName());
+    cc.set(Property.TSERV_DATACACHE_SIZE, Long.toString(1 << 20));
+    cc.set(BlockCacheConfiguration.getFullyQualifiedPropertyPrefix(Property.TSERV_PREFIX,
+        TieredBlockCache.PROPERTY_PREFIX) + TieredBlockCache.DIR_PROPERTY, tempDir.toString());
+
+    AtomicInteger loads = new AtomicInteger();
+    Loader loader = new Loader() {
+      @Override
+      public Map<String,Loader> getDependencies() {
+        return Map.of();
+      }
+
+      @Override
+      public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+        loads.incrementAndGet();
+        return block(5000, 7);
+      }
+
+      @Override
+      public boolean isEncrypted() {
+        return true;
+      }
+    };
+
+    for (int i = 0; i < 2; i++) {
+      BlockCacheManager manager = BlockCacheManagerFactory.getInstance(cc);
+      manager.start(BlockCacheConfiguration.forTabletServer(cc));
+      BlockCache cache = manager.getBlockCache(CacheType.DATA);
+      assertArrayEquals(block(5000, 7), cache.getBlock("f1R0", loader).getBuffer());
+      assertArrayEquals(block(5000, 7), cache.getBlock("f1R0").getBuffer());
+      manager.stop();
+    }
+    // the block was only cached in memory, so the second cache had to load it again
+    assertEquals(2, loads.get());
+  }
+}
@@ -28,6 +28,7 @@ import java.security.SecureRandom;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.apache.accumulo.core.client.sample.Sampler;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
@@ -47,6 +48,7 @@ import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFacto
 import org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager;
 import org.apache.accumulo.core.file.blockfile.impl.BasicCacheProvider;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachableBuilder;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.DataCacheFormat;
 import org.apache.accumulo.core.file.rfile.RFile.FencedReader;
 import org.apache.accumulo.core.file.rfile.RFile.Reader;
 import org.apache.accumulo.core.file.rfile.RFileTest.SeekableByteArrayInputStream;
@@ -85,6 +87,11 @@ public abstract class AbstractRFileTest {
     public Reader reader;
     public SortedKeyValueIterator<Key,Value> iter;
     private BlockCacheManager manager;
+    public int readAheadBlocks = 0;
+    public Executor readAheadExecutor = null;
+    public boolean columnar = false;
+    public BlockCache dataCache;
+    public DataCacheFormat dataCacheFormat = DataCacheFormat.DECOMPRESSED;
 
     public TestRFile(AccumuloConfiguration accumuloConfiguration) {
       this.accumuloConfiguration = accumuloConfiguration;
@@ -117,7 +124,8 @@ public abstract class AbstractRFileTest {
         sampler = SamplerFactory.newSampler(samplerConfig, accumuloConfiguration);
       }
 
-      writer = new RFile.Writer(_cbw, blockSize, indexBlockSize, samplerConfig, sampler);
+      writer =
+          new RFile.Writer(_cbw, blockSize, indexBlockSize, samplerConfig, sampler, columnar);
 
       if (startDLG) {
         writer.startDefaultLocalityGroup();
@@ -175,13 +183,17 @@ public abstract class AbstractRFileTest {
       cc.set(Property.TSERV_INDEXCACHE_SIZE, Long.toString(100000000));
       manager.start(BlockCacheConfiguration.forTabletServer(cc));
       BlockCache indexCache = manager.getBlockCache(CacheType.INDEX);
-      BlockCache dataCache = manager.getBlockCache(CacheType.DATA);
+      dataCache = manager.getBlockCache(CacheType.DATA);
 
       CryptoService cs = CryptoFactoryLoader.getServiceForClient(CryptoEnvironment.Scope.TABLE,
           accumuloConfiguration.getAllCryptoProperties());
 
       CachableBuilder cb = new CachableBuilder().input(in, "source-1").length(fileLength).conf(conf)
-          .cacheProvider(new BasicCacheProvider(indexCache, dataCache)).cryptoService(cs);
+          .cacheProvider(new BasicCacheProvider(indexCache, dataCache)).cryptoService(cs)
+          .dataCacheFormat(dataCacheFormat);
+      if (readAheadExecutor != null) {
+        cb.readAhead(readAheadBlocks, readAheadExecutor);
+      }
       reader = new RFile.Reader(cb);
       if (cfsi) {
         iter = new ColumnFamilySkippingIterator(reader);
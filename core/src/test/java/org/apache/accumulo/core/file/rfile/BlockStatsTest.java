@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.junit.jupiter.api.Test;
+
+public class BlockStatsTest {
+
+  private static long[][] masks(String... families) {
+    List<ByteSequence> sequences = new ArrayList<>();
+    for (String family : families) {
+      sequences.add(new ArrayByteSequence(family));
+    }
+    return BlockStats.familyMasks(sequences);
+  }
+
+  @Test
+  public void testFamilyMask() {
+    // the mask is persisted in files, so it must never change
+    assertArrayEquals(BlockStats.familyMask(new ArrayByteSequence("cf1")),
+        BlockStats.familyMask(new ArrayByteSequence("xcf1x".getBytes(UTF_8), 1, 3)));
+    for (String family : List.of("", "a", "cf1", "a much longer column family")) {
+      long[] mask = BlockStats.familyMask(new ArrayByteSequence(family));
+      int bits = Long.bitCount(mask[0]) + Long.bitCount(mask[1]);
+      assertTrue(bits == 1 || bits == 2, family + " set " + bits + " bits");
+    }
+  }
+
+  @Test
+  public void testReadWrite() throws IOException {
+    BlockStats.Writer writer = new BlockStats.Writer();
+    // enough blocks to grow the writer's buffer
+    for (int block = 0; block < 40; block++) {
+      writer.add(new Key("r" + block, "fam" + block, "q", 100 + block));
+      writer.add(new Key("r" + block, "fam" + block, "q", 50 + block));
+      writer.add(new Key("r" + block, "shared", "q", 10 + block));
+      writer.closeBlock();
+    }
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(baos)) {
+      writer.write(out);
+    }
+    // the block count, then a family sketch and the reserved min and max timestamp per block
+    assertEquals(4 + 40 * 4 * 8, baos.size());
+    BlockStats stats =
+        BlockStats.read(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+
+    assertEquals(40, stats.size());
+    int falsePositives = 0;
+    for (int block = 0; block < 40; block++) {
+      assertTrue(stats.mayContainAny(block, masks("fam" + block)));
+      assertTrue(stats.mayContainAny(block, masks("shared")));
+      assertTrue(stats.mayContainAny(block, masks("other", "fam" + block)));
+      if (stats.mayContainAny(block, masks("fam" + (block + 1)))) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 5, falsePositives + " false positives");
+    assertFalse(stats.mayContainAny(0, masks()));
+
+    // blocks past the end of the stats are never skipped
+    assertTrue(stats.mayContainAny(40, masks("nothing")));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.jupiter.api.Test;
+
+public class ColumnarBlockTest {
+
+  private static List<Key> keys() {
+    List<Key> keys = new ArrayList<>();
+    for (int r = 0; r < 20; r++) {
+      String row = String.format("row%04d", r * 3);
+      for (int c = 0; c < 10; c++) {
+        // repeat families and visibilities, vary the timestamps and mark some keys deleted
+        Key key = new Key(row, "fam" + (c / 4), String.format("q%03d", c), c % 2 == 0 ? "A&B" : "",
+            Long.MAX_VALUE - r * 10 - c);
+        key.setDeleted(c == 7 || c == 8);
+        keys.add(key);
+      }
+    }
+    // timestamps at the edges of the range
+    keys.add(new Key("zz", "", "", "", Long.MAX_VALUE));
+    keys.add(new Key("zz", "", "", "", 0));
+    keys.add(new Key("zz", "", "", "", Long.MIN_VALUE));
+    return keys;
+  }
+
+  private static ColumnarBlock.Reader write(List<Key> keys) throws IOException {
+    ColumnarBlock.Writer writer = new ColumnarBlock.Writer();
+    int i = 0;
+    for (Key key : keys) {
+      writer.append(new Key(key), new Value(i % 5 == 0 ? "" : "v" + i));
+      i++;
+    }
+    assertEquals(keys.size(), writer.getEntries());
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(baos);
+    writer.write(out);
+    out.close();
+    assertTrue(baos.size() <= writer.getSize() + 64, baos.size() + " " + writer.getSize());
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+    ColumnarBlock.Reader reader = new ColumnarBlock.Reader(in);
+    assertEquals(-1, in.read(), "block not fully read");
+    return reader;
+  }
+
+  @Test
+  public void testReadWrite() throws IOException {
+    List<Key> keys = keys();
+    ColumnarBlock.Reader reader = write(keys);
+
+    assertFalse(reader.isPositioned());
+    for (int i = 0; i < keys.size(); i++) {
+      reader.next();
+      assertTrue(reader.isPositioned());
+      Key key = reader.getTopKey();
+      assertEquals(keys.get(i), key);
+      assertEquals(keys.get(i).isDeleted(), key.isDeleted());
+      assertEquals(new Value(i % 5 == 0 ? "" : "v" + i), reader.getTopValue());
+      assertEquals(keys.size() - i - 1, reader.entriesLeft());
+    }
+    assertThrows(IllegalStateException.class, reader::next);
+  }
+
+  @Test
+  public void testSkipTo() throws IOException {
+    List<Key> keys = keys();
+    ColumnarBlock.Reader reader = write(keys);
+    reader.next();
+
+    // already positioned at or after the key
+    assertNull(reader.skipTo(new Key("a")));
+    assertEquals(keys.get(0), reader.getTopKey());
+
+    // skip into the middle of a row
+    Key prev = reader.skipTo(keys.get(25));
+    assertEquals(keys.get(24), prev);
+    assertEquals(keys.get(25), reader.getTopKey());
+    assertEquals(new Value(""), reader.getTopValue());
+
+    // skip to a row that is not in the block
+    prev = reader.skipTo(new Key("row0010"));
+    assertEquals(keys.get(39), prev);
+    assertEquals(keys.get(40), reader.getTopKey());
+    assertEquals(new Value(""), reader.getTopValue());
+
+    // skip past the end of the block stops on the last entry
+    prev = reader.skipTo(new Key("zzz"));
+    assertEquals(keys.get(keys.size() - 2), prev);
+    assertEquals(keys.get(keys.size() - 1), reader.getTopKey());
+    assertEquals(0, reader.entriesLeft());
+  }
+}
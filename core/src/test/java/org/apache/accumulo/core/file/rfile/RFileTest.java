@@ -19,6 +19,7 @@
 package org.apache.accumulo.core.file.rfile;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.apache.accumulo.core.util.LazySingletons.RANDOM;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -45,6 +46,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.accumulo.core.client.sample.RowSampler;
 import org.apache.accumulo.core.client.sample.Sampler;
@@ -67,6 +72,7 @@ import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFacto
 import org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager;
 import org.apache.accumulo.core.file.blockfile.impl.BasicCacheProvider;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachableBuilder;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.DataCacheFormat;
 import org.apache.accumulo.core.file.rfile.RFile.Reader;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
@@ -78,6 +84,7 @@ import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection.Ta
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
 import org.apache.accumulo.core.sample.impl.SamplerFactory;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
 import org.apache.accumulo.core.spi.cache.CacheType;
 import org.apache.accumulo.core.spi.crypto.CryptoEnvironment;
 import org.apache.accumulo.core.spi.crypto.CryptoService;
@@ -2221,4 +2228,312 @@ public class RFileTest extends AbstractRFileTest {
 
     conf = null;
   }
+
+  @Test
+  public void testReadAhead() throws Exception {
+    TestRFile trf = new TestRFile(conf);
+    trf.openWriter(false, 1000);
+    trf.writer.startDefaultLocalityGroup();
+    for (int row = 0; row < 10000; row++) {
+      trf.writer.append(newKey(formatString("r_", row), "cf1", "cq1", "", 1),
+          newValue("" + row));
+    }
+    trf.closeWriter();
+
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    AtomicInteger reads = new AtomicInteger();
+    trf.readAheadBlocks = 8;
+    trf.readAheadExecutor = r -> {
+      reads.incrementAndGet();
+      pool.execute(r);
+    };
+    try {
+      trf.openReader(false);
+
+      int blocks = 0;
+      FileSKVIterator index = trf.reader.getIndex();
+      while (index.hasTop()) {
+        blocks++;
+        index.next();
+      }
+      assertTrue(blocks > 50, "expected many data blocks, saw " + blocks);
+
+      // a full scan reads most blocks ahead, several blocks at a time
+      trf.reader.seek(new Range(), EMPTY_COL_FAMS, false);
+      for (int row = 0; row < 10000; row++) {
+        assertTrue(trf.reader.hasTop());
+        assertEquals(newKey(formatString("r_", row), "cf1", "cq1", "", 1),
+            trf.reader.getTopKey());
+        assertEquals(newValue("" + row), trf.reader.getTopValue());
+        trf.reader.next();
+      }
+      assertFalse(trf.reader.hasTop());
+      assertTrue(reads.get() > 0);
+      assertTrue(reads.get() < blocks / 2, reads.get() + " reads for " + blocks + " blocks");
+
+      // scans of ranges must see the same data whether or not their blocks were read ahead
+      for (int start : new int[] {5, 1234, 5000, 9990}) {
+        int end = Math.min(start + 700, 9999);
+        trf.reader.seek(new Range(formatString("r_", start), formatString("r_", end)),
+            EMPTY_COL_FAMS, false);
+        for (int row = start; row <= end; row++) {
+          assertTrue(trf.reader.hasTop());
+          assertEquals(newKey(formatString("r_", row), "cf1", "cq1", "", 1),
+              trf.reader.getTopKey());
+          trf.reader.next();
+        }
+        assertFalse(trf.reader.hasTop());
+      }
+
+      trf.closeReader();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSeekIntoReadAhead() throws Exception {
+    TestRFile trf = new TestRFile(conf);
+    trf.openWriter(false, 1000);
+    trf.writer.startDefaultLocalityGroup();
+    for (int row = 0; row < 10000; row++) {
+      trf.writer.append(newKey(formatString("r_", row), "cf1", "cq1", "", 1),
+          newValue("" + row));
+    }
+    trf.closeWriter();
+
+    // delay the reads ahead, so seeks happen while they are still running
+    ScheduledExecutorService pool = Executors.newScheduledThreadPool(2);
+    AtomicInteger reads = new AtomicInteger();
+    trf.readAheadBlocks = 8;
+    trf.readAheadExecutor = r -> {
+      reads.incrementAndGet();
+      pool.schedule(r, 200, MILLISECONDS);
+    };
+    try {
+      trf.openReader(false);
+
+      int blocks = 0;
+      FileSKVIterator index = trf.reader.getIndex();
+      while (index.hasTop()) {
+        blocks++;
+        index.next();
+      }
+      int rowsPerBlock = 10000 / blocks;
+
+      trf.reader.seek(new Range(), EMPTY_COL_FAMS, false);
+      int row = 0;
+      while (row < 8000) {
+        int readsBefore = reads.get();
+        assertTrue(trf.reader.hasTop());
+        assertEquals(newKey(formatString("r_", row), "cf1", "cq1", "", 1),
+            trf.reader.getTopKey());
+        trf.reader.next();
+        row++;
+        if (reads.get() > readsBefore && readsBefore > 0) {
+          // a new read ahead was requested while moving to the next block, skip into the middle
+          // of it, the blocks skipped share the read with the blocks that are still wanted
+          row += 6 * rowsPerBlock;
+          trf.reader.seek(new Range(formatString("r_", row), null), EMPTY_COL_FAMS, false);
+          assertTrue(trf.reader.hasTop());
+          assertEquals(newKey(formatString("r_", row), "cf1", "cq1", "", 1),
+              trf.reader.getTopKey());
+          assertEquals(newValue("" + row), trf.reader.getTopValue());
+        }
+      }
+      assertTrue(reads.get() > 1);
+
+      trf.closeReader();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private TestRFile writeWideRows(boolean columnar) throws IOException {
+    TestRFile trf = new TestRFile(conf);
+    trf.columnar = columnar;
+    trf.openWriter(false, 4000);
+    trf.writer.startNewLocalityGroup("lg1", newColFamByteSequence("cf0", "cf1"));
+    appendWideRows(trf, 0, 2);
+    trf.writer.startDefaultLocalityGroup();
+    appendWideRows(trf, 2, 4);
+    trf.closeWriter();
+    return trf;
+  }
+
+  private static void appendWideRows(TestRFile trf, int firstFam, int lastFam) throws IOException {
+    for (int row = 0; row < 200; row++) {
+      for (int fam = firstFam; fam < lastFam; fam++) {
+        for (int qual = 0; qual < 20; qual++) {
+          Key key = newKey(formatString("r_", row), "cf" + fam, formatString("cq_", qual),
+              qual % 3 == 0 ? "A&B" : "", 1000 + qual);
+          key.setDeleted(qual == 19);
+          trf.writer.append(key, newValue(row + "_" + qual));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testColumnarEncoding() throws IOException {
+    TestRFile relative = writeWideRows(false);
+    TestRFile columnar = writeWideRows(true);
+    assertTrue(columnar.baos.size() < relative.baos.size(),
+        columnar.baos.size() + " >= " + relative.baos.size());
+
+    relative.openReader();
+    columnar.openReader();
+
+    // full scans, including scans of a single locality group
+    for (Set<ByteSequence> families : List.of(Set.<ByteSequence>of(),
+        newColFamByteSequence("cf1"), newColFamByteSequence("cf3"))) {
+      relative.iter.seek(new Range(), families, !families.isEmpty());
+      columnar.iter.seek(new Range(), families, !families.isEmpty());
+      int count = 0;
+      while (relative.iter.hasTop()) {
+        assertTrue(columnar.iter.hasTop());
+        assertEquals(relative.iter.getTopKey(), columnar.iter.getTopKey());
+        assertEquals(relative.iter.getTopKey().isDeleted(),
+            columnar.iter.getTopKey().isDeleted());
+        assertEquals(relative.iter.getTopValue(), columnar.iter.getTopValue());
+        relative.iter.next();
+        columnar.iter.next();
+        count++;
+      }
+      assertFalse(columnar.iter.hasTop());
+      assertEquals(families.isEmpty() ? 16000 : 4000, count);
+    }
+
+    // seeks within the current block, to later blocks and backwards
+    for (int i = 0; i < 200; i++) {
+      int row = RANDOM.get().nextInt(200);
+      Key start = newKey(formatString("r_", row), "cf" + RANDOM.get().nextInt(4),
+          formatString("cq_", RANDOM.get().nextInt(21)), "", 1010);
+      Range range = new Range(start, true, new Key(formatString("r_", row + 2)), false);
+      relative.reader.seek(range, EMPTY_COL_FAMS, false);
+      columnar.reader.seek(range, EMPTY_COL_FAMS, false);
+      int toRead = RANDOM.get().nextInt(50);
+      for (int j = 0; j < toRead && relative.reader.hasTop(); j++) {
+        assertTrue(columnar.reader.hasTop());
+        assertEquals(relative.reader.getTopKey(), columnar.reader.getTopKey());
+        assertEquals(relative.reader.getTopValue(), columnar.reader.getTopValue());
+        relative.reader.next();
+        columnar.reader.next();
+      }
+      assertEquals(relative.reader.hasTop(), columnar.reader.hasTop());
+    }
+
+    relative.closeReader();
+    columnar.closeReader();
+  }
+
+  @Test
+  public void testSkipBlocksWithoutFetchedFamilies() throws IOException {
+    TestRFile trf = new TestRFile(conf);
+    trf.openWriter(true, 1000);
+    // every 100 rows use a different family, so most blocks hold a single family
+    for (int row = 0; row < 1000; row++) {
+      for (int qual = 0; qual < 5; qual++) {
+        trf.writer.append(newKey(formatString("r_", row), "cf" + (row / 100),
+            formatString("cq_", qual), "", 1), newValue(row + "_" + qual));
+      }
+    }
+    trf.closeWriter();
+    trf.openReader();
+
+    int blocks = 0;
+    FileSKVIterator index = trf.reader.getIndex();
+    while (index.hasTop()) {
+      blocks++;
+      index.next();
+    }
+    assertTrue(blocks > 50, "expected many data blocks, saw " + blocks);
+
+    for (String family : List.of("cf0", "cf4", "cf9")) {
+      long requests = trf.dataCache.getStats().requestCount();
+      trf.iter.seek(new Range(), newColFamByteSequence(family), true);
+      int first = Integer.parseInt(family.substring(2)) * 100;
+      for (int row = first; row < first + 100; row++) {
+        for (int qual = 0; qual < 5; qual++) {
+          assertTrue(trf.iter.hasTop());
+          assertEquals(newKey(formatString("r_", row), family, formatString("cq_", qual), "", 1),
+              trf.iter.getTopKey());
+          assertEquals(newValue(row + "_" + qual), trf.iter.getTopValue());
+          trf.iter.next();
+        }
+      }
+      assertFalse(trf.iter.hasTop());
+      long read = trf.dataCache.getStats().requestCount() - requests;
+      assertTrue(read < blocks / 4, "read " + read + " of " + blocks + " blocks for " + family);
+    }
+
+    // a scan of a range that only holds blocks of other families finds nothing
+    trf.iter.seek(new Range(formatString("r_", 200), formatString("r_", 399)),
+        newColFamByteSequence("cf7"), true);
+    assertFalse(trf.iter.hasTop());
+
+    // without fetched families every block is read again
+    trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+    int count = 0;
+    while (trf.iter.hasTop()) {
+      count++;
+      trf.iter.next();
+    }
+    assertEquals(5000, count);
+
+    trf.closeReader();
+  }
+
+  @Test
+  public void testCompressedDataCache() throws IOException {
+    // the first data block starts right after the 16 byte BCFile magic
+    String firstCompressed = "source-1C16";
+    String firstDecompressed = "source-1R16";
+
+    for (DataCacheFormat format : DataCacheFormat.values()) {
+      TestRFile trf = new TestRFile(conf);
+      trf.dataCacheFormat = format;
+      trf.openWriter(true, 1000);
+      for (int row = 0; row < 500; row++) {
+        trf.writer.append(newKey(formatString("r_", row), "cf", "cq", "", 1),
+            newValue("value" + row));
+      }
+      trf.closeWriter();
+      trf.openReader();
+
+      for (int pass = 0; pass < 2; pass++) {
+        trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+        for (int row = 0; row < 500; row++) {
+          assertTrue(trf.iter.hasTop());
+          assertEquals(newKey(formatString("r_", row), "cf", "cq", "", 1), trf.iter.getTopKey());
+          assertEquals(newValue("value" + row), trf.iter.getTopValue());
+          trf.iter.next();
+        }
+        assertFalse(trf.iter.hasTop());
+
+        CacheEntry compressed = trf.dataCache.getBlock(firstCompressed);
+        CacheEntry decompressed = trf.dataCache.getBlock(firstDecompressed);
+        switch (format) {
+          case DECOMPRESSED:
+            assertNull(compressed);
+            assertNotNull(decompressed);
+            break;
+          case COMPRESSED:
+            assertNotNull(compressed);
+            assertNull(decompressed);
+            break;
+          case TIERED:
+            // only blocks read again while cached compressed are cached decompressed, and they
+            // are then no longer cached compressed
+            assertEquals(pass == 0, compressed != null);
+            assertEquals(pass == 1, decompressed != null);
+            break;
+          default:
+            throw new IllegalStateException();
+        }
+      }
+
+      trf.closeReader();
+    }
+  }
 }
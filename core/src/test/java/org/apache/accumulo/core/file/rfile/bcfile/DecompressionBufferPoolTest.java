@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile.bcfile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+
+public class DecompressionBufferPoolTest {
+
+  @Test
+  public void testReuseBySizeClass() {
+    var pool = new DecompressionBufferPool(1 << 20);
+
+    byte[] b1 = pool.take(3000);
+    assertEquals(4096, b1.length);
+    pool.release(b1);
+    assertEquals(4096, pool.getRetainedBytes());
+
+    // a request in a different size class does not get the pooled buffer
+    byte[] b2 = pool.take(1000);
+    assertEquals(1024, b2.length);
+    assertSame(b1, pool.take(4096));
+    assertEquals(0, pool.getRetainedBytes());
+
+    assertEquals(3, pool.getRequestCount());
+    assertEquals(1, pool.getHitCount());
+    assertEquals(4096, pool.getBytesReused());
+  }
+
+  @Test
+  public void testBounded() {
+    var pool = new DecompressionBufferPool(8192);
+
+    byte[] b1 = pool.take(4096);
+    byte[] b2 = pool.take(4096);
+    byte[] b3 = pool.take(4096);
+    pool.release(b1);
+    pool.release(b2);
+    pool.release(b3);
+    assertEquals(8192, pool.getRetainedBytes());
+
+    // buffers too large to be pooled are allocated at the requested size and never retained
+    byte[] large = pool.take((1 << 20) + 1);
+    assertEquals((1 << 20) + 1, large.length);
+    pool.release(large);
+    assertEquals(8192, pool.getRetainedBytes());
+
+    pool.setMaxRetainedBytes(0);
+    assertNotSame(b3, pool.take(4096));
+    pool.release(b1);
+    assertEquals(4096, pool.getRetainedBytes());
+  }
+
+  @Test
+  public void testBufferReturnedOnClose() throws IOException {
+    var pool = new DecompressionBufferPool(1 << 20);
+    byte[] data = new byte[10_000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+
+    InputStream in = pool.buffer(new ByteArrayInputStream(data), 1024);
+    assertArrayEquals(data, in.readAllBytes());
+    assertEquals(0, pool.getRetainedBytes());
+    in.close();
+    assertEquals(1024, pool.getRetainedBytes());
+    assertThrows(IOException.class, in::read);
+
+    // closing twice must not hand the same buffer out twice
+    in.close();
+    assertEquals(1024, pool.getRetainedBytes());
+
+    in = pool.buffer(new ByteArrayInputStream(data), 1024);
+    assertArrayEquals(data, in.readAllBytes());
+    in.close();
+    assertEquals(1, pool.getHitCount());
+  }
+}
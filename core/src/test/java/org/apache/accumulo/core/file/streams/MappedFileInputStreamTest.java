@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.streams;
+
+import static org.apache.accumulo.core.util.LazySingletons.RANDOM;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedFileInputStreamTest {
+
+  @TempDir
+  private static File tempDir;
+
+  private static byte[] writeFile(File file, int size) throws IOException {
+    byte[] data = new byte[size];
+    RANDOM.get().nextBytes(data);
+    Files.write(file.toPath(), data);
+    return data;
+  }
+
+  @Test
+  public void testSequentialAndSeek() throws IOException {
+    File file = new File(tempDir, "seq.dat");
+    byte[] data = writeFile(file, 10_000);
+
+    // small segments so reads cross mappings
+    try (MappedFileInputStream in = MappedFileInputStream.open(file, 1000)) {
+      assertEquals(data.length, in.getLength());
+
+      byte[] all = new byte[data.length];
+      new DataInputStream(in).readFully(all);
+      assertArrayEquals(data, all);
+      assertEquals(-1, in.read());
+
+      in.seek(2990);
+      byte[] buf = new byte[25];
+      assertEquals(25, in.read(buf, 0, 25));
+      assertArrayEquals(Arrays.copyOfRange(data, 2990, 3015), buf);
+      assertEquals(3015, in.getPos());
+      assertEquals(data[3015] & 0xff, in.read());
+
+      assertThrows(EOFException.class, () -> in.seek(data.length + 1));
+    }
+  }
+
+  @Test
+  public void testPositionalReads() throws IOException {
+    File file = new File(tempDir, "pos.dat");
+    byte[] data = writeFile(file, 5000);
+
+    try (MappedFileInputStream in = MappedFileInputStream.open(file, 1024)) {
+      byte[] buf = new byte[3000];
+      in.readFully(1000, buf);
+      assertArrayEquals(Arrays.copyOfRange(data, 1000, 4000), buf);
+      // positional reads do not move the stream
+      assertEquals(0, in.getPos());
+
+      assertEquals(200, in.read(4800, buf, 0, 3000));
+      assertThrows(EOFException.class, () -> in.readFully(4800, buf, 0, 201));
+    }
+  }
+
+  @Test
+  public void testRangeStreams() throws IOException {
+    File file = new File(tempDir, "range.dat");
+    byte[] data = writeFile(file, 8000);
+
+    try (MappedFileInputStream in = MappedFileInputStream.open(file, 1500)) {
+      InputStream r1 = in.newRangeStream(1400, 300);
+      InputStream r2 = in.newRangeStream(6000, 2000);
+
+      // range streams keep independent positions
+      byte[] b1 = new byte[300];
+      byte[] b2 = new byte[2000];
+      new DataInputStream(r2).readFully(b2, 0, 1000);
+      new DataInputStream(r1).readFully(b1);
+      new DataInputStream(r2).readFully(b2, 1000, 1000);
+      assertArrayEquals(Arrays.copyOfRange(data, 1400, 1700), b1);
+      assertArrayEquals(Arrays.copyOfRange(data, 6000, 8000), b2);
+      assertEquals(-1, r1.read());
+      assertEquals(-1, r2.read());
+
+      assertThrows(IndexOutOfBoundsException.class, () -> in.newRangeStream(7000, 1001));
+    }
+  }
+
+  @Test
+  public void testSingleByteReads() throws IOException {
+    File file = new File(tempDir, "bytes.dat");
+    byte[] data = writeFile(file, 3000);
+
+    try (MappedFileInputStream in = MappedFileInputStream.open(file, 1000)) {
+      // a range crossing a segment boundary, read a byte at a time and mixed with bulk reads
+      InputStream range = in.newRangeStream(990, 30);
+      for (int i = 990; i < 1005; i++) {
+        assertEquals(data[i] & 0xff, range.read());
+      }
+      byte[] buf = new byte[10];
+      assertEquals(10, range.read(buf, 0, 10));
+      assertArrayEquals(Arrays.copyOfRange(data, 1005, 1015), buf);
+      for (int i = 1015; i < 1020; i++) {
+        assertEquals(data[i] & 0xff, range.read());
+      }
+      assertEquals(-1, range.read());
+
+      in.seek(1998);
+      assertEquals(data[1998] & 0xff, in.read());
+      assertEquals(data[1999] & 0xff, in.read());
+      assertEquals(data[2000] & 0xff, in.read());
+      assertEquals(2001, in.getPos());
+      in.seek(data.length);
+      assertEquals(-1, in.read());
+    }
+  }
+}
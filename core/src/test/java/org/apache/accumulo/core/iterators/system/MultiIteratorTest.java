@@ -20,6 +20,7 @@ package org.apache.accumulo.core.iterators.system;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
@@ -28,6 +29,11 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
@@ -36,6 +42,7 @@ import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.MultiIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.SortedMapIterator;
 import org.apache.hadoop.io.Text;
@@ -422,4 +429,109 @@ public class MultiIteratorTest {
     mi.seek(r7, EMPTY_COL_FAMS, false);
     assertFalse(mi.hasTop());
   }
+
+  private static List<SortedKeyValueIterator<Key,Value>> newSources(int numSources) {
+    List<SortedKeyValueIterator<Key,Value>> iters = new ArrayList<>();
+    for (int i = 0; i < numSources; i++) {
+      TreeMap<Key,Value> tm = new TreeMap<>();
+      for (int row = i; row < 200; row += numSources) {
+        newKeyValue(tm, row, 0, false, "v" + row);
+      }
+      iters.add(new SortedMapIterator(tm));
+    }
+    return iters;
+  }
+
+  private static void verifyRows(MultiIterator mi, int start, int end) throws IOException {
+    mi.seek(new Range(newRow(start), true, newRow(end), false), EMPTY_COL_FAMS, false);
+    for (int row = start; row < end; row++) {
+      assertTrue(mi.hasTop());
+      assertEquals(newKey(row, 0), mi.getTopKey());
+      assertEquals("v" + row, mi.getTopValue().toString());
+      mi.next();
+    }
+    assertFalse(mi.hasTop());
+  }
+
+  @Test
+  public void testConcurrentSeek() throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      MultiIterator mi = new MultiIterator(newSources(40), false).setSeekExecutor(executor);
+      verifyRows(mi, 0, 200);
+      verifyRows(mi, 17, 123);
+      verifyRows(mi, 150, 151);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // when the executor rejects the seeks the calling thread does them all
+    MultiIterator mi = new MultiIterator(newSources(40), false).setSeekExecutor(r -> {
+      throw new RejectedExecutionException();
+    });
+    verifyRows(mi, 3, 97);
+  }
+
+  @Test
+  public void testConcurrentFirstSeekOnly() throws IOException {
+    Thread caller = Thread.currentThread();
+    Set<Thread> seekThreads = ConcurrentHashMap.newKeySet();
+    List<SortedKeyValueIterator<Key,Value>> iters = new ArrayList<>();
+    for (SortedKeyValueIterator<Key,Value> source : newSources(10)) {
+      iters.add(new WrappingIterator() {
+        {
+          setSource(source);
+        }
+
+        @Override
+        public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive)
+            throws IOException {
+          seekThreads.add(Thread.currentThread());
+          super.seek(range, columnFamilies, inclusive);
+        }
+      });
+    }
+
+    AtomicInteger submitted = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      MultiIterator mi = new MultiIterator(iters, false).setSeekExecutor(task -> {
+        submitted.incrementAndGet();
+        executor.execute(task);
+      });
+      verifyRows(mi, 0, 200);
+      assertEquals(9, submitted.get());
+
+      // reseeks stay on the calling thread
+      for (int start = 10; start < 200; start += 30) {
+        seekThreads.clear();
+        verifyRows(mi, start, start + 7);
+        assertEquals(Set.of(caller), seekThreads);
+      }
+      assertEquals(9, submitted.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConcurrentSeekFailure() {
+    List<SortedKeyValueIterator<Key,Value>> iters = newSources(10);
+    iters.set(5, new WrappingIterator() {
+      @Override
+      public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive)
+          throws IOException {
+        throw new IOException("seek failed");
+      }
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      MultiIterator mi = new MultiIterator(iters, false).setSeekExecutor(executor);
+      var e = assertThrows(IOException.class, () -> mi.seek(new Range(), EMPTY_COL_FAMS, false));
+      assertEquals("seek failed", e.getMessage());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
@@ -21,6 +21,7 @@ package org.apache.accumulo.core.iterators.system;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.util.HashSet;
@@ -29,11 +30,13 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
+import org.apache.accumulo.core.data.ArrayByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.SortedMapIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.VisibilityEvaluationCache;
 import org.apache.accumulo.core.iteratorsImpl.system.VisibilityFilter;
 import org.apache.accumulo.core.security.Authorizations;
 import org.junit.jupiter.api.Test;
@@ -153,4 +156,39 @@ public class VisibilityFilterTest {
     verify(new TreeSet<>(tm.keySet()), filter);
   }
 
+  @Test
+  public void testSharedEvaluationsScopedByAuths() throws IOException {
+    TreeMap<Key,Value> tm = new TreeMap<>();
+
+    // labels only this test uses, so no other test can have shared their evaluations
+    tm.put(new Key("r1", "cf1", "cq1", "SX&SY"), new Value());
+    tm.put(new Key("r1", "cf1", "cq2", "SX|SZ"), new Value());
+    tm.put(new Key("r1", "cf1", "cq3", "SZ"), new Value());
+
+    ArrayByteSequence andVis = new ArrayByteSequence("SX&SY");
+    assertFalse(VisibilityEvaluationCache.isCached(new Authorizations("SX", "SY"), andVis));
+
+    // filters for different scan sessions share evaluations, but only for equal authorizations
+    TreeSet<Key> expected = new TreeSet<>();
+    expected.add(new Key("r1", "cf1", "cq1", "SX&SY"));
+    expected.add(new Key("r1", "cf1", "cq2", "SX|SZ"));
+    verify(expected, VisibilityFilter.wrap(new SortedMapIterator(tm),
+        new Authorizations("SX", "SY"), "".getBytes(UTF_8)));
+    assertTrue(VisibilityEvaluationCache.isCached(new Authorizations("SY", "SX"), andVis));
+    assertFalse(VisibilityEvaluationCache.isCached(new Authorizations("SZ"), andVis));
+
+    expected = new TreeSet<>();
+    expected.add(new Key("r1", "cf1", "cq2", "SX|SZ"));
+    expected.add(new Key("r1", "cf1", "cq3", "SZ"));
+    verify(expected, VisibilityFilter.wrap(new SortedMapIterator(tm), new Authorizations("SZ"),
+        "".getBytes(UTF_8)));
+    assertTrue(VisibilityEvaluationCache.isCached(new Authorizations("SZ"), andVis));
+
+    expected = new TreeSet<>();
+    expected.add(new Key("r1", "cf1", "cq1", "SX&SY"));
+    expected.add(new Key("r1", "cf1", "cq2", "SX|SZ"));
+    verify(expected, VisibilityFilter.wrap(new SortedMapIterator(tm),
+        new Authorizations("SY", "SX"), "".getBytes(UTF_8)));
+  }
+
 }
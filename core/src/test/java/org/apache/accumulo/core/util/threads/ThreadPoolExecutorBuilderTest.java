@@ -22,6 +22,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
@@ -76,4 +77,20 @@ public class ThreadPoolExecutorBuilderTest {
     assertEquals(1, p2.getMaximumPoolSize());
     assertEquals(123L, p2.getKeepAliveTime(MILLISECONDS));
   }
+
+  @Test
+  public void builderVirtualThreadsTest() throws Exception {
+    var p = serverPool.getPoolBuilder("virtual.pool").numCoreThreads(2).useVirtualThreads(true)
+        .build();
+    try {
+      // the pool limits are unchanged when tasks run on virtual threads
+      assertEquals(2, p.getCorePoolSize());
+      assertEquals(2, p.getMaximumPoolSize());
+      String threadName = p.submit(() -> Thread.currentThread().getName()).get();
+      assertTrue(threadName.startsWith("virtual.pool"), threadName);
+      assertEquals(VirtualThreads.isSupported(), threadName.contains("-virtual-"), threadName);
+    } finally {
+      p.shutdownNow();
+    }
+  }
 }
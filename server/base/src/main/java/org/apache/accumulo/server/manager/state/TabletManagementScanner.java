@@ -41,6 +41,7 @@ import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.manager.state.TabletManagement;
 import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection;
 import org.apache.accumulo.core.security.Authorizations;
@@ -64,23 +65,25 @@ public class TabletManagementScanner implements ClosableIterator<TabletManagemen
     // scan over metadata table, looking for tablets in the wrong state based on the live servers
     // and online tables
     try {
-      int numLocations = 0;
+      int numPartitions = 0;
       try {
         final TableId tid = context.getTableId(tableName);
         final ClientTabletCache locator = ClientTabletCache.getInstance(context, tid);
-        final Set<String> locations = new HashSet<>();
+        final Set<KeyExtent> tablets = new HashSet<>();
         final List<Range> failures = locator.findTablets(context, ALL_TABLETS_RANGE,
-            (ct, r) -> ct.getTserverLocation().ifPresent(locations::add),
-            LocationNeed.NOT_REQUIRED);
-        // If failures is not empty, then there are tablets that we don't know the location of.
-        // In this case, add an extra thread.
-        numLocations = (failures.isEmpty()) ? locations.size() : locations.size() + 1;
+            (ct, r) -> tablets.add(ct.getExtent()), LocationNeed.NOT_REQUIRED);
+        // Partition the scan by metadata tablet, not by tablet server. When there are more
+        // threads than tablet servers, the batch scanner splits the tablets of each server across
+        // several concurrent requests, so the tablet management iterators of the metadata tablets
+        // on a server run in parallel instead of one after another. If failures is not empty, then
+        // there are tablets that we don't know the location of. In this case, add an extra thread.
+        numPartitions = (failures.isEmpty()) ? tablets.size() : tablets.size() + 1;
       } catch (InvalidTabletHostingRequestException e) {
         // this should not happen as we are using NOT_REQUIRED
         throw new IllegalStateException(
             "InvalidTabletHostingRequestException raised when using LocationNeed.NOT_REQUIRED");
       }
-      int numThreads = Math.min(numLocations,
+      int numThreads = Math.min(numPartitions,
           context.getConfiguration().getCount(Property.MANAGER_TABLET_GROUP_WATCHER_SCAN_THREADS));
       numThreads = Math.max(1, numThreads);
       mdScanner = context.createBatchScanner(tableName, Authorizations.EMPTY, numThreads);
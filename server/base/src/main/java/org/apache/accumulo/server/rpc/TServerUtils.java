@@ -309,7 +309,9 @@ public class TServerUtils {
     String poolName = ACCUMULO_POOL_PREFIX.poolName + "." + serverName.toLowerCase() + ".client";
     final ThreadPoolExecutor pool =
         ThreadPools.getServerThreadPools().getPoolBuilder(poolName).numCoreThreads(executorThreads)
-            .withTimeOut(threadTimeOut, MILLISECONDS).enableThreadPoolMetrics().build();
+            .withTimeOut(threadTimeOut, MILLISECONDS).enableThreadPoolMetrics()
+            .useVirtualThreads(conf.getBoolean(Property.GENERAL_SERVER_VIRTUAL_THREADS_ENABLED))
+            .build();
     // periodically adjust the number of threads we need by checking how busy our threads are
     ThreadPools.watchCriticalFixedDelay(conf, timeBetweenThreadChecks, () -> {
       // there is a minor race condition between sampling the current state of the thread pool
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.gc;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads several streams at the same time and combines their elements into one stream. The order of
+ * the elements across the source streams is not preserved.
+ */
+class ConcurrentStreams {
+
+  static final int BATCH_SIZE = 1000;
+
+  private ConcurrentStreams() {}
+
+  /**
+   * Reads each source stream on the executor. Elements are handed to the returned stream in
+   * batches, and at most {@code maxBufferedBatches} batches wait to be consumed, so a slow consumer
+   * blocks the readers. Closing the returned stream stops the readers and closes their streams.
+   *
+   * @throws IllegalStateException from the returned stream when reading any source failed
+   */
+  static <T> Stream<T> concat(List<Supplier<Stream<T>>> sources, ExecutorService executor,
+      int maxBufferedBatches) {
+    var reader = new Reader<T>(sources.size(), maxBufferedBatches);
+    List<Future<?>> tasks =
+        sources.stream().map(source -> executor.submit(() -> reader.read(source)))
+            .collect(toList());
+    return StreamSupport
+        .stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.NONNULL), false)
+        .onClose(() -> {
+          reader.closed = true;
+          tasks.forEach(task -> task.cancel(true));
+        });
+  }
+
+  private static class Batch<T> {
+    final List<T> elements;
+    final boolean last;
+    final Throwable error;
+
+    Batch(List<T> elements, boolean last, Throwable error) {
+      this.elements = elements;
+      this.last = last;
+      this.error = error;
+    }
+  }
+
+  private static class Reader<T> implements Iterator<T> {
+    private final BlockingQueue<Batch<T>> queue;
+    private volatile boolean closed = false;
+    private int sourcesRemaining;
+    private Iterator<T> current = Collections.emptyIterator();
+
+    Reader(int numSources, int maxBufferedBatches) {
+      this.sourcesRemaining = numSources;
+      this.queue = new ArrayBlockingQueue<>(Math.max(1, maxBufferedBatches));
+    }
+
+    void read(Supplier<Stream<T>> source) {
+      try (Stream<T> stream = source.get()) {
+        Iterator<T> iter = stream.iterator();
+        List<T> batch = new ArrayList<>();
+        while (iter.hasNext() && !closed) {
+          batch.add(iter.next());
+          if (batch.size() >= BATCH_SIZE) {
+            put(new Batch<>(batch, false, null));
+            batch = new ArrayList<>();
+          }
+        }
+        put(new Batch<>(batch, true, null));
+      } catch (Throwable t) {
+        put(new Batch<>(List.of(), true, t));
+      }
+    }
+
+    private void put(Batch<T> batch) {
+      try {
+        // check for close periodically, the consumer may never take another batch
+        while (!closed && !queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {}
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!current.hasNext()) {
+        if (sourcesRemaining == 0) {
+          return false;
+        }
+        Batch<T> batch;
+        try {
+          batch = queue.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while waiting for a source stream", e);
+        }
+        if (batch.error != null) {
+          throw new IllegalStateException("Failed to read a source stream", batch.error);
+        }
+        if (batch.last) {
+          sourcesRemaining--;
+        }
+        current = batch.elements.iterator();
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return current.next();
+    }
+  }
+}
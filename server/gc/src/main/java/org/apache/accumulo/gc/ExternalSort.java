@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.gc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.function.BinaryOperator;
+
+/**
+ * Sorts more entries than fit in memory. Sorted runs of entries are written to local files, which
+ * are then merged into a single sorted iterator. Entries with the same key are combined.
+ */
+class ExternalSort<V> implements AutoCloseable {
+
+  interface Codec<V> {
+    void write(DataOutputStream out, V value) throws IOException;
+
+    V read(DataInputStream in) throws IOException;
+  }
+
+  private final Path dir;
+  private final Codec<V> codec;
+  private final BinaryOperator<V> combiner;
+  private final List<Path> runs = new ArrayList<>();
+  private final List<DataInputStream> readers = new ArrayList<>();
+
+  /**
+   * @param dir the directory to write runs to, it is deleted by {@link #close()}
+   * @param combiner combines the values of entries with the same key from different runs, it is
+   *        given the value of the earlier run first
+   */
+  ExternalSort(Path dir, Codec<V> codec, BinaryOperator<V> combiner) {
+    this.dir = dir;
+    this.codec = codec;
+    this.combiner = combiner;
+  }
+
+  /**
+   * Writes a sorted run of entries to a file.
+   */
+  void addRun(SortedMap<String,V> run) throws IOException {
+    if (run.isEmpty()) {
+      return;
+    }
+    if (runs.isEmpty()) {
+      if (Files.isDirectory(dir)) {
+        // left behind by a process that died while sorting
+        try (var leftovers = Files.list(dir)) {
+          for (Path leftover : (Iterable<Path>) leftovers::iterator) {
+            Files.delete(leftover);
+          }
+        }
+      }
+      Files.createDirectories(dir);
+    }
+    Path file = dir.resolve("run-" + runs.size());
+    runs.add(file);
+    try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      for (var entry : run.entrySet()) {
+        out.writeUTF(entry.getKey());
+        codec.write(out, entry.getValue());
+      }
+    }
+  }
+
+  int getNumRuns() {
+    return runs.size();
+  }
+
+  private class RunReader {
+    final int run;
+    final DataInputStream in;
+    String key;
+    V value;
+
+    RunReader(int run, DataInputStream in) {
+      this.run = run;
+      this.in = in;
+    }
+
+    boolean advance() throws IOException {
+      try {
+        key = in.readUTF();
+      } catch (EOFException e) {
+        return false;
+      }
+      value = codec.read(in);
+      return true;
+    }
+  }
+
+  /**
+   * @return the entries of all runs, sorted by key
+   */
+  Iterator<Entry<String,V>> merge() throws IOException {
+    PriorityQueue<RunReader> heap = new PriorityQueue<>(Math.max(1, runs.size()),
+        Comparator.comparing((RunReader r) -> r.key).thenComparingInt(r -> r.run));
+    for (int i = 0; i < runs.size(); i++) {
+      var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(runs.get(i))));
+      readers.add(in);
+      RunReader reader = new RunReader(i, in);
+      if (reader.advance()) {
+        heap.add(reader);
+      }
+    }
+
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return !heap.isEmpty();
+      }
+
+      @Override
+      public Entry<String,V> next() {
+        if (heap.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        try {
+          RunReader top = heap.remove();
+          String key = top.key;
+          V value = top.value;
+          if (top.advance()) {
+            heap.add(top);
+          }
+          while (!heap.isEmpty() && heap.peek().key.equals(key)) {
+            RunReader same = heap.remove();
+            value = combiner.apply(value, same.value);
+            if (same.advance()) {
+              heap.add(same);
+            }
+          }
+          return new AbstractMap.SimpleImmutableEntry<>(key, value);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    };
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (DataInputStream in : readers) {
+      in.close();
+    }
+    readers.clear();
+    for (Path run : runs) {
+      Files.deleteIfExists(run);
+    }
+    runs.clear();
+    Files.deleteIfExists(dir);
+  }
+}
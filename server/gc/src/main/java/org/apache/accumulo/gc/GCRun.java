@@ -22,6 +22,7 @@ import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterrup
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.accumulo.core.metadata.schema.TabletMetadata.ColumnType.DIR;
 import static org.apache.accumulo.core.metadata.schema.TabletMetadata.ColumnType.FILES;
+import static org.apache.accumulo.core.metadata.schema.TabletMetadata.ColumnType.PREV_ROW;
 import static org.apache.accumulo.core.metadata.schema.TabletMetadata.ColumnType.SCANS;
 
 import java.io.FileNotFoundException;
@@ -29,6 +30,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -39,6 +41,9 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import org.apache.accumulo.core.Constants;
@@ -46,7 +51,9 @@ import org.apache.accumulo.core.client.IsolatedScanner;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.fate.zookeeper.ZooReader;
 import org.apache.accumulo.core.gc.GcCandidate;
 import org.apache.accumulo.core.gc.Reference;
@@ -59,6 +66,7 @@ import org.apache.accumulo.core.metadata.ValidationUtil;
 import org.apache.accumulo.core.metadata.schema.Ample;
 import org.apache.accumulo.core.metadata.schema.Ample.DataLevel;
 import org.apache.accumulo.core.metadata.schema.Ample.GcCandidateType;
+import org.apache.accumulo.core.metadata.schema.LinkingIterator;
 import org.apache.accumulo.core.metadata.schema.MetadataSchema;
 import org.apache.accumulo.core.metadata.schema.TabletMetadata;
 import org.apache.accumulo.core.metadata.schema.TabletsMetadata;
@@ -71,6 +79,7 @@ import org.apache.accumulo.server.fs.VolumeUtil;
 import org.apache.accumulo.server.gc.GcVolumeUtil;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.slf4j.Logger;
@@ -88,16 +97,30 @@ public class GCRun implements GarbageCollectionEnvironment {
   private final Ample.DataLevel level;
   private final ServerContext context;
   private final AccumuloConfiguration config;
+  private final ExecutorService referenceScanPool;
   private long candidates = 0;
   private long inUse = 0;
   private long deleted = 0;
   private long errors = 0;
+  private final Map<Stage,LongAdder> stageNanos = new EnumMap<>(Stage.class);
 
   public GCRun(Ample.DataLevel level, ServerContext context) {
+    this(level, context, null);
+  }
+
+  /**
+   * @param referenceScanPool the threads that read the references of metadata tablets
+   *        concurrently, or null to read them serially
+   */
+  public GCRun(Ample.DataLevel level, ServerContext context, ExecutorService referenceScanPool) {
     this.log = LoggerFactory.getLogger(GCRun.class.getName() + "." + level.name());
     this.level = level;
     this.context = context;
     this.config = context.getConfiguration();
+    this.referenceScanPool = referenceScanPool;
+    for (Stage stage : Stage.values()) {
+      stageNanos.put(stage, new LongAdder());
+    }
   }
 
   @Override
@@ -134,6 +157,13 @@ public class GCRun implements GarbageCollectionEnvironment {
     long candidateLength = 0;
     // Converting the bytes to approximate number of characters for batch size.
     long candidateBatchSize = getCandidateBatchSize() / 2;
+    if (config.getBoolean(Property.GC_DELETE_PIPELINE_ENABLED)
+        && !config.getBoolean(Property.GC_CANDIDATE_SORT_MERGE_ENABLED)
+        && !config.getBoolean(Property.GC_CANDIDATE_FILTER_ENABLED)) {
+      // The previous batch may still be held for deletion while this one is confirmed. The other
+      // modes read all candidates into runs on disk before deleting any.
+      candidateBatchSize /= 2;
+    }
 
     List<GcCandidate> candidatesBatch = new ArrayList<>();
 
@@ -168,53 +198,173 @@ public class GCRun implements GarbageCollectionEnvironment {
 
   @Override
   public Stream<Reference> getReferences() {
-    Stream<TabletMetadata> tabletStream;
+    Stream<Reference> tabletReferences;
 
     // create a stream of metadata entries read from file, scan and tablet dir columns
     if (level == Ample.DataLevel.ROOT) {
-      tabletStream = Stream.of(context.getAmple().readTablet(RootTable.EXTENT, DIR, FILES, SCANS));
+      tabletReferences =
+          Stream.of(context.getAmple().readTablet(RootTable.EXTENT, DIR, FILES, SCANS))
+              .flatMap(this::getTabletReferences);
     } else {
-      tabletStream = TabletsMetadata.builder(context).scanTable(level.metaTable())
-          .checkConsistency().fetch(DIR, FILES, SCANS).build().stream();
+      int scanThreads = config.getCount(Property.GC_REFERENCE_SCAN_THREADS);
+      List<Range> ranges = referenceScanPool != null && scanThreads > 1 ? getMetadataTabletRanges()
+          : List.of(new Range());
+      if (ranges.size() > 1) {
+        log.debug("Reading references from {} metadata tablets using {} threads", ranges.size(),
+            scanThreads);
+        List<Supplier<Stream<TabletMetadata>>> rangeTablets = new ArrayList<>();
+        for (Range range : ranges) {
+          rangeTablets.add(() -> readTablets(range));
+        }
+        tabletReferences = readLinkedTablets(rangeTablets, () -> readTablets(new Range()),
+            this::getTabletReferences, referenceScanPool, 2 * scanThreads);
+      } else {
+        tabletReferences = readTablets(ranges.get(0)).flatMap(this::getTabletReferences);
+      }
     }
 
-    // there is a lot going on in this "one line" so see below for more info
-    var tabletReferences = tabletStream.flatMap(tm -> {
-      var tableId = tm.getTableId();
-
-      // verify that dir and prev row entries present for to check for complete row scan
-      log.trace("tablet metadata table id: {}, end row:{}, dir:{}, saw: {}, prev row: {}", tableId,
-          tm.getEndRow(), tm.getDirName(), tm.sawPrevEndRow(), tm.getPrevEndRow());
-      if (tm.getDirName() == null || tm.getDirName().isEmpty() || !tm.sawPrevEndRow()) {
-        throw new IllegalStateException("possible incomplete metadata scan for table id: " + tableId
-            + ", end row: " + tm.getEndRow() + ", dir: " + tm.getDirName() + ", saw prev row: "
-            + tm.sawPrevEndRow());
-      }
+    var scanServerRefs = context.getAmple().scanServerRefs().list()
+        .map(sfr -> ReferenceFile.forScan(sfr.getTableId(), sfr));
 
-      // combine all the entries read from file and scan columns in the metadata table
-      Stream<StoredTabletFile> stfStream = tm.getFiles().stream();
-      // map the files to Reference objects
-      var fileStream = stfStream.map(f -> ReferenceFile.forFile(tableId, f));
+    return Stream.concat(tabletReferences, scanServerRefs);
+  }
 
-      // scans are normally empty, so only introduce a layer of indirection when needed
-      final var tmScans = tm.getScans();
-      if (!tmScans.isEmpty()) {
-        var scanStream = tmScans.stream().map(s -> ReferenceFile.forScan(tableId, s));
-        fileStream = Stream.concat(fileStream, scanStream);
+  /**
+   * @return the ranges of the metadata tablets that hold the tablets of this level, or a single
+   *         range covering everything if the metadata tablets read do not cover the whole table
+   */
+  private List<Range> getMetadataTabletRanges() {
+    try (var metadataTablets = context.getAmple().readTablets().forTable(level.metaTableId())
+        .checkConsistency().fetch(PREV_ROW).build()) {
+      List<Range> ranges = new ArrayList<>();
+      Text lastEndRow = null;
+      for (TabletMetadata tm : metadataTablets) {
+        KeyExtent extent = tm.getExtent();
+        if ((ranges.isEmpty() && extent.prevEndRow() != null)
+            || (!ranges.isEmpty() && !Objects.equals(lastEndRow, extent.prevEndRow()))) {
+          log.warn("Metadata tablet {} does not follow end row {}, reading references serially",
+              extent, lastEndRow);
+          return List.of(new Range());
+        }
+        ranges.add(extent.toDataRange());
+        lastEndRow = extent.endRow();
       }
-      // if dirName is populated, then we have a tablet directory aka srv:dir
-      if (tm.getDirName() != null) {
-        // add the tablet directory to the stream
-        var tabletDir = ReferenceFile.forDirectory(tableId, tm.getDirName());
-        fileStream = Stream.concat(fileStream, Stream.of(tabletDir));
+      if (ranges.isEmpty() || lastEndRow != null) {
+        log.warn("Metadata tablets read end at row {}, reading references serially", lastEndRow);
+        return List.of(new Range());
+      }
+      return ranges;
+    }
+  }
+
+  private Stream<TabletMetadata> readTablets(Range range) {
+    return TabletsMetadata.builder(context).scanTable(level.metaTable()).overRange(range)
+        .checkConsistency().fetch(DIR, FILES, SCANS).build().stream();
+  }
+
+  /**
+   * Reads the tablets of each range concurrently and maps them to their references. Each range is
+   * only checked for consistency on its own, so a tablet that moves across a range boundary while
+   * the ranges are read at different times could be seen by neither range. After every range was
+   * read, the last tablet of each range is checked to link to the first tablet of the next range.
+   * If they do not, the references of all tablets are read again serially before the returned
+   * stream ends. Reading a reference more than once is harmless, but missing one is not.
+   */
+  @VisibleForTesting
+  static <T> Stream<T> readLinkedTablets(List<Supplier<Stream<TabletMetadata>>> rangeTablets,
+      Supplier<Stream<TabletMetadata>> allTablets, Function<TabletMetadata,Stream<T>> mapper,
+      ExecutorService executor, int maxBufferedBatches) {
+    var links = new RangeLinks(rangeTablets.size());
+    List<Supplier<Stream<T>>> sources = new ArrayList<>();
+    for (int i = 0; i < rangeTablets.size(); i++) {
+      var range = i;
+      sources.add(() -> links.record(range, rangeTablets.get(range).get()).flatMap(mapper));
+    }
+    // this is only evaluated once the concurrent stream has been drained
+    var rescan = Stream.of(links).flatMap(l -> {
+      if (l.linked()) {
+        return Stream.empty();
       }
-      return fileStream;
+      LoggerFactory.getLogger(GCRun.class)
+          .warn("Tablets read concurrently did not link across ranges, reading them serially");
+      return allTablets.get().flatMap(mapper);
     });
+    return Stream.concat(ConcurrentStreams.concat(sources, executor, maxBufferedBatches), rescan);
+  }
 
-    var scanServerRefs = context.getAmple().scanServerRefs().list()
-        .map(sfr -> ReferenceFile.forScan(sfr.getTableId(), sfr));
+  /**
+   * The first and last tablet read from each of a list of ranges.
+   */
+  private static class RangeLinks {
+    // written by the reading threads before they hand over their last batch, and only read after
+    // every last batch was taken
+    private final KeyExtent[] firsts;
+    private final KeyExtent[] lasts;
+
+    RangeLinks(int numRanges) {
+      firsts = new KeyExtent[numRanges];
+      lasts = new KeyExtent[numRanges];
+    }
 
-    return Stream.concat(tabletReferences, scanServerRefs);
+    Stream<TabletMetadata> record(int range, Stream<TabletMetadata> tablets) {
+      return tablets.peek(tm -> {
+        if (firsts[range] == null) {
+          firsts[range] = tm.getExtent();
+        }
+        lasts[range] = tm.getExtent();
+      });
+    }
+
+    /**
+     * @return true if the last tablet read from each range is followed by the first tablet read
+     *         from the next range that had any tablets
+     */
+    boolean linked() {
+      KeyExtent prev = null;
+      for (int i = 0; i < firsts.length; i++) {
+        if (firsts[i] == null) {
+          continue;
+        }
+        if (prev != null && !LinkingIterator.goodTransition(prev, firsts[i])) {
+          return false;
+        }
+        prev = lasts[i];
+      }
+      return true;
+    }
+  }
+
+  // there is a lot going on in this method so see below for more info
+  private Stream<Reference> getTabletReferences(TabletMetadata tm) {
+    var tableId = tm.getTableId();
+
+    // verify that dir and prev row entries present for to check for complete row scan
+    log.trace("tablet metadata table id: {}, end row:{}, dir:{}, saw: {}, prev row: {}", tableId,
+        tm.getEndRow(), tm.getDirName(), tm.sawPrevEndRow(), tm.getPrevEndRow());
+    if (tm.getDirName() == null || tm.getDirName().isEmpty() || !tm.sawPrevEndRow()) {
+      throw new IllegalStateException("possible incomplete metadata scan for table id: " + tableId
+          + ", end row: " + tm.getEndRow() + ", dir: " + tm.getDirName() + ", saw prev row: "
+          + tm.sawPrevEndRow());
+    }
+
+    // combine all the entries read from file and scan columns in the metadata table
+    Stream<StoredTabletFile> stfStream = tm.getFiles().stream();
+    // map the files to Reference objects
+    var fileStream = stfStream.map(f -> ReferenceFile.forFile(tableId, f));
+
+    // scans are normally empty, so only introduce a layer of indirection when needed
+    final var tmScans = tm.getScans();
+    if (!tmScans.isEmpty()) {
+      var scanStream = tmScans.stream().map(s -> ReferenceFile.forScan(tableId, s));
+      fileStream = Stream.concat(fileStream, scanStream);
+    }
+    // if dirName is populated, then we have a tablet directory aka srv:dir
+    if (tm.getDirName() != null) {
+      // add the tablet directory to the stream
+      var tabletDir = ReferenceFile.forDirectory(tableId, tm.getDirName());
+      fileStream = Stream.concat(fileStream, Stream.of(tabletDir));
+    }
+    return fileStream;
   }
 
   @Override
@@ -406,6 +556,11 @@ public class GCRun implements GarbageCollectionEnvironment {
     inUse += i;
   }
 
+  @Override
+  public void incrementStageTime(Stage stage, long nanos) {
+    stageNanos.get(stage).add(nanos);
+  }
+
   @VisibleForTesting
   static void minimizeDeletes(SortedMap<String,GcCandidate> confirmedDeletes,
       List<GcCandidate> processedDeletes, VolumeManager fs, Logger logger) {
@@ -499,6 +654,10 @@ public class GCRun implements GarbageCollectionEnvironment {
     return config.getAsBytes(Property.GC_CANDIDATE_BATCH_SIZE);
   }
 
+  Ample.DataLevel getLevel() {
+    return level;
+  }
+
   public long getInUseStat() {
     return inUse;
   }
@@ -515,6 +674,10 @@ public class GCRun implements GarbageCollectionEnvironment {
     return candidates;
   }
 
+  public long getStageNanos(Stage stage) {
+    return stageNanos.get(stage).sum();
+  }
+
   /**
    * Return a set of all TableIDs in the
    * {@link org.apache.accumulo.core.metadata.schema.Ample.DataLevel} for which we are considering
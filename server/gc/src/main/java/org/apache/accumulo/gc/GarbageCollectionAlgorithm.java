@@ -21,7 +21,11 @@ package org.apache.accumulo.gc;
 import static java.util.Arrays.stream;
 import static java.util.function.Predicate.not;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -29,9 +33,15 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.NavigableSet;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Stream;
 
 import org.apache.accumulo.core.Constants;
@@ -42,6 +52,7 @@ import org.apache.accumulo.core.gc.Reference;
 import org.apache.accumulo.core.metadata.schema.Ample.GcCandidateType;
 import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection.ServerColumnFamily;
 import org.apache.accumulo.core.trace.TraceUtil;
+import org.apache.accumulo.gc.GarbageCollectionEnvironment.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +65,20 @@ public class GarbageCollectionAlgorithm {
 
   private static final Logger log = LoggerFactory.getLogger(GarbageCollectionAlgorithm.class);
 
+  private final Executor deleteExecutor;
+
+  public GarbageCollectionAlgorithm() {
+    this(null);
+  }
+
+  /**
+   * @param deleteExecutor if not null, confirmed candidates are deleted using this executor while
+   *        the next candidates are confirmed
+   */
+  public GarbageCollectionAlgorithm(Executor deleteExecutor) {
+    this.deleteExecutor = deleteExecutor;
+  }
+
   /**
    * This method takes a file or directory path and returns a relative path in 1 of 2 forms:
    *
@@ -136,6 +161,33 @@ public class GarbageCollectionAlgorithm {
     return ret;
   }
 
+  /**
+   * @return the relative path of the directory a directory reference refers to
+   */
+  private String referencedDir(Reference ref) {
+    ServerColumnFamily.validateDirCol(ref.getMetadataPath());
+
+    String dir = "/" + ref.getTableId() + "/" + ref.getMetadataPath();
+
+    return makeRelative(dir, 2);
+  }
+
+  /**
+   * @return the relative path of the file a file reference refers to
+   */
+  private String referencedFile(Reference ref) {
+    String reference = ref.getMetadataPath();
+    if (reference.startsWith("/")) {
+      log.debug("Candidate {} has a relative path, prepend tableId {}", reference,
+          ref.getTableId());
+      reference = "/" + ref.getTableId() + ref.getMetadataPath();
+    } else if (!reference.contains(":") && !reference.startsWith("../")) {
+      throw new RuntimeException("Bad file reference " + reference);
+    }
+
+    return makeRelative(reference, 3);
+  }
+
   private void removeCandidatesInUse(GarbageCollectionEnvironment gce,
       SortedMap<String,GcCandidate> candidateMap) throws InterruptedException {
 
@@ -147,11 +199,7 @@ public class GarbageCollectionAlgorithm {
         tableIdsSeen.add(ref.getTableId());
 
         if (ref.isDirectory()) {
-          ServerColumnFamily.validateDirCol(ref.getMetadataPath());
-
-          String dir = "/" + ref.getTableId() + "/" + ref.getMetadataPath();
-
-          dir = makeRelative(dir, 2);
+          String dir = referencedDir(ref);
 
           GcCandidate gcTemp = candidateMap.remove(dir);
           if (gcTemp != null) {
@@ -160,16 +208,7 @@ public class GarbageCollectionAlgorithm {
             // once.
           }
         } else {
-          String reference = ref.getMetadataPath();
-          if (reference.startsWith("/")) {
-            log.debug("Candidate {} has a relative path, prepend tableId {}", reference,
-                ref.getTableId());
-            reference = "/" + ref.getTableId() + ref.getMetadataPath();
-          } else if (!reference.contains(":") && !reference.startsWith("../")) {
-            throw new RuntimeException("Bad file reference " + reference);
-          }
-
-          String relativePath = makeRelative(reference, 3);
+          String relativePath = referencedFile(ref);
 
           // WARNING: This line is EXTREMELY IMPORTANT.
           // You MUST REMOVE candidates that are still in use
@@ -326,6 +365,7 @@ public class GarbageCollectionAlgorithm {
   private void deleteConfirmedCandidates(GarbageCollectionEnvironment gce,
       SortedMap<String,GcCandidate> candidateMap)
       throws InterruptedException, IOException, TableNotFoundException {
+    long startTime = System.nanoTime();
     Span deleteSpan = TraceUtil.startSpan(this.getClass(), "deleteFiles");
     try (Scope deleteScope = deleteSpan.makeCurrent()) {
       gce.deleteConfirmedCandidates(candidateMap);
@@ -337,6 +377,7 @@ public class GarbageCollectionAlgorithm {
     }
 
     cleanUpDeletedTableDirs(gce, candidateMap);
+    gce.incrementStageTime(Stage.DELETE_FILES, System.nanoTime() - startTime);
   }
 
   public long collect(GarbageCollectionEnvironment gce)
@@ -344,19 +385,27 @@ public class GarbageCollectionAlgorithm {
 
     Iterator<GcCandidate> candidatesIter = gce.getCandidates();
     long totalBlips = 0;
-
-    while (candidatesIter.hasNext()) {
-      List<GcCandidate> batchOfCandidates;
-      Span candidatesSpan = TraceUtil.startSpan(this.getClass(), "getCandidates");
-      try (Scope candidatesScope = candidatesSpan.makeCurrent()) {
-        batchOfCandidates = gce.readCandidatesThatFitInMemory(candidatesIter);
-      } catch (Exception e) {
-        TraceUtil.setException(candidatesSpan, e, true);
-        throw e;
-      } finally {
-        candidatesSpan.end();
+    Deleter deleter = new Deleter(gce);
+
+    try {
+      while (candidatesIter.hasNext()) {
+        List<GcCandidate> batchOfCandidates;
+        long startTime = System.nanoTime();
+        Span candidatesSpan = TraceUtil.startSpan(this.getClass(), "getCandidates");
+        try (Scope candidatesScope = candidatesSpan.makeCurrent()) {
+          batchOfCandidates = gce.readCandidatesThatFitInMemory(candidatesIter);
+        } catch (Exception e) {
+          TraceUtil.setException(candidatesSpan, e, true);
+          throw e;
+        } finally {
+          candidatesSpan.end();
+        }
+        gce.incrementStageTime(Stage.READ_CANDIDATES, System.nanoTime() - startTime);
+        totalBlips = deleteBatch(gce, batchOfCandidates, deleter);
       }
-      totalBlips = deleteBatch(gce, batchOfCandidates);
+      deleter.awaitPending();
+    } finally {
+      deleter.awaitPendingQuietly();
     }
     return totalBlips;
   }
@@ -364,19 +413,515 @@ public class GarbageCollectionAlgorithm {
   /**
    * Given a sub-list of possible deletion candidates, process and remove valid deletion candidates.
    */
-  private long deleteBatch(GarbageCollectionEnvironment gce, List<GcCandidate> currentBatch)
-      throws InterruptedException, TableNotFoundException, IOException {
+  private long deleteBatch(GarbageCollectionEnvironment gce, List<GcCandidate> currentBatch,
+      Deleter deleter) throws InterruptedException, TableNotFoundException, IOException {
 
     long origSize = currentBatch.size();
     gce.incrementCandidatesStat(origSize);
 
     SortedMap<String,GcCandidate> candidateMap = makeRelative(currentBatch);
 
+    long startTime = System.nanoTime();
     long blips = confirmDeletesTrace(gce, candidateMap);
+    gce.incrementStageTime(Stage.CONFIRM_DELETES, System.nanoTime() - startTime);
     gce.incrementInUseStat(origSize - candidateMap.size());
 
-    deleteConfirmedCandidates(gce, candidateMap);
+    deleter.delete(candidateMap);
 
     return blips;
   }
+
+  /**
+   * Deletes confirmed candidates in the calling thread, or using the delete executor when there is
+   * one. At most one delete is in progress on the executor, so only one set of confirmed candidates
+   * is held for deletion while the next candidates are confirmed.
+   */
+  private class Deleter {
+    private final GarbageCollectionEnvironment gce;
+    private FutureTask<Void> pending = null;
+    // time the calling thread spent deleting or waiting on a delete
+    private long callerNanos = 0;
+
+    Deleter(GarbageCollectionEnvironment gce) {
+      this.gce = gce;
+    }
+
+    void delete(SortedMap<String,GcCandidate> candidateMap)
+        throws InterruptedException, TableNotFoundException, IOException {
+      long startTime = System.nanoTime();
+      try {
+        if (deleteExecutor == null) {
+          deleteConfirmedCandidates(gce, candidateMap);
+          return;
+        }
+        awaitPending();
+        var task = new FutureTask<Void>(TraceUtil.wrap(() -> {
+          deleteConfirmedCandidates(gce, candidateMap);
+          return null;
+        }));
+        deleteExecutor.execute(task);
+        pending = task;
+      } finally {
+        callerNanos += System.nanoTime() - startTime;
+      }
+    }
+
+    /**
+     * @return the memory to use for candidates buffered to be deleted, half of the given memory
+     *         when a previous buffer may still be held by a delete in progress
+     */
+    long bufferBytes(long runBytes) {
+      return deleteExecutor == null ? runBytes : runBytes / 2;
+    }
+
+    void awaitPending() throws InterruptedException, TableNotFoundException, IOException {
+      if (pending == null) {
+        return;
+      }
+      long startTime = System.nanoTime();
+      try {
+        pending.get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof TableNotFoundException) {
+          throw (TableNotFoundException) cause;
+        } else if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof InterruptedException) {
+          throw (InterruptedException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      } finally {
+        pending = null;
+        callerNanos += System.nanoTime() - startTime;
+      }
+    }
+
+    /**
+     * Waits for a delete that is still in progress after a failure, so it does not outlive the
+     * collection.
+     */
+    void awaitPendingQuietly() {
+      try {
+        awaitPending();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        log.warn("Failed to delete confirmed candidates", e);
+      }
+    }
+  }
+
+  // rough heap usage of a sorted map entry, in addition to the chars of its strings
+  private static final int ENTRY_OVERHEAD = 96;
+
+  private static final ExternalSort.Codec<GcCandidate> CANDIDATE_CODEC =
+      new ExternalSort.Codec<>() {
+        @Override
+        public void write(DataOutputStream out, GcCandidate candidate)
+            throws IOException {
+          out.writeUTF(candidate.getPath());
+          out.writeLong(candidate.getUid());
+        }
+
+        @Override
+        public GcCandidate read(DataInputStream in) throws IOException {
+          return new GcCandidate(in.readUTF(), in.readLong());
+        }
+      };
+
+  private static final ExternalSort.Codec<Boolean> REFERENCE_CODEC = new ExternalSort.Codec<>() {
+    @Override
+    public void write(DataOutputStream out, Boolean value) throws IOException {
+      out.writeBoolean(value);
+    }
+
+    @Override
+    public Boolean read(DataInputStream in) throws IOException {
+      return in.readBoolean();
+    }
+  };
+
+  /**
+   * Collects garbage with a single pass over the references, no matter how many candidates there
+   * are. {@link #collect(GarbageCollectionEnvironment)} scans all references once for every batch
+   * of candidates that fits in memory. This instead sorts the candidates and the referenced paths
+   * into runs on local disk, and then merge joins them.
+   *
+   * @param spillDir a local directory to write the sorted runs to, it is deleted when done
+   * @param runBytes the approximate amount of memory used to sort each run of references, and to
+   *        buffer candidates to delete
+   * @return the number of bulk load in progress flags seen
+   */
+  public long collectSortMerge(GarbageCollectionEnvironment gce, Path spillDir, long runBytes)
+      throws InterruptedException, TableNotFoundException, IOException {
+    Span span = TraceUtil.startSpan(this.getClass(), "collectSortMerge");
+    try (Scope scope = span.makeCurrent();
+        var candidates = new ExternalSort<>(spillDir.resolve("candidates"), CANDIDATE_CODEC,
+            (first, second) -> first);
+        var references = new ExternalSort<>(spillDir.resolve("references"), REFERENCE_CODEC,
+            Boolean::logicalOr)) {
+
+      NavigableSet<String> blips = new TreeSet<>();
+      long totalCandidates = spillCandidates(gce, candidates, blips);
+
+      long startTime = System.nanoTime();
+      sortReferences(gce, references, runBytes);
+
+      Deleter deleter = new Deleter(gce);
+      long confirmed;
+      try {
+        confirmed =
+            mergeJoin(gce, candidates.merge(), references.merge(), blips, runBytes, deleter);
+        deleter.awaitPending();
+      } finally {
+        deleter.awaitPendingQuietly();
+      }
+      gce.incrementInUseStat(totalCandidates - confirmed);
+      // the merge join confirms and deletes candidates as it goes
+      gce.incrementStageTime(Stage.CONFIRM_DELETES,
+          System.nanoTime() - startTime - deleter.callerNanos);
+
+      log.debug("Merged {} candidate runs with {} reference runs", candidates.getNumRuns(),
+          references.getNumRuns());
+      return blips.size();
+    } catch (Exception e) {
+      TraceUtil.setException(span, e, true);
+      throw e;
+    } finally {
+      span.end();
+      Files.deleteIfExists(spillDir);
+    }
+  }
+
+  /**
+   * Collects garbage by checking the candidates against a {@link ReferenceFilter} of all referenced
+   * paths before confirming them exactly. Most candidates are not referenced and miss the filter,
+   * those are deleted without holding any references in memory. Only the candidates that hit the
+   * filter, because they are in use or are false positives, are confirmed by another scan of the
+   * references. Like {@link #collectSortMerge(GarbageCollectionEnvironment, Path, long)}, all
+   * candidates are read into runs on local disk before any references are read.
+   *
+   * @param spillDir a local directory to write the sorted runs to, it is deleted when done
+   * @param runBytes the approximate amount of memory used to sort each run of candidates, and to
+   *        buffer candidates to delete or confirm
+   * @param errorRate the desired rate of false positives of the filter
+   * @return the number of bulk load in progress flags seen
+   */
+  public long collectFiltered(GarbageCollectionEnvironment gce, Path spillDir, long runBytes,
+      double errorRate) throws InterruptedException, TableNotFoundException, IOException {
+    return collectFiltered(gce, spillDir, runBytes, new ReferenceFilter(errorRate));
+  }
+
+  @VisibleForTesting
+  long collectFiltered(GarbageCollectionEnvironment gce, Path spillDir, long runBytes,
+      ReferenceFilter filter) throws InterruptedException, TableNotFoundException, IOException {
+    Span span = TraceUtil.startSpan(this.getClass(), "collectFiltered");
+    try (Scope scope = span.makeCurrent();
+        var candidates = new ExternalSort<>(spillDir.resolve("candidates"), CANDIDATE_CODEC,
+            (first, second) -> first)) {
+
+      NavigableSet<String> blips = new TreeSet<>();
+      long totalCandidates = spillCandidates(gce, candidates, blips);
+
+      long startTime = System.nanoTime();
+      filterReferences(gce, filter);
+
+      Deleter deleter = new Deleter(gce);
+      long confirmed;
+      try {
+        confirmed = deleteFilterMisses(gce, candidates.merge(), filter, blips, runBytes, deleter);
+        deleter.awaitPending();
+      } finally {
+        deleter.awaitPendingQuietly();
+      }
+      gce.incrementInUseStat(totalCandidates - confirmed);
+      gce.incrementStageTime(Stage.CONFIRM_DELETES,
+          System.nanoTime() - startTime - deleter.callerNanos);
+      return blips.size();
+    } catch (Exception e) {
+      TraceUtil.setException(span, e, true);
+      throw e;
+    } finally {
+      span.end();
+      Files.deleteIfExists(spillDir);
+    }
+  }
+
+  /**
+   * Reads all candidates into sorted runs, before any references are read, like collect() does for
+   * each batch.
+   *
+   * @param blips receives the bulk load in progress directories, when any candidate may be in one
+   * @return the number of candidates read
+   */
+  private long spillCandidates(GarbageCollectionEnvironment gce,
+      ExternalSort<GcCandidate> candidates, NavigableSet<String> blips)
+      throws TableNotFoundException, IOException {
+    long startTime = System.nanoTime();
+    long totalCandidates = 0;
+    boolean checkForBulkProcessingFiles = false;
+    Iterator<GcCandidate> candidatesIter = gce.getCandidates();
+    while (candidatesIter.hasNext()) {
+      List<GcCandidate> batch = gce.readCandidatesThatFitInMemory(candidatesIter);
+      totalCandidates += batch.size();
+      SortedMap<String,GcCandidate> run = makeRelative(batch);
+      checkForBulkProcessingFiles |= run.keySet().stream().anyMatch(relativePath -> relativePath
+          .toLowerCase(Locale.ENGLISH).contains(Constants.BULK_PREFIX));
+      candidates.addRun(run);
+    }
+    gce.incrementCandidatesStat(totalCandidates);
+    gce.incrementStageTime(Stage.READ_CANDIDATES, System.nanoTime() - startTime);
+
+    if (checkForBulkProcessingFiles) {
+      startTime = System.nanoTime();
+      try (Stream<String> blipStream = gce.getBlipPaths()) {
+        blipStream.forEach(blipPath -> blips.add(makeRelative(blipPath, 2)));
+      }
+      gce.incrementStageTime(Stage.CONFIRM_DELETES, System.nanoTime() - startTime);
+    }
+    return totalCandidates;
+  }
+
+  /**
+   * Adds every path referenced by tablets to the filter. A file reference also refers to the
+   * directory of the file.
+   */
+  private void filterReferences(GarbageCollectionEnvironment gce, ReferenceFilter filter)
+      throws InterruptedException {
+    Set<TableId> tableIdsBefore = gce.getCandidateTableIDs();
+    Set<TableId> tableIdsSeen = new HashSet<>();
+    try (Stream<Reference> referenceStream = gce.getReferences()) {
+      referenceStream.forEach(ref -> {
+        tableIdsSeen.add(ref.getTableId());
+
+        if (ref.isDirectory()) {
+          filter.add(referencedDir(ref));
+        } else {
+          String relativePath = referencedFile(ref);
+          filter.add(relativePath);
+          filter.add(relativePath.substring(0, relativePath.lastIndexOf('/')));
+        }
+      });
+    }
+
+    Set<TableId> tableIdsAfter = gce.getCandidateTableIDs();
+    ensureAllTablesChecked(Collections.unmodifiableSet(tableIdsBefore),
+        Collections.unmodifiableSet(tableIdsSeen), Collections.unmodifiableSet(tableIdsAfter));
+  }
+
+  /**
+   * Deletes the candidates that miss the filter. The candidates that hit the filter are buffered
+   * and confirmed by an exact scan of the references.
+   *
+   * @return the number of candidates confirmed for deletion
+   */
+  private long deleteFilterMisses(GarbageCollectionEnvironment gce,
+      Iterator<Entry<String,GcCandidate>> candidates, ReferenceFilter filter,
+      NavigableSet<String> blips, long runBytes, Deleter deleter)
+      throws InterruptedException, TableNotFoundException, IOException {
+    long confirmed = 0;
+    SortedMap<String,GcCandidate> misses = new TreeMap<>();
+    SortedMap<String,GcCandidate> hits = new TreeMap<>();
+    long missBytes = 0;
+    long hitBytes = 0;
+    long bufferBytes = deleter.bufferBytes(runBytes);
+
+    while (candidates.hasNext()) {
+      Entry<String,GcCandidate> candidate = candidates.next();
+      String relativePath = candidate.getKey();
+
+      // WARNING: You MUST NOT delete candidates in the same folder as a bulk processing flag
+      if (!blips.isEmpty() && isInBulkProcessingDir(blips, relativePath)) {
+        log.debug("Folder has bulk processing flag: {}", relativePath);
+        continue;
+      }
+
+      long entryBytes =
+          2L * (relativePath.length() + candidate.getValue().getPath().length()) + ENTRY_OVERHEAD;
+      if (filter.mightContain(relativePath)) {
+        hits.put(relativePath, candidate.getValue());
+        hitBytes += entryBytes;
+        if (hitBytes > bufferBytes) {
+          confirmed += confirmFilterHits(gce, hits, deleter);
+          hits = new TreeMap<>();
+          hitBytes = 0;
+        }
+      } else {
+        // nothing references the candidate, the filter has no false negatives
+        misses.put(relativePath, candidate.getValue());
+        confirmed++;
+        missBytes += entryBytes;
+        if (missBytes > bufferBytes) {
+          deleter.delete(misses);
+          misses = new TreeMap<>();
+          missBytes = 0;
+        }
+      }
+    }
+
+    if (!misses.isEmpty()) {
+      deleter.delete(misses);
+    }
+    if (!hits.isEmpty()) {
+      confirmed += confirmFilterHits(gce, hits, deleter);
+    }
+    return confirmed;
+  }
+
+  /**
+   * Removes the candidates that are in use from the candidates that hit the filter, with an exact
+   * scan of the references, and then deletes the rest.
+   *
+   * @return the number of candidates that hit the filter but were not referenced
+   */
+  private long confirmFilterHits(GarbageCollectionEnvironment gce,
+      SortedMap<String,GcCandidate> hits, Deleter deleter)
+      throws InterruptedException, TableNotFoundException, IOException {
+    int numHits = hits.size();
+    removeCandidatesInUse(gce, hits);
+    // read the size before deleting, deletes may modify the map
+    int notReferenced = hits.size();
+    log.debug("{} of {} candidates that hit the reference filter were not referenced",
+        notReferenced, numHits);
+    if (notReferenced > 0) {
+      deleter.delete(hits);
+    }
+    return notReferenced;
+  }
+
+  /**
+   * Sorts the paths referenced by tablets into runs. The value of a path is true if a reference
+   * other than a scan reference refers to it, in which case a candidate for the path can be
+   * deleted.
+   */
+  private void sortReferences(GarbageCollectionEnvironment gce, ExternalSort<Boolean> references,
+      long runBytes) throws InterruptedException, IOException {
+    Set<TableId> tableIdsBefore = gce.getCandidateTableIDs();
+    Set<TableId> tableIdsSeen = new HashSet<>();
+    TreeMap<String,Boolean> run = new TreeMap<>();
+    long runSize = 0;
+    try (Stream<Reference> referenceStream = gce.getReferences()) {
+      Iterator<Reference> iter = referenceStream.iterator();
+      while (iter.hasNext()) {
+        Reference ref = iter.next();
+        tableIdsSeen.add(ref.getTableId());
+
+        if (ref.isDirectory()) {
+          runSize += addReference(run, referencedDir(ref), false);
+        } else {
+          String relativePath = referencedFile(ref);
+          runSize += addReference(run, relativePath, !ref.isScan());
+          runSize += addReference(run, relativePath.substring(0, relativePath.lastIndexOf('/')),
+              false);
+        }
+
+        if (runSize > runBytes) {
+          references.addRun(run);
+          run = new TreeMap<>();
+          runSize = 0;
+        }
+      }
+    }
+    references.addRun(run);
+
+    Set<TableId> tableIdsAfter = gce.getCandidateTableIDs();
+    ensureAllTablesChecked(Collections.unmodifiableSet(tableIdsBefore),
+        Collections.unmodifiableSet(tableIdsSeen), Collections.unmodifiableSet(tableIdsAfter));
+  }
+
+  private static long addReference(TreeMap<String,Boolean> run, String path, boolean deletable) {
+    Boolean previous = run.get(path);
+    if (previous == null) {
+      run.put(path, deletable);
+      return 2L * path.length() + ENTRY_OVERHEAD;
+    }
+    if (deletable && !previous) {
+      run.put(path, true);
+    }
+    return 0;
+  }
+
+  private static boolean isInBulkProcessingDir(NavigableSet<String> blips, String relativePath) {
+    // Only blips of the candidate's table can be a prefix of it, and those sort together.
+    String table = relativePath.substring(0, relativePath.indexOf('/') + 1);
+    for (String blip : blips.headSet(relativePath, true).descendingSet()) {
+      if (relativePath.startsWith(blip)) {
+        return true;
+      }
+      if (!blip.startsWith(table)) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Walks the sorted candidates and references together, deleting the candidates that are not
+   * referenced.
+   *
+   * @return the number of candidates confirmed for deletion
+   */
+  private long mergeJoin(GarbageCollectionEnvironment gce,
+      Iterator<Entry<String,GcCandidate>> candidates, Iterator<Entry<String,Boolean>> references,
+      NavigableSet<String> blips, long runBytes, Deleter deleter)
+      throws InterruptedException, TableNotFoundException, IOException {
+    long confirmed = 0;
+    SortedMap<String,GcCandidate> toDelete = new TreeMap<>();
+    List<GcCandidate> inUseToDelete = new ArrayList<>();
+    long bufferedBytes = 0;
+    long bufferBytes = deleter.bufferBytes(runBytes);
+    Entry<String,Boolean> ref = references.hasNext() ? references.next() : null;
+
+    while (candidates.hasNext()) {
+      Entry<String,GcCandidate> candidate = candidates.next();
+      String relativePath = candidate.getKey();
+
+      // WARNING: You MUST NOT delete candidates in the same folder as a bulk processing flag
+      if (!blips.isEmpty() && isInBulkProcessingDir(blips, relativePath)) {
+        log.debug("Folder has bulk processing flag: {}", relativePath);
+        continue;
+      }
+
+      while (ref != null && ref.getKey().compareTo(relativePath) < 0) {
+        ref = references.hasNext() ? references.next() : null;
+      }
+
+      // WARNING: You MUST NOT delete candidates that are still in use
+      if (ref != null && ref.getKey().equals(relativePath)) {
+        log.debug("Candidate was still in use: {}", relativePath);
+        // Only file candidates referenced by something other than a scan can be deleted, scans
+        // will not recreate them and directory candidates are only created once.
+        if (ref.getValue()) {
+          inUseToDelete.add(candidate.getValue());
+          bufferedBytes += 2L * candidate.getValue().getPath().length() + ENTRY_OVERHEAD;
+        }
+      } else {
+        toDelete.put(relativePath, candidate.getValue());
+        confirmed++;
+        bufferedBytes += 2L * (relativePath.length() + candidate.getValue().getPath().length())
+            + ENTRY_OVERHEAD;
+      }
+
+      if (bufferedBytes > bufferBytes) {
+        gce.deleteGcCandidates(inUseToDelete, GcCandidateType.INUSE);
+        if (!toDelete.isEmpty()) {
+          deleter.delete(toDelete);
+        }
+        inUseToDelete = new ArrayList<>();
+        toDelete = new TreeMap<>();
+        bufferedBytes = 0;
+      }
+    }
+
+    gce.deleteGcCandidates(inUseToDelete, GcCandidateType.INUSE);
+    if (!toDelete.isEmpty()) {
+      deleter.delete(toDelete);
+    }
+    return confirmed;
+  }
 }
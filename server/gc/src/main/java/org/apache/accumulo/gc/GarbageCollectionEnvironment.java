@@ -130,4 +130,26 @@ public interface GarbageCollectionEnvironment {
    */
   void incrementInUseStat(long i);
 
+  /**
+   * The stages of a garbage collection run that are timed. When deletes are pipelined the stages
+   * overlap, so their times can add up to more than the time of the run.
+   */
+  enum Stage {
+    /** Reading the deletion candidates. */
+    READ_CANDIDATES,
+    /** Reading the bulk load flags and file references to confirm the candidates. */
+    CONFIRM_DELETES,
+    /** Deleting the confirmed candidates. */
+    DELETE_FILES
+  }
+
+  /**
+   * Increment the time spent in a stage for the current garbage collection run. May be called
+   * concurrently.
+   *
+   * @param stage the stage the time was spent in
+   * @param nanos the time spent, in nanoseconds
+   */
+  void incrementStageTime(Stage stage, long nanos);
+
 }
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.gc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.util.bloom.BloomFilter;
+import org.apache.hadoop.util.bloom.Key;
+import org.apache.hadoop.util.hash.Hash;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+/**
+ * A compact set of the relative paths that file references refer to. It may report that a path is
+ * referenced when it is not, but it never reports that a referenced path is not referenced. The
+ * filter grows as paths are added, so the number of references does not need to be known ahead of
+ * time.
+ *
+ * <p>
+ * The filter is a scalable bloom filter. Paths are added to the newest of a list of bloom filters,
+ * and a new filter is added once it is full. A path might be contained if any of the filters might
+ * contain it, so their false positive rates add up. Each new filter holds twice as many paths as
+ * the previous one, at half its false positive rate, so the rates of all the filters together never
+ * add up to more than the requested rate.
+ */
+class ReferenceFilter {
+
+  // the number of paths the first filter holds, larger filters are limited so the bits of a filter
+  // always fit in an int
+  static final int PATHS_PER_ROW = 1 << 20;
+  private static final int MAX_PATHS_PER_ROW = 1 << 24;
+
+  private final List<BloomFilter> rows = new ArrayList<>();
+  private double rowErrorRate;
+  private int rowCapacity;
+  private int rowSize = 0;
+
+  ReferenceFilter(double errorRate) {
+    this(errorRate, PATHS_PER_ROW);
+  }
+
+  @VisibleForTesting
+  ReferenceFilter(double errorRate, int firstRowPaths) {
+    Preconditions.checkArgument(errorRate > 0 && errorRate < 1,
+        "error rate must be between 0 and 1 exclusive, saw %s", errorRate);
+    Preconditions.checkArgument(firstRowPaths > 0, "paths per row must be positive, saw %s",
+        firstRowPaths);
+    this.rowErrorRate = errorRate / 2;
+    this.rowCapacity = firstRowPaths;
+    addRow();
+  }
+
+  private void addRow() {
+    // the optimal number of hashes and bits for the error rate of the row
+    int hashCount = (int) Math.ceil(-Math.log(rowErrorRate) / Math.log(2));
+    int vectorSize = (int) Math.ceil(
+        -rowCapacity * Math.log(rowErrorRate) / (Math.log(2) * Math.log(2)));
+    rows.add(new BloomFilter(vectorSize, hashCount, Hash.MURMUR_HASH));
+    rowSize = 0;
+  }
+
+  void add(String relativePath) {
+    if (rowSize >= rowCapacity) {
+      rowErrorRate /= 2;
+      rowCapacity = Math.min(2 * rowCapacity, MAX_PATHS_PER_ROW);
+      addRow();
+    }
+    rows.get(rows.size() - 1).add(new Key(relativePath.getBytes(UTF_8)));
+    rowSize++;
+  }
+
+  /**
+   * @return false if the path was never added, true if it may have been
+   */
+  boolean mightContain(String relativePath) {
+    Key key = new Key(relativePath.getBytes(UTF_8));
+    for (BloomFilter row : rows) {
+      if (row.membershipTest(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @VisibleForTesting
+  int getRows() {
+    return rows.size();
+  }
+}
@@ -20,21 +20,27 @@ package org.apache.accumulo.gc;
 
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.accumulo.core.util.threads.ThreadPoolNames.GC_DELETE_PIPELINE_POOL;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.cli.ConfigOpts;
 import org.apache.accumulo.core.client.AccumuloClient;
+import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.client.admin.servers.ServerId;
 import org.apache.accumulo.core.client.admin.servers.ServerId.Type;
 import org.apache.accumulo.core.clientImpl.thrift.TInfo;
@@ -57,6 +63,7 @@ import org.apache.accumulo.core.trace.TraceUtil;
 import org.apache.accumulo.core.util.Timer;
 import org.apache.accumulo.core.util.compaction.ExternalCompactionUtil;
 import org.apache.accumulo.core.util.threads.ThreadPools;
+import org.apache.accumulo.gc.GarbageCollectionEnvironment.Stage;
 import org.apache.accumulo.gc.metrics.GcCycleMetrics;
 import org.apache.accumulo.gc.metrics.GcMetrics;
 import org.apache.accumulo.server.AbstractServer;
@@ -89,6 +96,7 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
       new GCStatus(new GcCycleStats(), new GcCycleStats(), new GcCycleStats(), new GcCycleStats());
 
   private final GcCycleMetrics gcCycleMetrics = new GcCycleMetrics();
+  private final Map<Stage,Long> cycleStageNanos = new EnumMap<>(Stage.class);
   private ServiceLock gcLock;
 
   private final Timer lastCompactorCheck = Timer.startNew();
@@ -105,7 +113,11 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
     log.info("time delay: {} milliseconds", gcDelay);
     log.info("safemode: {}", inSafeMode());
     log.info("candidate batch size: {} bytes", getCandidateBatchSize());
+    log.info("candidate sort merge: {}", conf.getBoolean(Property.GC_CANDIDATE_SORT_MERGE_ENABLED));
+    log.info("candidate filter: {}", conf.getBoolean(Property.GC_CANDIDATE_FILTER_ENABLED));
     log.info("delete threads: {}", getNumDeleteThreads());
+    log.info("delete pipeline: {}", conf.getBoolean(Property.GC_DELETE_PIPELINE_ENABLED));
+    log.info("reference scan threads: {}", conf.getCount(Property.GC_REFERENCE_SCAN_THREADS));
     log.info("gc post metadata action: {}", useFullCompaction);
   }
 
@@ -142,6 +154,40 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
     return getConfiguration().getAsBytes(Property.GC_CANDIDATE_BATCH_SIZE);
   }
 
+  /**
+   * Runs the garbage collection algorithm configured for the given data level.
+   *
+   * @return the number of bulk load in progress flags seen
+   */
+  private long collect(GCRun gcRun)
+      throws InterruptedException, TableNotFoundException, IOException {
+    long batchSize = getCandidateBatchSize();
+    ThreadPoolExecutor deletePipeline = null;
+    if (getConfiguration().getBoolean(Property.GC_DELETE_PIPELINE_ENABLED)) {
+      deletePipeline = ThreadPools.getServerThreadPools().getPoolBuilder(GC_DELETE_PIPELINE_POOL)
+          .numCoreThreads(1).build();
+    }
+    try {
+      var gca = new GarbageCollectionAlgorithm(deletePipeline);
+      boolean sortMerge = getConfiguration().getBoolean(Property.GC_CANDIDATE_SORT_MERGE_ENABLED);
+      if (!sortMerge && !getConfiguration().getBoolean(Property.GC_CANDIDATE_FILTER_ENABLED)) {
+        return gca.collect(gcRun);
+      }
+      String dir = getConfiguration().get(Property.GC_CANDIDATE_SORT_MERGE_DIR);
+      var spillDir = Paths.get(dir.isBlank() ? System.getProperty("java.io.tmpdir") : dir)
+          .resolve("accumulo-gc-" + gcRun.getLevel().name().toLowerCase(Locale.ENGLISH));
+      if (sortMerge) {
+        return gca.collectSortMerge(gcRun, spillDir, batchSize);
+      }
+      return gca.collectFiltered(gcRun, spillDir, batchSize,
+          getConfiguration().getFraction(Property.GC_CANDIDATE_FILTER_ERRORRATE));
+    } finally {
+      if (deletePipeline != null) {
+        deletePipeline.shutdown();
+      }
+    }
+  }
+
   /**
    * Checks if safemode is set - files will not be deleted.
    *
@@ -207,26 +253,32 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
           Span innerSpan = TraceUtil.startSpan(this.getClass(), "loop");
           try (Scope innerScope = innerSpan.makeCurrent()) {
             final long tStart = System.nanoTime();
+            // shared by every read of the references in this cycle
+            ThreadPoolExecutor referenceScanPool = null;
             try {
               System.gc(); // make room
 
               status.current.started = System.currentTimeMillis();
-              var rootGC = new GCRun(DataLevel.ROOT, getContext());
-              var mdGC = new GCRun(DataLevel.METADATA, getContext());
-              var userGC = new GCRun(DataLevel.USER, getContext());
+              if (getConfiguration().getCount(Property.GC_REFERENCE_SCAN_THREADS) > 1) {
+                referenceScanPool = ThreadPools.getServerThreadPools()
+                    .createExecutorService(getConfiguration(), Property.GC_REFERENCE_SCAN_THREADS);
+              }
+              var rootGC = new GCRun(DataLevel.ROOT, getContext(), referenceScanPool);
+              var mdGC = new GCRun(DataLevel.METADATA, getContext(), referenceScanPool);
+              var userGC = new GCRun(DataLevel.USER, getContext(), referenceScanPool);
 
               log.info("Starting Root table Garbage Collection.");
-              status.current.bulks += new GarbageCollectionAlgorithm().collect(rootGC);
+              status.current.bulks += collect(rootGC);
               incrementStatsForRun(rootGC);
               logStats();
 
               log.info("Starting Metadata table Garbage Collection.");
-              status.current.bulks += new GarbageCollectionAlgorithm().collect(mdGC);
+              status.current.bulks += collect(mdGC);
               incrementStatsForRun(mdGC);
               logStats();
 
               log.info("Starting User table Garbage Collection.");
-              status.current.bulks += new GarbageCollectionAlgorithm().collect(userGC);
+              status.current.bulks += collect(userGC);
               incrementStatsForRun(userGC);
               logStats();
 
@@ -234,10 +286,18 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
               TraceUtil.setException(innerSpan, e, false);
               log.error("{}", e.getMessage(), e);
             } finally {
+              if (referenceScanPool != null) {
+                referenceScanPool.shutdownNow();
+              }
               status.current.finished = System.currentTimeMillis();
               status.last = status.current;
               gcCycleMetrics.setLastCollect(status.current);
               status.current = new GcCycleStats();
+              for (Stage stage : Stage.values()) {
+                gcCycleMetrics.setStageDurationNanos(stage,
+                    cycleStageNanos.getOrDefault(stage, 0L));
+              }
+              cycleStageNanos.clear();
             }
 
             final long tStop = System.nanoTime();
@@ -357,6 +417,9 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
     status.current.inUse += gcRun.getInUseStat();
     status.current.deleted += gcRun.getDeletedStat();
     status.current.errors += gcRun.getErrorsStat();
+    for (Stage stage : Stage.values()) {
+      cycleStageNanos.merge(stage, gcRun.getStageNanos(stage), Long::sum);
+    }
   }
 
   private void logStats() {
@@ -365,6 +428,10 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
     log.info("Number of successfully deleted data files: {}", status.current.deleted);
     log.info("Number of data files delete failures: {}", status.current.errors);
     log.info("Number of bulk imports in progress: {}", status.current.bulks);
+    log.info("Time reading candidates, confirming deletes and deleting files: {} ms, {} ms, {} ms",
+        TimeUnit.NANOSECONDS.toMillis(cycleStageNanos.getOrDefault(Stage.READ_CANDIDATES, 0L)),
+        TimeUnit.NANOSECONDS.toMillis(cycleStageNanos.getOrDefault(Stage.CONFIRM_DELETES, 0L)),
+        TimeUnit.NANOSECONDS.toMillis(cycleStageNanos.getOrDefault(Stage.DELETE_FILES, 0L)));
   }
 
   /**
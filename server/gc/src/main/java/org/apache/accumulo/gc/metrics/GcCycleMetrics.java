@@ -18,10 +18,13 @@
  */
 package org.apache.accumulo.gc.metrics;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.accumulo.core.gc.thrift.GcCycleStats;
+import org.apache.accumulo.gc.GarbageCollectionEnvironment.Stage;
 
 /**
  * Wrapper class for GcCycleStats so that underlying thrift code in GcCycleStats is not modified.
@@ -36,8 +39,13 @@ public class GcCycleMetrics {
 
   private final AtomicLong postOpDurationNanos = new AtomicLong(0);
   private final AtomicLong runCycleCount = new AtomicLong(0);
+  private final Map<Stage,AtomicLong> stageDurationNanos = new EnumMap<>(Stage.class);
 
-  public GcCycleMetrics() {}
+  public GcCycleMetrics() {
+    for (Stage stage : Stage.values()) {
+      stageDurationNanos.put(stage, new AtomicLong(0));
+    }
+  }
 
   /**
    * Get the last gc run statistics.
@@ -94,6 +102,24 @@ public class GcCycleMetrics {
     this.postOpDurationNanos.set(postOpDurationNanos);
   }
 
+  /**
+   * Time the last gc cycle spent in a stage of file collection, in nanoseconds.
+   *
+   * @return duration in nanoseconds.
+   */
+  long getStageDurationNanos(Stage stage) {
+    return stageDurationNanos.get(stage).get();
+  }
+
+  /**
+   * Set the time the last gc cycle spent in a stage of file collection, in nanoseconds.
+   *
+   * @param stageDurationNanos the duration, in nanoseconds.
+   */
+  public void setStageDurationNanos(Stage stage, long stageDurationNanos) {
+    this.stageDurationNanos.get(stage).set(stageDurationNanos);
+  }
+
   /**
    * The number of gc cycles that have completed since initialization at process start.
    *
@@ -116,6 +142,7 @@ public class GcCycleMetrics {
     sb.append("lastCollect=").append(lastCollect.get());
     sb.append(", lastWalCollect=").append(lastWalCollect.get());
     sb.append(", postOpDuration=").append(postOpDurationNanos.get());
+    sb.append(", stageDurations=").append(stageDurationNanos);
     sb.append('}');
     return sb.toString();
   }
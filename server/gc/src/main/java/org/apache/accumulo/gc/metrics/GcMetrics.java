@@ -19,11 +19,14 @@
 package org.apache.accumulo.gc.metrics;
 
 import static org.apache.accumulo.core.metrics.Metric.GC_CANDIDATES;
+import static org.apache.accumulo.core.metrics.Metric.GC_CONFIRM_DELETES_DURATION;
 import static org.apache.accumulo.core.metrics.Metric.GC_DELETED;
+import static org.apache.accumulo.core.metrics.Metric.GC_DELETE_FILES_DURATION;
 import static org.apache.accumulo.core.metrics.Metric.GC_ERRORS;
 import static org.apache.accumulo.core.metrics.Metric.GC_FINISHED;
 import static org.apache.accumulo.core.metrics.Metric.GC_IN_USE;
 import static org.apache.accumulo.core.metrics.Metric.GC_POST_OP_DURATION;
+import static org.apache.accumulo.core.metrics.Metric.GC_READ_CANDIDATES_DURATION;
 import static org.apache.accumulo.core.metrics.Metric.GC_RUN_CYCLE;
 import static org.apache.accumulo.core.metrics.Metric.GC_STARTED;
 import static org.apache.accumulo.core.metrics.Metric.GC_WAL_CANDIDATES;
@@ -36,6 +39,7 @@ import static org.apache.accumulo.core.metrics.Metric.GC_WAL_STARTED;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.metrics.MetricsProducer;
+import org.apache.accumulo.gc.GarbageCollectionEnvironment.Stage;
 import org.apache.accumulo.gc.SimpleGarbageCollector;
 
 import io.micrometer.core.instrument.Gauge;
@@ -64,6 +68,18 @@ public class GcMetrics implements MetricsProducer {
         .description(GC_DELETED.getDescription()).register(registry);
     Gauge.builder(GC_ERRORS.getName(), metricValues, v -> v.getLastCollect().getErrors())
         .description(GC_ERRORS.getDescription()).register(registry);
+    Gauge
+        .builder(GC_READ_CANDIDATES_DURATION.getName(), metricValues,
+            v -> TimeUnit.NANOSECONDS.toMillis(v.getStageDurationNanos(Stage.READ_CANDIDATES)))
+        .description(GC_READ_CANDIDATES_DURATION.getDescription()).register(registry);
+    Gauge
+        .builder(GC_CONFIRM_DELETES_DURATION.getName(), metricValues,
+            v -> TimeUnit.NANOSECONDS.toMillis(v.getStageDurationNanos(Stage.CONFIRM_DELETES)))
+        .description(GC_CONFIRM_DELETES_DURATION.getDescription()).register(registry);
+    Gauge
+        .builder(GC_DELETE_FILES_DURATION.getName(), metricValues,
+            v -> TimeUnit.NANOSECONDS.toMillis(v.getStageDurationNanos(Stage.DELETE_FILES)))
+        .description(GC_DELETE_FILES_DURATION.getDescription()).register(registry);
 
     // WAL metrics Gauges
     Gauge.builder(GC_WAL_STARTED.getName(), metricValues, v -> v.getLastWalCollect().getStarted())
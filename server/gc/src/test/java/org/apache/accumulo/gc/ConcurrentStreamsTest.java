@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.gc;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentStreamsTest {
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  public void setup() {
+    executor = Executors.newFixedThreadPool(3);
+  }
+
+  @AfterEach
+  public void teardown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testAllElementsRead() {
+    List<Supplier<Stream<Integer>>> sources = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      int start = i * 10_000;
+      int end = start + 2_345 * (i + 1);
+      // more sources than threads, and more elements than fit in the buffered batches
+      sources.add(() -> IntStream.range(start, end).boxed());
+    }
+    List<Integer> expected = sources.stream().flatMap(Supplier::get).sorted().collect(toList());
+
+    try (var stream = ConcurrentStreams.concat(sources, executor, 2)) {
+      assertEquals(expected, stream.sorted().collect(toList()));
+    }
+  }
+
+  @Test
+  public void testNoSources() {
+    try (var stream = ConcurrentStreams.<Integer>concat(List.of(), executor, 2)) {
+      assertEquals(0, stream.count());
+    }
+  }
+
+  @Test
+  public void testSourceFailure() {
+    var failure = new IllegalStateException("test failure");
+    List<Supplier<Stream<Integer>>> sources = List.of(() -> IntStream.range(0, 5_000).boxed(),
+        () -> Stream.concat(Stream.of(1, 2, 3), Stream.<Integer>generate(() -> {
+          throw failure;
+        })));
+
+    try (var stream = ConcurrentStreams.concat(sources, executor, 2)) {
+      var e = assertThrows(IllegalStateException.class, stream::count);
+      assertSame(failure, e.getCause());
+    }
+  }
+
+  @Test
+  public void testCloseStopsReaders() throws Exception {
+    CountDownLatch closed = new CountDownLatch(2);
+    List<Supplier<Stream<Integer>>> sources = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      sources.add(() -> Stream.iterate(0, n -> n + 1).onClose(closed::countDown));
+    }
+
+    try (var stream = ConcurrentStreams.concat(sources, executor, 1)) {
+      assertEquals(10, stream.limit(10).count());
+    }
+    assertTrue(closed.await(30, TimeUnit.SECONDS));
+  }
+}
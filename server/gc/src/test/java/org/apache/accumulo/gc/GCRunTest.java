@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.gc;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.metadata.schema.TabletMetadata;
+import org.apache.hadoop.io.Text;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GCRunTest {
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  public void setup() {
+    executor = Executors.newFixedThreadPool(3);
+  }
+
+  @AfterEach
+  public void teardown() {
+    executor.shutdownNow();
+  }
+
+  private static KeyExtent extent(String table, String prevEndRow, String endRow) {
+    return new KeyExtent(TableId.of(table), endRow == null ? null : new Text(endRow),
+        prevEndRow == null ? null : new Text(prevEndRow));
+  }
+
+  private static Supplier<Stream<TabletMetadata>> tablets(KeyExtent... extents) {
+    return () -> Stream.of(extents).map(extent -> TabletMetadata.builder(extent).build());
+  }
+
+  private List<KeyExtent> read(List<Supplier<Stream<TabletMetadata>>> rangeTablets,
+      Supplier<Stream<TabletMetadata>> allTablets) {
+    try (var stream = GCRun.readLinkedTablets(rangeTablets, allTablets,
+        tm -> Stream.of(tm.getExtent()), executor, 2)) {
+      return stream.collect(toList());
+    }
+  }
+
+  @Test
+  public void testLinkedRanges() {
+    // the first table ends in the middle of the second range, and the third range is empty
+    List<Supplier<Stream<TabletMetadata>>> rangeTablets =
+        List.of(tablets(extent("1", null, "a"), extent("1", "a", "b")),
+            tablets(extent("1", "b", "c"), extent("1", "c", null), extent("2", null, "m")),
+            tablets(), tablets(extent("2", "m", null)));
+    var rescanned = new AtomicBoolean(false);
+
+    List<KeyExtent> extents = read(rangeTablets, () -> {
+      rescanned.set(true);
+      return Stream.empty();
+    });
+
+    assertEquals(6, extents.size());
+    assertFalse(rescanned.get());
+  }
+
+  @Test
+  public void testGapAtRangeBoundary() {
+    // The tablet 1;c<b was merged into 1;d<c after the first range was read but before the second
+    // range was read. Each range links on its own, but neither saw the files of 1;c<b.
+    var merged = extent("1", "b", "d");
+    List<Supplier<Stream<TabletMetadata>>> rangeTablets =
+        List.of(tablets(extent("1", null, "a"), extent("1", "a", "b")),
+            tablets(extent("1", "d", "e"), extent("1", "e", null)));
+
+    List<KeyExtent> extents = read(rangeTablets, tablets(extent("1", null, "a"),
+        extent("1", "a", "b"), merged, extent("1", "d", "e"), extent("1", "e", null)));
+
+    // everything read concurrently, followed by everything read serially
+    assertEquals(9, extents.size());
+    assertFalse(extents.subList(0, 4).contains(merged));
+    assertEquals(merged, extents.get(6));
+  }
+
+  @Test
+  public void testGapAtTableBoundary() {
+    // the first range ends before the default tablet of table 1 and the second range starts at
+    // the first tablet of table 2
+    List<Supplier<Stream<TabletMetadata>>> rangeTablets =
+        List.of(tablets(extent("1", null, "a")), tablets(extent("2", null, null)));
+
+    List<KeyExtent> extents = read(rangeTablets,
+        tablets(extent("1", null, "a"), extent("1", "a", null), extent("2", null, null)));
+
+    assertEquals(5, extents.size());
+    assertTrue(extents.contains(extent("1", "a", null)));
+  }
+}
@@ -19,21 +19,27 @@
 package org.apache.accumulo.gc;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 
 import org.apache.accumulo.core.client.TableNotFoundException;
@@ -45,8 +51,10 @@ import org.apache.accumulo.core.manager.state.tables.TableState;
 import org.apache.accumulo.core.metadata.AccumuloTable;
 import org.apache.accumulo.core.metadata.schema.Ample;
 import org.apache.accumulo.core.metadata.schema.Ample.GcCandidateType;
+import org.apache.accumulo.gc.GarbageCollectionEnvironment.Stage;
 import org.apache.hadoop.fs.Path;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class GarbageCollectionTest {
 
@@ -59,6 +67,7 @@ public class GarbageCollectionTest {
 
     ArrayList<GcCandidate> fileDeletions = new ArrayList<>();
     ArrayList<TableId> tablesDirsToDelete = new ArrayList<>();
+    Map<Stage,Long> stageNanos = new EnumMap<>(Stage.class);
     private long timestamp = 0L;
 
     private final Ample.DataLevel level;
@@ -107,7 +116,8 @@ public class GarbageCollectionTest {
     }
 
     @Override
-    public void deleteGcCandidates(Collection<GcCandidate> refCandidates, GcCandidateType type) {
+    public synchronized void deleteGcCandidates(Collection<GcCandidate> refCandidates,
+        GcCandidateType type) {
       // Mimic ServerAmpleImpl behavior for root InUse Candidates
       if (type.equals(GcCandidateType.INUSE) && this.level.equals(Ample.DataLevel.ROOT)) {
         // Since there is only a single root tablet, supporting INUSE candidate deletions would add
@@ -127,13 +137,14 @@ public class GarbageCollectionTest {
     }
 
     @Override
-    public void deleteConfirmedCandidates(SortedMap<String,GcCandidate> candidateMap) {
+    public synchronized void deleteConfirmedCandidates(
+        SortedMap<String,GcCandidate> candidateMap) {
       fileDeletions.addAll(candidateMap.values());
       this.candidates.removeAll(candidateMap.values());
     }
 
     @Override
-    public void deleteTableDirIfEmpty(TableId tableID) {
+    public synchronized void deleteTableDirIfEmpty(TableId tableID) {
       tablesDirsToDelete.add(tableID);
     }
 
@@ -192,6 +203,11 @@ public class GarbageCollectionTest {
     @Override
     public void incrementInUseStat(long i) {}
 
+    @Override
+    public synchronized void incrementStageTime(Stage stage, long nanos) {
+      stageNanos.merge(stage, nanos, Long::sum);
+    }
+
     @Override
     public Set<TableId> getCandidateTableIDs() {
       if (level == Ample.DataLevel.ROOT) {
@@ -950,6 +966,171 @@ public class GarbageCollectionTest {
     assertEquals(0, gce.candidates.size());
   }
 
+  @Test
+  public void testSortMerge(@TempDir java.nio.file.Path tempDir) throws Exception {
+    spillingCollect(tempDir, (gca, gce, spillDir) -> gca.collectSortMerge(gce, spillDir, 1 << 20));
+  }
+
+  @Test
+  public void testSortMergeManyRuns(@TempDir java.nio.file.Path tempDir) throws Exception {
+    // every candidate batch and every reference gets its own run
+    spillingCollect(tempDir, (gca, gce, spillDir) -> gca.collectSortMerge(gce, spillDir, 1));
+  }
+
+  @Test
+  public void testFiltered(@TempDir java.nio.file.Path tempDir) throws Exception {
+    spillingCollect(tempDir,
+        (gca, gce, spillDir) -> gca.collectFiltered(gce, spillDir, 1 << 20, 0.01));
+  }
+
+  @Test
+  public void testFilteredAllFalsePositives(@TempDir java.nio.file.Path tempDir)
+      throws Exception {
+    // every candidate hits the filter, and is confirmed by its own scan of the references
+    spillingCollect(tempDir, (gca, gce, spillDir) -> gca.collectFiltered(gce, spillDir, 1,
+        new ReferenceFilter(0.01) {
+          @Override
+          boolean mightContain(String relativePath) {
+            return true;
+          }
+        }));
+  }
+
+  @Test
+  public void testFilteredSomeFalsePositives(@TempDir java.nio.file.Path tempDir)
+      throws Exception {
+    for (int seed = 0; seed < 8; seed++) {
+      var random = new Random(seed);
+      spillingCollect(tempDir.resolve("" + seed), (gca, gce, spillDir) -> gca
+          .collectFiltered(gce, spillDir, 1 << 20, new ReferenceFilter(0.01) {
+            @Override
+            boolean mightContain(String relativePath) {
+              return super.mightContain(relativePath) || random.nextBoolean();
+            }
+          }));
+    }
+  }
+
+  @Test
+  public void testReferenceFilter() {
+    // a small first row, so the paths are spread over several rows whose error rates add up
+    var filter = new ReferenceFilter(0.01, 5_000);
+    for (int i = 0; i < 100_000; i++) {
+      filter.add("4/t-" + i + "/F" + i + ".rf");
+    }
+    assertEquals(5, filter.getRows());
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      assertTrue(filter.mightContain("4/t-" + i + "/F" + i + ".rf"));
+      if (filter.mightContain("5/t-" + i + "/F" + i + ".rf")) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 1_000, "false positives " + falsePositives);
+  }
+
+  private interface SpillingCollector {
+    long collect(GarbageCollectionAlgorithm gca, TestGCE gce, java.nio.file.Path spillDir)
+        throws Exception;
+  }
+
+  private void spillingCollect(java.nio.file.Path tempDir, SpillingCollector collector)
+      throws Exception {
+    TestGCE gce = new TestGCE();
+
+    var inUse = gce.addCandidate("hdfs://foo.com:6000/accumulo/tables/4/t0/F000.rf");
+    var scanned = gce.addCandidate("/4/t0/F001.rf");
+    var unused = gce.addCandidate("hdfs://foo.com:6000/accumulo/tables/5/t0/F005.rf");
+    gce.addCandidate("/4/t0");
+    gce.addCandidate("hdfs://foo.com:6000/accumulo/tables/6/t-0");
+    var unusedDir = gce.addCandidate("/7/t-0");
+    gce.addCandidate("/8/b-0/F001.rf");
+    var unusedTwo = gce.addCandidate("/8/b-1/F001.rf");
+
+    gce.addFileReference("4", null, "hdfs://foo:6000/accumulo/tables/4/t0/F000.rf");
+    gce.addScanReference("4", null, "/t0/F001.rf");
+    gce.addDirReference("6", null, "t-0");
+    gce.blips.add("/8/b-0");
+
+    Set<GcCandidate> remaining = new HashSet<>(gce.candidates);
+    remaining.removeAll(Set.of(inUse, unused, unusedDir, unusedTwo));
+
+    GarbageCollectionAlgorithm gca = new GarbageCollectionAlgorithm();
+    var spillDir = tempDir.resolve("spill");
+    assertEquals(1, collector.collect(gca, gce, spillDir));
+    assertFileDeleted(gce, unused, unusedDir, unusedTwo);
+    assertCandidateRemoved(gce, GcCandidateType.INUSE, inUse);
+    assertEquals(remaining, gce.candidates);
+    assertTrue(remaining.contains(scanned));
+    assertFalse(Files.exists(spillDir));
+
+    // nothing changed, so nothing more is collected
+    collector.collect(gca, gce, spillDir);
+    assertFileDeleted(gce);
+    assertNoCandidatesRemoved(gce);
+
+    gce.removeScanReference("4", null, "/t0/F001.rf");
+    gce.blips.clear();
+    collector.collect(gca, gce, spillDir);
+    assertFileDeleted(gce, scanned, new GcCandidate("/8/b-0/F001.rf", 6L));
+  }
+
+  @Test
+  public void testPipelinedDeletes() throws Exception {
+    TestGCE serial = new TestGCE();
+    TestGCE pipelined = new TestGCE();
+    for (TestGCE gce : List.of(serial, pipelined)) {
+      for (int i = 0; i < 20; i++) {
+        String file = String.format("hdfs://foo.com:6000/accumulo/tables/4/t%d/F%03d.rf", i % 4, i);
+        gce.addCandidate(file);
+        if (i % 3 == 0) {
+          gce.addFileReference("4", "" + (i % 4), file);
+        }
+      }
+      gce.addCandidate("/5/t0");
+    }
+
+    ExecutorService deletePipeline = Executors.newSingleThreadExecutor();
+    try {
+      new GarbageCollectionAlgorithm().collect(serial);
+      new GarbageCollectionAlgorithm(deletePipeline).collect(pipelined);
+    } finally {
+      deletePipeline.shutdownNow();
+    }
+
+    // the test environment reads three candidates at a time, so many deletes were pipelined
+    assertEquals(14, pipelined.fileDeletions.size());
+    assertEquals(serial.fileDeletions, pipelined.fileDeletions);
+    assertEquals(serial.deletedCandidates, pipelined.deletedCandidates);
+    assertEquals(serial.candidates, pipelined.candidates);
+    assertEquals(serial.tablesDirsToDelete, pipelined.tablesDirsToDelete);
+    assertEquals(Set.of(Stage.values()), pipelined.stageNanos.keySet());
+  }
+
+  @Test
+  public void testPipelinedDeleteFailure() throws Exception {
+    TestGCE gce = new TestGCE() {
+      @Override
+      public synchronized void deleteConfirmedCandidates(
+          SortedMap<String,GcCandidate> candidateMap) {
+        throw new IllegalStateException("test failure");
+      }
+    };
+    for (int i = 0; i < 10; i++) {
+      gce.addCandidate("/4/t0/F00" + i + ".rf");
+    }
+
+    ExecutorService deletePipeline = Executors.newSingleThreadExecutor();
+    try {
+      var gca = new GarbageCollectionAlgorithm(deletePipeline);
+      var e = assertThrows(IllegalStateException.class, () -> gca.collect(gce));
+      assertEquals("test failure", e.getMessage());
+    } finally {
+      deletePipeline.shutdownNow();
+    }
+    assertEquals(10, gce.candidates.size());
+  }
+
   // below are tests for potential failure conditions of the GC process. Some of these cases were
   // observed on clusters. Some were hypothesis based on observations. The result was that
   // candidate entries were not removed when they should have been and therefore files were
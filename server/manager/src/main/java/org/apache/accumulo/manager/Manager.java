@@ -164,6 +164,7 @@ import org.apache.zookeeper.Watcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Comparators;
 import com.google.common.collect.ImmutableSortedMap;
@@ -1604,7 +1605,10 @@ public class Manager extends AbstractServer
           }
         }
       }
-      nextEvent.event("There are now %d tablet servers", current.size());
+      long indexBuiltSince = System.currentTimeMillis()
+          - getConfiguration().getTimeInMillis(Property.MANAGER_TABLET_GROUP_WATCHER_INTERVAL);
+      publishTserversChangedEvent(nextEvent, watchers, current.size(), deleted, added,
+          indexBuiltSince);
     }
 
     // clear out any servers that are no longer current
@@ -1613,6 +1617,61 @@ public class Manager extends AbstractServer
     serversToShutdown.retainAll(current.getCurrentServers());
   }
 
+  /**
+   * Publishes the event that makes the tablet group watchers look at the tablets affected by a
+   * change in the set of tablet servers. When servers were only lost and the recently built
+   * location indexes of the watchers know which tablets were assigned to them, only those tablets
+   * are looked at, otherwise all tablets are.
+   *
+   * @param indexBuiltSince the time the location indexes of the watchers must have been built
+   *        after for them to be trusted to hold all tablets of the lost servers
+   */
+  @VisibleForTesting
+  static void publishTserversChangedEvent(EventCoordinator nextEvent,
+      List<TabletGroupWatcher> watchers, int numServers, Set<TServerInstance> deleted,
+      Set<TServerInstance> added, long indexBuiltSince) {
+    Set<KeyExtent> lostTablets =
+        added.isEmpty() ? getTabletsOfLostTservers(watchers, deleted) : null;
+    if (lostTablets == null) {
+      nextEvent.event("There are now %d tablet servers", numServers);
+    } else if (!watchers.stream()
+        .allMatch(watcher -> watcher.isLocationIndexBuiltSince(indexBuiltSince))) {
+      // Tablets assigned to the lost servers in ways the watchers did not see since an index was
+      // last built may be missing from it, so do not rely on it finding all of them.
+      nextEvent.event("There are now %d tablet servers, %d tablets of lost servers are in a stale"
+          + " location index", numServers, lostTablets.size());
+    } else if (lostTablets.isEmpty()) {
+      log.info("There are now {} tablet servers, no tablets were assigned to lost servers",
+          numServers);
+    } else {
+      // Only the tablets of the lost servers need attention, so process just those instead of
+      // doing full scans.
+      nextEvent.event(lostTablets, "There are now %d tablet servers, %d tablets were assigned"
+          + " to lost servers", numServers, lostTablets.size());
+    }
+  }
+
+  /**
+   * @return the tablets that were assigned to the given lost tablet servers, or null if the tablet
+   *         group watchers can not tell without a full scan
+   */
+  private static Set<KeyExtent> getTabletsOfLostTservers(List<TabletGroupWatcher> watchers,
+      Set<TServerInstance> lost) {
+    if (watchers.size() != DataLevel.values().length) {
+      // the watchers are not running yet
+      return null;
+    }
+    Set<KeyExtent> lostTablets = new HashSet<>();
+    for (TabletGroupWatcher watcher : watchers) {
+      Set<KeyExtent> tablets = watcher.removeLostTservers(lost);
+      if (tablets == null) {
+        return null;
+      }
+      lostTablets.addAll(tablets);
+    }
+    return lostTablets;
+  }
+
   private static void cleanListByHostAndPort(Collection<TServerInstance> badServers,
       Set<TServerInstance> deleted, Set<TServerInstance> added) {
     Iterator<TServerInstance> badIter = badServers.iterator();
@@ -21,7 +21,9 @@ package org.apache.accumulo.manager;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static java.lang.Math.min;
 import static org.apache.accumulo.core.metadata.schema.TabletMetadata.ColumnType.FILES;
+import static org.apache.accumulo.core.metadata.schema.TabletMetadata.ColumnType.LOCATION;
 import static org.apache.accumulo.core.metadata.schema.TabletMetadata.ColumnType.LOGS;
+import static org.apache.accumulo.core.metadata.schema.TabletMetadata.ColumnType.PREV_ROW;
 
 import java.io.IOException;
 import java.time.Duration;
@@ -122,6 +124,7 @@ abstract class TabletGroupWatcher extends AccumuloDaemonThread {
   private final ManagerMetrics metrics;
   private final WalStateManager walStateManager;
   private volatile Set<TServerInstance> filteredServersToShutdown = Set.of();
+  private final TabletLocationIndex locationIndex = new TabletLocationIndex();
 
   TabletGroupWatcher(Manager manager, TabletStateStore store, TabletGroupWatcher dependentWatcher,
       ManagerMetrics metrics) {
@@ -419,6 +422,53 @@ abstract class TabletGroupWatcher extends AccumuloDaemonThread {
     return filteredServersToShutdown;
   }
 
+  private boolean isIncremental() {
+    return manager.getConfiguration()
+        .getBoolean(Property.MANAGER_TABLET_GROUP_WATCHER_INCREMENTAL);
+  }
+
+  /**
+   * Finds the tablets of this watcher's data level that were assigned to tablet servers that were
+   * lost, using the location index instead of a full scan.
+   *
+   * @return the tablets assigned to the lost servers, or null if they are not known and a full scan
+   *         is needed to find them
+   */
+  Set<KeyExtent> removeLostTservers(Set<TServerInstance> lost) {
+    if (!isIncremental()) {
+      return null;
+    }
+    return locationIndex.removeServers(lost);
+  }
+
+  /**
+   * @return true if the location index was last rebuilt after the given time
+   */
+  boolean isLocationIndexBuiltSince(long time) {
+    return !locationIndex.needsRebuild(time);
+  }
+
+  /**
+   * Reads the locations of all tablets of this watcher's data level into the location index. Only
+   * two columns are read and no tablet management work is done, so this is much cheaper than a
+   * full scan.
+   */
+  private void rebuildLocationIndex() {
+    long start = System.currentTimeMillis();
+    Map<KeyExtent,TServerInstance> locations = new HashMap<>();
+    try (var tablets = manager.getContext().getAmple().readTablets().forLevel(store.getLevel())
+        .fetch(PREV_ROW, LOCATION).build()) {
+      tablets.forEach(tm -> {
+        if (tm.getLocation() != null) {
+          locations.put(tm.getExtent(), tm.getLocation().getServerInstance());
+        }
+      });
+    }
+    locationIndex.rebuild(locations, start);
+    Manager.log.debug(String.format("[%s]: rebuilt location index of %,d tablets in %.2f seconds",
+        store.name(), locationIndex.size(), (System.currentTimeMillis() - start) / 1000.));
+  }
+
   private static class TableMgmtStats {
     final int[] counts = new int[TabletState.values().length];
     private int totalUnloaded;
@@ -432,6 +482,7 @@ abstract class TabletGroupWatcher extends AccumuloDaemonThread {
       throws TException, DistributedStoreException, WalMarkerException, IOException {
 
     final TableMgmtStats tableMgmtStats = new TableMgmtStats();
+    final boolean incremental = isIncremental();
     final boolean shuttingDownAllTabletServers =
         tableMgmtParams.getServersToShutdown().equals(currentTServers.keySet());
     if (shuttingDownAllTabletServers && !isFullScan) {
@@ -484,6 +535,11 @@ abstract class TabletGroupWatcher extends AccumuloDaemonThread {
         continue;
       }
 
+      if (incremental) {
+        locationIndex.update(tm.getExtent(),
+            tm.getLocation() == null ? null : tm.getLocation().getServerInstance());
+      }
+
       final TableId tableId = tm.getTableId();
       // ignore entries for tables that do not exist in zookeeper
       if (manager.getTableManager().getTableState(tableId) == null) {
@@ -749,6 +805,13 @@ abstract class TabletGroupWatcher extends AccumuloDaemonThread {
           continue;
         }
 
+        if (isIncremental()
+            && locationIndex.needsRebuild(System.currentTimeMillis() - waitTimeBetweenScans * 10)) {
+          // The index is rebuilt now and then to drop tablets that no longer exist, it is kept up
+          // to date by the scans in between.
+          rebuildLocationIndex();
+        }
+
         stats.begin();
 
         ManagerState managerState = tableMgmtParams.getManagerState();
@@ -1045,11 +1108,15 @@ abstract class TabletGroupWatcher extends AccumuloDaemonThread {
       failedFuture = store.setFutureLocations(tLists.assignments);
     }
     tLists.assignments.addAll(tLists.assigned);
+    final boolean incremental = isIncremental();
     for (Assignment a : tLists.assignments) {
       if (failedFuture.contains(a.tablet)) {
         // do not ask a tserver to load a tablet where the future location could not be set
         continue;
       }
+      if (incremental) {
+        locationIndex.update(a.tablet, a.server);
+      }
       try {
         TServerConnection client = manager.tserverSet.getConnection(a.server);
         if (client != null) {
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.manager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.metadata.TServerInstance;
+
+/**
+ * An in memory index of the tablet servers that the tablets of a data level are assigned to. A
+ * {@link TabletGroupWatcher} uses it to find the tablets of lost tablet servers without a full
+ * metadata scan. The index is only a hint: it may hold tablets that were since split, merged or
+ * deleted, and tablets it is missing are found by the next full scan.
+ */
+class TabletLocationIndex {
+
+  private final Map<KeyExtent,TServerInstance> locations = new HashMap<>();
+  private final Map<TServerInstance,Set<KeyExtent>> tablets = new HashMap<>();
+  private boolean built = false;
+  private long lastRebuild = 0;
+
+  /**
+   * Records the server a tablet is assigned to, or that it is not assigned if server is null.
+   */
+  synchronized void update(KeyExtent extent, TServerInstance server) {
+    TServerInstance previous =
+        server == null ? locations.remove(extent) : locations.put(extent, server);
+    if (previous != null && !previous.equals(server)) {
+      Set<KeyExtent> onPrevious = tablets.get(previous);
+      if (onPrevious != null) {
+        onPrevious.remove(extent);
+        if (onPrevious.isEmpty()) {
+          tablets.remove(previous);
+        }
+      }
+    }
+    if (server != null) {
+      tablets.computeIfAbsent(server, s -> new HashSet<>()).add(extent);
+    }
+  }
+
+  /**
+   * Replaces the contents of the index with the locations of all tablets of the data level.
+   */
+  synchronized void rebuild(Map<KeyExtent,TServerInstance> allLocations, long time) {
+    locations.clear();
+    tablets.clear();
+    allLocations.forEach(this::update);
+    built = true;
+    lastRebuild = time;
+  }
+
+  /**
+   * @return true if the index was never built, or was last built before the given time
+   */
+  synchronized boolean needsRebuild(long time) {
+    return !built || lastRebuild < time;
+  }
+
+  /**
+   * Removes servers that are gone from the index.
+   *
+   * @return the tablets that were assigned to any of the given servers, or null if the index was
+   *         never built and so can not tell
+   */
+  synchronized Set<KeyExtent> removeServers(Collection<TServerInstance> servers) {
+    if (!built) {
+      return null;
+    }
+    Set<KeyExtent> found = new HashSet<>();
+    for (TServerInstance server : servers) {
+      Set<KeyExtent> onServer = tablets.remove(server);
+      if (onServer != null) {
+        onServer.forEach(locations::remove);
+        found.addAll(onServer);
+      }
+    }
+    return found;
+  }
+
+  synchronized int size() {
+    return locations.size();
+  }
+}
@@ -267,7 +267,10 @@ public class CompactionCoordinator
     long jobQueueMaxSize =
         ctx.getConfiguration().getAsBytes(Property.MANAGER_COMPACTION_SERVICE_PRIORITY_QUEUE_SIZE);
 
-    this.jobQueues = new CompactionJobQueues(jobQueueMaxSize);
+    int jobQueueShards =
+        ctx.getConfiguration().getCount(Property.MANAGER_COMPACTION_SERVICE_PRIORITY_QUEUE_SHARDS);
+
+    this.jobQueues = new CompactionJobQueues(jobQueueMaxSize, jobQueueShards);
 
     this.queueMetrics = new QueueMetrics(jobQueues);
 
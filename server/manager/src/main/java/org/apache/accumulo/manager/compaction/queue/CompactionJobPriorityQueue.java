@@ -60,6 +60,16 @@ import com.google.common.base.Suppliers;
  * <p>
  * When jobs are added for tablet, any previous jobs that are queued for the tablet are removed.
  * </p>
+ *
+ * <p>
+ * The queue can be split into shards, with tablets assigned to a shard by the hash of their extent.
+ * Each shard has its own lock, so adding jobs for different tablets and polling jobs do not contend
+ * on a single queue wide lock. Each shard publishes the highest priority job it contains and
+ * {@link #poll()} uses these to pick the shard to take a job from, so jobs are still returned in
+ * priority order across shards. The maximum size is divided evenly between the shards, so when
+ * there is more than one shard the jobs dropped when the queue is full are the lowest priority jobs
+ * of a shard and not necessarily of the entire queue.
+ * </p>
  */
 public class CompactionJobPriorityQueue {
 
@@ -114,30 +124,21 @@ public class CompactionJobPriorityQueue {
   private static class MetaJob {
     private final CompactionJob job;
     private final KeyExtent extent;
+    private final TabletJobs tabletJobs;
 
-    public MetaJob(CompactionJob job, KeyExtent extent) {
+    public MetaJob(CompactionJob job, KeyExtent extent, TabletJobs tabletJobs) {
       this.job = job;
       this.extent = extent;
+      this.tabletJobs = tabletJobs;
     }
   }
 
-  // There are two reasons for using a TreeMap instead of a PriorityQueue. First the maximum size
-  // behavior is not supported with a PriorityQueue. Second a PriorityQueue does not support
-  // efficiently removing entries from anywhere in the queue. Efficient removal is needed for the
-  // case where tablets decided to issues different compaction jobs than what is currently queued.
-  private final SizeTrackingTreeMap<CjpqKey,MetaJob> jobQueue;
-  private final AtomicLong maxSize;
-  private final AtomicLong rejectedJobs;
-  private final AtomicLong dequeuedJobs;
-  private final ArrayDeque<CompletableFuture<CompactionJob>> futures;
-  private long futuresAdded = 0;
-  private final Map<KeyExtent,Timer> jobAges;
-  private final Supplier<CompactionJobPriorityQueueStats> jobQueueStats;
-  private final AtomicReference<Optional<io.micrometer.core.instrument.Timer>> jobQueueTimer;
-
   private static class TabletJobs {
     final long generation;
     final HashSet<CjpqKey> jobs;
+    // Set when the jobs are removed from the queue because the tablet queued different jobs or no
+    // longer needs compaction. Guarded by the lock of the shard.
+    boolean removed = false;
 
     private TabletJobs(long generation, HashSet<CjpqKey> jobs) {
       this.generation = generation;
@@ -145,17 +146,258 @@ public class CompactionJobPriorityQueue {
     }
   }
 
-  // This map tracks what jobs a tablet currently has in the queue. Its used to efficiently remove
-  // jobs in the queue when new jobs are queued for a tablet.
-  private final Map<KeyExtent,TabletJobs> tabletJobs;
+  /**
+   * A subset of the queue containing the jobs for the tablets whose extent hashes to it. All
+   * methods synchronize on the shard.
+   */
+  private class Shard {
+
+    // There are two reasons for using a TreeMap instead of a PriorityQueue. First the maximum size
+    // behavior is not supported with a PriorityQueue. Second a PriorityQueue does not support
+    // efficiently removing entries from anywhere in the queue. Efficient removal is needed for the
+    // case where tablets decided to issues different compaction jobs than what is currently
+    // queued.
+    private final SizeTrackingTreeMap<CjpqKey,MetaJob> jobQueue;
+
+    // This map tracks what jobs a tablet currently has in the queue. Its used to efficiently
+    // remove jobs in the queue when new jobs are queued for a tablet.
+    private final Map<KeyExtent,TabletJobs> tabletJobs = new HashMap<>();
+
+    // The first key in jobQueue or null when it is empty. This is updated after every change to
+    // jobQueue and allows poll() to compare shards without acquiring their locks.
+    private volatile CjpqKey head = null;
+
+    private Shard(SizeTrackingTreeMap.Weigher<CompactionJob> weigher) {
+      this.jobQueue = new SizeTrackingTreeMap<>(mj -> weigher.weigh(mj.job));
+    }
+
+    private void updateHead() {
+      var first = jobQueue.firstEntry();
+      head = first == null ? null : first.getKey();
+    }
+
+    synchronized int add(KeyExtent extent, Collection<CompactionJob> jobs, long generation) {
+      // Do not clear jobAge timers, they are cleared later at the end of this method
+      // if there are no jobs for the extent so we do not reset the timer for an extent
+      // that had previous jobs and still has jobs
+      removePreviousSubmissions(extent, false);
+
+      TabletJobs newEntries = new TabletJobs(generation, new HashSet<>(jobs.size()));
+
+      int jobsAdded = 0;
+      for (CompactionJob job : jobs) {
+        CjpqKey cjqpKey = addJobToQueue(extent, job, newEntries);
+        if (cjqpKey != null) {
+          checkState(newEntries.jobs.add(cjqpKey));
+          jobsAdded++;
+        } else {
+          // The priority for this job was lower than all other priorities and not added
+          // In this case we will return true even though a subset of the jobs, or none,
+          // were added
+        }
+      }
+
+      if (!newEntries.jobs.isEmpty()) {
+        checkState(tabletJobs.put(extent, newEntries) == null);
+        jobAges.computeIfAbsent(extent, e -> Timer.startNew());
+      } else {
+        jobAges.remove(extent);
+      }
+
+      updateHead();
+      return jobsAdded;
+    }
+
+    /**
+     * Removes the first job in this shard if it is still the expected key.
+     *
+     * @return the removed job or null if the first key in the shard was no longer the expected key
+     */
+    synchronized Map.Entry<CjpqKey,MetaJob> pollIfFirst(CjpqKey expected) {
+      var first = jobQueue.firstEntry();
+      if (first == null || first.getKey() != expected) {
+        return null;
+      }
+
+      first = jobQueue.pollFirstEntry();
+      dequeuedJobs.getAndIncrement();
+      var extent = first.getValue().extent;
+      var timer = jobAges.get(extent);
+      checkState(timer != null);
+      jobQueueTimer.get().ifPresent(jqt -> jqt.record(timer.elapsed()));
+      log.trace("Compaction job age for {} is {} ms", extent, timer.elapsed(TimeUnit.MILLISECONDS));
+      Set<CompactionJobPriorityQueue.CjpqKey> jobs = tabletJobs.get(extent).jobs;
+      checkState(jobs.remove(first.getKey()));
+      // If there are no more jobs for this extent we can remove the timer, otherwise
+      // we need to reset it
+      if (jobs.isEmpty()) {
+        tabletJobs.remove(extent);
+        jobAges.remove(extent);
+      } else {
+        timer.restart();
+      }
+
+      updateHead();
+      return first;
+    }
+
+    /**
+     * Puts back a job that was polled but could not be handed to a waiting future. The job is
+     * dropped if its tablet queued different jobs or was removed from the queue in the meantime,
+     * and is rejected like a newly added job if the shard is full.
+     */
+    synchronized void requeue(CjpqKey key, MetaJob metaJob) {
+      var current = tabletJobs.get(metaJob.extent);
+      if (metaJob.tabletJobs.removed || (current != null && current != metaJob.tabletJobs)) {
+        return;
+      }
+
+      dequeuedJobs.getAndDecrement();
+      if (!makeRoomFor(metaJob.job)) {
+        return;
+      }
+      jobQueue.put(key, metaJob);
+      metaJob.tabletJobs.jobs.add(key);
+      if (current == null) {
+        tabletJobs.put(metaJob.extent, metaJob.tabletJobs);
+        jobAges.computeIfAbsent(metaJob.extent, e -> Timer.startNew());
+      }
+      updateHead();
+    }
+
+    synchronized void removeOlderGenerations(Ample.DataLevel level, long currGeneration) {
+      List<KeyExtent> removals = new ArrayList<>();
+
+      tabletJobs.forEach((extent, jobs) -> {
+        if (Ample.DataLevel.of(extent.tableId()) == level && jobs.generation < currGeneration) {
+          removals.add(extent);
+        }
+      });
+
+      if (!removals.isEmpty()) {
+        log.trace("Removed {} queued tablets that no longer need compaction for {} {}",
+            removals.size(), groupId, level);
+      }
+
+      // Also clears jobAge timer for tablets that do not need compaction anymore
+      removals.forEach(ke -> removePreviousSubmissions(ke, true));
+      updateHead();
+    }
+
+    synchronized long entrySize() {
+      return jobQueue.entrySize();
+    }
+
+    synchronized long dataSize() {
+      return jobQueue.dataSize();
+    }
+
+    synchronized CjpqKey lastKey() {
+      return jobQueue.isEmpty() ? null : jobQueue.lastKey();
+    }
+
+    synchronized void clear() {
+      jobQueue.clear();
+      tabletJobs.values().forEach(jobs -> jobs.removed = true);
+      tabletJobs.keySet().forEach(jobAges::remove);
+      tabletJobs.clear();
+      updateHead();
+    }
+
+    synchronized long trimToMaxSize() {
+      // remove the lowest priority jobs if the current queue data size exceeds the new max size
+      long removed = 0;
+      while (jobQueue.dataSize() > shardMaxSize()) {
+        var last = jobQueue.pollLastEntry();
+        if (last == null) {
+          break;
+        } else {
+          rejectedJobs.getAndIncrement();
+          removed++;
+        }
+      }
+      updateHead();
+      return removed;
+    }
+
+    private void removePreviousSubmissions(KeyExtent extent, boolean removeJobAges) {
+      CompactionJobPriorityQueue.TabletJobs prevJobs = tabletJobs.get(extent);
+      if (prevJobs != null) {
+        prevJobs.removed = true;
+        prevJobs.jobs.forEach(jobQueue::remove);
+        tabletJobs.remove(extent);
+        if (removeJobAges) {
+          jobAges.remove(extent);
+          log.trace("Removed jobAge timer for tablet {} that no longer needs compaction", extent);
+        }
+      }
+    }
+
+    private CjpqKey addJobToQueue(KeyExtent extent, CompactionJob job, TabletJobs newEntries) {
+      if (!makeRoomFor(job)) {
+        return null;
+      }
+
+      var key = new CjpqKey(job);
+      jobQueue.put(key, new MetaJob(job, extent, newEntries));
+      return key;
+    }
+
+    /**
+     * When the shard is full, removes its lowest priority job if the given job has a higher
+     * priority.
+     *
+     * @return false if the shard is full and the given job should not be added
+     */
+    private boolean makeRoomFor(CompactionJob job) {
+      if (jobQueue.dataSize() >= shardMaxSize()) {
+        var lastEntry = jobQueue.lastKey();
+        if (job.getPriority() <= lastEntry.getPriority()) {
+          // the queue is full and this job has a lower or same priority than the lowest job in
+          // the queue, so do not add it
+          rejectedJobs.getAndIncrement();
+          return false;
+        } else {
+          // the new job has a higher priority than the lowest job in the queue, so remove the
+          // lowest
+          if (jobQueue.pollLastEntry() != null) {
+            rejectedJobs.getAndIncrement();
+          }
+        }
+      }
+      return true;
+    }
+  }
+
+  private final Shard[] shards;
+  private final AtomicLong maxSize;
+  private final AtomicLong rejectedJobs;
+  private final AtomicLong dequeuedJobs;
+  // futures and futuresAdded are guarded by the lock on this object
+  private final ArrayDeque<CompletableFuture<CompactionJob>> futures;
+  private long futuresAdded = 0;
+  // The size of futures, readable without holding the lock so that add() only needs to lock when
+  // a compactor may be waiting for a job.
+  private volatile int futuresWaiting = 0;
+  private final Map<KeyExtent,Timer> jobAges;
+  private final Supplier<CompactionJobPriorityQueueStats> jobQueueStats;
+  private final AtomicReference<Optional<io.micrometer.core.instrument.Timer>> jobQueueTimer;
 
   private final AtomicLong nextSeq = new AtomicLong(0);
 
   public CompactionJobPriorityQueue(CompactorGroupId groupId, long maxSize,
       SizeTrackingTreeMap.Weigher<CompactionJob> weigher) {
-    this.jobQueue = new SizeTrackingTreeMap<>(mj -> weigher.weigh(mj.job));
+    this(groupId, maxSize, weigher, 1);
+  }
+
+  public CompactionJobPriorityQueue(CompactorGroupId groupId, long maxSize,
+      SizeTrackingTreeMap.Weigher<CompactionJob> weigher, int numShards) {
+    Preconditions.checkArgument(numShards > 0);
+    this.shards = new Shard[numShards];
+    for (int i = 0; i < numShards; i++) {
+      this.shards[i] = new Shard(weigher);
+    }
     this.maxSize = new AtomicLong(maxSize);
-    this.tabletJobs = new HashMap<>();
     this.groupId = groupId;
     this.rejectedJobs = new AtomicLong(0);
     this.dequeuedJobs = new AtomicLong(0);
@@ -166,79 +408,40 @@ public class CompactionJobPriorityQueue {
     this.jobQueueTimer = new AtomicReference<>(Optional.empty());
   }
 
-  public synchronized void removeOlderGenerations(Ample.DataLevel level, long currGeneration) {
-    List<KeyExtent> removals = new ArrayList<>();
+  private Shard getShard(KeyExtent extent) {
+    return shards[Math.floorMod(extent.hashCode(), shards.length)];
+  }
 
-    tabletJobs.forEach((extent, jobs) -> {
-      if (Ample.DataLevel.of(extent.tableId()) == level && jobs.generation < currGeneration) {
-        removals.add(extent);
-      }
-    });
+  private long shardMaxSize() {
+    long max = maxSize.get();
+    return max / shards.length + (max % shards.length == 0 ? 0 : 1);
+  }
 
-    if (!removals.isEmpty()) {
-      log.trace("Removed {} queued tablets that no longer need compaction for {} {}",
-          removals.size(), groupId, level);
+  public void removeOlderGenerations(Ample.DataLevel level, long currGeneration) {
+    for (Shard shard : shards) {
+      shard.removeOlderGenerations(level, currGeneration);
     }
-
-    // Also clears jobAge timer for tablets that do not need compaction anymore
-    removals.forEach(ke -> removePreviousSubmissions(ke, true));
   }
 
   /**
    * @return the number of jobs added. If the queue is closed returns -1
    */
-  public synchronized int add(KeyExtent extent, Collection<CompactionJob> jobs, long generation) {
+  public int add(KeyExtent extent, Collection<CompactionJob> jobs, long generation) {
     Preconditions.checkArgument(jobs.stream().allMatch(job -> job.getGroup().equals(groupId)));
 
-    // Do not clear jobAge timers, they are cleared later at the end of this method
-    // if there are no jobs for the extent so we do not reset the timer for an extent
-    // that had previous jobs and still has jobs
-    removePreviousSubmissions(extent, false);
-
-    HashSet<CjpqKey> newEntries = new HashSet<>(jobs.size());
-
-    int jobsAdded = 0;
-    outer: for (CompactionJob job : jobs) {
-      var future = futures.poll();
-      while (future != null) {
-        // its expected that if futures are present then the queue is empty, if this is not true
-        // then there is a bug
-        Preconditions.checkState(jobQueue.isEmpty());
-        // Queue should be empty so jobAges should be empty
-        Preconditions.checkState(jobAges.isEmpty());
-        if (future.complete(job)) {
-          // successfully completed a future with this job, so do not need to queue the job
-          jobsAdded++;
-          // Record a time of 0 as job as we were able to complete immediately and there
-          // were no jobs waiting
-          jobQueueTimer.get().ifPresent(jqt -> jqt.record(Duration.ZERO));
-          continue outer;
-        } // else the future was canceled or timed out so could not complete it
-        future = futures.poll();
-      }
-
-      CjpqKey cjqpKey = addJobToQueue(extent, job);
-      if (cjqpKey != null) {
-        checkState(newEntries.add(cjqpKey));
-        jobsAdded++;
-      } else {
-        // The priority for this job was lower than all other priorities and not added
-        // In this case we will return true even though a subset of the jobs, or none,
-        // were added
-      }
-    }
+    int jobsAdded = getShard(extent).add(extent, jobs, generation);
 
-    if (!newEntries.isEmpty()) {
-      checkState(tabletJobs.put(extent, new TabletJobs(generation, newEntries)) == null);
-      jobAges.computeIfAbsent(extent, e -> Timer.startNew());
-    } else {
-      jobAges.remove(extent);
+    // The jobs are added to the shard before checking for waiting futures, while getAsync() makes
+    // its future visible before polling the shards. So either getAsync() will see the new jobs or
+    // this will see the future.
+    if (jobsAdded > 0 && futuresWaiting > 0) {
+      completeFutures();
     }
 
     return jobsAdded;
   }
 
-  public synchronized long getMaxSize() {
+  public long getMaxSize() {
     return maxSize.get();
   }
 
@@ -250,55 +453,78 @@ public class CompactionJobPriorityQueue {
     return dequeuedJobs.get();
   }
 
-  public synchronized long getQueuedJobs() {
-    return jobQueue.entrySize();
+  public long getQueuedJobs() {
+    long queued = 0;
+    for (Shard shard : shards) {
+      queued += shard.entrySize();
+    }
+    return queued;
   }
 
-  public synchronized long getQueuedJobsSize() {
-    return jobQueue.dataSize();
+  public long getQueuedJobsSize() {
+    long size = 0;
+    for (Shard shard : shards) {
+      size += shard.dataSize();
+    }
+    return size;
   }
 
-  public synchronized long getLowestPriority() {
-    if (jobQueue.isEmpty()) {
-      return 0;
+  public long getLowestPriority() {
+    CjpqKey lowest = null;
+    for (Shard shard : shards) {
+      var last = shard.lastKey();
+      if (last != null && (lowest == null || last.compareTo(lowest) > 0)) {
+        lowest = last;
+      }
     }
-    return jobQueue.lastKey().getPriority();
+    return lowest == null ? 0 : lowest.getPriority();
   }
 
-  public synchronized CompactionJob poll() {
-    var first = jobQueue.pollFirstEntry();
+  private Map.Entry<CjpqKey,MetaJob> pollEntry() {
+    while (true) {
+      Shard best = null;
+      CjpqKey bestHead = null;
+      for (Shard shard : shards) {
+        CjpqKey head = shard.head;
+        if (head != null && (bestHead == null || head.compareTo(bestHead) < 0)) {
+          best = shard;
+          bestHead = head;
+        }
+      }
 
-    if (first != null) {
-      dequeuedJobs.getAndIncrement();
-      var extent = first.getValue().extent;
-      var timer = jobAges.get(extent);
-      checkState(timer != null);
-      jobQueueTimer.get().ifPresent(jqt -> jqt.record(timer.elapsed()));
-      log.trace("Compaction job age for {} is {} ms", extent, timer.elapsed(TimeUnit.MILLISECONDS));
-      Set<CompactionJobPriorityQueue.CjpqKey> jobs = tabletJobs.get(extent).jobs;
-      checkState(jobs.remove(first.getKey()));
-      // If there are no more jobs for this extent we can remove the timer, otherwise
-      // we need to reset it
-      if (jobs.isEmpty()) {
-        tabletJobs.remove(extent);
-        jobAges.remove(extent);
-      } else {
-        timer.restart();
+      if (best == null) {
+        return null;
+      }
+
+      var polled = best.pollIfFirst(bestHead);
+      if (polled != null) {
+        return polled;
       }
+      // the first job in the shard changed after its head was read, so look at all shards again
     }
+  }
+
+  public CompactionJob poll() {
+    var first = pollEntry();
     return first == null ? null : first.getValue().job;
   }
 
   public synchronized CompletableFuture<CompactionJob> getAsync() {
+    // There is currently nothing in the queue, so create an uncompleted future and queue it up to
+    // be completed when something does arrive. The future is queued before polling so that a
+    // concurrent add() will either be seen by the poll or will see the future.
+    CompletableFuture<CompactionJob> future = new CompletableFuture<>();
+    futures.add(future);
+    futuresWaiting = futures.size();
+
     var job = poll();
     if (job != null) {
-      return CompletableFuture.completedFuture(job);
+      futures.removeLast();
+      futuresWaiting = futures.size();
+      future.complete(job);
+      return future;
     }
 
-    // There is currently nothing in the queue, so create an uncompleted future and queue it up to
-    // be completed when something does arrive.
-    CompletableFuture<CompactionJob> future = new CompletableFuture<>();
-    futures.add(future);
     futuresAdded++;
     // Handle the case where nothing is ever being added to this queue and futures are constantly
     // being obtained and cancelled. If nothing is done these canceled futures would just keep
@@ -307,6 +533,7 @@ public class CompactionJobPriorityQueue {
     if (futuresAdded % FUTURE_CHECK_THRESHOLD == 0
         && futures.size() >= 2 * FUTURE_CHECK_THRESHOLD) {
       futures.removeIf(CompletableFuture::isDone);
+      futuresWaiting = futures.size();
       // It is not expected that the future we just created would be done, if it were it would have
       // been removed.
       Preconditions.checkState(!future.isDone());
@@ -314,58 +541,50 @@ public class CompactionJobPriorityQueue {
     return future;
   }
 
+  private synchronized void completeFutures() {
+    var future = futures.peek();
+    while (future != null) {
+      if (!future.isDone()) {
+        var polled = pollEntry();
+        if (polled == null) {
+          break;
+        }
+        if (!future.complete(polled.getValue().job)) {
+          // the future was canceled or timed out after it was checked, so put the job back
+          getShard(polled.getValue().extent).requeue(polled.getKey(), polled.getValue());
+        }
+      } // else the future was canceled or timed out so could not complete it
+      futures.poll();
+      future = futures.peek();
+    }
+    futuresWaiting = futures.size();
+  }
+
   @VisibleForTesting
   synchronized int futuresSize() {
     return futures.size();
   }
 
   // exists for tests
-  synchronized CompactionJob peek() {
-    var firstEntry = jobQueue.firstEntry();
-    return firstEntry == null ? null : firstEntry.getValue().job;
-  }
-
-  private void removePreviousSubmissions(KeyExtent extent, boolean removeJobAges) {
-    CompactionJobPriorityQueue.TabletJobs prevJobs = tabletJobs.get(extent);
-    if (prevJobs != null) {
-      prevJobs.jobs.forEach(jobQueue::remove);
-      tabletJobs.remove(extent);
-      if (removeJobAges) {
-        jobAges.remove(extent);
-        log.trace("Removed jobAge timer for tablet {} that no longer needs compaction", extent);
-      }
-    }
-  }
-
-  private CjpqKey addJobToQueue(KeyExtent extent, CompactionJob job) {
-    if (jobQueue.dataSize() >= maxSize.get()) {
-      var lastEntry = jobQueue.lastKey();
-      if (job.getPriority() <= lastEntry.getPriority()) {
-        // the queue is full and this job has a lower or same priority than the lowest job in the
-        // queue, so do not add it
-        rejectedJobs.getAndIncrement();
-        return null;
-      } else {
-        // the new job has a higher priority than the lowest job in the queue, so remove the lowest
-        if (jobQueue.pollLastEntry() != null) {
-          rejectedJobs.getAndIncrement();
-        }
+  CompactionJob peek() {
+    CjpqKey first = null;
+    for (Shard shard : shards) {
+      CjpqKey head = shard.head;
+      if (head != null && (first == null || head.compareTo(first) < 0)) {
+        first = head;
       }
     }
-
-    var key = new CjpqKey(job);
-    jobQueue.put(key, new MetaJob(job, extent));
-    return key;
+    return first == null ? null : first.job;
   }
 
-  public synchronized void clearIfInactive(Duration duration) {
+  public void clearIfInactive(Duration duration) {
     // IF the minimum age of jobs in the queue is older than the
     // duration then clear all the maps as this queue is now
     // considered inactive
     if (getJobQueueStats().getMinAge().compareTo(duration) > 0) {
-      jobQueue.clear();
-      tabletJobs.clear();
-      jobAges.clear();
+      for (Shard shard : shards) {
+        shard.clear();
+      }
     }
   }
 
@@ -373,16 +592,9 @@ public class CompactionJobPriorityQueue {
     Preconditions.checkArgument(size > 0);
     long oldSize = maxSize.getAndSet(size);
     if (oldSize != size) {
-      // remove the lowest priority jobs if the current queue data size exceeds the new max size
       long removed = 0;
-      while (jobQueue.dataSize() > maxSize.get()) {
-        var last = jobQueue.pollLastEntry();
-        if (last == null) {
-          break;
-        } else {
-          rejectedJobs.getAndIncrement();
-          removed++;
-        }
+      for (Shard shard : shards) {
+        removed += shard.trimToMaxSize();
       }
       log.debug("Adjusted max size for compaction queue {} from {} to {} removing {} jobs.",
           groupId, oldSize, size, removed);
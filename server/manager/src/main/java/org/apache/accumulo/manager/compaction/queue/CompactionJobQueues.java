@@ -50,10 +50,17 @@ public class CompactionJobQueues {
 
   private volatile long queueSize;
 
+  private final int queueShards;
+
   private final Map<DataLevel,AtomicLong> currentGenerations;
 
   public CompactionJobQueues(long queueSize) {
+    this(queueSize, 1);
+  }
+
+  public CompactionJobQueues(long queueSize, int queueShards) {
     this.queueSize = queueSize;
+    this.queueShards = queueShards;
     Map<DataLevel,AtomicLong> cg = new EnumMap<>(DataLevel.class);
     for (var level : DataLevel.values()) {
       cg.put(level, new AtomicLong());
@@ -143,7 +150,8 @@ public class CompactionJobQueues {
    */
   public CompletableFuture<CompactionJob> getAsync(CompactorGroupId groupId) {
     var pq = priorityQueues.computeIfAbsent(groupId,
-        gid -> new CompactionJobPriorityQueue(gid, queueSize, ResolvedCompactionJob.WEIGHER));
+        gid -> new CompactionJobPriorityQueue(gid, queueSize, ResolvedCompactionJob.WEIGHER,
+            queueShards));
     return pq.getAsync();
   }
 
@@ -165,7 +173,8 @@ public class CompactionJobQueues {
     }
 
     var pq = priorityQueues.computeIfAbsent(groupId,
-        gid -> new CompactionJobPriorityQueue(gid, queueSize, ResolvedCompactionJob.WEIGHER));
+        gid -> new CompactionJobPriorityQueue(gid, queueSize, ResolvedCompactionJob.WEIGHER,
+            queueShards));
     pq.add(extent, jobs, currentGenerations.get(DataLevel.of(extent.tableId())).get());
   }
 
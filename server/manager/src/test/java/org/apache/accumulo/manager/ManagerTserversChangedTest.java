@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.manager;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.metadata.TServerInstance;
+import org.apache.accumulo.core.metadata.schema.Ample.DataLevel;
+import org.apache.accumulo.manager.EventCoordinator.Event;
+import org.apache.accumulo.manager.EventCoordinator.EventScope;
+import org.apache.hadoop.io.Text;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ManagerTserversChangedTest {
+
+  private static final TServerInstance TS1 = new TServerInstance("host1:9997", 1L);
+  private static final TServerInstance TS2 = new TServerInstance("host2:9997", 2L);
+  private static final KeyExtent EXTENT = new KeyExtent(TableId.of("1"), new Text("m"), null);
+
+  private EventCoordinator nextEvent;
+  private List<Event> events;
+
+  @BeforeEach
+  public void setup() {
+    nextEvent = new EventCoordinator();
+    events = new ArrayList<>();
+    for (DataLevel level : DataLevel.values()) {
+      nextEvent.addListener(level, events::add);
+    }
+  }
+
+  private static List<TabletGroupWatcher> watchers(Set<KeyExtent> lostTablets,
+      boolean indexBuiltSince) {
+    List<TabletGroupWatcher> watchers = new ArrayList<>();
+    for (DataLevel level : DataLevel.values()) {
+      TabletGroupWatcher watcher = createMock(TabletGroupWatcher.class);
+      // only one data level has tablets on the lost server
+      expect(watcher.removeLostTservers(Set.of(TS1)))
+          .andReturn(level == DataLevel.USER ? lostTablets : Set.of()).anyTimes();
+      expect(watcher.isLocationIndexBuiltSince(100L)).andReturn(indexBuiltSince).anyTimes();
+      replay(watcher);
+      watchers.add(watcher);
+    }
+    return watchers;
+  }
+
+  private Set<EventScope> publishedScopes() {
+    return events.stream().map(Event::getScope).collect(Collectors.toSet());
+  }
+
+  @Test
+  public void testLostTablets() {
+    var watchers = watchers(Set.of(EXTENT), true);
+    Manager.publishTserversChangedEvent(nextEvent, watchers, 1, Set.of(TS1), Set.of(), 100L);
+    assertEquals(1, events.size());
+    assertEquals(EventScope.TABLE_RANGE, events.get(0).getScope());
+    assertEquals(EXTENT, events.get(0).getExtent());
+    watchers.forEach(watcher -> verify(watcher));
+  }
+
+  @Test
+  public void testLostTabletsInStaleIndex() {
+    // an index built before the last interval may be missing other tablets of the lost server, so
+    // all tablets are looked at
+    Manager.publishTserversChangedEvent(nextEvent, watchers(Set.of(EXTENT), false), 1,
+        Set.of(TS1), Set.of(), 100L);
+    assertEquals(Set.of(EventScope.ALL), publishedScopes());
+  }
+
+  @Test
+  public void testNoLostTablets() {
+    Manager.publishTserversChangedEvent(nextEvent, watchers(Set.of(), true), 1, Set.of(TS1),
+        Set.of(), 100L);
+    assertEquals(List.of(), events);
+  }
+
+  @Test
+  public void testNoLostTabletsInStaleIndex() {
+    // an index built before the last interval may be missing tablets of the lost server, so all
+    // tablets are looked at
+    Manager.publishTserversChangedEvent(nextEvent, watchers(Set.of(), false), 1, Set.of(TS1),
+        Set.of(), 100L);
+    assertEquals(Set.of(EventScope.ALL), publishedScopes());
+  }
+
+  @Test
+  public void testUnknownLostTablets() {
+    Manager.publishTserversChangedEvent(nextEvent, watchers(null, true), 1, Set.of(TS1),
+        Set.of(), 100L);
+    assertEquals(Set.of(EventScope.ALL), publishedScopes());
+
+    // the watchers are not running yet
+    events.clear();
+    Manager.publishTserversChangedEvent(nextEvent, List.of(), 1, Set.of(TS1), Set.of(), 100L);
+    assertEquals(Set.of(EventScope.ALL), publishedScopes());
+  }
+
+  @Test
+  public void testAddedTservers() {
+    // the watchers are not asked for lost tablets when servers were added
+    List<TabletGroupWatcher> watchers = new ArrayList<>();
+    for (int i = 0; i < DataLevel.values().length; i++) {
+      TabletGroupWatcher watcher = createMock(TabletGroupWatcher.class);
+      replay(watcher);
+      watchers.add(watcher);
+    }
+    Manager.publishTserversChangedEvent(nextEvent, watchers, 1, Set.of(TS1), Set.of(TS2), 100L);
+    assertEquals(Set.of(EventScope.ALL), publishedScopes());
+    watchers.forEach(watcher -> verify(watcher));
+  }
+}
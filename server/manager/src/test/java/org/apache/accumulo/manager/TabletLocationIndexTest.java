@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.metadata.TServerInstance;
+import org.apache.hadoop.io.Text;
+import org.junit.jupiter.api.Test;
+
+public class TabletLocationIndexTest {
+
+  private static final TServerInstance TS1 = new TServerInstance("host1:9997", 1L);
+  private static final TServerInstance TS2 = new TServerInstance("host2:9997", 2L);
+
+  private static KeyExtent extent(String prevEndRow, String endRow) {
+    return new KeyExtent(TableId.of("1"), endRow == null ? null : new Text(endRow),
+        prevEndRow == null ? null : new Text(prevEndRow));
+  }
+
+  @Test
+  public void testIndex() {
+    TabletLocationIndex index = new TabletLocationIndex();
+    KeyExtent e1 = extent(null, "m");
+    KeyExtent e2 = extent("m", "t");
+    KeyExtent e3 = extent("t", null);
+
+    // an index that was never built can not tell which tablets were on a server
+    assertTrue(index.needsRebuild(0));
+    index.update(e1, TS1);
+    assertNull(index.removeServers(List.of(TS1)));
+
+    index.rebuild(Map.of(e1, TS1, e2, TS1, e3, TS2), 100);
+    assertFalse(index.needsRebuild(100));
+    assertTrue(index.needsRebuild(101));
+    assertEquals(3, index.size());
+
+    // e2 moves to TS2, e3 is unassigned
+    index.update(e2, TS2);
+    index.update(e3, null);
+    assertEquals(2, index.size());
+
+    assertEquals(Set.of(e1), index.removeServers(List.of(TS1)));
+    assertEquals(Set.of(), index.removeServers(List.of(TS1)));
+    assertEquals(1, index.size());
+    assertEquals(Set.of(e2), index.removeServers(List.of(TS1, TS2)));
+    assertEquals(0, index.size());
+
+    // rebuilding drops what the index held before
+    index.update(e1, TS1);
+    index.rebuild(Map.of(e3, TS2), 200);
+    assertEquals(Set.of(e3), index.removeServers(List.of(TS1, TS2)));
+  }
+}
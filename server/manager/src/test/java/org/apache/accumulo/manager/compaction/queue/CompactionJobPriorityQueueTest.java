@@ -29,6 +29,10 @@ import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.client.admin.compaction.CompactableFile;
 import org.apache.accumulo.core.data.TableId;
@@ -376,4 +380,101 @@ public class CompactionJobPriorityQueueTest {
     // try setting an illegal value
     assertThrows(IllegalArgumentException.class, () -> queue.resetMaxSize(-100));
   }
+
+  @Test
+  public void testSharded() {
+    TreeSet<CompactionJob> expected = new TreeSet<>(CompactionJobPrioritizer.JOB_COMPARATOR);
+
+    CompactionJobPriorityQueue queue = new CompactionJobPriorityQueue(GROUP, 10000, mj -> 10, 8);
+
+    for (int x = 0; x < 200; x++) {
+      Pair<KeyExtent,CompactionJob> pair = createJob();
+      queue.add(pair.getFirst(), Set.of(pair.getSecond()), 1L);
+      expected.add(pair.getSecond());
+    }
+
+    assertEquals(200, queue.getQueuedJobs());
+    assertEquals(2000, queue.getQueuedJobsSize());
+    assertEquals(0, queue.getRejectedJobs());
+    assertEquals(expected.last().getPriority(), queue.getLowestPriority());
+    assertEquals(expected.first(), queue.peek());
+
+    // jobs should come out in priority order even though they are spread across shards
+    for (CompactionJob expectedJob : expected) {
+      CompactionJob queuedJob = queue.poll();
+      assertEquals(expectedJob.getPriority(), queuedJob.getPriority());
+      assertEquals(expectedJob.getFiles(), queuedJob.getFiles());
+    }
+
+    assertNull(queue.poll());
+    assertEquals(200, queue.getDequeuedJobs());
+    assertEquals(0, queue.getQueuedJobs());
+    assertTrue(queue.getJobAges().isEmpty());
+  }
+
+  @Test
+  public void testShardedConcurrentGetAsync() throws Exception {
+    final int consumers = 16;
+    final int jobsPerConsumer = 500;
+    final int producers = 4;
+
+    CompactionJobPriorityQueue queue = new CompactionJobPriorityQueue(GROUP, 1_000_000, mj -> 1, 8);
+
+    List<CompactionJob> jobs = new ArrayList<>();
+    for (int i = 0; i < consumers * jobsPerConsumer; i++) {
+      CompactionJob job = EasyMock.createMock(CompactionJob.class);
+      EasyMock.expect(job.getGroup()).andReturn(GROUP).anyTimes();
+      EasyMock.expect(job.getPriority()).andReturn((short) (i % 100)).anyTimes();
+      EasyMock.expect(job.getFiles()).andReturn(Set.of()).anyTimes();
+      EasyMock.replay(job);
+      jobs.add(job);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(consumers + producers);
+    try {
+      List<Future<List<CompactionJob>>> received = new ArrayList<>();
+      for (int c = 0; c < consumers; c++) {
+        received.add(executor.submit(() -> {
+          List<CompactionJob> consumed = new ArrayList<>();
+          for (int i = 0; i < jobsPerConsumer; i++) {
+            consumed.add(queue.getAsync().get());
+          }
+          return consumed;
+        }));
+      }
+
+      List<Future<?>> added = new ArrayList<>();
+      for (int p = 0; p < producers; p++) {
+        final int producer = p;
+        added.add(executor.submit(() -> {
+          for (int i = producer; i < jobs.size(); i += producers) {
+            // every job is for a different tablet so that no queued job is replaced
+            var extent = new KeyExtent(TableId.of("" + i), new Text("z"), new Text("a"));
+            assertEquals(1, queue.add(extent, List.of(jobs.get(i)), 1L));
+          }
+        }));
+      }
+
+      for (Future<?> future : added) {
+        future.get();
+      }
+
+      Set<CompactionJob> seen = new HashSet<>();
+      for (Future<List<CompactionJob>> future : received) {
+        // a job lost between add() and getAsync() would leave a consumer waiting forever
+        for (CompactionJob job : future.get(2, TimeUnit.MINUTES)) {
+          assertTrue(seen.add(job));
+        }
+      }
+
+      // every job should have been handed out exactly once
+      assertEquals(jobs.size(), seen.size());
+      assertNull(queue.poll());
+      assertEquals(0, queue.getQueuedJobs());
+      assertEquals(jobs.size(), queue.getDequeuedJobs());
+      assertTrue(queue.getJobAges().isEmpty());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
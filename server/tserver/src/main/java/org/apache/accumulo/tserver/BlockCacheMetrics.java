@@ -24,17 +24,34 @@ import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_DATA_REQUESTCOU
 import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_INDEX_EVICTIONCOUNT;
 import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_INDEX_HITCOUNT;
 import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_INDEX_REQUESTCOUNT;
+import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_READBUFFER_BYTESREUSED;
+import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_READBUFFER_HITCOUNT;
+import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_READBUFFER_REQUESTCOUNT;
 import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_SUMMARY_EVICTIONCOUNT;
 import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_SUMMARY_HITCOUNT;
 import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_SUMMARY_REQUESTCOUNT;
+import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_TABLE_EVICTIONCOUNT;
+import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_TABLE_HITCOUNT;
+import static org.apache.accumulo.core.metrics.Metric.BLOCKCACHE_TABLE_REQUESTCOUNT;
 
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.ToDoubleFunction;
 
+import org.apache.accumulo.core.file.rfile.bcfile.DecompressionBufferPool;
 import org.apache.accumulo.core.metrics.MetricsProducer;
 import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.apache.accumulo.core.util.threads.ThreadPools;
 
 import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
 
 public class BlockCacheMetrics implements MetricsProducer {
 
@@ -42,14 +59,63 @@ public class BlockCacheMetrics implements MetricsProducer {
   final BlockCache dataCache;
   final BlockCache summaryCache;
 
+  private static final long TABLE_METRICS_REFRESH_SEC = 30;
+  private volatile MeterRegistry registry = null;
+  // the tables that have per table meters, by cache type
+  private final Map<CacheType,Set<String>> tablesWithMeters = new EnumMap<>(CacheType.class);
+
   public BlockCacheMetrics(BlockCache indexCache, BlockCache dataCache, BlockCache summaryCache) {
     this.indexCache = indexCache;
     this.dataCache = dataCache;
     this.summaryCache = summaryCache;
+    ScheduledExecutorService scheduler = ThreadPools.getServerThreadPools()
+        .createScheduledExecutorService(1, "blockCacheTableMetricsPoller");
+    Runtime.getRuntime().addShutdownHook(new Thread(scheduler::shutdownNow));
+    ThreadPools.watchNonCriticalScheduledTask(
+        scheduler.scheduleAtFixedRate(this::update, TABLE_METRICS_REFRESH_SEC,
+            TABLE_METRICS_REFRESH_SEC, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Registers meters for the tables that started using a cache since the last update.
+   */
+  synchronized void update() {
+    var localRegistry = registry;
+    if (localRegistry == null) {
+      return;
+    }
+    update(localRegistry, CacheType.INDEX, indexCache);
+    update(localRegistry, CacheType.DATA, dataCache);
+    update(localRegistry, CacheType.SUMMARY, summaryCache);
+  }
+
+  private void update(MeterRegistry registry, CacheType type, BlockCache cache) {
+    if (cache == null) {
+      return;
+    }
+    Set<String> registered = tablesWithMeters.computeIfAbsent(type, t -> new HashSet<>());
+    cache.getStats().tableStats().forEach((tableId, stats) -> {
+      if (registered.add(tableId)) {
+        List<Tag> tags = List.of(Tag.of("cache.type", type.name().toLowerCase()),
+            Tag.of("table.id", tableId));
+        FunctionCounter.builder(BLOCKCACHE_TABLE_HITCOUNT.getName(), stats, s -> s.hitCount())
+            .description(BLOCKCACHE_TABLE_HITCOUNT.getDescription()).tags(tags)
+            .register(registry);
+        FunctionCounter
+            .builder(BLOCKCACHE_TABLE_REQUESTCOUNT.getName(), stats, s -> s.requestCount())
+            .description(BLOCKCACHE_TABLE_REQUESTCOUNT.getDescription()).tags(tags)
+            .register(registry);
+        FunctionCounter
+            .builder(BLOCKCACHE_TABLE_EVICTIONCOUNT.getName(), stats, s -> s.evictionCount())
+            .description(BLOCKCACHE_TABLE_EVICTIONCOUNT.getDescription()).tags(tags)
+            .register(registry);
+      }
+    });
   }
 
   @Override
   public void registerMetrics(MeterRegistry registry) {
+    this.registry = registry;
     ToDoubleFunction<BlockCache> getHitCount = cache -> cache.getStats().hitCount();
     ToDoubleFunction<BlockCache> getRequestCount = cache -> cache.getStats().requestCount();
     ToDoubleFunction<BlockCache> getEvictionCount = cache -> cache.getStats().evictionCount();
@@ -76,5 +142,19 @@ public class BlockCacheMetrics implements MetricsProducer {
     FunctionCounter
         .builder(BLOCKCACHE_SUMMARY_EVICTIONCOUNT.getName(), summaryCache, getEvictionCount)
         .description(BLOCKCACHE_SUMMARY_EVICTIONCOUNT.getDescription()).register(registry);
+
+    DecompressionBufferPool pool = DecompressionBufferPool.getInstance();
+    FunctionCounter
+        .builder(BLOCKCACHE_READBUFFER_HITCOUNT.getName(), pool,
+            DecompressionBufferPool::getHitCount)
+        .description(BLOCKCACHE_READBUFFER_HITCOUNT.getDescription()).register(registry);
+    FunctionCounter
+        .builder(BLOCKCACHE_READBUFFER_REQUESTCOUNT.getName(), pool,
+            DecompressionBufferPool::getRequestCount)
+        .description(BLOCKCACHE_READBUFFER_REQUESTCOUNT.getDescription()).register(registry);
+    FunctionCounter
+        .builder(BLOCKCACHE_READBUFFER_BYTESREUSED.getName(), pool,
+            DecompressionBufferPool::getBytesReused)
+        .description(BLOCKCACHE_READBUFFER_BYTESREUSED.getDescription()).register(registry);
   }
 }
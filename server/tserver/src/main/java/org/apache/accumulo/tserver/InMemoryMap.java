@@ -22,6 +22,8 @@ import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterrup
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -57,6 +59,7 @@ import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.WrappingIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.EmptyIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.HeapIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.InterruptibleIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.LocalityGroupIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.LocalityGroupIterator.LocalityGroup;
@@ -109,6 +112,10 @@ public class InMemoryMap {
   public static final String TYPE_DEFAULT_MAP = "DefaultMap";
   public static final String TYPE_LOCALITY_GROUP_MAP = "LocalityGroupMap";
   public static final String TYPE_LOCALITY_GROUP_MAP_NATIVE = "LocalityGroupMap with native";
+  public static final String TYPE_STRIPED_MAP = "StripedMap";
+  public static final String TYPE_LOCALITY_GROUP_MAP_STRIPED = "LocalityGroupMap with striped";
+  public static final String TYPE_OFF_HEAP_MAP = "OffHeapMap";
+  public static final String TYPE_LOCALITY_GROUP_MAP_OFF_HEAP = "LocalityGroupMap with off-heap";
 
   private final AtomicReference<Pair<SamplerConfigurationImpl,Sampler>> samplerRef =
       new AtomicReference<>(null);
@@ -133,6 +140,8 @@ public class InMemoryMap {
   public InMemoryMap(AccumuloConfiguration config, ServerContext context, TableId tableId) {
 
     boolean useNativeMap = config.getBoolean(Property.TSERV_NATIVEMAP_ENABLED);
+    boolean useOffHeapMap = config.getBoolean(Property.TSERV_MEMORY_MAP_OFFHEAP_ENABLED);
+    int stripes = config.getCount(Property.TSERV_MEMORY_MAP_STRIPES);
 
     this.memDumpDir = config.get(Property.TSERV_MEMDUMP_DIR);
     this.lggroups = LocalityGroupUtil.getLocalityGroupsIgnoringErrors(config, tableId);
@@ -145,20 +154,33 @@ public class InMemoryMap {
     SimpleMap sampleMap;
 
     if (lggroups.isEmpty()) {
-      allMap = newMap(useNativeMap);
-      sampleMap = newMap(useNativeMap);
-      mapType = useNativeMap ? TYPE_NATIVE_MAP_WRAPPER : TYPE_DEFAULT_MAP;
+      allMap = newMap(config);
+      sampleMap = newMap(config);
+      if (useNativeMap) {
+        mapType = TYPE_NATIVE_MAP_WRAPPER;
+      } else if (useOffHeapMap) {
+        mapType = TYPE_OFF_HEAP_MAP;
+      } else {
+        mapType = stripes > 1 ? TYPE_STRIPED_MAP : TYPE_DEFAULT_MAP;
+      }
     } else {
-      allMap = new LocalityGroupMap(lggroups, useNativeMap);
-      sampleMap = new LocalityGroupMap(lggroups, useNativeMap);
-      mapType = useNativeMap ? TYPE_LOCALITY_GROUP_MAP_NATIVE : TYPE_LOCALITY_GROUP_MAP;
+      allMap = new LocalityGroupMap(lggroups, config);
+      sampleMap = new LocalityGroupMap(lggroups, config);
+      if (useNativeMap) {
+        mapType = TYPE_LOCALITY_GROUP_MAP_NATIVE;
+      } else if (useOffHeapMap) {
+        mapType = TYPE_LOCALITY_GROUP_MAP_OFF_HEAP;
+      } else {
+        mapType = stripes > 1 ? TYPE_LOCALITY_GROUP_MAP_STRIPED : TYPE_LOCALITY_GROUP_MAP;
+      }
     }
 
     map = new SampleMap(allMap, sampleMap);
+    concurrentMutations = map.supportsConcurrentMutations();
   }
 
-  private static SimpleMap newMap(boolean useNativeMap) {
-    if (useNativeMap) {
+  private static SimpleMap newMap(AccumuloConfiguration config) {
+    if (config.getBoolean(Property.TSERV_NATIVEMAP_ENABLED)) {
       try {
         return new NativeMapWrapper();
       } catch (Exception t) {
@@ -166,16 +188,28 @@ public class InMemoryMap {
       }
     }
 
+    if (config.getBoolean(Property.TSERV_MEMORY_MAP_OFFHEAP_ENABLED)) {
+      return new OffHeapMapWrapper(
+          Math.toIntExact(config.getAsBytes(Property.TSERV_MEMORY_MAP_OFFHEAP_ARENA_SIZE)));
+    }
+
+    int stripes = config.getCount(Property.TSERV_MEMORY_MAP_STRIPES);
+    if (stripes > 1) {
+      return new StripedMap(stripes);
+    }
+
     return new DefaultMap();
   }
 
   /**
    * Description of the type of SimpleMap that is created.
    * <p>
-   * If no locality groups are present, the SimpleMap is either TYPE_DEFAULT_MAP or
-   * TYPE_NATIVE_MAP_WRAPPER. If there is one more locality groups, then the InMemoryMap has an
-   * array for simple maps that either contain either TYPE_LOCALITY_GROUP_MAP which contains
-   * DefaultMaps or TYPE_LOCALITY_GROUP_MAP_NATIVE which contains NativeMapWrappers.
+   * If no locality groups are present, the SimpleMap is either TYPE_DEFAULT_MAP, TYPE_STRIPED_MAP,
+   * TYPE_OFF_HEAP_MAP or TYPE_NATIVE_MAP_WRAPPER. If there is one more locality groups, then the
+   * InMemoryMap has an array for simple maps that either contain either TYPE_LOCALITY_GROUP_MAP
+   * which contains DefaultMaps, TYPE_LOCALITY_GROUP_MAP_STRIPED which contains StripedMaps,
+   * TYPE_LOCALITY_GROUP_MAP_OFF_HEAP which contains OffHeapMapWrappers or
+   * TYPE_LOCALITY_GROUP_MAP_NATIVE which contains NativeMapWrappers.
    *
    * @return String that describes the Map type
    */
@@ -194,6 +228,12 @@ public class InMemoryMap {
     long getMemoryUsed();
 
     void mutate(List<Mutation> mutations, int kvCount);
+
+    /**
+     * @return true if {@link #mutate(List, int)} may be called by several threads at once with
+     *         disjoint kvCount ranges
+     */
+    boolean supportsConcurrentMutations();
   }
 
   private class SampleMap implements SimpleMap {
@@ -239,6 +279,11 @@ public class InMemoryMap {
       return map.getMemoryUsed() + sample.getMemoryUsed();
     }
 
+    @Override
+    public boolean supportsConcurrentMutations() {
+      return map.supportsConcurrentMutations() && sample.supportsConcurrentMutations();
+    }
+
     @Override
     public void mutate(List<Mutation> mutations, int kvCount) {
       map.mutate(mutations, kvCount);
@@ -287,13 +332,12 @@ public class InMemoryMap {
     private final Partitioner partitioner;
     private final PreAllocatedArray<List<Mutation>> partitioned;
 
-    LocalityGroupMap(Map<String,Set<ByteSequence>> groups, boolean useNativeMap) {
+    LocalityGroupMap(Map<String,Set<ByteSequence>> groups, AccumuloConfiguration config) {
       this.groupFams = new PreAllocatedArray<>(groups.size());
       this.maps = new SimpleMap[groups.size() + 1];
-      this.partitioned = new PreAllocatedArray<>(groups.size() + 1);
 
       for (int i = 0; i < maps.length; i++) {
-        maps[i] = newMap(useNativeMap);
+        maps[i] = newMap(config);
       }
 
       int count = 0;
@@ -306,10 +350,15 @@ public class InMemoryMap {
       }
 
       partitioner = new LocalityGroupUtil.Partitioner(this.groupFams);
+      partitioned = newPartitionedArray();
+    }
 
-      for (int i = 0; i < partitioned.length; i++) {
-        partitioned.set(i, new ArrayList<>());
+    private PreAllocatedArray<List<Mutation>> newPartitionedArray() {
+      PreAllocatedArray<List<Mutation>> array = new PreAllocatedArray<>(maps.length);
+      for (int i = 0; i < array.length; i++) {
+        array.set(i, new ArrayList<>());
       }
+      return array;
     }
 
     @Override
@@ -356,25 +405,47 @@ public class InMemoryMap {
     }
 
     @Override
-    public synchronized void mutate(List<Mutation> mutations, int kvCount) {
-      // this method is synchronized because it reuses objects to avoid allocation,
-      // currently, the method that calls this is synchronized so there is no
-      // loss in parallelism.... synchronization was added here for future proofing
+    public boolean supportsConcurrentMutations() {
+      for (SimpleMap map : maps) {
+        if (!map.supportsConcurrentMutations()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void mutate(List<Mutation> mutations, int kvCount) {
+      if (supportsConcurrentMutations()) {
+        // the underlying maps accept concurrent writes, so do not serialize on the shared
+        // partition lists and allocate lists for this batch instead
+        mutate(mutations, kvCount, newPartitionedArray());
+      } else {
+        // synchronized because the partition lists are reused to avoid allocation, currently,
+        // the method that calls this is synchronized so there is no loss in parallelism....
+        // synchronization was added here for future proofing
+        synchronized (this) {
+          mutate(mutations, kvCount, partitioned);
+        }
+      }
+    }
 
+    private void mutate(List<Mutation> mutations, int kvCount,
+        PreAllocatedArray<List<Mutation>> parts) {
       try {
-        partitioner.partition(mutations, partitioned);
+        partitioner.partition(mutations, parts);
 
-        for (int i = 0; i < partitioned.length; i++) {
-          if (!partitioned.get(i).isEmpty()) {
-            maps[i].mutate(partitioned.get(i), kvCount);
-            for (Mutation m : partitioned.get(i)) {
+        for (int i = 0; i < parts.length; i++) {
+          if (!parts.get(i).isEmpty()) {
+            maps[i].mutate(parts.get(i), kvCount);
+            for (Mutation m : parts.get(i)) {
               kvCount += m.getUpdates().size();
             }
           }
         }
       } finally {
         // clear immediately so mutations can be garbage collected
-        for (List<Mutation> list : partitioned) {
+        for (List<Mutation> list : parts) {
           list.clear();
         }
       }
@@ -432,19 +503,151 @@ public class InMemoryMap {
     @Override
     public void mutate(List<Mutation> mutations, int kvCount) {
       for (Mutation m : mutations) {
-        for (ColumnUpdate cvp : m.getUpdates()) {
-          Key newKey = new MemKey(m.getRow(), cvp.getColumnFamily(), cvp.getColumnQualifier(),
-              cvp.getColumnVisibility(), cvp.getTimestamp(), cvp.isDeleted(), false, kvCount++);
-          Value value = new Value(cvp.getValue());
-          put(newKey, value);
-        }
+        kvCount = mutate(m, kvCount);
+      }
+    }
+
+    /**
+     * @return the kvCount to use for the next update
+     */
+    int mutate(Mutation m, int kvCount) {
+      for (ColumnUpdate cvp : m.getUpdates()) {
+        Key newKey = new MemKey(m.getRow(), cvp.getColumnFamily(), cvp.getColumnQualifier(),
+            cvp.getColumnVisibility(), cvp.getTimestamp(), cvp.isDeleted(), false, kvCount++);
+        Value value = new Value(cvp.getValue());
+        put(newKey, value);
       }
+      return kvCount;
     }
 
     @Override
     public long getMemoryUsed() {
       return bytesInMemory.get() + (size() * getOverheadPerEntry());
     }
+
+    @Override
+    public boolean supportsConcurrentMutations() {
+      return false;
+    }
+  }
+
+  /**
+   * Splits the data of a tablet across several {@link DefaultMap}s by row hash. All updates for a
+   * row go to the same stripe, so no two stripes ever hold equal keys and merging the stripes
+   * yields the same sorted view a single map would. Because each stripe is a concurrent map and
+   * there is no shared state between stripes, batches of mutations with disjoint kvCount ranges
+   * may be applied in parallel.
+   */
+  private static class StripedMap implements SimpleMap {
+    private final DefaultMap[] stripes;
+
+    StripedMap(int numStripes) {
+      stripes = new DefaultMap[numStripes];
+      for (int i = 0; i < stripes.length; i++) {
+        stripes[i] = new DefaultMap();
+      }
+    }
+
+    private DefaultMap getStripe(byte[] row) {
+      int hash = Arrays.hashCode(row);
+      return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+
+    @Override
+    public int size() {
+      int sum = 0;
+      for (DefaultMap stripe : stripes) {
+        sum += stripe.size();
+      }
+      return sum;
+    }
+
+    @Override
+    public InterruptibleIterator skvIterator(SamplerConfigurationImpl samplerConfig) {
+      if (samplerConfig != null) {
+        throw new SampleNotPresentException();
+      }
+
+      List<InterruptibleIterator> iters = new ArrayList<>(stripes.length);
+      for (DefaultMap stripe : stripes) {
+        iters.add(stripe.skvIterator(null));
+      }
+      return new StripeMergingIterator(iters);
+    }
+
+    @Override
+    public void delete() {
+      for (DefaultMap stripe : stripes) {
+        stripe.delete();
+      }
+    }
+
+    @Override
+    public long getMemoryUsed() {
+      long sum = 0;
+      for (DefaultMap stripe : stripes) {
+        sum += stripe.getMemoryUsed();
+      }
+      return sum;
+    }
+
+    @Override
+    public void mutate(List<Mutation> mutations, int kvCount) {
+      for (Mutation m : mutations) {
+        kvCount = getStripe(m.getRow()).mutate(m, kvCount);
+      }
+    }
+
+    @Override
+    public boolean supportsConcurrentMutations() {
+      return true;
+    }
+  }
+
+  /**
+   * Merges the iterators over the stripes of a {@link StripedMap} into a single sorted iterator.
+   */
+  private static class StripeMergingIterator extends HeapIterator
+      implements InterruptibleIterator {
+
+    private final List<InterruptibleIterator> iters;
+
+    StripeMergingIterator(List<InterruptibleIterator> iters) {
+      super(iters.size());
+      this.iters = iters;
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive)
+        throws IOException {
+      clear();
+      for (InterruptibleIterator iter : iters) {
+        iter.seek(range, columnFamilies, inclusive);
+        addSource(iter);
+      }
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+      List<InterruptibleIterator> copies = new ArrayList<>(iters.size());
+      for (InterruptibleIterator iter : iters) {
+        copies.add((InterruptibleIterator) iter.deepCopy(env));
+      }
+      return new StripeMergingIterator(copies);
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options,
+        IteratorEnvironment env) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setInterruptFlag(AtomicBoolean flag) {
+      for (InterruptibleIterator iter : iters) {
+        iter.setInterruptFlag(flag);
+      }
+    }
   }
 
   private static class NativeMapWrapper implements SimpleMap {
@@ -481,6 +684,52 @@ public class InMemoryMap {
     public void mutate(List<Mutation> mutations, int kvCount) {
       nativeMap.mutate(mutations, kvCount);
     }
+
+    @Override
+    public boolean supportsConcurrentMutations() {
+      return false;
+    }
+  }
+
+  private static class OffHeapMapWrapper implements SimpleMap {
+    private final OffHeapMap offHeapMap;
+
+    OffHeapMapWrapper(int arenaSize) {
+      offHeapMap = new OffHeapMap(arenaSize);
+    }
+
+    @Override
+    public int size() {
+      return offHeapMap.size();
+    }
+
+    @Override
+    public InterruptibleIterator skvIterator(SamplerConfigurationImpl samplerConfig) {
+      if (samplerConfig != null) {
+        throw new SampleNotPresentException();
+      }
+      return offHeapMap.skvIterator();
+    }
+
+    @Override
+    public void delete() {
+      offHeapMap.delete();
+    }
+
+    @Override
+    public long getMemoryUsed() {
+      return offHeapMap.getMemoryUsed();
+    }
+
+    @Override
+    public void mutate(List<Mutation> mutations, int kvCount) {
+      offHeapMap.mutate(mutations, kvCount);
+    }
+
+    @Override
+    public boolean supportsConcurrentMutations() {
+      return true;
+    }
   }
 
   private final AtomicInteger nextKVCount = new AtomicInteger(1);
@@ -488,11 +737,18 @@ public class InMemoryMap {
 
   private final Object writeSerializer = new Object();
 
+  private final boolean concurrentMutations;
+
   /**
    * Applies changes to a row in the InMemoryMap
    *
    */
   public void mutate(List<Mutation> mutations, int numKVs) {
+    if (concurrentMutations) {
+      mutateConcurrently(mutations, numKVs);
+      return;
+    }
+
     // Can not update mutationCount while writes that started before
     // are in progress, this would cause partial mutations to be seen.
     // Also, can not continue until mutation count is updated, because
@@ -510,6 +766,36 @@ public class InMemoryMap {
     }
   }
 
+  /**
+   * Applies a batch without holding the write serializer while the map is being updated. Each
+   * batch still reserves a contiguous kvCount range up front and is only made visible to readers
+   * once every batch that reserved an earlier range has been made visible, so readers can not see
+   * partial mutations or miss a completed write.
+   */
+  private void mutateConcurrently(List<Mutation> mutations, int numKVs) {
+    int kv = nextKVCount.getAndAdd(numKVs);
+    try {
+      map.mutate(mutations, kv);
+    } finally {
+      boolean interrupted = false;
+      synchronized (writeSerializer) {
+        while (kvCount.get() != kv - 1) {
+          try {
+            writeSerializer.wait();
+          } catch (InterruptedException e) {
+            // must still publish this batch, otherwise writes that follow would wait forever
+            interrupted = true;
+          }
+        }
+        kvCount.set(kv + numKVs - 1);
+        writeSerializer.notifyAll();
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
   /**
    * Returns a long representing the size of the InMemoryMap
    *
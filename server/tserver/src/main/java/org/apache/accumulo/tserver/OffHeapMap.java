@@ -0,0 +1,511 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.accumulo.core.client.SampleNotPresentException;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.InterruptibleIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.IterationInterruptedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * This class stores the keys and values of an in-memory map in direct memory, as a pure java
+ * alternative to {@link NativeMap}. Entries are copied into large direct buffers (arenas) that are
+ * only ever appended to. A concurrent skip list of small references into the arenas orders the
+ * entries, so the only per entry objects on the java heap are the reference and its skip list
+ * node. Space in an arena is reserved by moving its offset with a compare and set, so concurrent
+ * mutations only synchronize when an arena is full and a new one is needed.
+ *
+ * Arenas are never freed individually. When the map is deleted, it drops all of its arenas and
+ * their direct memory is reclaimed once the buffers are garbage collected. When direct memory runs
+ * short, the JVM collects garbage before failing an allocation, so this should not be prevented
+ * with {@code -XX:+DisableExplicitGC}. Like the {@link NativeMap}, iterators can not be used once
+ * the map is deleted. The arenas are direct buffers, so the JVM must allow enough direct memory for
+ * them, see {@link #getMaxDirectMemory()}.
+ */
+public class OffHeapMap {
+
+  private static final Logger log = LoggerFactory.getLogger(OffHeapMap.class);
+
+  // entry layout: rowLen, cfLen, cqLen, cvLen, valLen, kvCount, timestamp, deleted, then the data
+  private static final int ROW_LEN = 0;
+  private static final int CF_LEN = 4;
+  private static final int CQ_LEN = 8;
+  private static final int CV_LEN = 12;
+  private static final int VAL_LEN = 16;
+  private static final int KV_COUNT = 20;
+  private static final int TIMESTAMP = 24;
+  private static final int DELETED = 32;
+  private static final int HEADER_SIZE = 33;
+
+  // estimate of the heap used by each entry's reference and skip list node
+  private static final int ENTRY_OVERHEAD = 80;
+
+  /**
+   * A reference to an entry in an arena. Probes are references to keys encoded in heap buffers
+   * that are used to position iterators; a probe sorts before every entry with an equal key, the
+   * same way a {@link Key} sorts before equal {@link MemKey}s.
+   */
+  private static final class Entry {
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final boolean probe;
+
+    private Entry(ByteBuffer buffer, int offset, boolean probe) {
+      this.buffer = buffer;
+      this.offset = offset;
+      this.probe = probe;
+    }
+
+    private int length(int field) {
+      return buffer.getInt(offset + field);
+    }
+
+    private int dataStart() {
+      return offset + HEADER_SIZE;
+    }
+
+    private long timestamp() {
+      return buffer.getLong(offset + TIMESTAMP);
+    }
+
+    private boolean deleted() {
+      return buffer.get(offset + DELETED) != 0;
+    }
+
+    private int kvCount() {
+      return buffer.getInt(offset + KV_COUNT);
+    }
+
+    private byte[] read(int start, int len) {
+      byte[] data = new byte[len];
+      ByteBuffer dup = buffer.duplicate();
+      dup.position(start);
+      dup.get(data);
+      return data;
+    }
+
+    private MemKey getKey() {
+      int rowLen = length(ROW_LEN);
+      int cfLen = length(CF_LEN);
+      int cqLen = length(CQ_LEN);
+      int cvLen = length(CV_LEN);
+      int pos = dataStart();
+      byte[] row = read(pos, rowLen);
+      pos += rowLen;
+      byte[] cf = read(pos, cfLen);
+      pos += cfLen;
+      byte[] cq = read(pos, cqLen);
+      pos += cqLen;
+      byte[] cv = read(pos, cvLen);
+      return new MemKey(row, cf, cq, cv, timestamp(), deleted(), false, kvCount());
+    }
+
+    private Value getValue() {
+      int pos = dataStart() + length(ROW_LEN) + length(CF_LEN) + length(CQ_LEN) + length(CV_LEN);
+      return new Value(read(pos, length(VAL_LEN)), false);
+    }
+  }
+
+  private static int compareBytes(ByteBuffer b1, int s1, int l1, ByteBuffer b2, int s2, int l2) {
+    int len = Math.min(l1, l2);
+    for (int i = 0; i < len; i++) {
+      int cmp = (b1.get(s1 + i) & 0xff) - (b2.get(s2 + i) & 0xff);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return l1 - l2;
+  }
+
+  /**
+   * Orders entries the same way {@link MemKeyComparator} orders the keys of the java map.
+   */
+  private static int compare(Entry e1, Entry e2) {
+    int s1 = e1.dataStart();
+    int s2 = e2.dataStart();
+    for (int field = ROW_LEN; field <= CV_LEN; field += 4) {
+      int l1 = e1.length(field);
+      int l2 = e2.length(field);
+      int cmp = compareBytes(e1.buffer, s1, l1, e2.buffer, s2, l2);
+      if (cmp != 0) {
+        return cmp;
+      }
+      s1 += l1;
+      s2 += l2;
+    }
+
+    int cmp = Long.compare(e2.timestamp(), e1.timestamp());
+    if (cmp != 0) {
+      return cmp;
+    }
+
+    boolean d1 = e1.deleted();
+    if (d1 != e2.deleted()) {
+      return d1 ? -1 : 1;
+    }
+
+    if (e1.probe || e2.probe) {
+      return Boolean.compare(e2.probe, e1.probe);
+    }
+
+    return Integer.compare(e2.kvCount(), e1.kvCount());
+  }
+
+  private static void encode(ByteBuffer buffer, int offset, byte[] row, byte[] cf, byte[] cq,
+      byte[] cv, long ts, boolean deleted, int kvCount, byte[] value) {
+    ByteBuffer dup = buffer.duplicate();
+    dup.position(offset);
+    dup.putInt(row.length).putInt(cf.length).putInt(cq.length).putInt(cv.length)
+        .putInt(value.length).putInt(kvCount).putLong(ts).put((byte) (deleted ? 1 : 0));
+    dup.put(row).put(cf).put(cq).put(cv).put(value);
+  }
+
+  /**
+   * An arena that entries are appended to by moving its offset.
+   */
+  private static final class Arena {
+    private final ByteBuffer buffer;
+    private final AtomicInteger offset = new AtomicInteger();
+
+    private Arena(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    /**
+     * @return the offset of the reserved space, or -1 if the arena does not have enough left
+     */
+    private int reserve(int len) {
+      int start;
+      do {
+        start = offset.get();
+        if (start + len > buffer.capacity()) {
+          return -1;
+        }
+      } while (!offset.compareAndSet(start, start + len));
+      return start;
+    }
+  }
+
+  /**
+   * @return the direct memory the JVM allows, set with {@code -XX:MaxDirectMemorySize} and the
+   *         same as the maximum heap size when that is not set
+   */
+  public static long getMaxDirectMemory() {
+    try {
+      HotSpotDiagnosticMXBean bean =
+          ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+      if (bean != null) {
+        long max = Long.parseLong(bean.getVMOption("MaxDirectMemorySize").getValue());
+        if (max > 0) {
+          return max;
+        }
+      }
+    } catch (RuntimeException e) {
+      log.debug("Unable to read MaxDirectMemorySize, assuming the maximum heap size", e);
+    }
+    return Runtime.getRuntime().maxMemory();
+  }
+
+  private static Entry newProbe(Key key) {
+    ByteSequence row = key.getRowData();
+    ByteSequence cf = key.getColumnFamilyData();
+    ByteSequence cq = key.getColumnQualifierData();
+    ByteSequence cv = key.getColumnVisibilityData();
+    ByteBuffer buffer =
+        ByteBuffer.allocate(HEADER_SIZE + row.length() + cf.length() + cq.length() + cv.length());
+    encode(buffer, 0, row.toArray(), cf.toArray(), cq.toArray(), cv.toArray(), key.getTimestamp(),
+        key.isDeleted(), 0, new byte[0]);
+    return new Entry(buffer, 0, true);
+  }
+
+  private final int arenaSize;
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicLong bytesAllocated = new AtomicLong();
+
+  private final ConcurrentSkipListSet<Entry> index =
+      new ConcurrentSkipListSet<>(OffHeapMap::compare);
+
+  private volatile Arena currentArena = null;
+
+  // mutations and iterators hold the read lock while using the arenas, deleting the map drops them
+  // while holding the write lock
+  private final Lock rlock;
+  private final Lock wlock;
+  // guarded by the locks
+  private boolean deleted = false;
+
+  public OffHeapMap(int arenaSize) {
+    Preconditions.checkArgument(arenaSize > HEADER_SIZE, "arena size %s is too small", arenaSize);
+    this.arenaSize = arenaSize;
+    ReadWriteLock rwLock = new ReentrantReadWriteLock();
+    this.rlock = rwLock.readLock();
+    this.wlock = rwLock.writeLock();
+  }
+
+  // assumes the read or write lock is held
+  private void checkDeleted() {
+    if (deleted) {
+      throw new IllegalStateException("Map was deleted");
+    }
+  }
+
+  private ByteBuffer newArena(int size) {
+    ByteBuffer arena = ByteBuffer.allocateDirect(size);
+    bytesAllocated.addAndGet(size);
+    return arena;
+  }
+
+  /**
+   * Reserves space for an entry. Entries larger than the arena size are given an arena of their
+   * own. Assumes the read lock is held.
+   */
+  private Entry allocate(int len) {
+    if (len > arenaSize) {
+      return new Entry(newArena(len), 0, false);
+    }
+
+    while (true) {
+      Arena arena = currentArena;
+      if (arena != null) {
+        int offset = arena.reserve(len);
+        if (offset >= 0) {
+          return new Entry(arena.buffer, offset, false);
+        }
+      }
+      synchronized (this) {
+        // only the first thread to find the arena full replaces it, the others use its arena
+        if (currentArena == arena) {
+          currentArena = new Arena(newArena(arenaSize));
+        }
+      }
+    }
+  }
+
+  private void put(byte[] row, ColumnUpdate cvp, int kvCount) {
+    byte[] cf = cvp.getColumnFamily();
+    byte[] cq = cvp.getColumnQualifier();
+    byte[] cv = cvp.getColumnVisibility();
+    byte[] value = cvp.getValue();
+    Entry entry =
+        allocate(HEADER_SIZE + row.length + cf.length + cq.length + cv.length + value.length);
+    encode(entry.buffer, entry.offset, row, cf, cq, cv, cvp.getTimestamp(), cvp.isDeleted(),
+        kvCount, value);
+    // writing the entry happens before adding it to the index, so readers that find the entry in
+    // the index always see it completely written
+    if (index.add(entry)) {
+      size.incrementAndGet();
+    }
+  }
+
+  public void mutate(List<Mutation> mutations, int kvCount) {
+    rlock.lock();
+    try {
+      checkDeleted();
+      for (Mutation m : mutations) {
+        byte[] row = m.getRow();
+        for (ColumnUpdate cvp : m.getUpdates()) {
+          put(row, cvp, kvCount++);
+        }
+      }
+    } finally {
+      rlock.unlock();
+    }
+  }
+
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * @return the direct memory reserved by the arenas plus an estimate of the heap used to index
+   *         the entries
+   */
+  public long getMemoryUsed() {
+    return bytesAllocated.get() + (long) size() * ENTRY_OVERHEAD;
+  }
+
+  /**
+   * Drops all arenas, so their memory can be reclaimed. Iterators of the map can not be used
+   * afterwards.
+   */
+  public void delete() {
+    wlock.lock();
+    try {
+      if (deleted) {
+        return;
+      }
+      deleted = true;
+      index.clear();
+      currentArena = null;
+      log.debug("Dropping {} bytes of off-heap map arenas", bytesAllocated.get());
+      bytesAllocated.set(0);
+    } finally {
+      wlock.unlock();
+    }
+  }
+
+  public InterruptibleIterator skvIterator() {
+    rlock.lock();
+    try {
+      checkDeleted();
+    } finally {
+      rlock.unlock();
+    }
+    return new OffHeapMapIterator(null);
+  }
+
+  private class OffHeapMapIterator implements InterruptibleIterator {
+
+    private Iterator<Entry> iter;
+    private Key topKey;
+    private Value topValue;
+    private Range range = new Range();
+    private AtomicBoolean interruptFlag;
+    private int interruptCheckCount = 0;
+
+    private OffHeapMapIterator(AtomicBoolean interruptFlag) {
+      this.interruptFlag = interruptFlag;
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+      if (env != null && env.isSamplingEnabled()) {
+        throw new SampleNotPresentException();
+      }
+      return new OffHeapMapIterator(interruptFlag);
+    }
+
+    private void readNext() {
+      rlock.lock();
+      try {
+        checkDeleted();
+        if (iter.hasNext()) {
+          Entry entry = iter.next();
+          topKey = entry.getKey();
+          if (range.afterEndKey(topKey)) {
+            topKey = null;
+            topValue = null;
+          } else {
+            topValue = entry.getValue();
+          }
+        } else {
+          topKey = null;
+          topValue = null;
+        }
+      } finally {
+        rlock.unlock();
+      }
+    }
+
+    @Override
+    public Key getTopKey() {
+      return topKey;
+    }
+
+    @Override
+    public Value getTopValue() {
+      return topValue;
+    }
+
+    @Override
+    public boolean hasTop() {
+      return topKey != null;
+    }
+
+    @Override
+    public void next() throws IOException {
+      if (topKey == null) {
+        throw new IllegalStateException();
+      }
+
+      if (interruptFlag != null && interruptCheckCount++ % 100 == 0 && interruptFlag.get()) {
+        throw new IterationInterruptedException();
+      }
+
+      readNext();
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive)
+        throws IOException {
+      if (interruptFlag != null && interruptFlag.get()) {
+        throw new IterationInterruptedException();
+      }
+
+      this.range = range;
+
+      Key key = range.getStartKey();
+      if (key == null) {
+        key = new Key();
+      }
+
+      Entry probe = newProbe(key);
+      rlock.lock();
+      try {
+        checkDeleted();
+        iter = index.tailSet(probe, true).iterator();
+      } finally {
+        rlock.unlock();
+      }
+      readNext();
+
+      while (hasTop() && range.beforeStartKey(getTopKey())) {
+        next();
+      }
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options,
+        IteratorEnvironment env) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setInterruptFlag(AtomicBoolean flag) {
+      this.interruptFlag = flag;
+    }
+  }
+}
@@ -31,6 +31,7 @@ import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_COND
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_CONDITIONAL_UPDATE_ROOT_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_CONDITIONAL_UPDATE_USER_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_MINOR_COMPACTOR_POOL;
+import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_SCAN_SEEK_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_SUMMARY_FILE_RETRIEVER_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_SUMMARY_PARTITION_POOL;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_SUMMARY_REMOTE_POOL;
@@ -71,6 +72,7 @@ import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
 import org.apache.accumulo.core.file.blockfile.impl.ScanCacheProvider;
+import org.apache.accumulo.core.file.rfile.bcfile.DecompressionBufferPool;
 import org.apache.accumulo.core.metadata.schema.Ample;
 import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager;
@@ -121,6 +123,7 @@ public class TabletServerResourceManager {
   private final ThreadPoolExecutor summaryRetrievalPool;
   private final ThreadPoolExecutor summaryPartitionPool;
   private final ThreadPoolExecutor summaryRemotePool;
+  private final ThreadPoolExecutor scanSeekPool;
 
   private final Map<String,ThreadPoolExecutor> scanExecutors;
   private final Map<String,ScanExecutor> scanExecutorChoices;
@@ -158,7 +161,8 @@ public class TabletServerResourceManager {
   }
 
   private ThreadPoolExecutor createPriorityExecutor(ScanExecutorConfig sec,
-      Map<String,Queue<Runnable>> scanExecQueues, final boolean enableMetrics) {
+      Map<String,Queue<Runnable>> scanExecQueues, final boolean enableMetrics,
+      final boolean useVirtualThreads) {
 
     BlockingQueue<Runnable> queue;
 
@@ -206,7 +210,7 @@ public class TabletServerResourceManager {
         .getPoolBuilder(ACCUMULO_POOL_PREFIX.poolName + ".scan." + sec.name)
         .numCoreThreads(sec.getCurrentMaxThreads()).numMaxThreads(sec.getCurrentMaxThreads())
         .withTimeOut(0L, MILLISECONDS).withQueue(queue).atPriority(sec.priority)
-        .enableThreadPoolMetrics(enableMetrics).build();
+        .enableThreadPoolMetrics(enableMetrics).useVirtualThreads(useVirtualThreads).build();
 
     modifyThreadPoolSizesAtRuntime(sec::getCurrentMaxThreads,
         ACCUMULO_POOL_PREFIX.poolName + ".scan." + sec.name, es);
@@ -277,6 +281,9 @@ public class TabletServerResourceManager {
     if (usingNativeMap) {
       NativeMapLoader.load();
     }
+    // the in-memory maps do not use the java heap for their data with either of these enabled
+    boolean usingOffHeapMap =
+        usingNativeMap || acuConf.getBoolean(Property.TSERV_MEMORY_MAP_OFFHEAP_ENABLED);
 
     long totalQueueSize = acuConf.getAsBytes(Property.TSERV_TOTAL_MUTATION_QUEUE_MAX);
 
@@ -291,14 +298,16 @@ public class TabletServerResourceManager {
     _iCache = cacheManager.getBlockCache(CacheType.INDEX);
     _dCache = cacheManager.getBlockCache(CacheType.DATA);
     _sCache = cacheManager.getBlockCache(CacheType.SUMMARY);
+    DecompressionBufferPool.getInstance()
+        .setMaxRetainedBytes(acuConf.getAsBytes(Property.TSERV_READ_BUFFER_POOL_SIZE));
 
     long dCacheSize = _dCache.getMaxHeapSize();
     long iCacheSize = _iCache.getMaxHeapSize();
     long sCacheSize = _sCache.getMaxHeapSize();
 
     Runtime runtime = Runtime.getRuntime();
-    if (usingNativeMap) {
-      // Still check block cache sizes when using native maps.
+    if (usingOffHeapMap) {
+      // Still check block cache sizes when using native or off-heap maps.
       if (dCacheSize + iCacheSize + sCacheSize + totalQueueSize > runtime.maxMemory()) {
         throw new IllegalArgumentException(String.format(
             "Block cache sizes %,d and mutation queue size %,d is too large for this JVM"
@@ -313,11 +322,21 @@ public class TabletServerResourceManager {
               + " too large for this JVM configuration %,d",
           maxMemory, dCacheSize + iCacheSize + sCacheSize, totalQueueSize, runtime.maxMemory()));
     }
+    if (!usingNativeMap && acuConf.getBoolean(Property.TSERV_MEMORY_MAP_OFFHEAP_ENABLED)) {
+      // the off-heap map keeps its data in direct memory
+      long maxDirectMemory = OffHeapMap.getMaxDirectMemory();
+      if (maxMemory > maxDirectMemory) {
+        throw new IllegalArgumentException(String.format(
+            "Maximum tablet server map memory %,d is too large for the direct memory this JVM"
+                + " allows %,d, see -XX:MaxDirectMemorySize",
+            maxMemory, maxDirectMemory));
+      }
+    }
     runtime.gc();
 
     // totalMemory - freeMemory = memory in use
     // maxMemory - memory in use = max available memory
-    if (!usingNativeMap
+    if (!usingOffHeapMap
         && maxMemory > runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory())) {
       log.warn("In-memory map may not fit into local memory space.");
     }
@@ -373,12 +392,20 @@ public class TabletServerResourceManager {
         () -> context.getConfiguration().getCount(Property.TSERV_SUMMARY_PARTITION_THREADS),
         TSERVER_SUMMARY_PARTITION_POOL.poolName, summaryPartitionPool);
 
+    scanSeekPool = ThreadPools.getServerThreadPools().createExecutorService(acuConf,
+        Property.TSERV_SCAN_SEEK_THREADS, enableMetrics);
+    modifyThreadPoolSizesAtRuntime(
+        () -> context.getConfiguration().getCount(Property.TSERV_SCAN_SEEK_THREADS),
+        TSERVER_SCAN_SEEK_POOL.poolName, scanSeekPool);
+
     boolean isScanServer = (tserver instanceof ScanServer);
 
     Collection<ScanExecutorConfig> scanExecCfg = acuConf.getScanExecutors(isScanServer);
     Map<String,Queue<Runnable>> scanExecQueues = new HashMap<>();
+    final boolean useVirtualThreads =
+        acuConf.getBoolean(Property.GENERAL_SERVER_VIRTUAL_THREADS_ENABLED);
     scanExecutors = scanExecCfg.stream().collect(toUnmodifiableMap(cfg -> cfg.name,
-        cfg -> createPriorityExecutor(cfg, scanExecQueues, enableMetrics)));
+        cfg -> createPriorityExecutor(cfg, scanExecQueues, enableMetrics, useVirtualThreads)));
     scanExecutorChoices = scanExecCfg.stream().collect(toUnmodifiableMap(cfg -> cfg.name,
         cfg -> new ScanExecutorImpl(cfg, scanExecQueues.get(cfg.name))));
 
@@ -700,6 +727,16 @@ public class TabletServerResourceManager {
       return tableConf;
     }
 
+    /**
+     * @return the executor to seek the files of a scan over the given number of files with, or
+     *         null if the files should be seeked one after another
+     */
+    public ExecutorService getScanSeekExecutor(int numFiles) {
+      int minFiles =
+          context.getConfiguration().getCount(Property.TSERV_SCAN_SEEK_CONCURRENT_MIN_FILES);
+      return minFiles > 0 && numFiles >= minFiles ? scanSeekPool : null;
+    }
+
     // BEGIN methods that Tablets call to manage their set of open data files
     public synchronized ScanFileManager newScanFileManager(ScanDispatch scanDispatch) {
       if (closed) {
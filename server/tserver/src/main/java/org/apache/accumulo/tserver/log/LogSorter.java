@@ -20,17 +20,23 @@ package org.apache.accumulo.tserver.log;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_WAL_SORT_CONCURRENT_POOL;
+import static org.apache.accumulo.core.util.threads.ThreadPoolNames.TSERVER_WAL_SORT_WRITE_POOL;
 
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.accumulo.core.Constants;
@@ -171,24 +177,27 @@ public class LogSorter {
       }
 
       final long bufferSize = sortedLogConf.getAsBytes(Property.TSERV_WAL_SORT_BUFFER_SIZE);
+      final int writeThreads = sortedLogConf.getCount(Property.TSERV_WAL_SORT_WRITE_THREADS);
       Thread.currentThread().setName("Sorting " + name + " for recovery");
-      while (true) {
-        final ArrayList<Pair<LogFileKey,LogFileValue>> buffer = new ArrayList<>();
-        try {
-          long start = input.getPos();
-          while (input.getPos() - start < bufferSize) {
-            LogFileKey key = new LogFileKey();
-            LogFileValue value = new LogFileValue();
-            key.readFields(decryptingInput);
-            value.readFields(decryptingInput);
-            buffer.add(new Pair<>(key, value));
+      try (PartWriter partWriter = new PartWriter(destPath, writeThreads)) {
+        while (true) {
+          final ArrayList<Pair<LogFileKey,LogFileValue>> buffer = new ArrayList<>();
+          try {
+            long start = input.getPos();
+            while (input.getPos() - start < bufferSize) {
+              LogFileKey key = new LogFileKey();
+              LogFileValue value = new LogFileValue();
+              key.readFields(decryptingInput);
+              value.readFields(decryptingInput);
+              buffer.add(new Pair<>(key, value));
+            }
+            partWriter.write(buffer, part++);
+          } catch (EOFException ex) {
+            partWriter.write(buffer, part++);
+            break;
           }
-          writeBuffer(destPath, buffer, part++);
-          buffer.clear();
-        } catch (EOFException ex) {
-          writeBuffer(destPath, buffer, part++);
-          break;
         }
+        partWriter.awaitCompletion();
       }
       fs.create(new Path(destPath, "finished")).close();
       log.info("Finished log sort {} {} bytes {} parts in {}ms", name, getBytesCopied(), part,
@@ -223,6 +232,96 @@ public class LogSorter {
     }
   }
 
+  /**
+   * Sorts and writes the parts of a single log. With more than one thread, parts are handed to a
+   * bounded pool so the sorting thread can read and decode the next part of the log while earlier
+   * parts are being sorted and written. At most one part per thread is in flight at a time, and the
+   * sorting thread fills one more buffer while it waits for a thread, so the memory used peaks at
+   * the number of threads plus one times the sort buffer size.
+   */
+  private class PartWriter implements AutoCloseable {
+    private final String destPath;
+    private final ThreadPoolExecutor pool;
+    private final Semaphore inFlight;
+    private final List<Future<?>> pending = new ArrayList<>();
+
+    PartWriter(String destPath, int threads) {
+      this.destPath = destPath;
+      if (threads > 1) {
+        this.pool = ThreadPools.getServerThreadPools().getPoolBuilder(TSERVER_WAL_SORT_WRITE_POOL)
+            .numCoreThreads(threads).build();
+        this.inFlight = new Semaphore(threads);
+      } else {
+        this.pool = null;
+        this.inFlight = null;
+      }
+    }
+
+    void write(List<Pair<LogFileKey,LogFileValue>> buffer, int part) throws IOException {
+      if (pool == null) {
+        writeBuffer(destPath, buffer, part);
+        return;
+      }
+
+      // fail fast instead of reading the rest of the log if an earlier part could not be written
+      checkForFailures(false);
+
+      try {
+        inFlight.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted waiting to write part " + part);
+      }
+
+      try {
+        pending.add(pool.submit(() -> {
+          try {
+            writeBuffer(destPath, buffer, part);
+          } finally {
+            inFlight.release();
+          }
+          return null;
+        }));
+      } catch (RuntimeException e) {
+        inFlight.release();
+        throw e;
+      }
+    }
+
+    void awaitCompletion() throws IOException {
+      checkForFailures(true);
+    }
+
+    private void checkForFailures(boolean wait) throws IOException {
+      Iterator<Future<?>> iter = pending.iterator();
+      while (iter.hasNext()) {
+        Future<?> future = iter.next();
+        if (!wait && !future.isDone()) {
+          continue;
+        }
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted waiting for sorted parts to be written");
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+          }
+          throw new IOException("Failed to write sorted part to " + destPath, e.getCause());
+        }
+        iter.remove();
+      }
+    }
+
+    @Override
+    public void close() {
+      if (pool != null) {
+        pool.shutdownNow();
+      }
+    }
+  }
+
   private final AbstractServer server;
   private final ServerContext context;
   private final AccumuloConfiguration conf;
@@ -182,7 +182,8 @@ class ScanDataSource implements DataSource {
     iters.addAll(datafiles);
     iters.addAll(memIters);
 
-    MultiIterator multiIter = new MultiIterator(iters, tablet.getExtent());
+    MultiIterator multiIter = new MultiIterator(iters, tablet.getExtent())
+        .setSeekExecutor(tablet.getTabletResources().getScanSeekExecutor(datafiles.size()));
 
     TabletIteratorEnvironment iterEnv = new TabletIteratorEnvironment(tablet.getContext(),
         IteratorScope.scan, tablet.getTableConfiguration(), tablet.getExtent().tableId(),
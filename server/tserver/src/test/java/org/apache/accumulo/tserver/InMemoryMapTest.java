@@ -29,10 +29,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.accumulo.core.client.SampleNotPresentException;
@@ -537,6 +541,303 @@ public class InMemoryMapTest extends WithTestNames {
     seekLocalityGroups(iter1.deepCopy(null));
   }
 
+  @Test
+  public void testStripedMap() throws Exception {
+    ConfigurationCopy config = newConfig(uniqueDirPaths(1)[0]);
+    config.set(Property.TSERV_MEMORY_MAP_STRIPES, "4");
+    InMemoryMap imm = new InMemoryMap(config, getServerContext(), TableId.of("--TEST--"));
+    assertEquals(InMemoryMap.TYPE_STRIPED_MAP, imm.getMapType());
+
+    mutate(imm, "r1", "foo:cq1", 3, "bar1");
+    mutate(imm, "r2", "foo:cq1", 3, "bar2");
+    MemoryIterator ski1 = imm.skvIterator(null);
+    mutate(imm, "r1", "foo:cq1", 3, "bar3");
+    mutate(imm, "r3", "foo:cq1", 3, "bar4");
+    MemoryIterator ski2 = imm.skvIterator(null);
+
+    ski1.seek(new Range(), Set.of(), false);
+    testAndCallNext(ski1, "r1", "foo:cq1", 3, "bar1");
+    testAndCallNext(ski1, "r2", "foo:cq1", 3, "bar2");
+    assertFalse(ski1.hasTop());
+
+    ski2.seek(new Range(), Set.of(), false);
+    testAndCallNext(ski2, "r1", "foo:cq1", 3, "bar3");
+    testAndCallNext(ski2, "r1", "foo:cq1", 3, "bar1");
+    testAndCallNext(ski2, "r2", "foo:cq1", 3, "bar2");
+    testAndCallNext(ski2, "r3", "foo:cq1", 3, "bar4");
+    assertFalse(ski2.hasTop());
+
+    SortedKeyValueIterator<Key,Value> dc = ski2.deepCopy(new SampleIE());
+    dc.seek(new Range(new Text("r2")), Set.of(), false);
+    testAndCallNext(dc, "r2", "foo:cq1", 3, "bar2");
+    assertFalse(dc.hasTop());
+
+    assertEquals(4, imm.getNumEntries());
+
+    imm.delete(0);
+
+    ski2.seek(new Range(new Text("r3")), Set.of(), false);
+    testAndCallNext(ski2, "r3", "foo:cq1", 3, "bar4");
+    assertFalse(ski2.hasTop());
+
+    ski1.close();
+    ski2.close();
+  }
+
+  @Test
+  public void testStripedLocalityGroups() throws Exception {
+    ConfigurationCopy config = newConfig(uniqueDirPaths(1)[0]);
+    config.set(Property.TSERV_MEMORY_MAP_STRIPES, "3");
+    config.set(Property.TABLE_LOCALITY_GROUP_PREFIX + "lg1",
+        LocalityGroupUtil.encodeColumnFamilies(toTextSet("cf1", "cf2")));
+    config.set(Property.TABLE_LOCALITY_GROUP_PREFIX + "lg2",
+        LocalityGroupUtil.encodeColumnFamilies(toTextSet("cf3", "cf4")));
+    config.set(Property.TABLE_LOCALITY_GROUPS.getKey(), "lg1,lg2");
+
+    InMemoryMap imm = new InMemoryMap(config, getServerContext(), TableId.of("--TEST--"));
+    assertEquals(InMemoryMap.TYPE_LOCALITY_GROUP_MAP_STRIPED, imm.getMapType());
+
+    Mutation m1 = new Mutation("r1");
+    m1.put("cf1", "x", 2, "1");
+    m1.put("cf1", "y", 2, "2");
+    m1.put("cf3", "z", 2, "3");
+    m1.put("foo", "b", 2, "9");
+
+    Mutation m2 = new Mutation("r2");
+    m2.put("cf2", "x", 3, "5");
+
+    Mutation m3 = new Mutation("r3");
+    m3.put("foo", "b", 4, "6");
+
+    Mutation m4 = new Mutation("r4");
+    m4.put("foo", "b", 5, "7");
+    m4.put("cf4", "z", 5, "8");
+
+    Mutation m5 = new Mutation("r5");
+    m5.put("cf3", "z", 6, "A");
+    m5.put("cf4", "z", 6, "B");
+
+    imm.mutate(Arrays.asList(m1, m2, m3, m4, m5), 10);
+
+    MemoryIterator iter1 = imm.skvIterator(null);
+    seekLocalityGroups(iter1);
+    assertEquals(10, imm.getNumEntries());
+
+    imm.delete(0);
+
+    seekLocalityGroups(iter1);
+  }
+
+  @Test
+  public void testStripedMapConcurrentMutations() throws Exception {
+    ConfigurationCopy config = newConfig(uniqueDirPaths(1)[0]);
+    config.set(Property.TSERV_MEMORY_MAP_STRIPES, "8");
+    InMemoryMap imm = new InMemoryMap(config, getServerContext(), TableId.of("--TEST--"));
+
+    final int writers = 8;
+    final int batches = 50;
+    final int rowsPerBatch = 20;
+
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int w = 0; w < writers; w++) {
+        final int writer = w;
+        futures.add(executor.submit(() -> {
+          for (int b = 0; b < batches; b++) {
+            List<Mutation> batch = new ArrayList<>();
+            for (int r = 0; r < rowsPerBatch; r++) {
+              Mutation m = new Mutation(String.format("r%02d_%03d_%02d", writer, b, r));
+              m.put("cf", "cq1", 1, "v1");
+              m.put("cf", "cq2", 1, "v2");
+              batch.add(m);
+            }
+            imm.mutate(batch, rowsPerBatch * 2);
+            // every completed write must be visible to a new iterator
+            MemoryIterator iter = imm.skvIterator(null);
+            try {
+              iter.seek(new Range(batch.get(rowsPerBatch - 1).getRow()), Set.of(), false);
+              assertTrue(iter.hasTop());
+            } finally {
+              iter.close();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(writers * batches * rowsPerBatch * 2, imm.getNumEntries());
+
+    MemoryIterator iter = imm.skvIterator(null);
+    iter.seek(new Range(), Set.of(), false);
+    int count = 0;
+    Key prev = null;
+    while (iter.hasTop()) {
+      if (prev != null) {
+        assertTrue(prev.compareTo(iter.getTopKey()) < 0);
+      }
+      prev = new Key(iter.getTopKey());
+      count++;
+      iter.next();
+    }
+    assertEquals(writers * batches * rowsPerBatch * 2, count);
+    iter.close();
+
+    // all writes were published, so the map can be compacted
+    imm.compactionIterator();
+  }
+
+  @Test
+  public void testOffHeapMap() throws Exception {
+    ConfigurationCopy config = newConfig(uniqueDirPaths(1)[0]);
+    config.set(Property.TSERV_MEMORY_MAP_OFFHEAP_ENABLED, "true");
+    config.set(Property.TSERV_MEMORY_MAP_OFFHEAP_ARENA_SIZE, "256");
+    InMemoryMap imm = new InMemoryMap(config, getServerContext(), TableId.of("--TEST--"));
+    assertEquals(InMemoryMap.TYPE_OFF_HEAP_MAP, imm.getMapType());
+
+    mutate(imm, "r1", "foo:cq1", 3, "bar1");
+    mutate(imm, "r1", "foo:cq1", 3, "bar2");
+    MemoryIterator ski1 = imm.skvIterator(null);
+    mutate(imm, "r1", "foo:cq1", 3, "bar3");
+    mutate(imm, "r3", "foo:cq1", 3, "bar9");
+    mutate(imm, "r3", "foo:cq1", 3, "bara");
+    // larger than an arena, so it is given an arena of its own
+    String big = "x".repeat(1000);
+    mutate(imm, "r2", "foo:cq2", 5, big);
+    MemoryIterator ski2 = imm.skvIterator(null);
+
+    ski1.seek(new Range(new Text("r1")), Set.of(), false);
+    testAndCallNext(ski1, "r1", "foo:cq1", 3, "bar2");
+    testAndCallNext(ski1, "r1", "foo:cq1", 3, "bar1");
+    assertFalse(ski1.hasTop());
+
+    ski2.seek(new Range(), Set.of(), false);
+    testAndCallNext(ski2, "r1", "foo:cq1", 3, "bar3");
+    testAndCallNext(ski2, "r1", "foo:cq1", 3, "bar2");
+    testAndCallNext(ski2, "r1", "foo:cq1", 3, "bar1");
+    testAndCallNext(ski2, "r2", "foo:cq2", 5, big);
+    testAndCallNext(ski2, "r3", "foo:cq1", 3, "bara");
+    testAndCallNext(ski2, "r3", "foo:cq1", 3, "bar9");
+    assertFalse(ski2.hasTop());
+
+    ski2.seek(new Range(newKey("r1", "foo:cq1", 3), false, newKey("r3", "foo:cq1", 3), true),
+        Set.of(), false);
+    testAndCallNext(ski2, "r2", "foo:cq2", 5, big);
+    testAndCallNext(ski2, "r3", "foo:cq1", 3, "bara");
+    testAndCallNext(ski2, "r3", "foo:cq1", 3, "bar9");
+    assertFalse(ski2.hasTop());
+
+    assertEquals(6, imm.getNumEntries());
+    assertTrue(imm.estimatedSizeInBytes() > big.length());
+
+    imm.delete(0);
+
+    ski1.seek(new Range(new Text("r1")), Set.of(), false);
+    testAndCallNext(ski1, "r1", "foo:cq1", 3, "bar2");
+    testAndCallNext(ski1, "r1", "foo:cq1", 3, "bar1");
+    assertFalse(ski1.hasTop());
+
+    ski1.close();
+    ski2.close();
+  }
+
+  @Test
+  public void testOffHeapMapConcurrentMutations() throws Exception {
+    // small arenas, so the writers often have to replace a full arena
+    OffHeapMap map = new OffHeapMap(256);
+    int writers = 4;
+    int rows = 500;
+    ExecutorService pool = Executors.newFixedThreadPool(writers);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int w = 0; w < writers; w++) {
+        int writer = w;
+        futures.add(pool.submit(() -> {
+          for (int r = 0; r < rows; r++) {
+            Mutation m = new Mutation(String.format("r%04d", r));
+            m.put("cf", "w" + writer, 1, "v" + writer + "_" + r);
+            map.mutate(List.of(m), r);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(writers * rows, map.size());
+
+    SortedKeyValueIterator<Key,Value> iter = map.skvIterator();
+    iter.seek(new Range(), Set.of(), false);
+    for (int r = 0; r < rows; r++) {
+      for (int w = 0; w < writers; w++) {
+        testAndCallNext(iter, String.format("r%04d", r), "cf:w" + w, 1, "v" + w + "_" + r);
+      }
+    }
+    assertFalse(iter.hasTop());
+
+    // the arenas are freed, so the map and its iterators can no longer be used
+    map.delete();
+    assertThrows(IllegalStateException.class, () -> iter.seek(new Range(), Set.of(), false));
+    assertThrows(IllegalStateException.class, map::skvIterator);
+    assertThrows(IllegalStateException.class,
+        () -> map.mutate(List.of(new Mutation("r")), 0));
+  }
+
+  @Test
+  public void testOffHeapLocalityGroups() throws Exception {
+    ConfigurationCopy config = newConfig(uniqueDirPaths(1)[0]);
+    config.set(Property.TSERV_MEMORY_MAP_OFFHEAP_ENABLED, "true");
+    config.set(Property.TABLE_LOCALITY_GROUP_PREFIX + "lg1",
+        LocalityGroupUtil.encodeColumnFamilies(toTextSet("cf1", "cf2")));
+    config.set(Property.TABLE_LOCALITY_GROUP_PREFIX + "lg2",
+        LocalityGroupUtil.encodeColumnFamilies(toTextSet("cf3", "cf4")));
+    config.set(Property.TABLE_LOCALITY_GROUPS.getKey(), "lg1,lg2");
+
+    InMemoryMap imm = new InMemoryMap(config, getServerContext(), TableId.of("--TEST--"));
+    assertEquals(InMemoryMap.TYPE_LOCALITY_GROUP_MAP_OFF_HEAP, imm.getMapType());
+
+    Mutation m1 = new Mutation("r1");
+    m1.put("cf1", "x", 2, "1");
+    m1.put("cf1", "y", 2, "2");
+    m1.put("cf3", "z", 2, "3");
+    m1.put("foo", "b", 2, "9");
+
+    Mutation m2 = new Mutation("r2");
+    m2.put("cf2", "x", 3, "5");
+
+    Mutation m3 = new Mutation("r3");
+    m3.put("foo", "b", 4, "6");
+
+    Mutation m4 = new Mutation("r4");
+    m4.put("foo", "b", 5, "7");
+    m4.put("cf4", "z", 5, "8");
+
+    Mutation m5 = new Mutation("r5");
+    m5.put("cf3", "z", 6, "A");
+    m5.put("cf4", "z", 6, "B");
+
+    imm.mutate(Arrays.asList(m1, m2, m3, m4, m5), 10);
+
+    MemoryIterator iter1 = imm.skvIterator(null);
+    seekLocalityGroups(iter1);
+    SortedKeyValueIterator<Key,Value> dc1 = iter1.deepCopy(new SampleIE());
+    seekLocalityGroups(dc1);
+    assertEquals(10, imm.getNumEntries());
+
+    imm.delete(0);
+
+    seekLocalityGroups(iter1);
+    seekLocalityGroups(dc1);
+  }
+
   @Test
   public void testSample() throws Exception {
 
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.log;
+
+import static org.apache.accumulo.server.log.SortedLogState.getFinishedMarkerPath;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.rfile.RFile;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.spi.crypto.GenericCryptoServiceFactory;
+import org.apache.accumulo.server.ServerContext;
+import org.apache.accumulo.server.fs.VolumeManager;
+import org.apache.accumulo.server.fs.VolumeManagerImpl;
+import org.apache.accumulo.tserver.TabletServer;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+@SuppressFBWarnings(value = {"PATH_TRAVERSAL_IN", "PATH_TRAVERSAL_OUT"},
+    justification = "paths not set by user input")
+public class LogSorterTest {
+
+  // a log written by 1.6 that holds enough entries to fill several small sort buffers
+  private static final String WALOG = "/walog-from-16.walog";
+
+  @TempDir
+  private File tempDir;
+
+  private VolumeManager fs;
+  private Path walogPath;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    fs = VolumeManagerImpl.getLocalForTesting(tempDir.getAbsolutePath());
+    File walog = new File(tempDir, WALOG);
+    try (InputStream walogStream = getClass().getResourceAsStream(WALOG)) {
+      Files.copy(walogStream, walog.toPath());
+    }
+    walogPath = new Path("file://" + walog.getAbsolutePath());
+  }
+
+  @Test
+  public void testParallelSortMatchesSequentialSort() throws IOException {
+    String sequentialDest = "file://" + tempDir.getAbsolutePath() + "/sequential";
+    String parallelDest = "file://" + tempDir.getAbsolutePath() + "/parallel";
+    sort(sequentialDest, 1);
+    sort(parallelDest, 4);
+
+    List<List<Entry<Key,Value>>> sequentialParts = readParts(sequentialDest);
+    List<List<Entry<Key,Value>>> parallelParts = readParts(parallelDest);
+    assertTrue(sequentialParts.size() > 1, "expected the small buffer to create several parts");
+    assertEquals(sequentialParts, parallelParts);
+  }
+
+  private void sort(String destPath, int writeThreads) throws IOException {
+    ConfigurationCopy conf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    conf.set(Property.TSERV_WAL_SORT_BUFFER_SIZE, "1K");
+    conf.set(Property.TSERV_WAL_SORT_WRITE_THREADS, Integer.toString(writeThreads));
+
+    ServerContext context = createMock(ServerContext.class);
+    TabletServer server = createMock(TabletServer.class);
+    expect(server.getContext()).andReturn(context).anyTimes();
+    expect(context.getConfiguration()).andReturn(conf).anyTimes();
+    expect(context.getCryptoFactory()).andReturn(new GenericCryptoServiceFactory()).anyTimes();
+    expect(context.getVolumeManager()).andReturn(fs).anyTimes();
+    replay(server, context);
+
+    LogSorter logSorter = new LogSorter(server);
+    LogSorter.LogProcessor logProcessor = logSorter.new LogProcessor();
+    logProcessor.sort(fs, WALOG, walogPath, destPath);
+
+    assertTrue(fs.exists(getFinishedMarkerPath(destPath)));
+    verify(server, context);
+  }
+
+  private List<List<Entry<Key,Value>>> readParts(String destPath) throws IOException {
+    FileSystem fileSystem = fs.getFileSystemByPath(new Path(destPath));
+    List<List<Entry<Key,Value>>> parts = new ArrayList<>();
+    for (int part = 0;; part++) {
+      Path partPath = new Path(destPath, String.format("part-r-%05d.rf", part));
+      if (!fileSystem.exists(partPath)) {
+        break;
+      }
+      List<Entry<Key,Value>> entries = new ArrayList<>();
+      try (Scanner scanner =
+          RFile.newScanner().from(partPath.toString()).withFileSystem(fileSystem).build()) {
+        scanner.forEach(e -> entries
+            .add(new SimpleImmutableEntry<>(new Key(e.getKey()), new Value(e.getValue()))));
+      }
+      parts.add(entries);
+    }
+    return parts;
+  }
+}